@@ -5,11 +5,15 @@ import ch.njol.skript.config.Node;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.config.SimpleNode;
 import ch.njol.skript.lang.*;
+import ch.njol.skript.lang.parser.ExpressionParseMemo;
+import ch.njol.skript.lang.parser.ParseHintCache;
+import ch.njol.skript.lang.parser.ParseHints;
 import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.log.CountingLogHandler;
 import ch.njol.skript.log.LogEntry;
 import ch.njol.skript.log.RetainingLogHandler;
 import ch.njol.skript.log.SkriptLogger;
+import ch.njol.skript.registrations.Feature;
 import ch.njol.skript.structures.StructOptions.OptionsData;
 import ch.njol.skript.test.runner.TestMode;
 import ch.njol.skript.util.ExceptionUtils;
@@ -24,7 +28,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.UnknownNullability;
 import org.skriptlang.skript.bukkit.text.TextComponentParser;
+import org.skriptlang.skript.lang.compiler.TriggerCompiler;
 import org.skriptlang.skript.lang.script.Script;
+import org.skriptlang.skript.lang.script.ScriptData;
 import org.skriptlang.skript.lang.script.ScriptWarning;
 import org.skriptlang.skript.lang.structure.Structure;
 import org.skriptlang.skript.util.event.EventRegistry;
@@ -38,6 +44,7 @@ import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -520,27 +527,26 @@ public class ScriptLoader {
 
 		ScriptInfo scriptInfo = new ScriptInfo();
 
-		List<LoadingScriptInfo> scripts = new ArrayList<>();
+		ParseHintCache parseHintCache = SkriptConfig.scriptParseCache.value() ? ParseHintCache.get() : null;
 
-		List<CompletableFuture<Void>> scriptInfoFutures = new ArrayList<>();
+		List<CompletableFuture<LoadingScriptInfo>> scriptInfoFutures = new ArrayList<>();
 		for (Config config : configs) {
 			if (config == null)
 				throw new NullPointerException();
 
-			CompletableFuture<Void> future = makeFuture(() -> {
-				LoadingScriptInfo info = loadScript(config);
-				scripts.add(info);
-				scriptInfo.add(new ScriptInfo(1, info.structures.size()));
-				return null;
-			}, openCloseable);
-
-			scriptInfoFutures.add(future);
+			scriptInfoFutures.add(makeFuture(() -> loadScript(config, parseHintCache), openCloseable));
 		}
 
 		return CompletableFuture.allOf(scriptInfoFutures.toArray(new CompletableFuture[0]))
 			.thenApply(ignored -> {
-				// TODO in the future this won't work when parallel loading is fixed
-				// It does now though so let's avoid calling getParser() a bunch.
+				// Keep the order of the configs, no matter which loader thread finished first
+				List<LoadingScriptInfo> scripts = scriptInfoFutures.stream()
+					.map(CompletableFuture::join)
+					.toList();
+				for (LoadingScriptInfo info : scripts)
+					scriptInfo.add(new ScriptInfo(1, info.structures.size()));
+
+				// The pre-loading and post-loading stages run on this thread only
 				ParserInstance parser = getParser();
 
 				try {
@@ -581,32 +587,48 @@ public class ScriptLoader {
 					});
 					parser.setInactive();
 
-					// TODO in the future, Structure#load/Structure#postLoad should be split across multiple threads if parallel loading is enabled.
-					// However, this is not possible right now as reworks in multiple areas will be needed.
-					// For example, the "Commands" class still uses a static list for currentArguments that is cleared between loads.
-					// Until these reworks happen, limiting main loading to asynchronous (not parallel) is the only choice we have.
-
 					// loading
-					loadingStructures.removeIf(loadingStructure -> {
-						LoadingScriptInfo loadingInfo = loadingStructure.loadingScriptInfo();
-						Structure structure = loadingStructure.structure();
-
-						parser.setActive(loadingInfo.script);
-						parser.setCurrentStructure(structure);
-						parser.setNode(loadingInfo.nodeMap.get(structure));
-
-						try {
-							if (!structure.load()) {
-								loadingInfo.structures.remove(structure);
-								return true;
+					// Structures of different scripts are loaded on the loader threads if parallel loading is enabled,
+					//  with all structures of a priority being loaded before the next priority is started.
+					// Pre-loading and post-loading stay on this thread, as they usually register things globally.
+					Set<LoadingStructure> failed = StructureLoadScheduler.load(
+						loadingStructures,
+						Comparator.comparing(loadingStructure -> loadingStructure.structure().getPriority()),
+						LoadingStructure::loadingScriptInfo,
+						loadingStructure -> loadingStructure.structure().canLoadInParallel(),
+						loadingStructure -> {
+							LoadingScriptInfo loadingInfo = loadingStructure.loadingScriptInfo();
+							Structure structure = loadingStructure.structure();
+
+							ParserInstance loadingParser = getParser(); // this thread's parser
+							loadingParser.setActive(loadingInfo.script);
+							loadingParser.setCurrentStructure(structure);
+							loadingParser.setNode(loadingInfo.nodeMap.get(structure));
+
+							try {
+								return structure.load();
+							} catch (Exception e) {
+								//noinspection ThrowableNotThrown
+								Skript.exception(e, "An error occurred while trying to load a Structure.");
+								return false;
 							}
-						} catch (Exception e) {
-							//noinspection ThrowableNotThrown
-							Skript.exception(e, "An error occurred while trying to load a Structure.");
-							loadingInfo.structures.remove(structure);
-							return true;
-						}
-						return false;
+						},
+						isParallel() ? getExecutor() : null,
+						OpenCloseable.combine(openCloseable, new OpenCloseable() {
+							@Override
+							public void open() { }
+
+							@Override
+							public void close() {
+								getParser().setInactive();
+							}
+						})
+					);
+					loadingStructures.removeIf(loadingStructure -> {
+						if (!failed.contains(loadingStructure))
+							return false;
+						loadingStructure.loadingScriptInfo().structures.remove(loadingStructure.structure());
+						return true;
 					});
 					parser.setInactive();
 
@@ -648,6 +670,12 @@ public class ScriptLoader {
 					});
 					parser.setInactive();
 
+					if (parseHintCache != null) {
+						for (LoadingScriptInfo loadingInfo : scripts)
+							parseHintCache.update(loadingInfo.script);
+						parseHintCache.save();
+					}
+
 					return scriptInfo;
 				} catch (Exception e) {
 					// Something went wrong, we need to make sure the exception is printed
@@ -656,6 +684,7 @@ public class ScriptLoader {
 					parser.setInactive();
 
 					for (LoadingScriptInfo info : scripts) {
+						info.script.removeData(ExpressionParseMemo.class);
 						untrack(info.script);
 					}
 
@@ -671,10 +700,11 @@ public class ScriptLoader {
 	/**
 	 * Creates a script and loads the provided config into it.
 	 * @param config The config to load into a script.
+	 * @param parseHintCache The cache to get the script's {@link ParseHints} from, or null to parse it without hints.
 	 * @return A pair containing the script that was loaded and a modifiable version of the structures list.
 	 */
 	// Whenever you call this method, make sure to also call PreScriptLoadEvent
-	private static LoadingScriptInfo loadScript(Config config) {
+	private static LoadingScriptInfo loadScript(Config config, @Nullable ParseHintCache parseHintCache) {
 		if (config.getFile() == null)
 			throw new IllegalArgumentException("A config must have a file to be loaded.");
 
@@ -682,6 +712,11 @@ public class ScriptLoader {
 		Map<Structure, Node> nodeMap = new HashMap<>();
 		List<Structure> structures = new ArrayList<>();
 		Script script = new Script(config, structures);
+		LoadedStructures loadedStructures = new LoadedStructures(structures);
+		script.addData(loadedStructures);
+		if (parseHintCache != null)
+			script.addData(parseHintCache.hints(config));
+		script.addData(new ExpressionParseMemo()); // removed once the script is loaded
 		parser.setActive(script);
 
 		try {
@@ -690,30 +725,13 @@ public class ScriptLoader {
 
 			try (CountingLogHandler ignored = new CountingLogHandler(SkriptLogger.SEVERE).start()) {
 				for (Node node : config.getMainNode()) {
-					if (!(node instanceof SimpleNode) && !(node instanceof SectionNode)) {
-						// unlikely to occur, but just in case
-						Skript.error("could not interpret line as a structure");
-						continue;
-					}
-
-					String line = node.getKey();
-					if (line == null)
-						continue;
-					line = replaceOptions(line); // replace options here before validation
-
-					if (!SkriptParser.validateLine(line))
-						continue;
-
-					if (Skript.logVeryHigh() && !Skript.debug())
-						Skript.info("loading trigger '" + line + "'");
-
-					Structure structure = Structure.parse(line, node, "Can't understand this structure: " + line);
-
+					Structure structure = parseStructure(node);
 					if (structure == null)
 						continue;
 
 					structures.add(structure);
 					nodeMap.put(structure, node);
+					loadedStructures.add(structure, node);
 				}
 
 				if (Skript.logHigh()) {
@@ -757,6 +775,32 @@ public class ScriptLoader {
 		return new LoadingScriptInfo(script, structures, nodeMap);
 	}
 
+	/**
+	 * Parses a top-level node of a script as a structure. The script must be active.
+	 * @param node The node to parse.
+	 * @return The structure, or null if the node is not a valid structure, in which case an error has been printed.
+	 */
+	private static @Nullable Structure parseStructure(Node node) {
+		if (!(node instanceof SimpleNode) && !(node instanceof SectionNode)) {
+			// unlikely to occur, but just in case
+			Skript.error("could not interpret line as a structure");
+			return null;
+		}
+
+		String line = node.getKey();
+		if (line == null)
+			return null;
+		line = replaceOptions(line); // replace options here before validation
+
+		if (!SkriptParser.validateLine(line))
+			return null;
+
+		if (Skript.logVeryHigh() && !Skript.debug())
+			Skript.info("loading trigger '" + line + "'");
+
+		return Structure.parse(line, node, "Can't understand this structure: " + line);
+	}
+
 	/*
 	 * Script Structure Loading Methods
 	 */
@@ -992,6 +1036,155 @@ public class ScriptLoader {
 		return loadScripts(configs, openCloseable);
 	}
 
+	/**
+	 * The structures of a loaded script and the nodes they were loaded from,
+	 * used to reload only the structures of the script that changed.
+	 * @see #reloadScriptIncrementally(Script, OpenCloseable)
+	 */
+	private static final class LoadedStructures implements ScriptData {
+
+		/**
+		 * The script's modifiable list of structures.
+		 */
+		private final List<Structure> structures;
+		private final Map<Structure, Node> nodes = Collections.synchronizedMap(new IdentityHashMap<>());
+		private final Map<Structure, String> hashes = Collections.synchronizedMap(new IdentityHashMap<>());
+
+		private LoadedStructures(List<Structure> structures) {
+			this.structures = structures;
+		}
+
+		private void add(Structure structure, Node node) {
+			nodes.put(structure, node);
+			hashes.put(structure, StructureDiff.hash(node));
+		}
+
+		private void remove(Structure structure) {
+			structures.remove(structure);
+			nodes.remove(structure);
+			hashes.remove(structure);
+		}
+
+	}
+
+	/**
+	 * Reloads the provided Script, only unloading and loading the Structures that changed since it was loaded.
+	 * Structures that didn't change are kept as they are, e.g. the triggers of unchanged events stay registered.
+	 * <br>
+	 * If a Structure that changed, was added or was removed
+	 *  can't be {@link Structure#canReloadIndividually() reloaded individually}, e.g. options,
+	 *  the Script is reloaded entirely like {@link #reloadScript(Script, OpenCloseable)}.
+	 * {@link ScriptLoadEvent}s and {@link ScriptUnloadEvent}s are only called in that case.
+	 * @param script The Script to reload.
+	 * @param openCloseable An {@link OpenCloseable} that will be called before and after the reload.
+	 * @return Info on the loaded Structures.
+	 */
+	public static CompletableFuture<ScriptInfo> reloadScriptIncrementally(Script script, OpenCloseable openCloseable) {
+		LoadedStructures loaded = script.getData(LoadedStructures.class);
+		File file = script.getConfig().getFile();
+		if (loaded == null || file == null || !loadedScripts.contains(script))
+			return reloadScript(script, openCloseable);
+
+		Config config = loadStructure(file);
+		if (config == null) // the file was removed, so the script was unloaded
+			return CompletableFuture.completedFuture(new ScriptInfo());
+		untrack(script); // tracked again when falling back to a full reload
+
+		// match the structures to the nodes of the new config with the same contents
+		StructureDiff<Structure> diff = StructureDiff.diff(loaded.structures, loaded.hashes::get, config.getMainNode());
+		List<Structure> removed = diff.removed;
+		List<Node> added = diff.added;
+
+		if (!removed.stream().allMatch(Structure::canReloadIndividually))
+			return reloadScript(script, openCloseable);
+
+		ParserInstance parser = getParser();
+		Map<Structure, Node> nodeMap = new IdentityHashMap<>();
+		List<Structure> addedStructures = new ArrayList<>();
+		boolean reloadEntirely;
+		openCloseable.open();
+		script.addData(new ExpressionParseMemo());
+		try {
+			// parse the new structures first, so nothing is unloaded if the script has to be reloaded entirely
+			try (RetainingLogHandler log = SkriptLogger.startRetainingLog()) {
+				parser.setActive(script);
+				for (Node node : added) {
+					Structure structure = parseStructure(node);
+					if (structure == null)
+						continue;
+					addedStructures.add(structure);
+					nodeMap.put(structure, node);
+				}
+				parser.setInactive();
+
+				reloadEntirely = !addedStructures.stream().allMatch(Structure::canReloadIndividually);
+				if (!reloadEntirely) // otherwise, errors are printed by the full reload
+					log.printLog();
+			}
+
+			if (!reloadEntirely) {
+				// unload removed structures, like unloadScripts
+				removed.sort(Comparator.comparing(Structure::getPriority).reversed());
+				parser.setActive(script);
+				for (Structure structure : removed)
+					structure.unload();
+				for (Structure structure : removed)
+					structure.postUnload();
+				parser.setInactive();
+				removed.forEach(loaded::remove);
+
+				// load added structures, like loadScripts
+				addedStructures.sort(Comparator.comparing(Structure::getPriority));
+				loadStage(script, addedStructures, nodeMap, Structure::preLoad, "preLoad");
+				loadStage(script, addedStructures, nodeMap, Structure::load, "load");
+				loadStage(script, addedStructures, nodeMap, Structure::postLoad, "postLoad");
+
+				for (Structure structure : addedStructures)
+					loaded.add(structure, nodeMap.get(structure));
+				loaded.structures.addAll(addedStructures);
+				// kept structures may have moved, e.g. if lines were added above them
+				diff.kept.forEach((structure, node) -> loaded.nodes.get(structure).renumber(node));
+				loaded.structures.sort(Comparator.comparingInt(structure -> loaded.nodes.get(structure).getLine()));
+
+				if (Skript.logHigh()) {
+					Skript.info("reloaded " + addedStructures.size() + " and unloaded " + removed.size() + " structures of '"
+						+ config.getFileName() + "'");
+				}
+			}
+		} finally {
+			script.removeData(ExpressionParseMemo.class);
+			parser.setInactive();
+			openCloseable.close();
+		}
+
+		if (reloadEntirely)
+			return reloadScript(script, openCloseable);
+		return CompletableFuture.completedFuture(new ScriptInfo(1, addedStructures.size()));
+	}
+
+	/**
+	 * Runs a loading stage for the given structures of a script,
+	 *  removing the structures that fail to load from the list.
+	 */
+	private static void loadStage(Script script, List<Structure> structures, Map<Structure, Node> nodeMap,
+								  Predicate<Structure> stage, String stageName) {
+		ParserInstance parser = getParser();
+		structures.removeIf(structure -> {
+			parser.setActive(script);
+			parser.setCurrentStructure(structure);
+			parser.setNode(nodeMap.get(structure));
+
+			try {
+				return !stage.test(structure);
+			} catch (Exception e) {
+				//noinspection ThrowableNotThrown
+				Skript.exception(e, "An error occurred while trying to " + stageName + " a Structure.");
+				return true;
+			}
+		});
+		parser.setInactive();
+	}
+
 	/*
 	 * Code Loading Methods
 	 */
@@ -1167,6 +1360,9 @@ public class ScriptLoader {
 		// Destroy local variable type hints for this section
 		parser.getHintManager().exitScope();
 
+		if (parser.hasExperiment(Feature.COMPILED_TRIGGERS))
+			items = TriggerCompiler.compile(items);
+
 		for (int i = 0; i < items.size() - 1; i++)
 			items.get(i).setNext(items.get(i + 1));
 
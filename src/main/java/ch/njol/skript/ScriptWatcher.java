@@ -0,0 +1,198 @@
+package ch.njol.skript;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Watches the scripts folder for changed files with a single {@link WatchService},
+ * so scripts can be reloaded automatically when they are saved without checking each file periodically.
+ * <p>
+ * Changes are debounced: a file is only reported once it hasn't changed for {@link #DEBOUNCE_MILLIS} milliseconds,
+ * so an editor saving a file in multiple steps causes a single reload.
+ * Listeners are called on the watcher's own thread, one at a time.
+ */
+public final class ScriptWatcher implements Closeable {
+
+	static final long DEBOUNCE_MILLIS = 500;
+
+	private static @Nullable ScriptWatcher instance;
+
+	/**
+	 * @return The watcher of the scripts folder, which is started when first used and stopped when Skript is disabled.
+	 * @throws IOException If the scripts folder can't be watched.
+	 */
+	public static synchronized ScriptWatcher get() throws IOException {
+		if (instance == null) {
+			ScriptWatcher watcher = new ScriptWatcher(Skript.getInstance().getScriptsFolder().toPath(), DEBOUNCE_MILLIS);
+			Skript.closeOnDisable(() -> {
+				try {
+					watcher.close();
+				} catch (IOException e) {
+					//noinspection ThrowableNotThrown
+					Skript.exception(e, "Could not stop watching the scripts folder");
+				}
+			});
+			instance = watcher;
+		}
+		return instance;
+	}
+
+	private final WatchService watchService;
+	private final long debounceMillis;
+
+	/**
+	 * The watched directories, by their watch keys.
+	 */
+	private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+	private final Map<Path, Runnable> listeners = new ConcurrentHashMap<>();
+	private volatile @Nullable Consumer<File> fallback;
+
+	/**
+	 * The scheduled notifications of changed files, which are rescheduled when a file changes again.
+	 */
+	private final Map<Path, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService notifier;
+
+	ScriptWatcher(Path root, long debounceMillis) throws IOException {
+		this.debounceMillis = debounceMillis;
+		watchService = root.getFileSystem().newWatchService();
+		register(root);
+		notifier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Skript script watcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		Thread watcherThread = new Thread(this::watch, "Skript script watcher events");
+		watcherThread.setDaemon(true);
+		watcherThread.start();
+	}
+
+	/**
+	 * Calls the given listener whenever the given file changes, replacing any previous listener of the file.
+	 *
+	 * @param file The file to watch, which must be inside the scripts folder.
+	 * @param listener The listener to call.
+	 */
+	public void watch(File file, Runnable listener) {
+		listeners.put(normalize(file.toPath()), listener);
+	}
+
+	/**
+	 * Stops calling the given listener when the given file changes.
+	 */
+	public void unwatch(File file, Runnable listener) {
+		listeners.remove(normalize(file.toPath()), listener);
+	}
+
+	/**
+	 * Sets the listener to call for changed script files that have no {@link #watch(File, Runnable) listener},
+	 * e.g. to reload every script when it changes.
+	 *
+	 * @param fallback The listener, or null to ignore those files.
+	 */
+	public void setFallback(@Nullable Consumer<File> fallback) {
+		this.fallback = fallback;
+	}
+
+	private void register(Path directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			for (Path path : paths.filter(Files::isDirectory).toList()) {
+				WatchKey key = path.register(watchService,
+					StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+				directories.put(key, normalize(path));
+			}
+		}
+	}
+
+	private void watch() {
+		while (true) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+
+			Path directory = directories.get(key);
+			if (directory != null) {
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) { // events were lost, check all watched files
+						listeners.keySet().forEach(this::changed);
+						continue;
+					}
+					Path path = directory.resolve((Path) event.context());
+					if (Files.isDirectory(path)) {
+						if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+							try {
+								register(path);
+							} catch (IOException e) {
+								Skript.debug("Could not watch the new folder " + path + ": " + e.getMessage());
+							}
+						}
+						continue;
+					}
+					changed(path);
+				}
+			}
+			if (!key.reset())
+				directories.remove(key);
+		}
+	}
+
+	/**
+	 * Schedules the notification of a changed file, postponing a previously scheduled one.
+	 */
+	private void changed(Path path) {
+		pending.compute(path, (key, future) -> {
+			if (future != null)
+				future.cancel(false);
+			return notifier.schedule(() -> notifyChanged(path), debounceMillis, TimeUnit.MILLISECONDS);
+		});
+	}
+
+	private void notifyChanged(Path path) {
+		try {
+			Runnable listener = listeners.get(path);
+			if (listener != null) {
+				listener.run();
+				return;
+			}
+			Consumer<File> fallback = this.fallback;
+			if (fallback != null && path.getFileName().toString().endsWith(".sk"))
+				fallback.accept(path.toFile());
+		} catch (Exception e) {
+			//noinspection ThrowableNotThrown
+			Skript.exception(e, "An error occurred while handling the change of " + path);
+		}
+	}
+
+	private static Path normalize(Path path) {
+		return path.toAbsolutePath().normalize();
+	}
+
+	@Override
+	public void close() throws IOException {
+		notifier.shutdownNow();
+		watchService.close();
+	}
+
+}
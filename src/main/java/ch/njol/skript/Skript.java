@@ -20,6 +20,7 @@ import ch.njol.skript.log.*;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.registrations.EventValues;
 import ch.njol.skript.registrations.Feature;
+import ch.njol.skript.structures.StructAutoReload;
 import ch.njol.skript.test.runner.*;
 import ch.njol.skript.timings.SkriptTimings;
 import ch.njol.skript.update.ReleaseManifest;
@@ -727,6 +728,7 @@ public final class Skript extends JavaPlugin implements Listener {
 								));
 
 							Skript.info(m_finished_loading.toString());
+							StructAutoReload.watchAllScripts();
 
 							// EvtSkript.onSkriptStart should be called on main server thread
 							if (!ScriptLoader.isAsync()) {
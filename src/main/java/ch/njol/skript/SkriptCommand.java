@@ -5,6 +5,7 @@ import ch.njol.skript.command.CommandHelp;
 import ch.njol.skript.doc.Documentation;
 import ch.njol.skript.doc.HTMLGenerator;
 import ch.njol.skript.doc.JSONGenerator;
+import ch.njol.skript.lang.parser.ParseProfiler;
 import ch.njol.skript.localization.ArgsMessage;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.PluralizingArgsMessage;
@@ -38,6 +39,8 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
@@ -94,7 +97,9 @@ public class SkriptCommand implements CommandExecutor {
 	private static final ArgsMessage m_reloaded = new ArgsMessage(CONFIG_NODE + ".reload.reloaded");
 	private static final ArgsMessage m_reload_error = new ArgsMessage(CONFIG_NODE + ".reload.error");
 
-	private static void reloaded(CommandSender sender, RedirectingLogHandler logHandler, TimingLogHandler timingLogHandler, String what, Object... args) {
+	private static void reloaded(CommandSender sender, RedirectingLogHandler logHandler, TimingLogHandler timingLogHandler, @Nullable ParseProfiler profiler, String what, Object... args) {
+		if (profiler != null)
+			saveProfile(sender, profiler);
 		what = args.length == 0 ? Language.get(CONFIG_NODE + ".reload." + what) : PluralizingArgsMessage.format(Language.format(CONFIG_NODE + ".reload." + what, args));
 		String timeTaken = String.valueOf(timingLogHandler.getTimeTaken());
 
@@ -108,6 +113,30 @@ public class SkriptCommand implements CommandExecutor {
 		}
 	}
 
+	/**
+	 * @return Whether the given arguments of the reload command end with 'profile',
+	 * in which case the parsing of the reloaded scripts should be profiled.
+	 */
+	private static boolean isProfiled(String[] args) {
+		if (args.length <= 2 || !args[args.length - 1].equalsIgnoreCase("profile"))
+			return false;
+		if (args[1].equalsIgnoreCase("config") || args[1].equalsIgnoreCase("aliases"))
+			return false;
+		// a script may be named e.g. 'my profile.sk'
+		return ScriptLoader.getScriptFromName(StringUtils.join(args, " ", 1, args.length)) == null;
+	}
+
+	private static void saveProfile(CommandSender sender, ParseProfiler profiler) {
+		profiler.stop();
+		String name = "parse-profile-" + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
+		try {
+			Path file = profiler.write(Skript.getInstance().getDataFolder().toPath().resolve("profiles"), name);
+			info(sender, "reload.profile.saved", Skript.getInstance().getDataFolder().toPath().relativize(file));
+		} catch (IOException e) {
+			error(sender, "reload.profile.io error", ExceptionUtils.toString(e));
+		}
+	}
+
 	private static void info(CommandSender sender, String what, Object... args) {
 		what = args.length == 0 ? Language.get(CONFIG_NODE + "." + what) : PluralizingArgsMessage.format(Language.format(CONFIG_NODE + "." + what, args));
 		Skript.info(sender, StringUtils.fixCapitalization(what));
@@ -132,6 +161,16 @@ public class SkriptCommand implements CommandExecutor {
 				.collect(Collectors.toSet()));
 		}
 
+		boolean profile = args[0].equalsIgnoreCase("reload") && isProfiled(args);
+		ParseProfiler profiler = profile ? ParseProfiler.start() : null;
+		if (profile) {
+			if (profiler == null) {
+				error(sender, "reload.profile.running");
+				return true;
+			}
+			args = Arrays.copyOf(args, args.length - 1);
+		}
+
 		try (
 			RedirectingLogHandler logHandler = new RedirectingLogHandler(recipients, "").start();
 			TimingLogHandler timingLogHandler = new TimingLogHandler().start()
@@ -149,7 +188,7 @@ public class SkriptCommand implements CommandExecutor {
 							.thenAccept(info -> {
 								if (info.files == 0)
 									Skript.warning(Skript.m_no_scripts.toString());
-								reloaded(sender, logHandler, timingLogHandler, "config, aliases and scripts");
+								reloaded(sender, logHandler, timingLogHandler, profiler, "config, aliases and scripts");
 							});
 					});
 				} else if (args[1].equalsIgnoreCase("scripts")) {
@@ -160,24 +199,29 @@ public class SkriptCommand implements CommandExecutor {
 						.thenAccept(info -> {
 							if (info.files == 0)
 								Skript.warning(Skript.m_no_scripts.toString());
-							reloaded(sender, logHandler, timingLogHandler, "scripts");
+							reloaded(sender, logHandler, timingLogHandler, profiler, "scripts");
 						});
 				} else if (args[1].equalsIgnoreCase("config")) {
 					reloading(sender, "main config", logHandler);
 					SkriptConfig.load();
-					reloaded(sender, logHandler, timingLogHandler, "main config");
+					reloaded(sender, logHandler, timingLogHandler, profiler, "main config");
 				} else if (args[1].equalsIgnoreCase("aliases")) {
 					reloading(sender, "aliases", logHandler);
 					Aliases.clear();
-					Aliases.loadAsync().thenRun(() -> reloaded(sender, logHandler, timingLogHandler, "aliases"));
+					Aliases.loadAsync().thenRun(() -> reloaded(sender, logHandler, timingLogHandler, profiler, "aliases"));
 				} else { // Reloading an individual Script or folder
 					File scriptFile = getScriptFromArgs(sender, args);
-					if (scriptFile == null)
+					if (scriptFile == null) {
+						if (profiler != null)
+							profiler.stop();
 						return true;
+					}
 
 					if (!scriptFile.isDirectory()) {
 						if (ScriptLoader.getDisabledScriptsFilter().accept(scriptFile)) {
 							info(sender, "reload.script disabled", scriptFile.getName().substring(ScriptLoader.DISABLED_SCRIPT_PREFIX_LENGTH), StringUtils.join(args, " ", 1, args.length));
+							if (profiler != null)
+								profiler.stop();
 							return true;
 						}
 
@@ -188,7 +232,7 @@ public class SkriptCommand implements CommandExecutor {
 							ScriptLoader.unloadScript(script);
 						ScriptLoader.loadScripts(scriptFile, OpenCloseable.combine(logHandler, timingLogHandler))
 							.thenAccept(scriptInfo ->
-								reloaded(sender, logHandler, timingLogHandler, "script", scriptFile.getName())
+								reloaded(sender, logHandler, timingLogHandler, profiler, "script", scriptFile.getName())
 							);
 					} else {
 						final String fileName = scriptFile.getName();
@@ -198,11 +242,13 @@ public class SkriptCommand implements CommandExecutor {
 							.thenAccept(scriptInfo -> {
 								if (scriptInfo.files == 0) {
 									info(sender, "reload.empty folder", fileName);
+									if (profiler != null)
+										profiler.stop();
 								} else {
 									if (logHandler.numErrors() == 0) {
-										reloaded(sender, logHandler, timingLogHandler, "x scripts in folder success", fileName, scriptInfo.files);
+										reloaded(sender, logHandler, timingLogHandler, profiler, "x scripts in folder success", fileName, scriptInfo.files);
 									} else {
-										reloaded(sender, logHandler, timingLogHandler, "x scripts in folder error", fileName, scriptInfo.files);
+										reloaded(sender, logHandler, timingLogHandler, profiler, "x scripts in folder error", fileName, scriptInfo.files);
 									}
 								}
 							});
@@ -479,6 +525,8 @@ public class SkriptCommand implements CommandExecutor {
 		} catch (Exception e) {
 			//noinspection ThrowableNotThrown
 			Skript.exception(e, "Exception occurred in Skript's main command", "Used command: /" + label + " " + StringUtils.join(args, " "));
+			if (profiler != null)
+				profiler.stop();
 		}
 
 		return true;
@@ -90,6 +90,8 @@ public class SkriptCommandTabCompleter implements TabCompleter {
 					options.add("aliases");
 					options.add("scripts");
 				}
+			} else if (args[0].equalsIgnoreCase("reload")) {
+				options.add("profile");
 			}
 
 		} else if (args.length == 1) {
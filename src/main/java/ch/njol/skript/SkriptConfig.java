@@ -302,6 +302,12 @@ public class SkriptConfig {
 			})
 			.optional(true);
 
+	public static final Option<Boolean> scriptParseCache = new Option<>("script parse cache", false)
+			.optional(true);
+
+	public static final Option<Boolean> autoReloadAllScripts = new Option<>("auto reload all scripts", false)
+			.optional(true);
+
 	public static final Option<Boolean> useTypeProperties = new Option<>("use type properties", true)
 			.optional(false);
 
@@ -386,6 +392,17 @@ public class SkriptConfig {
 	public static final Option<Integer> variableChangesUntilSave = new Option<>("variable changes until save", 1000)
 		.setter(FlatFileStorage::setRequiredChangesForResave);
 
+	public static final Option<Boolean> compactVariables = new Option<>("compact variables", false)
+		.setter(compact -> {
+			if (!Variables.setCompactVariables(compact))
+				Skript.warning("Changing 'compact variables' requires a server restart to take effect.");
+		})
+		.optional(true);
+
+	public static final Option<Boolean> compactVariableEncoding = new Option<>("compact variable encoding", false)
+		.setter(Variables::setCompactEncoding)
+		.optional(true);
+
 	// intentionally not present in the config presented to the user. Users must manually add this option to disable it.
 	public static final Option<Boolean> simplifySyntaxesOnParse = new Option<>("simplify syntax on parse", true)
 		.optional(true);
@@ -18,7 +18,7 @@ import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class SkriptEventHandler {
 
@@ -60,19 +60,51 @@ public final class SkriptEventHandler {
 	 */
 	private static final Multimap<Class<? extends Event>, Trigger> triggers = ArrayListMultimap.create();
 
+	/**
+	 * The triggers to execute for each event class that has been called, by the ordinal of their priority.
+	 * Built when an event class is called for the first time, and replaced when triggers are registered or unregistered.
+	 */
+	private static volatile Map<Class<? extends Event>, Trigger[][]> dispatchTables = new ConcurrentHashMap<>();
+
+	private static final Trigger[] NO_TRIGGERS = new Trigger[0];
+
 	/**
 	 * A utility method to get all Triggers registered under the provided Event class.
 	 * @param event The event to find pairs from.
-	 * @return A List containing all Triggers registered under the provided Event class.
+	 * @param priority The priority of the Triggers to get.
+	 * @return An array containing all Triggers registered under the provided Event class with the provided priority.
+	 * 	It must not be modified.
 	 */
-	private static List<Trigger> getTriggers(Class<? extends Event> event) {
+	private static Trigger[] getTriggers(Class<? extends Event> event, EventPriority priority) {
+		return dispatchTables.computeIfAbsent(event, SkriptEventHandler::createDispatchTable)[priority.ordinal()];
+	}
+
+	private static Trigger[][] createDispatchTable(Class<? extends Event> event) {
 		HandlerList eventHandlerList = getHandlerList(event);
 		assert eventHandlerList != null; // It had one at some point so this should remain true
-		return triggers.asMap().entrySet().stream()
+		List<Trigger> eventTriggers = triggers.asMap().entrySet().stream()
 				.filter(entry -> entry.getKey().isAssignableFrom(event) && getHandlerList(entry.getKey()) == eventHandlerList)
 				.flatMap(entry -> entry.getValue().stream())
 				.distinct()
-				.collect(Collectors.toList()); // forces evaluation now and prevents us from having to call getTriggers again if very high logging is enabled
+				.toList();
+
+		Trigger[][] table = new Trigger[listeners.length][];
+		for (int i = 0; i < listeners.length; i++) {
+			EventPriority priority = listeners[i].priority;
+			table[i] = eventTriggers.stream()
+					.filter(trigger -> trigger.getEvent().getEventPriority() == priority)
+					.toArray(Trigger[]::new);
+			if (table[i].length == 0)
+				table[i] = NO_TRIGGERS;
+		}
+		return table;
+	}
+
+	/**
+	 * Discards the dispatch tables, so they are built again with the current triggers when their events are called.
+	 */
+	private static void invalidateDispatchTables() {
+		dispatchTables = new ConcurrentHashMap<>();
 	}
 
 	/**
@@ -83,26 +115,20 @@ public final class SkriptEventHandler {
 	 * @param priority The priority of the Event.
 	 */
 	private static void check(Event event, EventPriority priority) {
-		// get all triggers for this event, return if none
-		List<Trigger> triggers = getTriggers(event.getClass());
-		if (triggers.isEmpty())
+		// get all triggers for this event at this priority, return if none
+		Trigger[] triggers = getTriggers(event.getClass(), priority);
+		if (triggers.length == 0)
 			return;
 
 		// Check if this event should be treated as cancelled
 		boolean isCancelled = isCancelled(event);
 
-		// This logs events even if there isn't a trigger that's going to run at that priority.
-		// However, there should only be a priority listener IF there's a trigger at that priority.
-		// So the time will be logged even if no triggers pass check(), which is still useful information.
+		// The time will be logged even if no triggers pass check(), which is still useful information.
 		logEventStart(event, priority);
 
 		for (Trigger trigger : triggers) {
 			SkriptEvent triggerEvent = trigger.getEvent();
 
-			// check if the trigger is at the right priority
-			if (triggerEvent.getEventPriority() != priority)
-				continue;
-
 			// check if the cancel state of the event is correct
 			if (!triggerEvent.getListeningBehavior().matches(isCancelled))
 				continue;
@@ -288,6 +314,7 @@ public final class SkriptEventHandler {
 			return;
 
 		triggers.put(event, trigger);
+		invalidateDispatchTables();
 
 		EventPriority priority = trigger.getEvent().getEventPriority();
 
@@ -311,6 +338,7 @@ public final class SkriptEventHandler {
 
 			// Remove the trigger from the map
 			entryIterator.remove();
+			invalidateDispatchTables();
 
 			// check if we can unregister the listener
 			EventPriority priority = trigger.getEvent().getEventPriority();
@@ -0,0 +1,90 @@
+package ch.njol.skript;
+
+import ch.njol.skript.config.Node;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Matches the structures of a loaded script to the top-level nodes of its changed file by their contents,
+ * to find the structures that can be kept when the script is reloaded, and the ones that have to be unloaded or loaded.
+ * Lines are not compared, so structures that only moved are kept.
+ * @see ScriptLoader#reloadScriptIncrementally(org.skriptlang.skript.lang.script.Script, ch.njol.util.OpenCloseable)
+ */
+final class StructureDiff<T> {
+
+	/**
+	 * The structures that didn't change, mapped to the node with the same contents in the changed file.
+	 */
+	final Map<T, Node> kept = new IdentityHashMap<>();
+
+	/**
+	 * The structures that changed or were removed, in the order of the loaded script.
+	 */
+	final List<T> removed = new ArrayList<>();
+
+	/**
+	 * The nodes that changed or were added, in the order of the changed file.
+	 */
+	final List<Node> added = new ArrayList<>();
+
+	private StructureDiff() { }
+
+	/**
+	 * @param structures The structures of the loaded script, in order.
+	 * @param hash Gets the {@link #hash(Node) hash} of the node a structure was loaded from.
+	 * @param nodes The top-level nodes of the changed file.
+	 * @return Which structures are kept or removed, and which nodes are added.
+	 */
+	static <T> StructureDiff<T> diff(List<T> structures, Function<? super T, String> hash, Iterable<Node> nodes) {
+		StructureDiff<T> diff = new StructureDiff<>();
+		Map<String, Deque<Node>> nodesByHash = new HashMap<>();
+		for (Node node : nodes)
+			nodesByHash.computeIfAbsent(hash(node), key -> new ArrayDeque<>()).add(node);
+
+		// structures with equal contents are matched in order
+		Set<Node> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (T structure : structures) {
+			Deque<Node> candidates = nodesByHash.get(hash.apply(structure));
+			Node node = candidates == null ? null : candidates.poll();
+			if (node == null) {
+				diff.removed.add(structure);
+			} else {
+				diff.kept.put(structure, node);
+				matched.add(node);
+			}
+		}
+
+		for (Node node : nodes) {
+			if (!matched.contains(node))
+				diff.added.add(node);
+		}
+		return diff;
+	}
+
+	/**
+	 * @return A hash of the node's contents, see {@link Node#digest(MessageDigest)}.
+	 */
+	static String hash(Node node) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // every Java platform supports SHA-256
+		}
+		node.digest(digest);
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+}
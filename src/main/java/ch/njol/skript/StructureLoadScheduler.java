@@ -0,0 +1,95 @@
+package ch.njol.skript;
+
+import ch.njol.util.OpenCloseable;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Runs a loading stage of structures, loading the structures of different scripts on multiple threads where possible.
+ * <p>
+ * Structures are loaded in groups of equal priority, and a group is only started once the previous group is done,
+ * so e.g. all options are loaded before any function, and all functions before any event.
+ * Within a group, the structures of a script are always loaded one after another on the same thread, in order.
+ * A group is only loaded in parallel if all of its structures {@link org.skriptlang.skript.lang.structure.Structure#canLoadInParallel() can be},
+ * otherwise it is loaded on the calling thread in order.
+ */
+final class StructureLoadScheduler {
+
+	private StructureLoadScheduler() { }
+
+	/**
+	 * @param structures The structures to load, sorted by priority.
+	 * @param priority Compares the priority of structures.
+	 * @param script Gets the script of a structure.
+	 * @param parallel Whether a structure can be loaded in parallel.
+	 * @param loader Loads a structure, returning whether it was successful.
+	 *               Must set up the {@link ch.njol.skript.lang.parser.ParserInstance} of the thread it is called on.
+	 * @param executor The executor to load structures in parallel with, or null to load them on the calling thread.
+	 * @param openCloseable Opened and closed on the executor's threads around the loading of each script's structures,
+	 *                      as it is on the calling thread.
+	 * @return The structures that failed to load.
+	 */
+	static <T> Set<T> load(
+		List<T> structures, Comparator<? super T> priority, Function<? super T, ?> script,
+		Predicate<? super T> parallel, Predicate<? super T> loader,
+		@Nullable Executor executor, OpenCloseable openCloseable
+	) {
+		Set<T> failed = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+		int start = 0;
+		while (start < structures.size()) {
+			int end = start + 1;
+			while (end < structures.size() && priority.compare(structures.get(start), structures.get(end)) == 0)
+				end++;
+			List<T> group = structures.subList(start, end);
+			if (executor != null && group.size() > 1 && group.stream().allMatch(parallel)) {
+				loadParallel(group, script, loader, executor, openCloseable, failed);
+			} else {
+				for (T structure : group) {
+					if (!loader.test(structure))
+						failed.add(structure);
+				}
+			}
+			start = end;
+		}
+		return failed;
+	}
+
+	private static <T> void loadParallel(
+		List<T> group, Function<? super T, ?> script, Predicate<? super T> loader,
+		Executor executor, OpenCloseable openCloseable, Set<T> failed
+	) {
+		Map<Object, List<T>> byScript = new LinkedHashMap<>();
+		for (T structure : group)
+			byScript.computeIfAbsent(script.apply(structure), key -> new ArrayList<>()).add(structure);
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>(byScript.size());
+		for (List<T> scriptStructures : byScript.values()) {
+			futures.add(CompletableFuture.runAsync(() -> {
+				openCloseable.open();
+				try {
+					for (T structure : scriptStructures) {
+						if (!loader.test(structure))
+							failed.add(structure);
+					}
+				} finally {
+					openCloseable.close();
+				}
+			}, executor));
+		}
+		// The next group may depend on everything in this one, e.g. events on the functions they call
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+	}
+
+}
@@ -56,6 +56,8 @@ public class ClassInfo<T> implements Debuggable {
 	private Serializer<? super T> serializer = null;
 	@Nullable
 	private Class<?> serializeAs = null;
+	private boolean deserializeOffThread = false;
+	private boolean literalDictionary = false;
 
 	@Nullable
 	private Class<?> mathRelativeType = null;
@@ -175,6 +177,32 @@ public class ClassInfo<T> implements Debuggable {
 		return this;
 	}
 
+	/**
+	 * Allows values of this class to be deserialised on any thread, e.g. by workers while variables are loaded.
+	 * Only use this if deserialising a value doesn't use Bukkit or any other state that isn't thread-safe.
+	 *
+	 * @return This ClassInfo object
+	 * @see #canDeserializeOffThread()
+	 */
+	public ClassInfo<T> deserializeOffThread() {
+		this.deserializeOffThread = true;
+		return this;
+	}
+
+	/**
+	 * Adds the {@link Parser#getLiteralNames() names} of this class's parser to the dictionary
+	 * {@link Classes#parseSimple(String, Class, ch.njol.skript.lang.ParseContext)} looks literals up in,
+	 * so the parser is only called for these names.
+	 * Only use this if the parser can't parse anything else, e.g. because it is an {@link EnumParser}.
+	 *
+	 * @return This ClassInfo object
+	 * @see #isInLiteralDictionary()
+	 */
+	public ClassInfo<T> literalDictionary() {
+		this.literalDictionary = true;
+		return this;
+	}
+
 	public ClassInfo<T> serializeAs(final Class<?> serializeAs) {
 		assert this.serializeAs == null;
 		if (serializer != null)
@@ -356,6 +384,22 @@ public class ClassInfo<T> implements Debuggable {
 		return serializer;
 	}
 
+	/**
+	 * @return Whether values of this class can be deserialised on any thread, i.e. whether this class
+	 * {@link #deserializeOffThread() allows it} and has a serializer that doesn't
+	 * {@link Serializer#mustSyncDeserialization() require Bukkit's main thread}.
+	 */
+	public boolean canDeserializeOffThread() {
+		return deserializeOffThread && serializer != null && !serializer.mustSyncDeserialization();
+	}
+
+	/**
+	 * @return Whether this class {@link #literalDictionary() opted into} the literal dictionary.
+	 */
+	public boolean isInLiteralDictionary() {
+		return literalDictionary;
+	}
+
 	@Nullable
 	public Class<?> getSerializeAs() {
 		return serializeAs;
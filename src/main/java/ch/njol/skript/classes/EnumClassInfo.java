@@ -58,7 +58,8 @@ public class EnumClassInfo<T extends Enum<T>> extends ClassInfo<T> {
 			.serializer(new EnumSerializer<>(enumClass))
 			.defaultExpression(defaultExpression)
 			.supplier(() -> new ArrayIterator<>(enumClass.getEnumConstants()))
-			.parser(enumParser);
+			.parser(enumParser)
+			.literalDictionary();
 	}
 
 	/**
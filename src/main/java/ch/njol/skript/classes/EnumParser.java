@@ -8,9 +8,11 @@ import ch.njol.util.NonNullPair;
 import org.jetbrains.annotations.Nullable;
 import org.skriptlang.skript.lang.converter.Converter;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -106,6 +108,11 @@ public class EnumParser<E extends Enum<E>> extends PatternedParser<E> implements
 		return element;
 	}
 
+	@Override
+	public Set<String> getLiteralNames() {
+		return Collections.unmodifiableSet(parseMap.keySet());
+	}
+
 	@Override
 	public @Nullable E convert(String string) {
 		return parse(string, ParseContext.DEFAULT);
@@ -1,5 +1,7 @@
 package ch.njol.skript.classes;
 
+import java.util.Set;
+
 import org.jetbrains.annotations.Nullable;
 
 import ch.njol.skript.lang.ParseContext;
@@ -42,6 +44,22 @@ public abstract class Parser<T> {
 		return true;
 	}
 	
+	/**
+	 * Parsers that can only parse a fixed set of names, e.g. the names of the constants of an enum, should return these names here.
+	 * If the class of this parser {@link ClassInfo#literalDictionary() opted in},
+	 * {@link Classes#parseSimple(String, Class, ParseContext)} looks up the input in a single dictionary of the names of all such parsers,
+	 * and only calls the parsers that know the input instead of calling each of them in turn.
+	 * <p>
+	 * The names may change when the language changes, in which case the dictionary is rebuilt.
+	 * 
+	 * @return The names this parser can parse in lower case, or null if this parser may parse other strings too.
+	 * If not null, {@link #parse(String, ParseContext)} must return null for any string whose lower case is not one of these names.
+	 */
+	@Nullable
+	public Set<String> getLiteralNames() {
+		return null;
+	}
+	
 	/**
 	 * Returns a string representation of the given object to be used in messages.
 	 * 
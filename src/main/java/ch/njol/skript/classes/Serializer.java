@@ -83,7 +83,8 @@ public abstract class Serializer<T> extends YggdrasilSerializer<T> {
 	}
 
 	/**
-	 * Not currently used (everything happens on Bukkit's main thread).
+	 * Values that don't have to be deserialised on Bukkit's main thread are deserialised in parallel while variables are loaded.
+	 * This also applies to any values contained in a value, thus serializers of types that can contain arbitrary values must return true.
 	 * 
 	 * @return Whether deserialisation must be done on Bukkit's main thread.
 	 */
@@ -113,7 +113,8 @@ public class JavaClasses {
 				// is registered after all other number classes
 				.defaultExpression(new SimpleLiteral<>(1, true))
 				.parser(new NumberParser())
-				.serializer(new NumberSerializer()));
+				.serializer(new NumberSerializer())
+				.deserializeOffThread());
 
 		Classes.registerClass(new ClassInfo<>(Long.class, "long")
 				.user("int(eger)?s?")
@@ -121,13 +122,15 @@ public class JavaClasses {
 				.before("integer", "short", "byte")
 				.defaultExpression(new SimpleLiteral<>((long) 1, true))
 				.parser(new LongParser())
-				.serializer(new LongSerializer()));
+				.serializer(new LongSerializer())
+				.deserializeOffThread());
 
 		Classes.registerClass(new ClassInfo<>(Integer.class, "integer")
 				.name(ClassInfo.NO_DOC)
 				.defaultExpression(new SimpleLiteral<>(1, true))
 				.parser(new IntegerParser())
-				.serializer(new IntegerSerializer()));
+				.serializer(new IntegerSerializer())
+				.deserializeOffThread());
 
 		Classes.registerClass(new ClassInfo<>(Double.class, "double")
 				.name(ClassInfo.NO_DOC)
@@ -135,13 +138,15 @@ public class JavaClasses {
 				.after("long")
 				.before("float", "integer", "short", "byte")
 				.parser(new DoubleParser())
-				.serializer(new DoubleSerializer()));
+				.serializer(new DoubleSerializer())
+				.deserializeOffThread());
 
 		Classes.registerClass(new ClassInfo<>(Float.class, "float")
 				.name(ClassInfo.NO_DOC)
 				.defaultExpression(new SimpleLiteral<>(1f, true))
 				.parser(new FloatParser())
-				.serializer(new FloatSerializer()));
+				.serializer(new FloatSerializer())
+				.deserializeOffThread());
 
 		Classes.registerClass(new ClassInfo<>(Boolean.class, "boolean")
 				.user("booleans?")
@@ -206,19 +211,22 @@ public class JavaClasses {
 					public boolean mustSyncDeserialization() {
 						return false;
 					}
-				}));
+				})
+				.deserializeOffThread());
 
 		Classes.registerClass(new ClassInfo<>(Short.class, "short")
 				.name(ClassInfo.NO_DOC)
 				.defaultExpression(new SimpleLiteral<>((short) 1, true))
 				.parser(new ShortParser())
-				.serializer(new ShortSerializer()));
+				.serializer(new ShortSerializer())
+				.deserializeOffThread());
 
 		Classes.registerClass(new ClassInfo<>(Byte.class, "byte")
 				.name(ClassInfo.NO_DOC)
 				.defaultExpression(new SimpleLiteral<>((byte) 1, true))
 				.parser(new ByteParser())
-				.serializer(new ByteSerializer()));
+				.serializer(new ByteSerializer())
+				.deserializeOffThread());
 
 		Classes.registerClass(new ClassInfo<>(String.class, "string")
 				.user("(text|string)s?")
@@ -303,6 +311,7 @@ public class JavaClasses {
 						return false;
 					}
 				})
+				.deserializeOffThread()
 				.property(Property.CONTAINS,
 					"Strings can contain other strings.",
 					Skript.instance(),
@@ -335,6 +344,7 @@ public class JavaClasses {
 			.since("2.11")
 			.parser(new UUIDParser())
 			.serializer(new UUIDSerializer())
+			.deserializeOffThread()
 		);
 	}
 
@@ -208,7 +208,8 @@ public class SkriptClasses {
 					public String toVariableNameString(final Timespan o) {
 						return "timespan:" + o.getAs(Timespan.TimePeriod.MILLISECOND);
 					}
-				}).serializer(new YggdrasilSerializer<>()));
+				}).serializer(new YggdrasilSerializer<>())
+				.deserializeOffThread());
 
 		// TODO remove
 		Classes.registerClass(new ClassInfo<>(Timeperiod.class, "timeperiod")
@@ -305,7 +306,8 @@ public class SkriptClasses {
 					protected boolean canBeInstantiated() {
 						return false;
 					}
-				}));
+				})
+				.deserializeOffThread());
 
 		Classes.registerClass(new ClassInfo<>(Direction.class, "direction")
 				.user("directions?")
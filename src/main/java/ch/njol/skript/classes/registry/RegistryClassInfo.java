@@ -63,7 +63,8 @@ public class RegistryClassInfo<R extends Keyed> extends ClassInfo<R> {
 			.supplier(registry::iterator)
 			.serializer(new RegistrySerializer<>(registry))
 			.defaultExpression(defaultExpression)
-			.parser(registryParser);
+			.parser(registryParser)
+			.literalDictionary();
 	}
 
 	/**
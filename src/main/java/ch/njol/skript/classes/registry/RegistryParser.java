@@ -11,9 +11,11 @@ import org.bukkit.Registry;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -116,6 +118,11 @@ public class RegistryParser<R extends Keyed> extends PatternedParser<R> {
 		return element;
 	}
 
+	@Override
+	public Set<String> getLiteralNames() {
+		return Collections.unmodifiableSet(parseMap.keySet());
+	}
+
 	/**
 	 * This method returns the string representation of a registry.
 	 *
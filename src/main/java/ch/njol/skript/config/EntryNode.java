@@ -1,5 +1,6 @@
 package ch.njol.skript.config;
 
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -37,6 +38,12 @@ public class EntryNode extends Node implements Entry<String, String>, AnyValued<
 		return value;
 	}
 
+	@Override
+	public void digest(MessageDigest digest) {
+		super.digest(digest);
+		digest(digest, value);
+	}
+
 	@Override
 	public @UnknownNullability String value() {
 		return this.getValue();
@@ -10,6 +10,8 @@ import org.jetbrains.annotations.Nullable;
 import org.skriptlang.skript.util.Validated;
 
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -20,7 +22,7 @@ public abstract class Node implements AnyNamed, Validated, NodeNavigator {
 
 	protected String comment = "";
 
-	protected final int lineNum;
+	protected int lineNum;
 
 	private final boolean debug;
 
@@ -119,6 +121,9 @@ public abstract class Node implements AnyNamed, Validated, NodeNavigator {
 	 * @return A pair (value, comment).
 	 */
 	public static NonNullPair<String, String> splitLine(String line, AtomicBoolean inBlockComment) {
+		if (!inBlockComment.get() && line.indexOf('#') == -1) // most lines don't contain comments
+			return new NonNullPair<>(line, "");
+
 		String trimmed = line.trim();
 		if (trimmed.equals("###")) { // we start or terminate a BLOCK comment
 			inBlockComment.set(!inBlockComment.get());
@@ -329,6 +334,33 @@ public abstract class Node implements AnyNamed, Validated, NodeNavigator {
 		return lineNum;
 	}
 
+	/**
+	 * Moves this node to the line of the given node, e.g. when a script is reloaded
+	 * without reloading the structure this node was loaded from.
+	 *
+	 * @param node A node with the same {@link #digest(MessageDigest) contents} as this node.
+	 */
+	public void renumber(Node node) {
+		lineNum = node.lineNum;
+	}
+
+	/**
+	 * Adds the contents of this node to the given digest, e.g. to detect whether a script changed.
+	 * Comments and the line of the node are ignored, so moving a node doesn't change its digest.
+	 *
+	 * @param digest The digest to update.
+	 */
+	public void digest(MessageDigest digest) {
+		digest(digest, getClass().getSimpleName());
+		digest(digest, key);
+	}
+
+	protected static void digest(MessageDigest digest, @Nullable String string) {
+		if (string != null)
+			digest.update(string.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
 	/**
 	 * @return Whether this node does not hold information (i.e. is empty or invalid)
 	 */
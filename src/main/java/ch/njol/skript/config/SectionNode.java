@@ -14,6 +14,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
@@ -135,6 +136,33 @@ public class SectionNode extends Node implements Iterable<Node> {
 		return nodes.get(index);
 	}
 
+	/**
+	 * Adds the contents of this section and all of its non-void nodes to the given digest.
+	 */
+	@Override
+	public void digest(MessageDigest digest) {
+		super.digest(digest);
+		for (Node node : this)
+			node.digest(digest);
+		digest(digest, "end");
+	}
+
+	/**
+	 * Moves this section and all of its non-void nodes to the lines of the given section.
+	 */
+	@Override
+	public void renumber(Node node) {
+		super.renumber(node);
+		if (!(node instanceof SectionNode section))
+			return;
+		Iterator<Node> nodes = section.iterator();
+		for (Node child : this) {
+			if (!nodes.hasNext())
+				break;
+			child.renumber(nodes.next());
+		}
+	}
+
 	/**
 	 * @return An iterator over all non-void nodes in this section.
 	 */
@@ -270,6 +298,49 @@ public class SectionNode extends Node implements Iterable<Node> {
 		return "'" + s.replace("\t", "->").replace(' ', '_').replaceAll("\\s", "?") + "' [-> = tab, _ = space, ? = other whitespace]";
 	}
 
+	/**
+	 * @return The number of whitespace characters at the start of the given value.
+	 * @see #isWhitespace(char)
+	 */
+	private static int leadingWhitespace(final String value) {
+		int i = 0;
+		while (i < value.length() && isWhitespace(value.charAt(i)))
+			i++;
+		return i;
+	}
+
+	/**
+	 * @return Whether the given character is whitespace, in the same way as <code>\s</code> in a regex.
+	 */
+	private static boolean isWhitespace(final char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * @return Whether the given non-empty string only consists of the given character.
+	 */
+	private static boolean isRepeated(final String s, final char c) {
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) != c)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return Whether the given value starts with the given indentation repeated the given number of times.
+	 */
+	private static boolean isIndented(final String value, final String indentation, final int level) {
+		final int length = indentation.length();
+		if (value.length() < level * length)
+			return false;
+		for (int i = 0; i < level; i++) {
+			if (!value.startsWith(indentation, i * length))
+				return false;
+		}
+		return true;
+	}
+
 	private static final Pattern fullLinePattern = Pattern.compile("([^#]|##)*#-#(\\s.*)?");
 
 	private SectionNode load_i(final ConfigReader r) throws IOException {
@@ -287,10 +358,11 @@ public class SectionNode extends Node implements Iterable<Node> {
 			final String comment = line.getSecond();
 
 			final SectionNode parent = this.parent;
-			if (!indentationSet && parent != null && parent.parent == null && !value.isEmpty() && !value.matches("\\s*") && !value.matches("\\S.*")) {
-				final String s = value.replaceFirst("\\S.*$", "");
-				assert !s.isEmpty() : fullLine;
-				if (s.matches(" +") || s.matches("\t+")) {
+			final int whitespace = leadingWhitespace(value);
+			final boolean blank = whitespace == value.length();
+			if (!indentationSet && parent != null && parent.parent == null && !blank && whitespace > 0) {
+				final String s = value.substring(0, whitespace);
+				if (isRepeated(s, ' ') || isRepeated(s, '\t')) {
 					config.setIndentation(s);
 					indentationSet = true;
 				} else {
@@ -299,10 +371,13 @@ public class SectionNode extends Node implements Iterable<Node> {
 					continue;
 				}
 			}
-			if (!value.matches("\\s*") && !value.matches("^(" + config.getIndentation() + "){" + config.level + "}\\S.*")) {
-				if (value.matches("^(" + config.getIndentation() + "){" + config.level + "}\\s.*") || !value.matches("^(" + config.getIndentation() + ")*\\S.*")) {
+			final String indentation = config.getIndentation();
+			final int expected = config.level * indentation.length();
+			if (!blank && (whitespace != expected || !isIndented(value, indentation, config.level))) {
+				if (whitespace > expected && isIndented(value, indentation, config.level)
+					|| whitespace % indentation.length() != 0 || !isIndented(value, indentation, whitespace / indentation.length())) {
 					nodes.add(new InvalidNode(value, comment, this, r.getLineNum()));
-					final String s = "" + value.replaceFirst("\\S.*$", "");
+					final String s = value.substring(0, whitespace);
 					Skript.error("indentation error: expected " + config.level * config.getIndentation().length() + " " + config.getIndentationName() + (config.level * config.getIndentation().length() == 1 ? "" : "s") + ", but found " + readableWhitespace(s));
 					continue;
 				} else {
@@ -14,16 +14,21 @@ import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.TriggerItem;
 import ch.njol.skript.lang.util.SectionUtils;
 import ch.njol.skript.util.Timespan;
+import ch.njol.skript.util.TimingWheel;
 import ch.njol.skript.variables.Variables;
 import ch.njol.util.Kleenean;
 import org.bukkit.Bukkit;
 import org.bukkit.event.Event;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.Nullable;
+import org.skriptlang.skript.lang.script.Script;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Name("Delay")
 @Description({
@@ -60,11 +65,14 @@ public class Delay extends EffectSection {
 
 	private @Nullable Trigger trigger;
 
+	private @Nullable Script script;
+
 	@SuppressWarnings({"unchecked", "null"})
 	@Override
 	public boolean init(Expression<?>[] exprs, int matchedPattern, Kleenean isDelayed, ParseResult parseResult,
 						@Nullable SectionNode sectionNode, @Nullable List<TriggerItem> triggerItems) {
 		duration = (Expression<Timespan>) exprs[0];
+		script = getParser().isActive() ? getParser().getCurrentScript() : null;
 		if (duration instanceof Literal) { // If we can, do sanity check for delays
 			Timespan timespan = ((Literal<Timespan>) duration).getSingle();
 			if (timespan.isInfinite()) {
@@ -118,7 +126,7 @@ public class Delay extends EffectSection {
 			boolean isSection = trigger != null;
 			Object localVars = isSection ? Variables.copyLocalVariables(event) : Variables.removeLocals(event);
 
-			Bukkit.getScheduler().scheduleSyncDelayedTask(Skript.getInstance(), () -> {
+			schedule(script, () -> {
 				addDelayedEvent(event);
 				Skript.debug(getIndentation() + "... continuing after " + (System.nanoTime() - start) / 1_000_000_000. + "s");
 
@@ -141,6 +149,58 @@ public class Delay extends EffectSection {
 		return "wait for " + duration.toString(event, debug) + (event == null ? "" : "...");
 	}
 
+	/**
+	 * The code waiting for its delay to pass, which is advanced by a single task that runs every tick,
+	 * instead of scheduling a task for each delay.
+	 */
+	private static final TimingWheel<Continuation> WHEEL = new TimingWheel<>(1024);
+
+	/**
+	 * The amount of pending delays of each script.
+	 */
+	private static final Map<Script, Integer> PENDING = new ConcurrentHashMap<>();
+
+	private static @Nullable BukkitTask tickTask;
+
+	private record Continuation(@Nullable Script script, Runnable runnable) { }
+
+	private static void schedule(@Nullable Script script, Runnable runnable, long ticks) {
+		synchronized (WHEEL) {
+			if (tickTask == null || tickTask.isCancelled())
+				tickTask = Bukkit.getScheduler().runTaskTimer(Skript.getInstance(), () -> WHEEL.tick(Delay::resume), 1, 1);
+		}
+		if (script != null)
+			PENDING.merge(script, 1, Integer::sum);
+		WHEEL.schedule(new Continuation(script, runnable), ticks);
+	}
+
+	private static void resume(Continuation continuation) {
+		Script script = continuation.script();
+		if (script != null)
+			PENDING.computeIfPresent(script, (key, count) -> count == 1 ? null : count - 1);
+		try {
+			continuation.runnable().run();
+		} catch (Exception e) {
+			//noinspection ThrowableNotThrown
+			Skript.exception(e, "An error occurred while continuing after a delay");
+		}
+	}
+
+	/**
+	 * @return The amount of delays that are waiting to continue.
+	 */
+	public static int getPendingDelays() {
+		return WHEEL.size();
+	}
+
+	/**
+	 * @param script The script to get the delays of.
+	 * @return The amount of delays in the given script that are waiting to continue.
+	 */
+	public static int getPendingDelays(Script script) {
+		return PENDING.getOrDefault(script, 0);
+	}
+
 	private static final Set<Event> DELAYED =
 		Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
 
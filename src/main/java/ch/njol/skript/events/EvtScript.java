@@ -50,6 +50,12 @@ public class EvtScript extends SkriptEvent {
 			runTrigger(trigger, new ScriptEvent());
 	}
 
+	@Override
+	public boolean canReloadIndividually() {
+		// load and unload triggers are expected to run when the whole script is reloaded
+		return false;
+	}
+
 	@Override
 	public boolean check(Event event) {
 		throw new UnsupportedOperationException();
@@ -302,12 +302,17 @@ public class ExprArithmetic<L, R, T> extends SimpleExpression<T> {
 	@Override
 	@SuppressWarnings("unchecked")
 	protected T[] get(Event event) {
-		T result = arithmeticGettable.get(event);
+		T result = getSingleValue(event);
 		T[] one = (T[]) Array.newInstance(result == null ? returnType : result.getClass(), 1);
 		one[0] = result;
 		return one;
 	}
 
+	@Override
+	protected @Nullable T getSingleValue(Event event) {
+		return arithmeticGettable.get(event);
+	}
+
 	private boolean error(Class<?> firstClass, Class<?> secondClass) {
 		ClassInfo<?> first = Classes.getSuperClassInfo(firstClass), second = Classes.getSuperClassInfo(secondClass);
 		// errors with "object" are not very useful and often misleading
@@ -3,6 +3,7 @@ package ch.njol.skript.lang;
 import ch.njol.skript.Skript;
 import ch.njol.skript.conditions.base.PropertyCondition;
 import ch.njol.skript.config.Node;
+import ch.njol.skript.lang.parser.ParseHints;
 import ch.njol.skript.lang.simplification.Simplifiable;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
@@ -137,9 +138,9 @@ public abstract class Condition extends Statement implements Conditional<Event>,
 		input = input.trim();
 		while (input.startsWith("(") && SkriptParser.next(input, 0, ParseContext.DEFAULT) == input.length())
 			input = input.substring(1, input.length() - 1);
-		var iterator = Skript.instance().syntaxRegistry().syntaxes(org.skriptlang.skript.registration.SyntaxRegistry.CONDITION).iterator();
+		var iterator = ParseHints.iterator("condition", input, Skript.instance().syntaxRegistry().syntaxes(org.skriptlang.skript.registration.SyntaxRegistry.CONDITION, input));
 		//noinspection unchecked,rawtypes
-		return (Condition) SkriptParser.parse(input, (Iterator) iterator, defaultError);
+		return iterator.record((Condition) SkriptParser.parse(input, (Iterator) iterator, defaultError));
 	}
 
 }
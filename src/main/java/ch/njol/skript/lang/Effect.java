@@ -3,6 +3,7 @@ package ch.njol.skript.lang;
 import ch.njol.skript.Skript;
 import ch.njol.skript.config.Node;
 import ch.njol.skript.lang.function.EffFunctionCall;
+import ch.njol.skript.lang.parser.ParseHints;
 import ch.njol.skript.log.ParseLogHandler;
 import ch.njol.skript.log.SkriptLogger;
 import org.bukkit.event.Event;
@@ -62,9 +63,9 @@ public abstract class Effect extends Statement implements SyntaxRuntimeErrorProd
 			}
 			log.clear();
 
-			var iterator = Skript.instance().syntaxRegistry().syntaxes(org.skriptlang.skript.registration.SyntaxRegistry.EFFECT).iterator();
+			var iterator = ParseHints.iterator("effect", input, Skript.instance().syntaxRegistry().syntaxes(org.skriptlang.skript.registration.SyntaxRegistry.EFFECT, input));
 			//noinspection unchecked,rawtypes
-			Effect effect = (Effect) SkriptParser.parse(input, (Iterator) iterator, defaultError);
+			Effect effect = iterator.record((Effect) SkriptParser.parse(input, (Iterator) iterator, defaultError));
 			if (effect != null) {
 				log.printLog();
 				return effect;
@@ -3,6 +3,7 @@ package ch.njol.skript.lang;
 import ch.njol.skript.Skript;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.parser.ParseHints;
 import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.util.Kleenean;
 import org.jetbrains.annotations.Nullable;
@@ -84,16 +85,16 @@ public abstract class EffectSection extends Section {
 		effectSectionContext.isNodeForEffectSection = isNodeForEffectSection;
 
 		EffectSection effectSection = sectionContext.modify(sectionNode, triggerItems, () -> {
-			var iterator = Skript.instance().syntaxRegistry().syntaxes(org.skriptlang.skript.registration.SyntaxRegistry.SECTION).stream()
+			var iterator = ParseHints.iterator("effect section", input, Skript.instance().syntaxRegistry().syntaxes(org.skriptlang.skript.registration.SyntaxRegistry.SECTION, input).stream()
 				.filter(info -> EffectSection.class.isAssignableFrom(info.type()))
-				.iterator();
+				.toList());
 			//noinspection unchecked,rawtypes
 			EffectSection parsed = (EffectSection) SkriptParser.parse(input, (Iterator) iterator, defaultError);
 			if (parsed != null && sectionNode != null && !sectionContext.claimed()) {
 				Skript.error("The line '" + input + "' is a valid statement but cannot function as a section (:) because there is no syntax in the line to manage it.");
 				return null;
 			}
-			return parsed;
+			return iterator.record(parsed);
 		});
 
 		effectSectionContext.isNodeForEffectSection = wasNodeForEffectSection;
@@ -5,6 +5,7 @@ import ch.njol.skript.Skript;
 import ch.njol.skript.config.Node;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.parser.ParseHints;
 import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.util.Kleenean;
 import org.bukkit.event.Event;
@@ -195,9 +196,9 @@ public abstract class Section extends TriggerSection implements SyntaxElement, S
 	public static Section parse(String expr, @Nullable String defaultError, SectionNode sectionNode, List<TriggerItem> triggerItems) {
 		SectionContext sectionContext = ParserInstance.get().getData(SectionContext.class);
 		return sectionContext.modify(sectionNode, triggerItems, () -> {
-			var iterator = Skript.instance().syntaxRegistry().syntaxes(org.skriptlang.skript.registration.SyntaxRegistry.SECTION).iterator();
+			var iterator = ParseHints.iterator("section", expr, Skript.instance().syntaxRegistry().syntaxes(org.skriptlang.skript.registration.SyntaxRegistry.SECTION, expr));
 			//noinspection unchecked,rawtypes
-			return (Section) SkriptParser.parse(expr, (Iterator) iterator, defaultError);
+			return iterator.record((Section) SkriptParser.parse(expr, (Iterator) iterator, defaultError));
 		});
 	}
 
@@ -52,6 +52,12 @@ public abstract class SelfRegisteringSkriptEvent extends SkriptEvent {
 		return load;
 	}
 
+	@Override
+	public boolean canLoadInParallel() {
+		// afterParse may be used to register the event globally
+		return false;
+	}
+
 	@Override
 	public boolean postLoad() {
 		register(trigger);
@@ -144,6 +144,24 @@ public abstract class SkriptEvent extends Structure {
 		return true;
 	}
 
+	/**
+	 * Loading an event only parses its trigger, so the events of different scripts can be loaded in parallel.
+	 * Events that override {@link #load()} or {@link #shouldLoadEvent()} to modify state shared with other scripts
+	 *  must override this method to return false.
+	 */
+	@Override
+	public boolean canLoadInParallel() {
+		return true;
+	}
+
+	/**
+	 * Nothing depends on the trigger of an event, so it can be reloaded without the rest of its script.
+	 */
+	@Override
+	public boolean canReloadIndividually() {
+		return true;
+	}
+
 	/**
 	 * This method handles the registration of this event with Skript and Bukkit.
 	 * Only override this method if you know what you are doing!
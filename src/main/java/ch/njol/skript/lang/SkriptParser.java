@@ -16,6 +16,9 @@ import ch.njol.skript.lang.function.FunctionReference;
 import ch.njol.skript.lang.parser.DefaultValueData;
 import ch.njol.skript.lang.parser.ParseStackOverflowException;
 import ch.njol.skript.lang.parser.ExpressionParseCache;
+import ch.njol.skript.lang.parser.ExpressionParseMemo;
+import ch.njol.skript.lang.parser.ParseHints;
+import ch.njol.skript.lang.parser.ParseProfiler;
 import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.lang.parser.ParsingStack;
 import ch.njol.skript.lang.simplification.Simplifiable;
@@ -201,6 +204,7 @@ public final class SkriptParser {
 
 	private <T extends SyntaxElement> @Nullable T parse(Iterator<? extends SyntaxInfo<? extends T>> source) {
 		ParsingStack parsingStack = getParser().getParsingStack();
+		ParseProfiler profiler = ParseProfiler.getActive();
 		try (ParseLogHandler log = SkriptLogger.startParseLogHandler()) {
 			while (source.hasNext()) {
 				SyntaxInfo<? extends T> info = source.next();
@@ -208,10 +212,12 @@ public final class SkriptParser {
 				patternsLoop: for (String pattern : info.patterns()) {
 					matchedPattern++;
 					log.clear();
-					ParseResult parseResult;
+					ParseResult parseResult = null;
+					ParsingStack.Element parsing = new ParsingStack.Element(info, matchedPattern);
+					ParseProfiler.Frame frame = profiler != null ? profiler.enter(parsing) : null;
 
 					try {
-						parsingStack.push(new ParsingStack.Element(info, matchedPattern));
+						parsingStack.push(parsing);
 						parseResult = parse_i(pattern);
 					} catch (MalformedPatternException e) {
 						String message = "pattern compiling exception, element class: " + info.type().getName();
@@ -227,6 +233,8 @@ public final class SkriptParser {
 						// Recursive parsing call done, pop the element from the parsing stack
 						ParsingStack.Element stackElement = parsingStack.pop();
 						assert stackElement.syntaxElementInfo() == info && stackElement.patternIndex() == matchedPattern;
+						if (frame != null)
+							profiler.exit(frame, parseResult != null);
 					}
 
 					if (parseResult == null)
@@ -474,7 +482,14 @@ public final class SkriptParser {
 		if (expr.startsWith("\"") && expr.length() != 1 && nextQuote(expr, 1) == expr.length() - 1) {
 			return VariableString.newInstance("" + expr.substring(1, expr.length() - 1));
 		} else {
-			var iterator = new CheckedIterator<>(Skript.instance().syntaxRegistry().syntaxes(SyntaxRegistry.EXPRESSION).iterator(), info -> {
+			StringBuilder kind = new StringBuilder("expression");
+			for (Class<?> type : types)
+				kind.append(':').append(type.getName());
+			ExpressionParseMemo memo = ExpressionParseMemo.get();
+			ExpressionParseMemo.Key memoKey = memo != null ? memo.key(expr, types) : null;
+			var memoHint = memoKey != null ? (SyntaxInfo.Expression<?, ?>) memo.get(memoKey) : null;
+			var hinted = ParseHints.iterator(kind.toString(), expr, Skript.instance().syntaxRegistry().syntaxes(SyntaxRegistry.EXPRESSION), memoHint);
+			var iterator = new CheckedIterator<>(hinted, info -> {
 				if (info == null || info.returnType() == Object.class)
 					return true;
 				for (Class<?> returnType : types) {
@@ -485,7 +500,10 @@ public final class SkriptParser {
 				return false;
 			});
 			//noinspection unchecked,rawtypes
-			return (Expression<?>) parse(expr, (Iterator) iterator, null);
+			Expression<?> parsed = hinted.record((Expression<?>) parse(expr, (Iterator) iterator, null));
+			if (parsed != null && memoKey != null && hinted.getLast() != null)
+				memo.put(memoKey, hinted.getLast());
+			return parsed;
 		}
 	}
 
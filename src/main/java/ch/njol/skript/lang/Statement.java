@@ -3,6 +3,7 @@ package ch.njol.skript.lang;
 import ch.njol.skript.Skript;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.lang.function.EffFunctionCall;
+import ch.njol.skript.lang.parser.ParseHints;
 import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.log.ParseLogHandler;
 import ch.njol.skript.log.SkriptLogger;
@@ -61,7 +62,7 @@ public abstract class Statement extends TriggerItem implements SyntaxElement {
 			log.clear();
 
 			Statement statement;
-			var iterator = Skript.instance().syntaxRegistry().syntaxes(org.skriptlang.skript.registration.SyntaxRegistry.STATEMENT).iterator();
+			var iterator = ParseHints.iterator("statement", input, Skript.instance().syntaxRegistry().syntaxes(org.skriptlang.skript.registration.SyntaxRegistry.STATEMENT, input));
 			if (node != null) {
 				var wrappedIterator = new Iterator<>() {
 					@Override
@@ -77,7 +78,7 @@ public abstract class Statement extends TriggerItem implements SyntaxElement {
 						return iterator.next();
 					}
 				};
-				statement = sectionContext.modify(node, items, () -> {
+				statement = iterator.record(sectionContext.modify(node, items, () -> {
 						//noinspection unchecked,rawtypes
 						Statement parsed = (Statement) SkriptParser.parse(input, (Iterator) wrappedIterator, defaultError);
 						if (parsed != null && !sectionContext.claimed()) {
@@ -85,12 +86,12 @@ public abstract class Statement extends TriggerItem implements SyntaxElement {
 							return null;
 						}
 						return parsed;
-				});
+				}));
 			} else {
-				statement = sectionContext.modify(null, null, () -> {
+				statement = iterator.record(sectionContext.modify(null, null, () -> {
 					//noinspection unchecked,rawtypes
 					return (Statement) SkriptParser.parse(input, (Iterator) iterator, defaultError);
-				});
+				}));
 			}
 
 			if (statement != null) {
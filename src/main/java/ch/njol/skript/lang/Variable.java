@@ -15,7 +15,9 @@ import ch.njol.skript.structures.StructVariables.DefaultVariables;
 import ch.njol.skript.util.StringMode;
 import ch.njol.skript.util.Utils;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
 import org.skriptlang.skript.util.IndexTrackingTreeMap;
+import ch.njol.skript.variables.LocalVariableSlot;
 import ch.njol.skript.variables.Variables;
 import ch.njol.util.Kleenean;
 import ch.njol.util.Pair;
@@ -69,6 +71,11 @@ public class Variable<T> implements Expression<T>, KeyReceiverExpression<T>, Key
 	private final boolean ephemeral;
 	private final boolean list;
 
+	/**
+	 * The {@link Variables#getLocalSlot(String) slot} of this variable if it is a local variable with a constant name.
+	 */
+	private final @Nullable LocalVariableSlot slot;
+
 	private final @Nullable Variable<?> source;
 	private final Map<Event, String[]> cache = Collections.synchronizedMap(new WeakHashMap<>());
 
@@ -89,6 +96,7 @@ public class Variable<T> implements Expression<T>, KeyReceiverExpression<T>, Key
 		this.list = list;
 
 		this.name = name;
+		this.slot = local && !list && name.isSimple() ? Variables.getLocalSlot(name.toString(null)) : null;
 
 		this.types = types;
 		this.superType = (Class<T>) Classes.getSuperClassInfo(types).getC();
@@ -351,7 +359,12 @@ public class Variable<T> implements Expression<T>, KeyReceiverExpression<T>, Key
 			// prevents e.g. {%expr%} where "%expr%" ends with "::*" from returning a Map
 			if (name.endsWith(Variable.SEPARATOR + "*") != list)
 				return null;
-			Object value = !list ? convertIfOldPlayer(name, local, event, Variables.getVariable(name, event, local)) : Variables.getVariable(name, event, local);
+			Object value;
+			if (slot != null) {
+				value = convertIfOldPlayer(name, true, event, Variables.getLocalVariable(slot, event));
+			} else {
+				value = !list ? convertIfOldPlayer(name, local, event, Variables.getVariable(name, event, local)) : Variables.getVariable(name, event, local);
+			}
 			if (value != null)
 				return value;
 
@@ -397,11 +410,24 @@ public class Variable<T> implements Expression<T>, KeyReceiverExpression<T>, Key
 		return object;
 	}
 
+	/**
+	 * Same as {@link #convertIfOldPlayer(String, boolean, Event, Object)},
+	 * but only builds the full variable name if the value actually needs to be converted.
+	 *
+	 * @param listName the name of the list variable, without the trailing {@code *}.
+	 * @param index the index in the list variable.
+	 */
+	public static <T> @Nullable T convertIfOldPlayer(String listName, String index, boolean local, Event event, @Nullable T object) {
+		if (!(object instanceof Player))
+			return object;
+		return convertIfOldPlayer(listName + index, local, event, object);
+	}
+
 	@Override
 	public Iterator<KeyedValue<T>> keyedIterator(Event event) {
 		if (!list)
 			throw new SkriptAPIException("Invalid call to keyedIterator");
-		Iterator<KeyedValue<?>> iterator = Iterators.forArray(listProvider.getValues(event));
+		Iterator<KeyedValue<?>> iterator = listProvider.iterator(event);
 		Iterator<KeyedValue<T>> transformed = Iterators.transform(iterator, value -> {
 			assert value != null;
 			T converted = Converters.convert(value.value(), types);
@@ -448,6 +474,10 @@ public class Variable<T> implements Expression<T>, KeyReceiverExpression<T>, Key
 	}
 
 	private void set(Event event, @Nullable Object value) {
+		if (slot != null) {
+			Variables.setLocalVariable(slot, value, event);
+			return;
+		}
 		Variables.setVariable(name.toString(event), value, event, local);
 	}
 
@@ -818,6 +848,10 @@ public class Variable<T> implements Expression<T>, KeyReceiverExpression<T>, Key
 
 		KeyedValue<?>[] getValues(Event event);
 
+		default Iterator<KeyedValue<?>> iterator(Event event) {
+			return Iterators.forArray(getValues(event));
+		}
+
 	}
 
 	class ShallowListProvider implements ListProvider {
@@ -831,26 +865,53 @@ public class Variable<T> implements Expression<T>, KeyReceiverExpression<T>, Key
 			if (rawValue == null)
 				return new KeyedValue[0];
 
-			List<KeyedValue<?>> keyedValues = new ArrayList<>();
-			String name = StringUtils.substring(Variable.this.name.toString(event), 0, -1);
+			// The values are collected right away, so the list can be iterated directly
 			//noinspection unchecked
-			for (Entry<String, ?> variable : ((Map<String, ?>) rawValue).entrySet()) {
-				if (variable.getKey() == null || variable.getValue() == null)
-					continue;
+			Iterator<Entry<String, Object>> variables = ((Map<String, Object>) rawValue).entrySet().iterator();
+			return Iterators.toArray(iterator(event, Variable.this.name.toString(event), variables), KeyedValue.class);
+		}
 
-				Object value;
-				if (variable.getValue() instanceof Map<?, ?> sublist) {
-					value = sublist.get(null);
-				} else {
-					value = variable.getValue();
-				}
+		@Override
+		public Iterator<KeyedValue<?>> iterator(Event event) {
+			if (!list)
+				throw new SkriptAPIException("Invalid call to iterator on non-list variable");
 
-				value = convertIfOldPlayer(name + variable.getKey(), local, event, value);
-				if (value != null)
-					keyedValues.add(new KeyedValue<>(variable.getKey(), value));
-			}
+			Object rawValue = getRaw(event);
+			if (rawValue == null)
+				return Collections.emptyIterator();
 
-			return keyedValues.toArray(new KeyedValue[0]);
+			String name = Variable.this.name.toString(event);
+			//noinspection unchecked
+			return iterator(event, name, Variables.listIterator(name, (Map<String, Object>) rawValue, local));
+		}
+
+		/**
+		 * @param listName the name of the list variable, ending in {@code ::*}.
+		 */
+		private Iterator<KeyedValue<?>> iterator(Event event, String listName, Iterator<Entry<String, Object>> variables) {
+			String name = StringUtils.substring(listName, 0, -1);
+			return new AbstractIterator<>() {
+				@Override
+				protected @Nullable KeyedValue<?> computeNext() {
+					while (variables.hasNext()) {
+						Entry<String, Object> variable = variables.next();
+						if (variable.getKey() == null || variable.getValue() == null)
+							continue;
+
+						Object value;
+						if (variable.getValue() instanceof Map<?, ?> sublist) {
+							value = sublist.get(null);
+						} else {
+							value = variable.getValue();
+						}
+
+						value = convertIfOldPlayer(name, variable.getKey(), local, event, value);
+						if (value != null)
+							return new KeyedValue<>(variable.getKey(), value);
+					}
+					return endOfData();
+				}
+			};
 		}
 
 	}
@@ -880,7 +941,6 @@ public class Variable<T> implements Expression<T>, KeyReceiverExpression<T>, Key
 					continue;
 
 				String relativeKey = prefix + entry.getKey();
-				String absoluteKey = root + relativeKey;
 				Object value;
 				if (entry.getValue() instanceof Map<?, ?> sublist) {
 					getValuesRecursive(event, (Map<?, ?>) entry.getValue(), root, relativeKey + SEPARATOR, values);
@@ -889,7 +949,7 @@ public class Variable<T> implements Expression<T>, KeyReceiverExpression<T>, Key
 					value = entry.getValue();
 				}
 
-				value = convertIfOldPlayer(absoluteKey, local, event, value);
+				value = convertIfOldPlayer(root, relativeKey, local, event, value);
 				if (value != null)
 					values.add(new KeyedValue<>(relativeKey, value));
 			}
@@ -129,18 +129,23 @@ public abstract class Functions {
 			Skript.exception(ex, "Error while trying to load a function");
 
 			// avoid getting a "function is already registered" error when the function implementation is not known yet
-			Functions.unregisterFunction(signature);
+			synchronized (Functions.class) {
+				Functions.unregisterFunction(signature);
+			}
 			return null;
 		}
 
-		if (namespace.getFunction(signature.getName()) == null) {
-			namespace.addFunction(function);
-		}
+		// functions of different scripts may be loaded in parallel, see StructFunction#canLoadInParallel
+		synchronized (Functions.class) {
+			if (namespace.getFunction(signature.getName()) == null) {
+				namespace.addFunction(function);
+			}
 
-		if (function.getSignature().isLocal()) {
-			FunctionRegistry.getRegistry().register(script.getConfig().getFileName(), function);
-		} else {
-			FunctionRegistry.getRegistry().register(null, function);
+			if (function.getSignature().isLocal()) {
+				FunctionRegistry.getRegistry().register(script.getConfig().getFileName(), function);
+			} else {
+				FunctionRegistry.getRegistry().register(null, function);
+			}
 		}
 
 		return function;
@@ -6,6 +6,7 @@ import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.lang.util.SimpleEvent;
 import ch.njol.skript.util.Utils;
 import ch.njol.skript.variables.HintManager;
+import ch.njol.skript.variables.LocalVariableSlot;
 import ch.njol.skript.variables.Variables;
 import org.bukkit.event.Event;
 import org.jetbrains.annotations.NotNull;
@@ -20,6 +21,11 @@ public class ScriptFunction<T> extends Function<T> implements ReturnHandler<T> {
 
 	private final Trigger trigger;
 
+	/**
+	 * The {@link Variables#getLocalSlot(String) slots} of the single parameters, null for the other parameters.
+	 */
+	private final @Nullable LocalVariableSlot[] parameterSlots;
+
 	private final ThreadLocal<Boolean> returnValueSet = ThreadLocal.withInitial(() -> false);
 	private final ThreadLocal<T @Nullable []> returnValues = new ThreadLocal<>();
 	private final ThreadLocal<String @Nullable []> returnKeys = new ThreadLocal<>();
@@ -27,6 +33,10 @@ public class ScriptFunction<T> extends Function<T> implements ReturnHandler<T> {
 	public ScriptFunction(Signature<T> sign, SectionNode node) {
 		super(sign);
 
+		parameterSlots = Arrays.stream(sign.parameters().all())
+			.map(parameter -> parameter.isSingle() ? Variables.getLocalSlot(parameter.name()) : null)
+			.toArray(LocalVariableSlot[]::new);
+
 		Functions.currentFunction = this;
 		HintManager hintManager = ParserInstance.get().getHintManager();
 		try {
@@ -54,11 +64,18 @@ public class ScriptFunction<T> extends Function<T> implements ReturnHandler<T> {
 	// REM: use patterns, e.g. {_a%b%} is like "a.*", and thus subsequent {_axyz} may be set and of that type.
 	@Override
 	public T @Nullable [] execute(FunctionEvent<?> event, Object[][] params) {
+		// parameters with slots are set first, so the local variables are created with the slots of this function
+		for (int i = 0; i < parameterSlots.length; i++) {
+			if (parameterSlots[i] != null && params[i].length > 0)
+				Variables.setLocalVariable(parameterSlots[i], params[i][0], event);
+		}
+
 		int i = 0;
 		for (Parameter<?> parameter :  getSignature().parameters().all()) {
 			Object[] val = params[i];
 			if (parameter.isSingle() && val.length > 0) {
-				Variables.setVariable(parameter.name(), val[0], event, true);
+				if (parameterSlots[i] == null)
+					Variables.setVariable(parameter.name(), val[0], event, true);
 				i++;
 				continue;
 			}
@@ -0,0 +1,130 @@
+package ch.njol.skript.lang.parser;
+
+import ch.njol.skript.lang.TriggerSection;
+import ch.njol.util.Kleenean;
+import org.bukkit.event.Event;
+import org.jetbrains.annotations.Nullable;
+import org.skriptlang.skript.lang.script.Script;
+import org.skriptlang.skript.lang.script.ScriptData;
+import org.skriptlang.skript.lang.structure.Structure;
+import org.skriptlang.skript.registration.SyntaxInfo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers which expression syntax was parsed from each input while a script is loaded,
+ * so the same input, e.g. {@code player's uuid}, is parsed with that syntax right away
+ * when it is parsed again anywhere else in the script.
+ * <p>
+ * An input is only looked up in the same parsing state it was parsed in,
+ * i.e. with the same expected types, events, structure type, sections and delay.
+ * In that state, all syntaxes before the remembered one failed to parse the input,
+ * so trying the remembered syntax first gives the same result.
+ * If it fails anyway, all syntaxes are tried in their usual order.
+ * <p>
+ * Options and aliases are specific to a script, so a memo is only used for the script it was created for,
+ * and only while that script is loaded.
+ * Inputs that use local variables are not remembered if type hints are enabled,
+ * as the hints of a variable can change from one line to the next.
+ */
+public final class ExpressionParseMemo implements ScriptData {
+
+	/**
+	 * The maximum number of inputs remembered for a script, after which the least recently used inputs are dropped.
+	 */
+	private static final int MAX_ENTRIES = 4096;
+
+	/**
+	 * The parsing state in which an input was parsed.
+	 * Sections are compared by identity, as their parsing state is specific to them, e.g. the values of a loop.
+	 */
+	public record Key(
+		String input,
+		Class<?>[] types,
+		@Nullable Class<? extends Structure> structure,
+		Class<? extends Event> @Nullable [] events,
+		List<TriggerSection> sections,
+		Kleenean hasDelayBefore
+	) {
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key other))
+				return false;
+			return input.equals(other.input)
+				&& structure == other.structure
+				&& hasDelayBefore == other.hasDelayBefore
+				&& Arrays.equals(types, other.types)
+				&& Arrays.equals(events, other.events)
+				&& sections.equals(other.sections);
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = input.hashCode() * 31 + Arrays.hashCode(types);
+			hash = hash * 31 + Arrays.hashCode(events);
+			hash = hash * 31 + sections.size();
+			return hash * 31 + hasDelayBefore.hashCode();
+		}
+
+	}
+
+	private final Map<Key, SyntaxInfo<?>> parsed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, SyntaxInfo<?>> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	});
+
+	/**
+	 * @return The memo of the script that is currently being loaded, if it has one.
+	 */
+	public static @Nullable ExpressionParseMemo get() {
+		ParserInstance parser = ParserInstance.get();
+		if (!parser.isActive())
+			return null;
+		Script script = parser.getCurrentScript();
+		return script.getData(ExpressionParseMemo.class);
+	}
+
+	/**
+	 * Creates the key of an input in the current parsing state.
+	 *
+	 * @param input The input that is parsed.
+	 * @param types The types that the input is expected to be, which may contain nulls.
+	 * @return The key, or null if the input should not be remembered.
+	 */
+	public @Nullable Key key(String input, Class<?>[] types) {
+		ParserInstance parser = ParserInstance.get();
+		if (input.contains("{_") && parser.getHintManager().isActive())
+			return null;
+		Structure structure = parser.getCurrentStructure();
+		Class<? extends Event>[] events = parser.getCurrentEvents();
+		return new Key(input, types.clone(),
+			structure != null ? structure.getClass() : null,
+			events != null ? events.clone() : null,
+			List.copyOf(parser.getCurrentSections()),
+			parser.getHasDelayBefore());
+	}
+
+	/**
+	 * @return The syntax that was parsed from the input of the given key, if any.
+	 */
+	public @Nullable SyntaxInfo<?> get(Key key) {
+		return parsed.get(key);
+	}
+
+	/**
+	 * Remembers the syntax that was parsed from the input of the given key.
+	 */
+	public void put(Key key, SyntaxInfo<?> info) {
+		parsed.put(key, info);
+	}
+
+}
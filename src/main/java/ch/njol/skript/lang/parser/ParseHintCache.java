@@ -0,0 +1,225 @@
+package ch.njol.skript.lang.parser;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.SkriptAddon;
+import ch.njol.skript.config.Config;
+import ch.njol.skript.util.FileUtils;
+import org.jetbrains.annotations.Nullable;
+import org.skriptlang.skript.lang.script.Script;
+import org.skriptlang.skript.registration.SyntaxInfo;
+import org.skriptlang.skript.registration.SyntaxRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the {@link ParseHints} of scripts on disk, so scripts that didn't change since the last time they were loaded
+ * can be parsed faster, even after a restart of the server.
+ * <p>
+ * The hints of a script are only used if its contents are unchanged,
+ * and all hints are dropped when the version of Skript, an addon or any syntax changes.
+ */
+public final class ParseHintCache {
+
+	/**
+	 * The version of the file format, increased whenever it changes.
+	 */
+	private static final int VERSION = 1;
+
+	private static final String FILE_NAME = "parse-cache.dat";
+
+	/**
+	 * Longer keys are not stored, as {@link DataOutputStream#writeUTF(String)} can only write strings up to 65535 bytes.
+	 */
+	private static final int MAX_KEY_LENGTH = 16_384;
+
+	private static @Nullable ParseHintCache instance;
+
+	/**
+	 * @return The parse cache of Skript's scripts, loaded from disk when first used.
+	 */
+	public static synchronized ParseHintCache get() {
+		if (instance == null) {
+			instance = new ParseHintCache(fingerprint());
+			File file = new File(Skript.getInstance().getDataFolder(), FILE_NAME);
+			if (file.exists()) {
+				try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+					instance.read(in);
+				} catch (IOException e) {
+					Skript.debug("Could not read the parse cache, it will be recreated: " + e.getMessage());
+					instance.scripts.clear();
+				}
+			}
+		}
+		return instance;
+	}
+
+	private record Entry(String contentHash, Map<String, String> hints) { }
+
+	/**
+	 * The hash of the versions and syntaxes the hints were recorded with.
+	 */
+	private final String fingerprint;
+
+	/**
+	 * The hints of every script, by file name.
+	 */
+	private final Map<String, Entry> scripts = new ConcurrentHashMap<>();
+
+	ParseHintCache(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * Creates the hints for loading the given script, which must be
+	 * {@link Script#addData(org.skriptlang.skript.lang.script.ScriptData) added} to the script before it is loaded.
+	 *
+	 * @param config The script's config.
+	 * @return The hints, which are empty if the script changed since it was loaded last.
+	 */
+	public ParseHints hints(Config config) {
+		String contentHash = hash(config);
+		Entry entry = scripts.get(config.getFileName());
+		if (entry == null || !entry.contentHash.equals(contentHash))
+			return new ParseHints(contentHash, Collections.emptyMap());
+		return new ParseHints(contentHash, entry.hints);
+	}
+
+	/**
+	 * Stores the hints recorded while loading the given script and removes them from the script.
+	 *
+	 * @param script The loaded script.
+	 */
+	public void update(Script script) {
+		ParseHints hints = script.getData(ParseHints.class);
+		if (hints == null)
+			return;
+		script.removeData(ParseHints.class);
+		update(script.getConfig().getFileName(), hints);
+	}
+
+	void update(String fileName, ParseHints hints) {
+		scripts.put(fileName, new Entry(hints.contentHash, new HashMap<>(hints.parsed)));
+	}
+
+	/**
+	 * Writes the cache to disk, dropping the hints of scripts that no longer exist.
+	 */
+	public synchronized void save() {
+		File scriptsFolder = Skript.getInstance().getScriptsFolder();
+		scripts.keySet().removeIf(name -> !new File(scriptsFolder, name).exists());
+
+		File file = new File(Skript.getInstance().getDataFolder(), FILE_NAME);
+		File tempFile = new File(file.getParentFile(), FILE_NAME + ".temp");
+		try {
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+				write(out);
+			}
+			FileUtils.move(tempFile, file, true);
+		} catch (IOException e) {
+			Skript.warning("Could not save the parse cache: " + e.getMessage());
+		}
+	}
+
+	void write(OutputStream stream) throws IOException {
+		DataOutputStream out = new DataOutputStream(stream);
+		out.writeInt(VERSION);
+		out.writeUTF(fingerprint);
+		out.writeInt(scripts.size());
+		for (Map.Entry<String, Entry> script : scripts.entrySet()) {
+			out.writeUTF(script.getKey());
+			out.writeUTF(script.getValue().contentHash);
+			List<Map.Entry<String, String>> hints = new ArrayList<>(script.getValue().hints.entrySet());
+			hints.removeIf(hint -> hint.getKey().length() > MAX_KEY_LENGTH);
+			out.writeInt(hints.size());
+			for (Map.Entry<String, String> hint : hints) {
+				out.writeUTF(hint.getKey());
+				out.writeUTF(hint.getValue());
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Reads a cache written by {@link #write(OutputStream)}, ignoring it if it was written by another version
+	 * or with other syntaxes.
+	 */
+	void read(InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(stream);
+		if (in.readInt() != VERSION || !in.readUTF().equals(fingerprint))
+			return;
+		int scriptCount = in.readInt();
+		for (int i = 0; i < scriptCount; i++) {
+			String name = in.readUTF();
+			String contentHash = in.readUTF();
+			int hintCount = in.readInt();
+			Map<String, String> hints = new HashMap<>();
+			for (int j = 0; j < hintCount; j++)
+				hints.put(in.readUTF(), in.readUTF());
+			scripts.put(name, new Entry(contentHash, hints));
+		}
+	}
+
+	/**
+	 * @return A hash of the contents of the given config, ignoring comments and empty lines.
+	 */
+	static String hash(Config config) {
+		MessageDigest digest = sha256();
+		config.getMainNode().digest(digest);
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * @return A hash of everything that can change how a script is parsed other than its contents:
+	 * the versions of Skript and its addons, and all syntaxes that hints are recorded for.
+	 */
+	private static String fingerprint() {
+		MessageDigest digest = sha256();
+		update(digest, Skript.getVersion().toString());
+		for (SkriptAddon addon : Skript.getAddons())
+			update(digest, addon.getName() + " " + addon.version);
+
+		SyntaxRegistry registry = Skript.instance().syntaxRegistry();
+		for (var key : List.of(SyntaxRegistry.STATEMENT, SyntaxRegistry.SECTION, SyntaxRegistry.EXPRESSION)) {
+			update(digest, key.name());
+			for (SyntaxInfo<?> info : registry.syntaxes(key)) {
+				update(digest, info.type().getName());
+				info.patterns().forEach(pattern -> update(digest, pattern));
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, @Nullable String string) {
+		if (string != null)
+			digest.update(string.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // every Java platform supports SHA-256
+		}
+	}
+
+}
@@ -0,0 +1,186 @@
+package ch.njol.skript.lang.parser;
+
+import ch.njol.skript.config.Node;
+import org.jetbrains.annotations.Nullable;
+import org.skriptlang.skript.lang.script.Script;
+import org.skriptlang.skript.lang.script.ScriptData;
+import org.skriptlang.skript.registration.SyntaxInfo;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which syntax was parsed from each part of a script while it is loaded.
+ * <p>
+ * When an unchanged script is loaded again, the syntax that was parsed last time is tried first,
+ * so parsing a line usually succeeds without trying all other syntaxes.
+ * If the remembered syntax fails to parse, all syntaxes are tried in their usual order,
+ * so a parse with hints never fails where a normal parse would succeed.
+ * <p>
+ * Hints are only used for the scripts that {@link ParseHintCache} attached them to.
+ */
+public final class ParseHints implements ScriptData {
+
+	/**
+	 * The hash of the script's contents, see {@link ParseHintCache#hash(ch.njol.skript.config.Config)}.
+	 */
+	final String contentHash;
+
+	/**
+	 * The hints from the last time the script was loaded, see {@link #getKey(Node, String, String)}.
+	 */
+	private final Map<String, String> hints;
+
+	/**
+	 * The syntaxes parsed while loading the script this time.
+	 */
+	final Map<String, String> parsed = new ConcurrentHashMap<>();
+
+	/**
+	 * @param contentHash The hash of the script's contents.
+	 * @param hints The names of the syntax classes parsed the last time the script was loaded,
+	 *  by {@link #getKey(Node, String, String) key}.
+	 */
+	ParseHints(String contentHash, Map<String, String> hints) {
+		this.contentHash = contentHash;
+		this.hints = hints;
+	}
+
+	/**
+	 * @return The name of the syntax class parsed from the given key the last time, if any.
+	 */
+	@Nullable String getHint(String key) {
+		return hints.get(key);
+	}
+
+	/**
+	 * Creates an iterator over the given syntaxes that starts with the syntax parsed from the input the last time,
+	 * followed by all syntaxes, if the current script has parse hints.
+	 * {@link HintedIterator#record(Object)} must be called with the result of the parse.
+	 *
+	 * @param kind The kind of syntax that is parsed, e.g. {@code statement}, including anything else that affects the result.
+	 * @param input The input to parse.
+	 * @param syntaxes The syntaxes to try, in order.
+	 * @return An iterator over the syntaxes.
+	 */
+	public static <I extends SyntaxInfo<?>> HintedIterator<I> iterator(String kind, String input, Iterable<I> syntaxes) {
+		return iterator(kind, input, syntaxes, null);
+	}
+
+	/**
+	 * Creates an iterator over the given syntaxes like {@link #iterator(String, String, Iterable)},
+	 * which starts with the given syntax if the current script has no hint for the input.
+	 *
+	 * @param hint The syntax to try first if there is no hint, which must be one of the given syntaxes,
+	 *  e.g. from an {@link ExpressionParseMemo}.
+	 */
+	public static <I extends SyntaxInfo<?>> HintedIterator<I> iterator(String kind, String input, Iterable<I> syntaxes, @Nullable I hint) {
+		ParserInstance parser = ParserInstance.get();
+		Node node = parser.getNode();
+		if (!parser.isActive() || node == null)
+			return new HintedIterator<>(syntaxes.iterator(), hint, null, null);
+		Script script = parser.getCurrentScript();
+		ParseHints hints = script.getData(ParseHints.class);
+		if (hints == null)
+			return new HintedIterator<>(syntaxes.iterator(), hint, null, null);
+
+		String key = getKey(node, kind, input);
+		String type = hints.getHint(key);
+		if (type != null) {
+			for (I info : syntaxes) {
+				if (info.type().getName().equals(type)) {
+					hint = info;
+					break;
+				}
+			}
+		}
+		return new HintedIterator<>(syntaxes.iterator(), hint, hints, key);
+	}
+
+	/**
+	 * The line is part of the key, as the same input can be parsed differently depending on where it is,
+	 * e.g. in a different event.
+	 */
+	private static String getKey(Node node, String kind, String input) {
+		return node.getLine() + ":" + kind + ":" + input;
+	}
+
+	/**
+	 * An iterator over syntaxes that starts with the hinted syntax, if there is one,
+	 * followed by all other syntaxes in their usual order.
+	 */
+	public static final class HintedIterator<I extends SyntaxInfo<?>> implements Iterator<I> {
+
+		private final Iterator<I> syntaxes;
+		private final @Nullable I hint;
+		private final @Nullable ParseHints hints;
+		private final @Nullable String key;
+
+		private boolean hintReturned;
+		private @Nullable I next;
+
+		/**
+		 * The syntax returned last by {@link #next()}, which is the parsed one if the parse succeeds.
+		 */
+		private @Nullable I last;
+
+		private HintedIterator(Iterator<I> syntaxes, @Nullable I hint, @Nullable ParseHints hints, @Nullable String key) {
+			this.syntaxes = syntaxes;
+			this.hint = hint;
+			this.hints = hints;
+			this.key = key;
+			this.hintReturned = hint == null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (!hintReturned || next != null)
+				return true;
+			while (syntaxes.hasNext()) {
+				I info = syntaxes.next();
+				if (info != hint) { // the hint has already been tried
+					next = info;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public I next() {
+			if (!hintReturned) {
+				hintReturned = true;
+				last = hint;
+			} else if (hasNext()) {
+				last = next;
+				next = null;
+			} else {
+				throw new NoSuchElementException();
+			}
+			return last;
+		}
+
+		/**
+		 * @return The syntax returned last by {@link #next()}, which is the parsed one if the parse succeeded.
+		 */
+		public @Nullable I getLast() {
+			return last;
+		}
+
+		/**
+		 * Remembers the syntax that was parsed, if the parse succeeded.
+		 *
+		 * @param parsed The result of the parse, or null if it failed.
+		 * @return The result of the parse.
+		 */
+		public <T> @Nullable T record(@Nullable T parsed) {
+			if (parsed != null && hints != null && key != null && last != null)
+				hints.parsed.put(key, last.type().getName());
+			return parsed;
+		}
+
+	}
+
+}
@@ -0,0 +1,266 @@
+package ch.njol.skript.lang.parser;
+
+import ch.njol.skript.config.Node;
+import ch.njol.skript.lang.parser.ParsingStack.Element;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how much time is spent parsing each script line and each pattern of each syntax element while it is active,
+ * e.g. to find out which lines or which addon syntaxes make loading scripts slow.
+ * <p>
+ * Each attempt to match a pattern is timed, including the parsing of the expressions in it.
+ * The time of an attempt minus the time of the attempts nested in it is attributed to its pattern,
+ * while the total time of the outermost attempts is attributed to the line that was being parsed.
+ * As scripts may be parsed in parallel, the recorded times may add up to more than the duration of the profile.
+ * <p>
+ * Only one profiler can be active at a time. Profiling slows parsing down, so it should only be used to find problems.
+ *
+ * @see #write(Path, String)
+ */
+public final class ParseProfiler {
+
+	private static volatile @Nullable ParseProfiler active;
+
+	/**
+	 * Starts recording the parsing of all scripts.
+	 *
+	 * @return The new profiler, or null if another profiler is still active.
+	 */
+	public static synchronized @Nullable ParseProfiler start() {
+		if (active != null)
+			return null;
+		return active = new ParseProfiler();
+	}
+
+	/**
+	 * @return The profiler that is currently recording, if any.
+	 */
+	public static @Nullable ParseProfiler getActive() {
+		return active;
+	}
+
+	/**
+	 * The statistics of a pattern or a line.
+	 */
+	private static final class Stats {
+
+		private final LongAdder attempts = new LongAdder();
+		private final LongAdder matches = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+	}
+
+	/**
+	 * A line of a script, identified by its file name and line number.
+	 */
+	private record Line(String script, int line, @Nullable String text) { }
+
+	/**
+	 * An attempt to match a pattern, which may contain other attempts.
+	 */
+	public static final class Frame {
+
+		private final Element element;
+		private final String stack;
+		private final long start = System.nanoTime();
+		private long nested;
+
+		private Frame(Element element, String stack) {
+			this.element = element;
+			this.stack = stack;
+		}
+
+	}
+
+	private final long startTime = System.nanoTime();
+	private long stopTime = -1;
+
+	private final Map<Element, Stats> patterns = new ConcurrentHashMap<>();
+	private final Map<Line, Stats> lines = new ConcurrentHashMap<>();
+
+	/**
+	 * The time spent in each stack of attempts, excluding nested attempts,
+	 * by their frames separated by semicolons, starting with the script and line.
+	 */
+	private final Map<String, LongAdder> stacks = new ConcurrentHashMap<>();
+
+	private final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+
+	private ParseProfiler() { }
+
+	/**
+	 * Starts timing an attempt to match the given pattern.
+	 * Must be followed by {@link #exit(Frame, boolean)} on the same thread, even if parsing fails with an exception.
+	 *
+	 * @param element The syntax and pattern that is matched.
+	 * @return The frame to pass to {@link #exit(Frame, boolean)}.
+	 */
+	public Frame enter(Element element) {
+		Deque<Frame> frames = this.frames.get();
+		Frame parent = frames.peek();
+		String name = element.getSyntaxElementClass().getSimpleName() + "#" + element.patternIndex();
+		String stack;
+		if (parent != null) {
+			stack = parent.stack + ";" + name;
+		} else {
+			Line line = currentLine();
+			stack = frameName(line.script()) + ";line " + line.line() + ";" + name;
+		}
+		Frame frame = new Frame(element, stack);
+		frames.push(frame);
+		return frame;
+	}
+
+	/**
+	 * Stops timing an attempt to match a pattern.
+	 *
+	 * @param frame The frame returned by {@link #enter(Element)}.
+	 * @param matched Whether the pattern matched.
+	 */
+	public void exit(Frame frame, boolean matched) {
+		long elapsed = System.nanoTime() - frame.start;
+		Deque<Frame> frames = this.frames.get();
+		// pop frames left behind by exceptions as well
+		Frame top;
+		do {
+			top = frames.poll();
+		} while (top != null && top != frame);
+
+		long self = elapsed - frame.nested;
+		Stats stats = patterns.computeIfAbsent(frame.element, element -> new Stats());
+		stats.attempts.increment();
+		if (matched)
+			stats.matches.increment();
+		stats.nanos.add(self);
+		stacks.computeIfAbsent(frame.stack, stack -> new LongAdder()).add(self);
+
+		Frame parent = frames.peek();
+		if (parent != null) {
+			parent.nested += elapsed;
+		} else {
+			Stats line = lines.computeIfAbsent(currentLine(), key -> new Stats());
+			line.attempts.increment();
+			if (matched)
+				line.matches.increment();
+			line.nanos.add(elapsed);
+		}
+	}
+
+	private static Line currentLine() {
+		ParserInstance parser = ParserInstance.get();
+		Node node = parser.getNode();
+		if (node != null)
+			return new Line(node.getConfig().getFileName(), node.getLine(), node.getKey());
+		if (parser.isActive())
+			return new Line(parser.getCurrentScript().getConfig().getFileName(), -1, null);
+		return new Line("<none>", -1, null);
+	}
+
+	private static String frameName(String name) {
+		return name.replace(';', '_');
+	}
+
+	/**
+	 * Stops recording. Parsing that happens afterwards is not recorded anymore.
+	 */
+	public void stop() {
+		synchronized (ParseProfiler.class) {
+			if (active == this) {
+				active = null;
+				stopTime = System.nanoTime();
+			}
+		}
+	}
+
+	/**
+	 * Writes the recorded statistics to a JSON file, and the recorded stacks to a file of folded stacks,
+	 * which can be turned into a flame graph with e.g. <a href="https://github.com/brendangregg/FlameGraph">FlameGraph</a>
+	 * or <a href="https://www.speedscope.app">speedscope</a>.
+	 * The times in the folded stacks are in microseconds.
+	 *
+	 * @param directory The directory to write the files to, which is created if it doesn't exist.
+	 * @param name The name of the files, without extension.
+	 * @return The written JSON file.
+	 */
+	public Path write(Path directory, String name) throws IOException {
+		Files.createDirectories(directory);
+
+		try (Writer writer = Files.newBufferedWriter(directory.resolve(name + ".folded"), StandardCharsets.UTF_8)) {
+			for (Map.Entry<String, LongAdder> entry : stacks.entrySet()) {
+				long micros = TimeUnit.NANOSECONDS.toMicros(entry.getValue().sum());
+				if (micros > 0)
+					writer.write(entry.getKey() + " " + micros + "\n");
+			}
+		}
+
+		Path json = directory.resolve(name + ".json");
+		Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+		try (Writer writer = Files.newBufferedWriter(json, StandardCharsets.UTF_8)) {
+			gson.toJson(toJson(), writer);
+		}
+		return json;
+	}
+
+	/**
+	 * @return The recorded statistics, with the slowest patterns and lines first. Times are in nanoseconds.
+	 */
+	public JsonObject toJson() {
+		JsonObject json = new JsonObject();
+		long duration = (stopTime == -1 ? System.nanoTime() : stopTime) - startTime;
+		json.addProperty("duration", duration);
+
+		JsonArray syntaxes = new JsonArray();
+		patterns.entrySet().stream()
+			.sorted(Comparator.comparingLong(entry -> -entry.getValue().nanos.sum()))
+			.forEach(entry -> {
+				Element element = entry.getKey();
+				JsonObject syntax = new JsonObject();
+				syntax.addProperty("class", element.getSyntaxElementClass().getName());
+				syntax.addProperty("origin", element.syntaxInfo().origin().name());
+				syntax.addProperty("pattern index", element.patternIndex());
+				syntax.addProperty("pattern", element.getPattern());
+				addStats(syntax, entry.getValue());
+				syntaxes.add(syntax);
+			});
+		json.add("syntaxes", syntaxes);
+
+		JsonArray lines = new JsonArray();
+		this.lines.entrySet().stream()
+			.sorted(Comparator.comparingLong(entry -> -entry.getValue().nanos.sum()))
+			.forEach(entry -> {
+				Line line = entry.getKey();
+				JsonObject object = new JsonObject();
+				object.addProperty("script", line.script());
+				object.addProperty("line", line.line());
+				object.addProperty("text", line.text());
+				addStats(object, entry.getValue());
+				lines.add(object);
+			});
+		json.add("lines", lines);
+		return json;
+	}
+
+	private static void addStats(JsonObject json, Stats stats) {
+		json.addProperty("attempts", stats.attempts.sum());
+		json.addProperty("matches", stats.matches.sum());
+		json.addProperty("time", stats.nanos.sum());
+	}
+
+}
@@ -46,12 +46,46 @@ public abstract class SimpleExpression<T> implements Expression<T>, SyntaxRuntim
 
 	@Override
 	public final @Nullable T getSingle(Event event) {
-		T[] values = getArray(event);
-		if (values.length == 0)
+		return getSingleValue(event);
+	}
+
+	/**
+	 * The internal method to get an expression's single value, used by {@link #getSingle(Event)}.
+	 * <p>
+	 * The default implementation picks the value from the array returned by {@link #get(Event)} without copying it.
+	 * Single expressions that compute their value directly can override this to not create an array at all,
+	 * in which case {@link #get(Event)} should return the same value.
+	 *
+	 * @param event The event with which this expression is evaluated.
+	 * @return The single value of this expression for this event, or null if it has none.
+	 * @throws SkriptAPIException If this expression has more than one value.
+	 */
+	protected @Nullable T getSingleValue(Event event) {
+		T[] values = get(event);
+		if (values == null || values.length == 0)
 			return null;
-		if (values.length > 1)
+		if (values.length == 1)
+			return values[0];
+
+		int numNonNull = 0;
+		T single = null;
+		for (T value : values) {
+			if (value != null) {
+				numNonNull++;
+				single = value;
+			}
+		}
+		if (numNonNull <= 1)
+			return single;
+		if (getAnd())
 			throw new SkriptAPIException("Call to getSingle() on a non-single expression");
-		return values[0];
+		int rand = Utils.random(0, numNonNull);
+		for (T value : values) {
+			if (value != null && rand-- == 0)
+				return value;
+		}
+		assert false;
+		return null;
 	}
 
 	@Override
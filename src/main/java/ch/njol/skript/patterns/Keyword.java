@@ -3,11 +3,13 @@ package ch.njol.skript.patterns;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableSet;
 import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -68,6 +70,102 @@ abstract class Keyword {
 		return length;
 	}
 
+	/**
+	 * Computes the words that an input must start with to possibly match a pattern.
+	 * @param first The first element of the pattern.
+	 * @return The possible first words of a matching input, see {@link SkriptPattern#getFirstWord(String)},
+	 *  or null if an input starting with any word could match, e.g. because the pattern starts with an expression.
+	 */
+	public static @Nullable Set<String> computeFirstWords(PatternElement first) {
+		Set<String> words = new HashSet<>();
+		return addFirstWords(first, true, words) == Start.WORD ? words : null;
+	}
+
+	/**
+	 * How a pattern or part of a pattern can start.
+	 */
+	private enum Start {
+		/**
+		 * Always with one of the computed words.
+		 */
+		WORD,
+		/**
+		 * With one of the computed words, or with whatever follows, as it can match nothing.
+		 */
+		EMPTY,
+		/**
+		 * With any word.
+		 */
+		UNKNOWN
+	}
+
+	/**
+	 * Adds the possible first words of the pattern elements starting at <b>first</b> to <b>words</b>.
+	 * @param first The first element.
+	 * @param separated Whether whatever follows the elements on an outer level starts with a space,
+	 *  so a literal at the end of the elements is a whole word.
+	 * @param words The set to add the words to.
+	 * @return How the elements can start.
+	 */
+	private static Start addFirstWords(@Nullable PatternElement first, boolean separated, Set<String> words) {
+		PatternElement next = first;
+		while (next != null) {
+			boolean followedBySpace = next.originalNext == null ? separated : startsWithSpace(next.originalNext);
+			switch (next) {
+				case LiteralPatternElement ignored -> {
+					String literal = next.toString().stripLeading();
+					if (!literal.isEmpty()) {
+						int space = literal.indexOf(' ');
+						if (space != -1) {
+							words.add(SkriptPattern.getFirstWord(literal));
+							return Start.WORD;
+						}
+						if (!followedBySpace) // the word continues with the next element
+							return Start.UNKNOWN;
+						words.add(SkriptPattern.getFirstWord(literal));
+						return Start.WORD;
+					}
+				}
+				case ChoicePatternElement choicePatternElement -> {
+					boolean empty = false;
+					for (PatternElement choice : choicePatternElement.getPatternElements()) {
+						Start start = addFirstWords(choice, followedBySpace, words);
+						if (start == Start.UNKNOWN)
+							return Start.UNKNOWN;
+						empty |= start == Start.EMPTY;
+					}
+					if (!empty)
+						return Start.WORD;
+				}
+				case GroupPatternElement groupPatternElement -> {
+					Start start = addFirstWords(groupPatternElement.getPatternElement(), followedBySpace, words);
+					if (start != Start.EMPTY)
+						return start;
+				}
+				case OptionalPatternElement optionalPatternElement -> {
+					if (addFirstWords(optionalPatternElement.getPatternElement(), followedBySpace, words) == Start.UNKNOWN)
+						return Start.UNKNOWN;
+				}
+				case ParseTagPatternElement ignored -> {
+					// a parse tag does not represent actual content in a pattern
+				}
+				default -> {
+					// TypePatternElement, RegexPatternElement: can start with anything
+					return Start.UNKNOWN;
+				}
+			}
+			next = next.originalNext;
+		}
+		return Start.EMPTY;
+	}
+
+	/**
+	 * @return Whether the given element definitely starts with a space.
+	 */
+	private static boolean startsWithSpace(PatternElement element) {
+		return element instanceof LiteralPatternElement && element.toString().startsWith(" ");
+	}
+
 	/**
 	 * Builds a list of keywords starting from the provided pattern element.
 	 * @param first The pattern to build keywords from.
@@ -0,0 +1,326 @@
+package ch.njol.skript.patterns;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A deterministic automaton over the literal skeleton of a pattern, used to quickly reject inputs
+ * that can't match a pattern before trying to match it with the backtracking matcher.
+ * <p>
+ * Literals are matched like {@link LiteralPatternElement} matches them, including its handling of spaces,
+ * optionals and choices become alternatives, and parse tags match nothing.
+ * Expressions and regexes are skeleton wildcards that can match anything,
+ * so the automaton accepts every input that the pattern matches, and usually a few more.
+ * <p>
+ * The automaton is built eagerly and never changes afterwards, so it can be used by multiple threads at once.
+ */
+final class PatternAutomaton {
+
+	/**
+	 * Patterns with larger automata are matched without one, to keep the memory used by all patterns low.
+	 */
+	private static final int MAX_STATES = 127;
+
+	/**
+	 * The class of characters that don't occur in any literal of the pattern.
+	 */
+	private static final int OTHER = 0;
+
+	/**
+	 * The class of spaces.
+	 */
+	private static final int SPACE = 1;
+
+	/**
+	 * The state that can't reach an accepting state anymore.
+	 */
+	private static final int DEAD = 0;
+
+	/**
+	 * The character class of each ASCII character.
+	 */
+	private final byte[] asciiClasses;
+
+	/**
+	 * The non-ASCII characters of the pattern, sorted, with their classes in {@link #otherClasses}.
+	 */
+	private final char[] otherChars;
+	private final byte[] otherClasses;
+
+	private final int classCount;
+
+	/**
+	 * The next state of each state and character class, at {@code state * classCount + class}.
+	 */
+	private final byte[] transitions;
+
+	private final boolean[] accepting;
+
+	private final int start;
+
+	private PatternAutomaton(byte[] asciiClasses, char[] otherChars, byte[] otherClasses, int classCount,
+							 byte[] transitions, boolean[] accepting, int start) {
+		this.asciiClasses = asciiClasses;
+		this.otherChars = otherChars;
+		this.otherClasses = otherClasses;
+		this.classCount = classCount;
+		this.transitions = transitions;
+		this.accepting = accepting;
+		this.start = start;
+	}
+
+	/**
+	 * Determines whether the given input can match the pattern of this automaton.
+	 * @param expr The trimmed input, as it is given to the pattern's elements.
+	 * @return False if the input can't match the pattern, true if it might.
+	 */
+	boolean accepts(String expr) {
+		int state = start;
+		for (int i = 0; i < expr.length(); i++) {
+			state = transitions[state * classCount + getClass(Character.toLowerCase(expr.charAt(i)))];
+			if (state == DEAD)
+				return false;
+		}
+		return accepting[state];
+	}
+
+	private int getClass(char c) {
+		if (c < asciiClasses.length)
+			return asciiClasses[c];
+		int index = Arrays.binarySearch(otherChars, c);
+		return index < 0 ? OTHER : otherClasses[index];
+	}
+
+	/**
+	 * Builds the automaton of a pattern.
+	 * @param first The first element of the pattern.
+	 * @return The automaton, or null if the pattern has no literals to check or its automaton would be too large.
+	 */
+	static @Nullable PatternAutomaton build(PatternElement first) {
+		Nfa nfa = new Nfa();
+		int end = nfa.add(first, nfa.newState());
+		if (nfa.chars.isEmpty()) // the pattern consists of expressions only, any input might match
+			return null;
+
+		// assign character classes
+		TreeSet<Character> chars = new TreeSet<>(nfa.chars);
+		chars.remove(' ');
+		if (chars.size() + 2 > Byte.MAX_VALUE)
+			return null;
+		byte[] asciiClasses = new byte[128];
+		asciiClasses[' '] = SPACE;
+		List<Character> otherChars = new ArrayList<>();
+		int classCount = 2;
+		for (char c : chars) {
+			if (c < 128) {
+				asciiClasses[c] = (byte) classCount;
+			} else {
+				otherChars.add(c);
+			}
+			classCount++;
+		}
+		char[] otherCharArray = new char[otherChars.size()];
+		byte[] otherClasses = new byte[otherChars.size()];
+		for (int i = 0; i < otherChars.size(); i++) {
+			otherCharArray[i] = otherChars.get(i);
+			otherClasses[i] = (byte) (classCount - otherChars.size() + i);
+		}
+		char[] classChars = new char[classCount];
+		classChars[SPACE] = ' ';
+		int classIndex = 2;
+		for (char c : chars)
+			classChars[classIndex++] = c;
+
+		// subset construction
+		List<BitSet> states = new ArrayList<>();
+		Map<BitSet, Integer> stateIndices = new HashMap<>();
+		states.add(new BitSet());
+		stateIndices.put(states.get(DEAD), DEAD);
+		BitSet startSet = new BitSet();
+		startSet.set(0);
+		nfa.close(startSet, true);
+		states.add(startSet);
+		stateIndices.put(startSet, 1);
+
+		List<byte[]> rows = new ArrayList<>();
+		for (int state = 0; state < states.size(); state++) {
+			BitSet set = states.get(state);
+			byte[] row = new byte[classCount];
+			for (int charClass = 0; charClass < classCount; charClass++) {
+				BitSet next = nfa.step(set, charClass == OTHER ? null : classChars[charClass]);
+				nfa.close(next, charClass == SPACE);
+				Integer index = stateIndices.get(next);
+				if (index == null) {
+					if (states.size() == MAX_STATES)
+						return null;
+					index = states.size();
+					states.add(next);
+					stateIndices.put(next, index);
+				}
+				row[charClass] = (byte) (int) index;
+			}
+			rows.add(row);
+		}
+
+		byte[] transitions = new byte[states.size() * classCount];
+		boolean[] accepting = new boolean[states.size()];
+		for (int state = 0; state < states.size(); state++) {
+			System.arraycopy(rows.get(state), 0, transitions, state * classCount, classCount);
+			// at the end of the input, a space of the pattern may always match nothing
+			BitSet atEnd = (BitSet) states.get(state).clone();
+			nfa.close(atEnd, true);
+			accepting[state] = atEnd.get(end);
+		}
+		return new PatternAutomaton(asciiClasses, otherCharArray, otherClasses, classCount, transitions, accepting, 1);
+	}
+
+	/**
+	 * The nondeterministic automaton of a pattern's skeleton, built from its elements.
+	 */
+	private static final class Nfa {
+
+		/**
+		 * The character that leads from each state to {@link #edgeTargets another state}, or 0 if there is none.
+		 */
+		private final List<Character> edgeChars = new ArrayList<>();
+		private final List<Integer> edgeTargets = new ArrayList<>();
+
+		/**
+		 * Whether a state loops on any character.
+		 */
+		private final BitSet wildcards = new BitSet();
+
+		/**
+		 * The states each state leads to without consuming a character.
+		 */
+		private final List<List<Integer>> epsilons = new ArrayList<>();
+
+		/**
+		 * The states whose edge is a space, which can also be followed without consuming a character
+		 * at the start or end of the input, or after a space, like {@link LiteralPatternElement} does.
+		 */
+		private final BitSet spaces = new BitSet();
+
+		/**
+		 * All characters of the pattern's literals.
+		 */
+		private final Set<Character> chars = new HashSet<>();
+
+		int newState() {
+			edgeChars.add((char) 0);
+			edgeTargets.add(-1);
+			epsilons.add(new ArrayList<>());
+			return epsilons.size() - 1;
+		}
+
+		/**
+		 * Adds the given elements and those that follow them on the same level.
+		 * @param first The first element.
+		 * @param state The state to start from.
+		 * @return The state after the elements.
+		 */
+		int add(@Nullable PatternElement first, int state) {
+			PatternElement next = first;
+			while (next != null) {
+				switch (next) {
+					case LiteralPatternElement ignored -> {
+						for (char c : next.toString().toCharArray()) {
+							c = Character.toLowerCase(c);
+							int target = newState();
+							edgeChars.set(state, c);
+							edgeTargets.set(state, target);
+							if (c == ' ')
+								spaces.set(state);
+							chars.add(c);
+							state = target;
+						}
+					}
+					case ChoicePatternElement choicePatternElement -> {
+						int join = newState();
+						for (PatternElement choice : choicePatternElement.getPatternElements()) {
+							int choiceStart = newState();
+							epsilons.get(state).add(choiceStart);
+							epsilons.get(add(choice, choiceStart)).add(join);
+						}
+						state = join;
+					}
+					case GroupPatternElement groupPatternElement -> {
+						int groupStart = newState();
+						epsilons.get(state).add(groupStart);
+						state = add(groupPatternElement.getPatternElement(), groupStart);
+					}
+					case OptionalPatternElement optionalPatternElement -> {
+						int join = newState();
+						int optionalStart = newState();
+						epsilons.get(state).add(join);
+						epsilons.get(state).add(optionalStart);
+						epsilons.get(add(optionalPatternElement.getPatternElement(), optionalStart)).add(join);
+						state = join;
+					}
+					case ParseTagPatternElement ignored -> {
+						// a parse tag does not represent actual content in a pattern
+					}
+					default -> {
+						// TypePatternElement, RegexPatternElement: can match anything
+						int wildcard = newState();
+						wildcards.set(wildcard);
+						epsilons.get(state).add(wildcard);
+						state = wildcard;
+					}
+				}
+				next = next.originalNext;
+			}
+			return state;
+		}
+
+		/**
+		 * @param c The character, or null for a character that doesn't occur in the pattern.
+		 * @return The states reached from the given states by consuming the character.
+		 */
+		BitSet step(BitSet states, @Nullable Character c) {
+			BitSet next = new BitSet();
+			for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+				if (wildcards.get(state))
+					next.set(state);
+				if (c != null && edgeTargets.get(state) != -1 && edgeChars.get(state) == (char) c)
+					next.set(edgeTargets.get(state));
+			}
+			return next;
+		}
+
+		/**
+		 * Adds the states reachable without consuming a character to the given states.
+		 * @param boundary Whether the input is at its start or end, or after a space,
+		 *  where the spaces of literals may match nothing.
+		 */
+		void close(BitSet states, boolean boundary) {
+			Deque<Integer> queue = new ArrayDeque<>();
+			states.stream().forEach(queue::push);
+			while (!queue.isEmpty()) {
+				int state = queue.pop();
+				List<Integer> targets = new ArrayList<>(epsilons.get(state));
+				if (boundary && spaces.get(state))
+					targets.add(edgeTargets.get(state));
+				for (int target : targets) {
+					if (!states.get(target)) {
+						states.set(target);
+						queue.push(target);
+					}
+				}
+			}
+		}
+
+	}
+
+}
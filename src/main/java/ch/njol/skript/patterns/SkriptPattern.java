@@ -9,6 +9,7 @@ import org.jetbrains.annotations.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 public class SkriptPattern {
 
@@ -17,6 +18,8 @@ public class SkriptPattern {
 
 	private final Keyword[] keywords;
 	private final int minLength;
+	private final @Nullable Set<String> firstWords;
+	private final @Nullable PatternAutomaton automaton;
 	@Nullable
 	private List<TypePatternElement> types;
 
@@ -25,6 +28,8 @@ public class SkriptPattern {
 		this.expressionAmount = expressionAmount;
 		keywords = Keyword.buildKeywords(first);
 		minLength = Keyword.computeMinLength(first);
+		firstWords = Keyword.computeFirstWords(first);
+		automaton = PatternAutomaton.build(first);
 	}
 
 	@Nullable
@@ -39,6 +44,8 @@ public class SkriptPattern {
 		}
 
 		expr = expr.trim();
+		if (automaton != null && !automaton.accepts(expr))
+			return null;
 
 		MatchResult matchResult = new MatchResult();
 		matchResult.source = this;
@@ -54,6 +61,34 @@ public class SkriptPattern {
 		return match(expr, SkriptParser.ALL_FLAGS, ParseContext.DEFAULT);
 	}
 
+	/**
+	 * Gets the words that an input must start with to possibly match this pattern,
+	 * which allows skipping patterns that can't match an input without trying to match them.
+	 *
+	 * @return the possible {@link #getFirstWord(String) first words} of a matching input,
+	 * or {@code null} if an input starting with any word could match, e.g. if this pattern starts with an expression.
+	 */
+	public @Nullable Set<String> getFirstWords() {
+		return firstWords;
+	}
+
+	/**
+	 * Gets the first word of an input, i.e. everything up to the first space, in lower case.
+	 *
+	 * @see #getFirstWords()
+	 */
+	public static String getFirstWord(String expr) {
+		expr = expr.stripLeading();
+		int end = expr.indexOf(' ');
+		if (end == -1)
+			end = expr.length();
+		// lower case character by character, like LiteralPatternElement does when matching
+		StringBuilder word = new StringBuilder(end);
+		for (int i = 0; i < end; i++)
+			word.append(Character.toLowerCase(expr.charAt(i)));
+		return word.toString();
+	}
+
 	/**
 	 * @return the size of the {@link MatchResult#expressions} array
 	 * from a match.
@@ -56,6 +56,7 @@ public abstract class Classes {
 	private final static HashMap<Class<?>, ClassInfo<?>> superClassInfos = new HashMap<>();
 	private final static HashMap<String, ClassInfo<?>> classInfosByCodeName = new HashMap<>();
 	private final static Map<String, List<ClassInfo<?>>> registeredLiteralPatterns = new HashMap<>();
+	private static volatile LiteralDictionary literalDictionary = LiteralDictionary.EMPTY;
 
 	/**
 	 * @param info info about the class to register
@@ -110,6 +111,19 @@ public abstract class Classes {
 		}
 
 		EntityData.onRegistrationStop();
+
+		// the names of enum and registry parsers depend on the language, so this runs after they are refreshed
+		Language.addListener(Classes::buildLiteralDictionary, Language.LanguageListenerPriority.LATEST);
+	}
+
+	private static void buildLiteralDictionary() {
+		List<Parser<?>> parsers = new ArrayList<>();
+		for (ClassInfo<?> info : getClassInfos()) {
+			Parser<?> parser = info.getParser();
+			if (parser != null && info.isInLiteralDictionary())
+				parsers.add(parser);
+		}
+		literalDictionary = new LiteralDictionary(parsers);
 	}
 
 	/**
@@ -489,10 +503,14 @@ public abstract class Classes {
 	public static <T> T parseSimple(final String s, final Class<T> c, final ParseContext context) {
 		final ParseLogHandler log = SkriptLogger.startParseLogHandler();
 		try {
+			final LiteralDictionary dictionary = literalDictionary;
+			final Parser<?>[] known = dictionary.lookup(s);
 			for (final ClassInfo<?> info : getClassInfos()) {
 				final Parser<?> parser = info.getParser();
 				if (parser == null || !parser.canParse(context) || !c.isAssignableFrom(info.getC()))
 					continue;
+				if (!dictionary.shouldParse(known, parser)) // a parser of fixed names that doesn't know s
+					continue;
 				log.clear();
 				@SuppressWarnings("unchecked")
 				final T t = (T) parser.parse(s, context);
@@ -183,7 +183,26 @@ public enum Feature implements Experiment, Documentable {
 		set the equippable component of {_item} to {_component}
 		```
 		""",
-		LifeCycle.EXPERIMENTAL, "equippable components");
+		LifeCycle.EXPERIMENTAL, "equippable components"),
+	COMPILED_TRIGGERS("compiled triggers", "Compiled Triggers",
+		"""
+		Compiles consecutive effects and conditions of the script's triggers into Java bytecode when the script is loaded,
+		which makes long triggers that run often, like ones with arithmetic in loops or chains of conditions, faster.
+		
+		Sections, delays and other statements that change what runs next are still run as usual,
+		and triggers are run as usual while debugging, so that each statement is printed.
+		
+		```
+		using compiled triggers
+		
+		on player move:
+			set {_distance} to distance between event-location and spawn of world "world"
+			{_distance} > 1000
+			player doesn't have permission "border.bypass"
+			teleport player to spawn of world "world"
+		```
+		""",
+		LifeCycle.EXPERIMENTAL, "compiled trigger[s]");
 
 	private final String displayName;
 	private final String codeName;
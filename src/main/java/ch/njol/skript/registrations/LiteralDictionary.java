@@ -0,0 +1,70 @@
+package ch.njol.skript.registrations;
+
+import ch.njol.skript.classes.Parser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The names of all parsers that can only parse a fixed set of names, in a single case-insensitive dictionary,
+ * so a literal only has to be looked up once to know which of these parsers can parse it.
+ *
+ * @see Parser#getLiteralNames()
+ */
+final class LiteralDictionary {
+
+	static final LiteralDictionary EMPTY = new LiteralDictionary(Set.of());
+
+	private static final Parser<?>[] NONE = new Parser[0];
+
+	private final Map<String, Parser<?>[]> parsers = new HashMap<>();
+	private final Set<Parser<?>> dictionaryParsers = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * @param parsers The parsers to include, in parsing order. Parsers that don't have {@link Parser#getLiteralNames() names} are ignored.
+	 */
+	LiteralDictionary(Iterable<? extends Parser<?>> parsers) {
+		for (Parser<?> parser : parsers) {
+			Set<String> names = parser.getLiteralNames();
+			if (names == null)
+				continue;
+			dictionaryParsers.add(parser);
+			for (String name : names) {
+				this.parsers.merge(name, new Parser[] {parser}, (known, added) -> {
+					Parser<?>[] merged = Arrays.copyOf(known, known.length + 1);
+					merged[known.length] = parser;
+					return merged;
+				});
+			}
+		}
+	}
+
+	/**
+	 * @param literal The literal to look up, in any case.
+	 * @return The parsers that know the given literal, in parsing order.
+	 */
+	Parser<?>[] lookup(String literal) {
+		return parsers.getOrDefault(literal.toLowerCase(Locale.ENGLISH), NONE);
+	}
+
+	/**
+	 * @param known The parsers returned by {@link #lookup(String)}.
+	 * @param parser Any parser.
+	 * @return Whether the given parser should be called to parse the looked up literal.
+	 */
+	boolean shouldParse(Parser<?>[] known, Parser<?> parser) {
+		if (!dictionaryParsers.contains(parser))
+			return true;
+		for (Parser<?> knownParser : known) {
+			if (knownParser == parser)
+				return true;
+		}
+		return false;
+	}
+
+}
@@ -1,7 +1,9 @@
 package ch.njol.skript.structures;
 
 import ch.njol.skript.ScriptLoader;
+import ch.njol.skript.ScriptWatcher;
 import ch.njol.skript.Skript;
+import ch.njol.skript.SkriptConfig;
 import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Example;
 import ch.njol.skript.doc.Name;
@@ -14,7 +16,6 @@ import ch.njol.skript.localization.PluralizingArgsMessage;
 import ch.njol.skript.log.LogEntry;
 import ch.njol.skript.log.RedirectingLogHandler;
 import ch.njol.skript.log.TimingLogHandler;
-import ch.njol.skript.util.Task;
 import ch.njol.util.OpenCloseable;
 import ch.njol.util.StringUtils;
 import com.google.common.collect.Lists;
@@ -33,6 +34,7 @@ import org.skriptlang.skript.lang.structure.Structure;
 import org.skriptlang.skript.registration.DefaultSyntaxInfos.Structure.NodeType;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.logging.Level;
 
@@ -40,6 +42,9 @@ import java.util.logging.Level;
 @Description("""
 	Place at the top of a script file to enable and configure automatic reloading of the script.
 	When the script is saved, Skript will automatically reload the script.
+	To reload all scripts when they are saved, enable 'auto reload all scripts' in the config.sk instead.
+	If only events or functions were changed, added or removed, only those are reloaded, \
+	and everything else in the script stays loaded.
 	The config.sk node 'script loader thread size' must be set to a positive number (async or parallel loading) \
 	for this to be enabled.
 	
@@ -67,7 +72,8 @@ public class StructAutoReload extends Structure {
 	}
 
 	private Script script;
-	private Task task;
+	private @Nullable ScriptWatcher watcher;
+	private @Nullable Runnable listener;
 
 	@Override
 	public boolean init(Literal<?> @NotNull [] arguments, int pattern, ParseResult result, EntryContainer container) {
@@ -115,38 +121,34 @@ public class StructAutoReload extends Structure {
 
 	@Override
 	public boolean postLoad() {
-		task = new Task(Skript.getInstance(), 0, 20 * 2, true) {
-			@Override
-			public void run() {
-				AutoReload data = script.getData(AutoReload.class);
-				File file = script.getConfig().getFile();
-				if (data == null || file == null || !file.exists())
-					return;
-				long lastModified = file.lastModified();
-				if (lastModified <= data.getLastReloadTime())
-					return;
-
-				data.setLastReloadTime(lastModified);
-				try (
-					RedirectingLogHandler logHandler = new RedirectingLogHandler(data.getRecipients(), "").start();
-					TimingLogHandler timingLogHandler = new TimingLogHandler().start()
-				) {
-					reloading(logHandler);
-					OpenCloseable openCloseable = OpenCloseable.combine(logHandler, timingLogHandler);
-					ScriptLoader.reloadScript(script, openCloseable).thenRun(() -> reloaded(logHandler, timingLogHandler));
-				} catch (Exception e) {
-					//noinspection ThrowableNotThrown
-					Skript.exception(e, "Exception occurred while automatically reloading a script", script.getConfig().getFileName());
-				}
-			}
+		AutoReload data = script.getData(AutoReload.class);
+		File file = script.getConfig().getFile();
+		if (data == null || file == null)
+			return true;
+		try {
+			watcher = ScriptWatcher.get();
+		} catch (IOException e) {
+			Skript.error(Language.format("log.auto reload.watch failed", e.getMessage()));
+			return false;
+		}
+		listener = () -> {
+			if (!file.exists())
+				return;
+			long lastModified = file.lastModified();
+			if (lastModified <= data.getLastReloadTime())
+				return;
+			data.setLastReloadTime(lastModified);
+			reload(script, data.getRecipients());
 		};
+		watcher.watch(file, listener);
 		return true;
 	}
 
 	@Override
 	public void unload() {
-		if (task != null)
-			task.cancel();
+		File file = script.getConfig().getFile();
+		if (watcher != null && listener != null && file != null)
+			watcher.unwatch(file, listener);
 	}
 
 	@Override
@@ -159,14 +161,59 @@ public class StructAutoReload extends Structure {
 		return "auto reload";
 	}
 
-	private void reloading(RedirectingLogHandler logHandler) {
+	/**
+	 * Reloads a script like auto reload does, reloading only the changed structures of the script if possible,
+	 * and sends the reload messages to the given recipients.
+	 *
+	 * @param script The script to reload.
+	 * @param recipients The recipients of the reload messages.
+	 */
+	public static void reload(Script script, List<CommandSender> recipients) {
+		try (
+			RedirectingLogHandler logHandler = new RedirectingLogHandler(recipients, "").start();
+			TimingLogHandler timingLogHandler = new TimingLogHandler().start()
+		) {
+			reloading(script, logHandler);
+			OpenCloseable openCloseable = OpenCloseable.combine(logHandler, timingLogHandler);
+			ScriptLoader.reloadScriptIncrementally(script, openCloseable).thenRun(() -> reloaded(script, logHandler, timingLogHandler));
+		} catch (Exception e) {
+			//noinspection ThrowableNotThrown
+			Skript.exception(e, "Exception occurred while automatically reloading a script", script.getConfig().getFileName());
+		}
+	}
+
+	/**
+	 * Reloads every loaded script when it is saved, if enabled in the config,
+	 * except scripts with an auto reload structure, which are reloaded by that structure.
+	 */
+	public static void watchAllScripts() {
+		if (!SkriptConfig.autoReloadAllScripts.value())
+			return;
+		if (!ScriptLoader.isAsync()) {
+			Skript.warning(Language.get("log.auto reload.async required"));
+			return;
+		}
+		try {
+			ScriptWatcher.get().setFallback(file -> {
+				if (!file.isFile())
+					return;
+				Script script = ScriptLoader.getScript(file);
+				if (script != null)
+					reload(script, List.of(Bukkit.getConsoleSender()));
+			});
+		} catch (IOException e) {
+			Skript.warning(Language.format("log.auto reload.watch failed", e.getMessage()));
+		}
+	}
+
+	private static void reloading(Script script, RedirectingLogHandler logHandler) {
 		String prefix = Language.get("skript.prefix");
 		String what = PluralizingArgsMessage.format(Language.format("log.auto reload.script", script.getConfig().getFileName()));
 		String message = StringUtils.fixCapitalization(PluralizingArgsMessage.format(Language.format("log.auto reload.reloading", what)));
 		logHandler.log(new LogEntry(Level.INFO, prefix + message));
 	}
 
-	private void reloaded(RedirectingLogHandler logHandler, TimingLogHandler timingLogHandler) {
+	private static void reloaded(Script script, RedirectingLogHandler logHandler, TimingLogHandler timingLogHandler) {
 		String prefix = Language.get("skript.prefix");
 		ArgsMessage m_reload_error = new ArgsMessage("log.auto reload.error");
 		ArgsMessage m_reloaded = new ArgsMessage("log.auto reload.reloaded");
@@ -144,6 +144,18 @@ public class StructFunction extends Structure {
 		return true;
 	}
 
+	@Override
+	public boolean canLoadInParallel() {
+		// all signatures are registered during pre-loading, and functions are registered in a synchronized block
+		return true;
+	}
+
+	@Override
+	public boolean canReloadIndividually() {
+		// callers are invalidated when unloading and validated again after loading
+		return true;
+	}
+
 	@Override
 	public boolean postLoad() {
 		if (VALIDATE_FUNCTIONS.get()) {
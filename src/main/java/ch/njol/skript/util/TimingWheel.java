@@ -0,0 +1,112 @@
+package ch.njol.skript.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel, which holds items until a given amount of ticks has passed.
+ * <p>
+ * Items are put into the bucket of the tick they are due in, modulo the amount of buckets,
+ * so scheduling an item takes constant time and each tick only looks at the items of one bucket.
+ * Items that are due in the same tick are released in the order they were scheduled in.
+ * <p>
+ * Items can be scheduled from any thread, but {@link #tick(Consumer)} must always be called from the same thread.
+ *
+ * @param <T> the type of the items.
+ */
+public final class TimingWheel<T> {
+
+	private record Entry<T>(T item, long dueTick) { }
+
+	private final List<Entry<T>>[] buckets;
+
+	/**
+	 * The items scheduled since the last tick, which are put into their buckets at the start of the next tick.
+	 */
+	private final Queue<Entry<T>> scheduled = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private volatile long tick;
+
+	/**
+	 * @param buckets the amount of buckets, ideally more than the amount of ticks most items wait for.
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheel(int buckets) {
+		if (buckets <= 0)
+			throw new IllegalArgumentException("A timing wheel needs at least one bucket");
+		this.buckets = new List[buckets];
+		for (int i = 0; i < buckets; i++)
+			this.buckets[i] = new ArrayList<>();
+	}
+
+	/**
+	 * Schedules an item to be released after the given amount of ticks.
+	 *
+	 * @param item the item.
+	 * @param ticks the amount of ticks to wait, at least 1.
+	 */
+	public void schedule(T item, long ticks) {
+		if (ticks < 1)
+			throw new IllegalArgumentException("Items can't be released in less than one tick: " + ticks);
+		size.incrementAndGet();
+		scheduled.add(new Entry<>(item, tick + ticks));
+	}
+
+	/**
+	 * Advances this wheel by one tick, and passes the items that are due to the given action.
+	 * Items that are scheduled by the action are released in a later tick.
+	 *
+	 * @param action the action to perform for each item that is due, which should not throw any exceptions.
+	 */
+	public void tick(Consumer<? super T> action) {
+		long tick = ++this.tick;
+
+		// an item scheduled from another thread while the last tick started may already be due
+		Entry<T> entry;
+		while ((entry = scheduled.poll()) != null)
+			buckets[bucketOf(Math.max(entry.dueTick, tick))].add(entry);
+
+		int index = bucketOf(tick);
+		List<Entry<T>> bucket = buckets[index];
+		if (bucket.isEmpty())
+			return;
+
+		// items that aren't due yet have to be put back before running any action,
+		// so they stay ahead of items that are scheduled for the same tick by the actions
+		List<Entry<T>> due = new ArrayList<>();
+		List<Entry<T>> remaining = new ArrayList<>();
+		for (Entry<T> bucketEntry : bucket)
+			(bucketEntry.dueTick <= tick ? due : remaining).add(bucketEntry);
+		buckets[index] = remaining;
+
+		for (Entry<T> dueEntry : due) {
+			size.decrementAndGet();
+			action.accept(dueEntry.item);
+		}
+	}
+
+	private int bucketOf(long tick) {
+		return (int) Math.floorMod(tick, (long) buckets.length);
+	}
+
+	/**
+	 * @return the amount of ticks that have passed.
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * @return the amount of items that haven't been released yet.
+	 */
+	public int size() {
+		return size.get();
+	}
+
+}
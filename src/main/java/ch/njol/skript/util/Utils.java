@@ -794,6 +794,14 @@ public abstract class Utils {
 		return lastIndex;
 	}
 
+	/**
+	 * Checks whether both numbers are integers, like {@link #isInteger(Number...)} without creating an array,
+	 * as this is used by each arithmetic operation on numbers.
+	 */
+	public static boolean isInteger(Number first, Number second) {
+		return !(first instanceof Double || first instanceof Float || second instanceof Double || second instanceof Float);
+	}
+
 	public static boolean isInteger(Number... numbers) {
 		for (Number number : numbers) {
 			if (Double.class.isAssignableFrom(number.getClass()) || Float.class.isAssignableFrom(number.getClass()))
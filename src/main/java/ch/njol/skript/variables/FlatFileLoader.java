@@ -0,0 +1,316 @@
+package ch.njol.skript.variables;
+
+import ch.njol.skript.util.Version;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Reads a {@link FlatFileStorage CSV variables file} as a pipeline.
+ * <p>
+ * One thread reads the file and splits it into batches of lines,
+ * a pool of workers splits the lines into columns, decodes the hex values
+ * and deserialises the values that can be deserialised on any thread,
+ * and the thread calling {@link #nextBatch()} receives the decoded batches in file order.
+ * This way only storing the values, and deserialising values that require Bukkit's main thread,
+ * is left to the loading thread.
+ */
+final class FlatFileLoader implements AutoCloseable {
+
+	/**
+	 * The amount of lines in a batch.
+	 */
+	static final int BATCH_SIZE = 1024;
+
+	/**
+	 * Files created by Skript versions older than this store values in an old format that isn't hex-encoded.
+	 */
+	private static final Version LEGACY_VERSION = new Version(2, 1);
+
+	/**
+	 * Marks the end of the file in the {@link #batches} queue.
+	 */
+	private static final Future<List<DecodedLine>> END = CompletableFuture.completedFuture(new ArrayList<>());
+
+	private final Path path;
+
+	/**
+	 * Deserialises a value on a worker, see {@link Variables#deserializeOffThread(String, byte[])}.
+	 */
+	private final BiFunction<String, byte[], @Nullable Object> deserializer;
+
+	private final ExecutorService workers;
+
+	/**
+	 * The batches submitted to the {@link #workers}, in file order.
+	 * Bounded, so the reader can't get too far ahead of the loading thread.
+	 */
+	private final BlockingQueue<Future<List<DecodedLine>>> batches;
+
+	private final Thread readerThread;
+
+	/**
+	 * The error that stopped the reader, if any.
+	 * Written before {@link #END} is queued.
+	 */
+	@Nullable
+	private volatile IOException readError;
+
+	/**
+	 * Whether the file was created by a Skript version older than {@link #LEGACY_VERSION}.
+	 */
+	private volatile boolean legacy;
+
+	private boolean ended;
+
+	/**
+	 * Starts reading the given file.
+	 *
+	 * @param path the CSV file.
+	 * @param workerCount the amount of threads decoding lines.
+	 * @param deserializer deserialises a value given its type and data on a worker thread,
+	 *                     returning {@code null} if the value has to be deserialised by the loading thread.
+	 */
+	FlatFileLoader(Path path, int workerCount, BiFunction<String, byte[], @Nullable Object> deserializer) {
+		this.path = path;
+		this.deserializer = deserializer;
+		this.workers = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+			private final AtomicInteger threadId = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(@NotNull Runnable runnable) {
+				Thread thread = new Thread(runnable, "Skript variables decoder " + threadId.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.batches = new ArrayBlockingQueue<>(workerCount * 4);
+		this.readerThread = new Thread(this::read, "Skript variables reader");
+		readerThread.setDaemon(true);
+		readerThread.start();
+	}
+
+	/**
+	 * Starts reading the given file with one worker per available processor,
+	 * minus the reading and loading threads.
+	 *
+	 * @param path the CSV file.
+	 * @param deserializer see {@link #FlatFileLoader(Path, int, BiFunction)}.
+	 */
+	FlatFileLoader(Path path, BiFunction<String, byte[], @Nullable Object> deserializer) {
+		this(path, Math.max(1, Runtime.getRuntime().availableProcessors() - 2), deserializer);
+	}
+
+	/**
+	 * Waits for the next batch of decoded lines.
+	 *
+	 * @return the next batch, or {@code null} if the whole file has been read.
+	 * @throws IOException if the file could not be read.
+	 */
+	@Nullable
+	List<DecodedLine> nextBatch() throws IOException {
+		if (ended)
+			return null;
+
+		Future<List<DecodedLine>> batch;
+		try {
+			batch = batches.take();
+			if (batch == END) {
+				ended = true;
+				IOException readError = this.readError;
+				if (readError != null)
+					throw readError;
+				return null;
+			}
+			return batch.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading variables");
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Must only be called once {@link #nextBatch()} returned {@code null}.
+	 *
+	 * @return whether the file was created by a Skript version older than 2.1,
+	 * in which case {@link DecodedLine#data} is always {@code null}.
+	 */
+	boolean isLegacy() {
+		return legacy;
+	}
+
+	/**
+	 * Stops reading and decoding, if that hasn't finished yet.
+	 */
+	@Override
+	public void close() {
+		readerThread.interrupt();
+		workers.shutdownNow();
+	}
+
+	private void read() {
+		try {
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(Files.newInputStream(path), FlatFileStorage.FILE_CHARSET))) {
+				Batch batch = new Batch(legacy);
+				String line;
+				int lineNumber = 0;
+				while ((line = reader.readLine()) != null) {
+					lineNumber++;
+
+					line = line.trim();
+
+					if (line.isEmpty() || line.startsWith("#")) {
+						// Line doesn't contain variable
+						if (line.startsWith("# version:")) {
+							// Update the version accordingly
+							try {
+								Version version = new Version(line.substring("# version:".length()).trim());
+								if (version.isSmallerThan(LEGACY_VERSION) != legacy) {
+									submit(batch);
+									legacy = !legacy;
+									batch = new Batch(legacy);
+								}
+							} catch (IllegalArgumentException ignored) {
+							}
+						}
+
+						continue;
+					}
+
+					batch.add(lineNumber, line);
+					if (batch.size == BATCH_SIZE) {
+						submit(batch);
+						batch = new Batch(legacy);
+					}
+				}
+				submit(batch);
+			} catch (IOException e) {
+				readError = e;
+			} catch (RuntimeException e) {
+				readError = new IOException(e);
+			}
+			batches.put(END);
+		} catch (InterruptedException ignored) {
+			// Loading was cancelled
+		}
+	}
+
+	private void submit(Batch batch) throws InterruptedException {
+		if (batch.size == 0)
+			return;
+		batches.put(workers.submit(() -> batch.decode(deserializer)));
+	}
+
+	/**
+	 * Lines of the file that are decoded together.
+	 */
+	private static final class Batch {
+
+		private final String[] lines = new String[BATCH_SIZE];
+		private final int[] lineNumbers = new int[BATCH_SIZE];
+		private final boolean legacy;
+		private int size;
+
+		Batch(boolean legacy) {
+			this.legacy = legacy;
+		}
+
+		void add(int lineNumber, String line) {
+			lines[size] = line;
+			lineNumbers[size] = lineNumber;
+			size++;
+		}
+
+		List<DecodedLine> decode(BiFunction<String, byte[], @Nullable Object> deserializer) {
+			List<DecodedLine> decoded = new ArrayList<>(size);
+			for (int i = 0; i < size; i++)
+				decoded.add(DecodedLine.decode(lineNumbers[i], lines[i], legacy, deserializer));
+			return decoded;
+		}
+
+	}
+
+	/**
+	 * A line of the file that was split into columns and whose value was decoded.
+	 */
+	static final class DecodedLine {
+
+		/**
+		 * The line number, starting at 1.
+		 */
+		final int lineNumber;
+
+		/**
+		 * The trimmed line.
+		 */
+		final String line;
+
+		/**
+		 * The columns of the line: the name, the type and the value of the variable.
+		 * Either {@code null} or not of length 3 if the line is invalid.
+		 */
+		final String @Nullable [] columns;
+
+		/**
+		 * The hex-decoded value, or {@code null} if the line is invalid,
+		 * the type is {@code null} or the file is {@link #isLegacy() legacy}.
+		 */
+		final byte @Nullable [] data;
+
+		/**
+		 * The deserialised value, or {@code null} if it wasn't deserialised by a worker,
+		 * e.g. because it has to be deserialised on Bukkit's main thread.
+		 */
+		@Nullable
+		final Object value;
+
+		private DecodedLine(int lineNumber, String line, String @Nullable [] columns, byte @Nullable [] data, @Nullable Object value) {
+			this.lineNumber = lineNumber;
+			this.line = line;
+			this.columns = columns;
+			this.data = data;
+			this.value = value;
+		}
+
+		static DecodedLine decode(int lineNumber, String line, boolean legacy, BiFunction<String, byte[], @Nullable Object> deserializer) {
+			String[] columns = FlatFileStorage.splitCSV(line);
+			byte[] data = null;
+			Object value = null;
+			if (!legacy && columns != null && columns.length == 3 && !columns[1].equals("null")) {
+				data = FlatFileStorage.decode(columns[2]);
+				value = deserializer.apply(columns[1], data);
+			}
+			return new DecodedLine(lineNumber, line, columns, data, value);
+		}
+
+		/**
+		 * @return whether this line has the expected amount of columns.
+		 */
+		boolean isValid() {
+			return columns != null && columns.length == 3;
+		}
+
+	}
+
+}
@@ -2,30 +2,26 @@ package ch.njol.skript.variables;
 
 import ch.njol.skript.Skript;
 import ch.njol.skript.config.SectionNode;
-import ch.njol.skript.lang.Variable;
 import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.util.ExceptionUtils;
 import ch.njol.skript.util.FileUtils;
 import ch.njol.skript.util.Task;
 import ch.njol.skript.util.Utils;
-import ch.njol.skript.util.Version;
 import ch.njol.util.NotifyingReference;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -62,8 +58,7 @@ public class FlatFileStorage extends VariablesStorage {
 	 * to the {@link #file}.
 	 * <p>
 	 * A Lock on this object must be acquired after connectionLock
-	 * if that lock is used
-	 * (and thus also after {@link Variables#getReadLock()}).
+	 * if that lock is used.
 	 */
 	private final NotifyingReference<PrintWriter> changesWriter = new NotifyingReference<>();
 
@@ -115,10 +110,10 @@ public class FlatFileStorage extends VariablesStorage {
 	}
 
 	/**
-	 * Loads the variables in the CSV file.
+	 * Loads the variables in the CSV file, using a {@link FlatFileLoader}.
 	 * <p>
 	 * Doesn't lock the connection, as required by
-	 * {@link Variables#variableLoaded(String, Object, VariablesStorage)}.
+	 * {@link Variables#variablesLoaded(Map, VariablesStorage)}.
 	 */
 	@SuppressWarnings("deprecation")
 	@Override
@@ -135,59 +130,41 @@ public class FlatFileStorage extends VariablesStorage {
 		int unsuccessfulVariableCount = 0;
 		StringBuilder invalid = new StringBuilder();
 
-		// The Skript version this CSV was created with
-		Version csvSkriptVersion;
-
-		// Some variables used to allow legacy CSV files to be loaded
-		Version v2_1 = new Version(2, 1);
+		// Whether the file was created before Skript 2.1
 		boolean update2_1 = false;
 
-		try (BufferedReader reader = new BufferedReader(
-				new InputStreamReader(Files.newInputStream(file.toPath()), FILE_CHARSET))) {
-			String line;
-			int lineNum = 0;
-			while ((line = reader.readLine()) != null) {
-				lineNum++;
-
-				line = line.trim();
-
-				if (line.isEmpty() || line.startsWith("#")) {
-					// Line doesn't contain variable
-					if (line.startsWith("# version:")) {
-						// Update the version accordingly
+		// Splitting the lines and decoding the values happens in parallel,
+		// as does deserialising them unless they have to be deserialised on this thread
+		try (FlatFileLoader loader = new FlatFileLoader(file.toPath(), Variables::deserializeOffThread)) {
+			List<FlatFileLoader.DecodedLine> batch;
+			while ((batch = loader.nextBatch()) != null) {
+				Map<String, Object> loadedVariables = new LinkedHashMap<>(batch.size());
+				for (FlatFileLoader.DecodedLine line : batch) {
+					String[] split = line.columns;
+					if (!line.isValid()) {
+						// Invalid CSV line
+
+						Skript.error("invalid amount of commas in line " + line.lineNumber + " ('" + line.line + "')");
+						if (invalid.length() != 0)
+							invalid.append(", ");
 
-						try {
-							csvSkriptVersion = new Version(line.substring("# version:".length()).trim());
-							update2_1 = csvSkriptVersion.isSmallerThan(v2_1);
-						} catch (IllegalArgumentException ignored) {
-						}
+						invalid.append(split == null ? "<unknown>" : split[0]);
+						unsuccessfulVariableCount++;
+						continue;
 					}
+					assert split != null;
 
-					continue;
-				}
-
-				String[] split = splitCSV(line);
-				if (split == null || split.length != 3) {
-					// Invalid CSV line
-
-					Skript.error("invalid amount of commas in line " + lineNum + " ('" + line + "')");
-					if (invalid.length() != 0)
-						invalid.append(", ");
-
-					invalid.append(split == null ? "<unknown>" : split[0]);
-					unsuccessfulVariableCount++;
-					continue;
-				}
+					if (split[1].equals("null"))
+						continue;
 
-				if (split[1].equals("null")) {
-					Variables.variableLoaded(split[0], null, this);
-				} else {
 					Object deserializedValue;
-					if (update2_1) {
+					if (line.value != null) {
+						deserializedValue = line.value;
+					} else if (line.data == null) {
 						// Use old deserialization if variables come from old Skript version
 						deserializedValue = Classes.deserialize(split[1], split[2]);
 					} else {
-						deserializedValue = Classes.deserialize(split[1], decode(split[2]));
+						deserializedValue = Variables.deserialize(split[1], line.data);
 					}
 
 					if (deserializedValue == null) {
@@ -200,9 +177,12 @@ public class FlatFileStorage extends VariablesStorage {
 						continue;
 					}
 
-					Variables.variableLoaded(split[0], deserializedValue, this);
+					loadedVariables.put(split[0], deserializedValue);
 				}
+
+				Variables.variablesLoaded(loadedVariables, this);
 			}
+			update2_1 = loader.isLegacy();
 		} catch (IOException e) {
 			loadError = true;
 			ioException = e;
@@ -370,9 +350,6 @@ public class FlatFileStorage extends VariablesStorage {
 		}
 
 		try {
-			// Acquire read lock
-			Variables.getReadLock().lock();
-
 			synchronized (connectionLock) {
 				try {
 					if (file == null) {
@@ -407,7 +384,12 @@ public class FlatFileStorage extends VariablesStorage {
 						pw.println("#");
 						pw.println("# version: " + Skript.getVersion());
 						pw.println();
-						save(pw, "", Variables.getVariables());
+						forEachVariable((name, value) -> {
+							// Serialize the value and write the CSV line
+							SerializedVariable.Value serializedValue = Variables.serialize(value);
+							if (serializedValue != null)
+								writeCSV(pw, name, serializedValue.type, encode(serializedValue.data));
+						});
 						pw.println();
 						pw.flush();
 						pw.close();
@@ -425,73 +407,8 @@ public class FlatFileStorage extends VariablesStorage {
 				}
 			}
 		} finally {
-			Variables.getReadLock().unlock();
-			boolean gotWriteLock = Variables.variablesLock.writeLock().tryLock();
-			if (gotWriteLock) { // Only process queue now if it doesn't require us to wait
-				try {
-					Variables.processChangeQueue();
-				} finally {
-					Variables.variablesLock.writeLock().unlock();
-				}
-			}
-		}
-	}
-
-	/**
-	 * Saves the variables.
-	 * <p>
-	 * This method uses the sorted variables map to save the variables in order.
-	 *
-	 * @param pw the print writer to write the CSV lines too.
-	 * @param parent The parent's name with {@link Variable#SEPARATOR} at the end.
-	 * @param map the variables map.
-	 */
-	@SuppressWarnings("unchecked")
-	private void save(PrintWriter pw, String parent, TreeMap<String, Object> map) {
-		if (parent.startsWith(Variable.EPHEMERAL_VARIABLE_TOKEN))
-			// Skip ephemeral variables
-			return;
-
-		// Iterate over all children
-		for (Entry<String, Object> childEntry : map.entrySet()) {
-			Object childNode = childEntry.getValue();
-			String childKey = childEntry.getKey();
-
-			if (childNode == null)
-				continue; // Leaf node
-
-			if (childNode instanceof TreeMap) {
-				// TreeMap found, recurse
-				save(pw, parent + childKey + Variable.SEPARATOR, (TreeMap<String, Object>) childNode);
-			} else {
-				// Remove variable separator if needed
-				String name = childKey == null ? parent.substring(0, parent.length() - Variable.SEPARATOR.length()) : parent + childKey;
-
-				if (name.startsWith(Variable.EPHEMERAL_VARIABLE_TOKEN))
-					// Skip ephemeral variables
-					continue;
-
-				try {
-					// Loop over storages to make sure this variable is ours to store
-					for (VariablesStorage storage : Variables.STORAGES) {
-						if (storage.accept(name)) {
-							if (storage == this) {
-								// Serialize the value
-								SerializedVariable.Value serializedValue = Classes.serialize(childNode);
-
-								// Write the CSV line
-								if (serializedValue != null)
-									writeCSV(pw, name, serializedValue.type, encode(serializedValue.data));
-							}
-
-							break;
-						}
-					}
-				} catch (Exception ex) {
-					//noinspection ThrowableNotThrown
-					Skript.exception(ex, "Error saving variable named " + name);
-				}
-			}
+			// Only process queues now if it doesn't require us to wait
+			Variables.processChangeQueues();
 		}
 	}
 
@@ -0,0 +1,627 @@
+package ch.njol.skript.variables;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.Variable;
+import ch.njol.skript.log.SkriptLogger;
+import ch.njol.skript.util.ExceptionUtils;
+import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.util.Task;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * A variable storage that appends every change to a binary journal file.
+ * <p>
+ * Each change is written as a length-prefixed and checksummed record.
+ * Changes are written through a buffer that is only flushed once no more changes are waiting to be written,
+ * so many changes share one write to the disk.
+ * Once the journal contains more outdated records than current ones,
+ * it is compacted in the background into a snapshot of the current variables.
+ * <p>
+ * When loading, the journal is read record by record and replayed, so the last record of each variable wins.
+ * The values are loaded in batches while the journal is read, so the journal is never held in memory as a whole.
+ * It is read through a stream rather than memory-mapped, as a mapped file can't be truncated or replaced
+ * on Windows until the mapping is garbage collected.
+ * A truncated or corrupt tail, e.g. after a crash while writing, is discarded after backing up the file.
+ */
+public class JournalStorage extends VariablesStorage {
+
+	/**
+	 * The magic number at the start of every journal file, {@code SKJL}.
+	 */
+	private static final int MAGIC = 0x534B4A4C;
+
+	/**
+	 * The version of the journal format.
+	 */
+	private static final short FORMAT_VERSION = 1;
+
+	/**
+	 * The size of the header of a journal file, the {@link #MAGIC} and the {@link #FORMAT_VERSION}.
+	 */
+	static final int HEADER_SIZE = 4 + 2;
+
+	/**
+	 * The size of the prefix of a record, its payload length and checksum.
+	 */
+	private static final int RECORD_PREFIX_SIZE = 4 + 4;
+
+	private static final byte OPERATION_SET = 0;
+	private static final byte OPERATION_DELETE = 1;
+
+	/**
+	 * The amount of values that are deserialized at once while loading, see {@link Variables#deserialize(List)}.
+	 */
+	private static final int LOAD_BATCH_SIZE = 4096;
+
+	/**
+	 * The size of the write buffer, i.e. how many bytes can be written before they are flushed.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The delay and period for the compaction task, how long (in ticks) between each check whether to compact.
+	 */
+	private static final long COMPACTION_TASK_PERIOD = 60 * 20;
+
+	/**
+	 * The minimum amount of records appended since the last compaction before the journal is compacted again.
+	 */
+	private static final int MIN_RECORDS_FOR_COMPACTION = 1000;
+
+	/**
+	 * The stream changes are appended to, or {@code null} if not connected.
+	 * Must only be used while holding {@link #connectionLock}.
+	 */
+	@Nullable
+	private DataOutputStream output;
+
+	/**
+	 * The amount of records in the journal when it was last loaded or compacted.
+	 */
+	private volatile int liveRecords;
+
+	/**
+	 * The amount of records appended since the journal was last loaded or compacted.
+	 */
+	private final AtomicInteger appendedRecords = new AtomicInteger();
+
+	/**
+	 * Held while compacting, so only one snapshot is written at a time.
+	 */
+	private final Object compactionLock = new Object();
+
+	/**
+	 * The compaction task.
+	 *
+	 * @see #compact(boolean)
+	 */
+	@Nullable
+	private Task compactionTask;
+
+	/**
+	 * Create a new journal storage of the given name.
+	 *
+	 * @param type the database type i.e. journal.
+	 */
+	JournalStorage(String type) {
+		super(type);
+	}
+
+	@Override
+	protected boolean load_i(SectionNode sectionNode) {
+		SkriptLogger.setNode(null);
+
+		if (file == null) {
+			assert false : this;
+			return false;
+		}
+
+		// Replay the journal, the last record of each variable wins
+		JournalLoader loader = new JournalLoader();
+		long validLength;
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+			validLength = readJournal(input, file.length(), loader);
+		} catch (IOException e) {
+			Skript.error("An I/O error occurred while loading the variables: " + ExceptionUtils.toString(e));
+			Skript.error("This means that some to all variables could not be loaded!");
+			return false;
+		}
+		loader.flush();
+		liveRecords = loader.names.size();
+
+		int unsuccessfulVariableCount = loader.invalid.size();
+		if (unsuccessfulVariableCount > 0) {
+			Skript.error(unsuccessfulVariableCount + " variable" + (unsuccessfulVariableCount == 1 ? "" : "s") +
+					" could not be loaded!");
+			Skript.error("Affected variables: " + String.join(", ", loader.invalid));
+		}
+
+		long length = file.length();
+		if (validLength < length) {
+			// Appending after a damaged record would make all following records unreadable
+			Skript.warning("The last " + (length - validLength) + " bytes of " + file.getName() + " are incomplete " +
+					"or damaged and were discarded, which can happen if the server crashed while saving variables.");
+			try {
+				File backupFile = FileUtils.backup(file);
+				Skript.info("Created a backup of " + file.getName() + " as " + backupFile.getName());
+				try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+					randomAccessFile.setLength(validLength);
+				}
+			} catch (IOException e) {
+				Skript.error("Could not repair " + file.getName() + ": " + ExceptionUtils.toString(e));
+				return false;
+			}
+		}
+
+		if (!connect())
+			return false;
+
+		// Start the compaction task
+		compactionTask = new Task(Skript.getInstance(), COMPACTION_TASK_PERIOD, COMPACTION_TASK_PERIOD, true) {
+			@Override
+			public void run() {
+				if (shouldCompact())
+					compact(false);
+			}
+		};
+
+		return unsuccessfulVariableCount == 0;
+	}
+
+	@Override
+	protected void allLoaded() {
+		// no transaction support
+	}
+
+	@Override
+	protected boolean requiresFile() {
+		return true;
+	}
+
+	@Override
+	protected File getFile(String fileName) {
+		return new File(fileName);
+	}
+
+	@Override
+	protected final boolean connect() {
+		synchronized (connectionLock) {
+			assert file != null; // file should be non-null after load
+
+			if (output != null)
+				return true;
+
+			try {
+				boolean empty = file.length() == 0;
+				output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_SIZE));
+				if (empty) {
+					writeHeader(output);
+					output.flush();
+				}
+				return true;
+			} catch (IOException e) {
+				//noinspection ThrowableNotThrown
+				Skript.exception(e, "Could not open the variables journal " + file.getName());
+				return false;
+			}
+		}
+	}
+
+	@Override
+	protected final void disconnect() {
+		synchronized (connectionLock) {
+			if (output == null)
+				return;
+
+			try {
+				output.close();
+			} catch (IOException e) {
+				//noinspection ThrowableNotThrown
+				Skript.exception(e, "Could not close the variables journal");
+			}
+			output = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		// Wait for all changes to be written
+		super.close();
+
+		if (shouldCompact()) {
+			compact(true);
+		} else {
+			if (compactionTask != null)
+				compactionTask.cancel();
+			disconnect();
+		}
+	}
+
+	@Override
+	protected boolean save(String name, @Nullable String type, @Nullable byte[] value) {
+		synchronized (connectionLock) {
+			if (output == null)
+				return false;
+
+			try {
+				output.write(encodeRecord(name, type, value));
+				// Group commit: only flush once all waiting changes are in the buffer
+				if (changesQueue.isEmpty())
+					output.flush();
+			} catch (IOException e) {
+				//noinspection ThrowableNotThrown
+				Skript.exception(e, "Error saving variable named " + name);
+				return false;
+			}
+			// Counted while holding the lock, so compaction knows which records were saved before its snapshot
+			appendedRecords.incrementAndGet();
+		}
+		return true;
+	}
+
+	/**
+	 * @return whether the journal contains enough outdated records to be compacted.
+	 */
+	private boolean shouldCompact() {
+		return appendedRecords.get() >= Math.max(MIN_RECORDS_FOR_COMPACTION, liveRecords);
+	}
+
+	/**
+	 * Rewrites the journal to only contain the current values of the variables stored here.
+	 * <p>
+	 * The {@code finalSave} argument is used to determine if
+	 * the {@link #compactionTask compaction} and {@link #backupTask backup} tasks
+	 * should be cancelled, and if the storage should reconnect after compacting.
+	 *
+	 * @param finalSave whether this is the last save in this session or not.
+	 */
+	public final void compact(boolean finalSave) {
+		if (finalSave) {
+			// Cancel compaction and backup tasks, not needed with final save anyway
+			if (compactionTask != null)
+				compactionTask.cancel();
+			if (backupTask != null)
+				backupTask.cancel();
+		}
+
+		synchronized (compactionLock) {
+			if (file == null) {
+				// This storage requires a file, so file should be nonnull
+				assert false : this;
+				return;
+			}
+
+			// Changes saved from now on are copied from the journal to the snapshot before it replaces the journal,
+			// all changes saved before are already part of the variables in memory and thus of the snapshot
+			long snapshotStart;
+			int snapshotAppendedRecords;
+			synchronized (connectionLock) {
+				try {
+					if (output != null)
+						output.flush();
+				} catch (IOException e) {
+					Skript.error("Unable to compact the database '" + getUserConfigurationName() +
+							"' (no variables are lost): " + ExceptionUtils.toString(e));
+					if (finalSave)
+						disconnect();
+					return;
+				}
+				snapshotStart = file.length();
+				snapshotAppendedRecords = appendedRecords.get();
+			}
+
+			// Write the snapshot to a temporary file, so the journal stays intact if writing fails.
+			// Saves are not blocked meanwhile, and changes to the variables are queued by their shards.
+			File tempFile = new File(file.getParentFile(), file.getName() + ".temp");
+			AtomicInteger records = new AtomicInteger();
+			// forEachVariable reports exceptions for each variable, so a failed write is only remembered
+			AtomicReference<IOException> failure = new AtomicReference<>();
+			try (DataOutputStream snapshot = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE))) {
+				writeHeader(snapshot);
+				forEachVariable((name, value) -> {
+					if (failure.get() != null)
+						return;
+					SerializedVariable.Value serializedValue = Variables.serialize(value);
+					if (serializedValue == null)
+						return;
+					try {
+						snapshot.write(encodeRecord(name, serializedValue.type, serializedValue.data));
+					} catch (IOException e) {
+						failure.set(e);
+						return;
+					}
+					records.incrementAndGet();
+				});
+				if (failure.get() != null)
+					throw failure.get();
+			} catch (IOException e) {
+				Skript.error("Unable to compact the database '" + getUserConfigurationName() +
+						"' (no variables are lost): " + ExceptionUtils.toString(e));
+				if (finalSave)
+					disconnect();
+				return;
+			}
+
+			synchronized (connectionLock) {
+				try {
+					if (output != null)
+						output.flush();
+					// Copy the changes that were saved while the snapshot was written
+					try (FileChannel journal = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+						 FileChannel snapshot = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+						long position = snapshotStart;
+						long end = journal.size();
+						while (position < end)
+							position += journal.transferTo(position, end - position, snapshot);
+					}
+
+					disconnect();
+					FileUtils.move(tempFile, file, true);
+				} catch (IOException e) {
+					Skript.error("Unable to compact the database '" + getUserConfigurationName() +
+							"' (no variables are lost): " + ExceptionUtils.toString(e));
+					return;
+				} finally {
+					// Reconnect if needed
+					if (finalSave) {
+						disconnect();
+					} else {
+						connect();
+					}
+				}
+
+				liveRecords = records.get();
+				appendedRecords.addAndGet(-snapshotAppendedRecords);
+			}
+		}
+	}
+
+	/**
+	 * Writes the header of a journal file.
+	 *
+	 * @param output the output to write to.
+	 * @throws IOException if writing fails.
+	 */
+	static void writeHeader(DataOutputStream output) throws IOException {
+		output.writeInt(MAGIC);
+		output.writeShort(FORMAT_VERSION);
+	}
+
+	/**
+	 * Encodes a single journal record.
+	 * <p>
+	 * A record consists of the length of its payload, the CRC32 checksum of its payload, and the payload:
+	 * the operation, the UTF-8 name of the variable and, unless the variable is deleted,
+	 * the UTF-8 type and the data of the serialized value. All lengths are prefixed as 4-byte integers.
+	 *
+	 * @param name the name of the variable.
+	 * @param type the type of the serialized value, or {@code null} if the variable is deleted.
+	 * @param value the serialized value, or {@code null} if the variable is deleted.
+	 * @return the encoded record.
+	 */
+	static byte[] encodeRecord(String name, @Nullable String type, byte @Nullable [] value) {
+		assert (type == null) == (value == null);
+
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		byte[] typeBytes = type == null ? null : type.getBytes(StandardCharsets.UTF_8);
+
+		int payloadLength = 1 + 4 + nameBytes.length;
+		if (typeBytes != null)
+			payloadLength += 4 + typeBytes.length + 4 + value.length;
+
+		ByteBuffer buffer = ByteBuffer.allocate(RECORD_PREFIX_SIZE + payloadLength);
+		buffer.putInt(payloadLength);
+		buffer.putInt(0); // checksum, filled in below
+		buffer.put(typeBytes == null ? OPERATION_DELETE : OPERATION_SET);
+		buffer.putInt(nameBytes.length).put(nameBytes);
+		if (typeBytes != null) {
+			buffer.putInt(typeBytes.length).put(typeBytes);
+			buffer.putInt(value.length).put(value);
+		}
+
+		CRC32 checksum = new CRC32();
+		checksum.update(buffer.array(), RECORD_PREFIX_SIZE, payloadLength);
+		buffer.putInt(4, (int) checksum.getValue());
+		return buffer.array();
+	}
+
+	/**
+	 * Decodes the records in the given buffer, until the end of the buffer or the first incomplete or damaged record.
+	 *
+	 * @param buffer the buffer, starting at a record.
+	 * @param consumer receives the name of each variable,
+	 *                 and its serialized value or {@code null} if it was deleted.
+	 * @return the amount of bytes of complete and valid records that were decoded.
+	 */
+	static int decodeRecords(ByteBuffer buffer, BiConsumer<String, SerializedVariable.@Nullable Value> consumer) {
+		int start = buffer.position();
+		int end = start;
+		CRC32 checksum = new CRC32();
+		while (buffer.remaining() >= RECORD_PREFIX_SIZE) {
+			int payloadLength = buffer.getInt();
+			int expectedChecksum = buffer.getInt();
+			if (payloadLength < 1 + 4 || payloadLength > buffer.remaining())
+				break;
+
+			ByteBuffer payload = buffer.slice();
+			payload.limit(payloadLength);
+			checksum.reset();
+			checksum.update(payload.duplicate());
+			if ((int) checksum.getValue() != expectedChecksum)
+				break;
+
+			try {
+				byte operation = payload.get();
+				String name = readString(payload);
+				SerializedVariable.Value value = null;
+				if (operation == OPERATION_SET) {
+					String type = readString(payload);
+					byte[] data = new byte[payload.getInt()];
+					payload.get(data);
+					value = new SerializedVariable.Value(type, data);
+				} else if (operation != OPERATION_DELETE) {
+					break;
+				}
+				consumer.accept(name, value);
+			} catch (RuntimeException e) { // lengths inside the payload don't match
+				break;
+			}
+
+			buffer.position(buffer.position() + payloadLength);
+			end = buffer.position();
+		}
+		buffer.position(end);
+		return end - start;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Replays the journal in the given stream, one record at a time.
+	 *
+	 * @param input the stream of the journal file.
+	 * @param size the length of the journal file.
+	 * @param consumer receives every record, see {@link #decodeRecords(ByteBuffer, BiConsumer)}.
+	 * @return the length of the valid part of the journal, including its header.
+	 * @throws IOException if the file could not be read, or is not a journal.
+	 */
+	static long readJournal(DataInputStream input, long size, BiConsumer<String, SerializedVariable.@Nullable Value> consumer) throws IOException {
+		if (size < HEADER_SIZE) // new file, or the header was never completely written
+			return 0;
+
+		if (input.readInt() != MAGIC)
+			throw new IOException("The file is not a variables journal");
+		short version = input.readShort();
+		if (version != FORMAT_VERSION)
+			throw new IOException("Unsupported journal version " + version);
+
+		long position = HEADER_SIZE;
+		while (position + RECORD_PREFIX_SIZE <= size) {
+			int payloadLength = input.readInt();
+			// A length beyond the end of the file belongs to an incomplete or damaged record
+			if (payloadLength < 1 + 4 || payloadLength > size - position - RECORD_PREFIX_SIZE)
+				break;
+
+			byte[] record = new byte[RECORD_PREFIX_SIZE + payloadLength];
+			ByteBuffer.wrap(record).putInt(payloadLength);
+			input.readFully(record, 4, record.length - 4);
+			if (decodeRecords(ByteBuffer.wrap(record), consumer) == 0)
+				break;
+			position += record.length;
+		}
+		return position;
+	}
+
+	/**
+	 * Loads the records of the journal in batches while it is read.
+	 * Values are deserialized and loaded in the order of their records, so later records replace earlier ones.
+	 */
+	private final class JournalLoader implements BiConsumer<String, SerializedVariable.@Nullable Value> {
+
+		/**
+		 * The names of the variables that are set by the records read so far, to find the variables of deleted lists.
+		 */
+		private final NavigableSet<String> names = new TreeSet<>();
+
+		/**
+		 * The names of the variables whose last record could not be deserialized.
+		 */
+		private final Set<String> invalid = new LinkedHashSet<>();
+
+		private final List<String> batchNames = new ArrayList<>(LOAD_BATCH_SIZE);
+		private final List<SerializedVariable.Value> batchValues = new ArrayList<>(LOAD_BATCH_SIZE);
+
+		@Override
+		public void accept(String name, SerializedVariable.@Nullable Value value) {
+			if (value != null) {
+				batchNames.add(name);
+				batchValues.add(value);
+				if (batchNames.size() >= LOAD_BATCH_SIZE)
+					flush();
+				return;
+			}
+
+			// A deletion only applies to the records before it
+			flush();
+			if (name.endsWith(Variable.SEPARATOR + "*")) {
+				// A list variable was deleted, with all of its variables
+				String prefix = name.substring(0, name.length() - 1);
+				NavigableSet<String> deleted = names.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+				for (String deletedName : deleted)
+					Variables.variableLoaded(deletedName, null, JournalStorage.this);
+				invalid.removeIf(invalidName -> invalidName.startsWith(prefix));
+				deleted.clear();
+			} else {
+				if (names.remove(name))
+					Variables.variableLoaded(name, null, JournalStorage.this);
+				invalid.remove(name);
+			}
+		}
+
+		/**
+		 * Deserializes and loads the values of the records read since the last flush.
+		 */
+		void flush() {
+			if (batchNames.isEmpty())
+				return;
+
+			// Values that can be deserialized on any thread are deserialized in parallel
+			Object[] deserializedValues = Variables.deserialize(batchValues);
+			Map<String, Object> loaded = new LinkedHashMap<>();
+			for (int i = 0; i < deserializedValues.length; i++) {
+				String name = batchNames.get(i);
+				Object deserializedValue = deserializedValues[i];
+				if (deserializedValue == null) {
+					// Couldn't deserialize variable, which replaces its earlier values
+					invalid.add(name);
+					loaded.remove(name);
+					if (names.remove(name))
+						Variables.variableLoaded(name, null, JournalStorage.this);
+					continue;
+				}
+
+				invalid.remove(name);
+				names.add(name);
+				loaded.put(name, deserializedValue);
+			}
+			Variables.variablesLoaded(loaded, JournalStorage.this);
+
+			batchNames.clear();
+			batchValues.clear();
+		}
+
+	}
+
+}
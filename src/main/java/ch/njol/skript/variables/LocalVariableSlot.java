@@ -0,0 +1,25 @@
+package ch.njol.skript.variables;
+
+/**
+ * The slot of a local variable with a constant name in the maps of local variables of a trigger or function.
+ *
+ * @see Variables#getLocalSlot(String)
+ */
+public final class LocalVariableSlot {
+
+	final LocalVariableSlots slots;
+	final int index;
+	final String name;
+
+	LocalVariableSlot(LocalVariableSlots slots, int index, String name) {
+		this.slots = slots;
+		this.index = index;
+		this.name = name;
+	}
+
+	@Override
+	public String toString() {
+		return name + " (slot " + index + ")";
+	}
+
+}
@@ -0,0 +1,87 @@
+package ch.njol.skript.variables;
+
+import ch.njol.skript.lang.parser.ParserInstance;
+import org.jetbrains.annotations.Nullable;
+import org.skriptlang.skript.lang.structure.Structure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numbers the local variables with constant names of a trigger or function,
+ * so its maps of local variables can store them in an array with room for just these variables.
+ * <p>
+ * Each structure gets its own slots while it is parsed, see {@link #current()}.
+ * A map of local variables only uses the slots it was created with.
+ * Code of other triggers, e.g. after the local variables were copied to another event, accesses them by name instead.
+ * Slots are never reused, so a slot always belongs to the same name.
+ *
+ * @see Variables#getLocalSlot(String)
+ */
+final class LocalVariableSlots {
+
+	private static final Map<Structure, LocalVariableSlots> byStructure = Collections.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * @return the slots of the structure that is being parsed, or null if no structure is being parsed.
+	 */
+	static @Nullable LocalVariableSlots current() {
+		ParserInstance parser = ParserInstance.get();
+		Structure structure = parser.isActive() ? parser.getCurrentStructure() : null;
+		if (structure == null)
+			return null;
+		return byStructure.computeIfAbsent(structure, key -> new LocalVariableSlots());
+	}
+
+	private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+	private final List<String> names = new ArrayList<>();
+
+	/**
+	 * The amount of slots, which is read without locking when maps of local variables are created.
+	 */
+	private volatile int count;
+
+	/**
+	 * @param name the name of the variable, as it is stored.
+	 * @return the slot of the variable, which is assigned if it doesn't have one yet.
+	 */
+	synchronized LocalVariableSlot register(String name) {
+		Integer slot = slots.get(name);
+		if (slot == null) {
+			slot = names.size();
+			slots.put(name, slot);
+			names.add(name);
+			count = names.size();
+		}
+		return new LocalVariableSlot(this, slot, name);
+	}
+
+	/**
+	 * @param name the name of the variable, as it is stored.
+	 * @return the slot of the variable, or -1 if it doesn't have one.
+	 */
+	int find(String name) {
+		Integer slot = slots.get(name);
+		return slot != null ? slot : -1;
+	}
+
+	/**
+	 * @param slot a slot returned by {@link #register(String)}.
+	 * @return the name of the variable with the given slot.
+	 */
+	synchronized String getName(int slot) {
+		return names.get(slot);
+	}
+
+	/**
+	 * @return the amount of slots that have been assigned.
+	 */
+	int count() {
+		return count;
+	}
+
+}
@@ -17,6 +17,24 @@ public class MySQLStorage extends SQLStorage {
 				") CHARACTER SET ucs2 COLLATE ucs2_bin");
 	}
 
+	@Override
+	protected String getWriteQuery() {
+		return "INSERT INTO %s (name, type, value, update_guid) VALUES (?, ?, ?, ?) " +
+				"ON DUPLICATE KEY UPDATE type = VALUES(type), value = VALUES(value), update_guid = VALUES(update_guid)";
+	}
+
+	@Override
+	protected String getJournalCreateQuery() {
+		return "CREATE TABLE IF NOT EXISTS %s (" +
+				"seq          BIGINT  NOT NULL  AUTO_INCREMENT  PRIMARY KEY," +
+				"name         VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ")  NOT NULL," +
+				"type         VARCHAR(" + MAX_CLASS_CODENAME_LENGTH + ")," +
+				"value        BLOB(" + MAX_VALUE_SIZE + ")," +
+				"update_guid  CHAR(36)  NOT NULL," +
+				"changed_at   BIGINT  NOT NULL" +
+				") CHARACTER SET ucs2 COLLATE ucs2_bin";
+	}
+
 	@Override
 	public Database initialize(SectionNode config) {
 		String host = getValue(config, "host");
@@ -0,0 +1,25 @@
+package ch.njol.skript.variables;
+
+import java.util.Map;
+
+/**
+ * A {@link VariablesStorage} that can be paged, i.e. load its variables when they are first used,
+ * instead of loading all of them in {@link VariablesStorage#load_i(ch.njol.skript.config.SectionNode)}.
+ * <p>
+ * Paging is enabled per database with the {@code paging} option.
+ */
+public interface PageableStorage {
+
+	/**
+	 * Loads a variable, or all variables in a list variable, from this storage.
+	 * Changes that were {@link VariablesStorage#save(String, String, byte[]) saved} before must be included,
+	 * even if they have not been written yet.
+	 * <p>
+	 * May be called from any thread, including Bukkit's main thread, which waits for the result.
+	 *
+	 * @param name the name of the variable, or of the list variable ending in {@code ::*}.
+	 * @return the serialized values of the loaded variables by name.
+	 */
+	Map<String, SerializedVariable.Value> loadPage(String name);
+
+}
@@ -0,0 +1,286 @@
+package ch.njol.skript.variables;
+
+import ch.njol.skript.lang.Variable;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Keeps track of which variables of a paged {@link VariablesStorage} are loaded into memory.
+ * <p>
+ * The variables of a paged storage are not loaded when the server starts.
+ * Instead, a variable or a whole list variable is loaded the first time it is accessed,
+ * and removed from memory again once it hasn't been accessed for a while,
+ * or once more than the maximum amount of variables and lists are loaded, least recently accessed first.
+ * <p>
+ * Variables that are changed are marked as loaded before the change, without reading them from the storage,
+ * so a change that has not been saved yet is never overwritten by the value in the storage.
+ * For the same reason, variables are not removed from memory until all of their changes
+ * have been passed to the storage, as the storage would otherwise load their old values again.
+ */
+final class PagedVariables {
+
+	/**
+	 * The default maximum amount of loaded variables and lists.
+	 */
+	static final int DEFAULT_MAX_SIZE = 10_000;
+
+	/**
+	 * The default time in milliseconds after which variables that weren't accessed are removed from memory.
+	 */
+	static final long DEFAULT_EXPIRY = 10 * 60 * 1000;
+
+	/**
+	 * Variables accessed more recently than this (in milliseconds) are never removed from memory,
+	 * not even if there are more than the maximum amount,
+	 * so variables that are used in quick succession aren't loaded again and again.
+	 */
+	static final long MIN_RESIDENCY = 10_000;
+
+	private static final String LIST_SUFFIX = Variable.SEPARATOR + "*";
+
+	/**
+	 * Loads a variable or list from the storage, see {@link PageableStorage#loadPage(String)}.
+	 */
+	private final Function<String, Map<String, Object>> loader;
+
+	/**
+	 * Sets a variable in memory without saving it, see {@link Variables#setVariableInMemory(String, Object)}.
+	 */
+	private final BiConsumer<String, @Nullable Object> memory;
+
+	private final int maxSize;
+	private final long expiry;
+
+	/**
+	 * The names of the loaded variables and list variables, in access order,
+	 * mapped to the time they were last accessed.
+	 * The variables in a loaded list are not included separately.
+	 */
+	private final LinkedHashMap<String, Long> loaded = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * The amount of changes of each variable that have not been passed to the storage yet,
+	 * sorted so the changes of the variables in a list can be found by their prefix.
+	 */
+	private final NavigableMap<String, Integer> unsaved = new TreeMap<>();
+
+	/**
+	 * @param loader loads the variable or list variable of the given name,
+	 *               returning the values of all loaded variables by name.
+	 * @param memory sets the given variable in memory, or deletes it if the value is {@code null}.
+	 * @param maxSize the maximum amount of loaded variables and lists.
+	 * @param expiry the time in milliseconds after which variables that weren't accessed are removed from memory.
+	 */
+	PagedVariables(Function<String, Map<String, Object>> loader, BiConsumer<String, @Nullable Object> memory, int maxSize, long expiry) {
+		this.loader = loader;
+		this.memory = memory;
+		this.maxSize = maxSize;
+		this.expiry = expiry;
+	}
+
+	/**
+	 * Loads the given variable or list variable from the storage, unless it is already loaded.
+	 * Must be called before the variable is read.
+	 * <p>
+	 * The variable is loaded without holding this object's lock, as loading may wait for Bukkit's main thread,
+	 * which may itself be waiting to access a variable.
+	 *
+	 * @param name the variable name, possibly a list variable.
+	 */
+	void pageIn(String name) {
+		synchronized (this) {
+			if (touch(name, System.currentTimeMillis()))
+				return;
+		}
+
+		Map<String, Object> variables = loader.apply(name);
+
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+			// Loaded or changed by another thread in the meantime, so the values in memory are at least as new
+			if (touch(name, now))
+				return;
+
+			for (Entry<String, Object> variable : variables.entrySet()) {
+				// Values in memory are newer than the ones in the storage
+				if (!isLoaded(variable.getKey()))
+					memory.accept(variable.getKey(), variable.getValue());
+			}
+			loaded.put(name, now);
+
+			if (loaded.size() > maxSize)
+				evict(now);
+		}
+	}
+
+	/**
+	 * Marks the given variable or list variable as loaded without loading it.
+	 * Must be called before the variable is changed,
+	 * and the change must be reported to {@link #saved(String)} once the storage has saved it.
+	 *
+	 * @param name the variable name, possibly a list variable.
+	 */
+	synchronized void changing(String name) {
+		unsaved.merge(name, 1, Integer::sum);
+		long now = System.currentTimeMillis();
+		if (touch(name, now))
+			return;
+		loaded.put(name, now);
+
+		if (loaded.size() > maxSize)
+			evict(now);
+	}
+
+	/**
+	 * Reports that a change of the given variable has been passed to the storage,
+	 * i.e. that it will be included when the variable is loaded from the storage again.
+	 *
+	 * @param name the variable name, possibly a list variable, see {@link #changing(String)}.
+	 */
+	synchronized void saved(String name) {
+		unsaved.computeIfPresent(name, (variable, changes) -> changes == 1 ? null : changes - 1);
+	}
+
+	/**
+	 * @return the amount of loaded variables and lists.
+	 */
+	synchronized int size() {
+		return loaded.size();
+	}
+
+	/**
+	 * Updates the access time of the given variable, if it or a list containing it is loaded.
+	 *
+	 * @return whether the variable is loaded.
+	 */
+	private boolean touch(String name, long now) {
+		if (loaded.containsKey(name)) {
+			loaded.put(name, now);
+			return true;
+		}
+		for (String list : getParentLists(name)) {
+			if (loaded.containsKey(list)) {
+				loaded.put(list, now);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return whether the given variable, or a list containing it, is loaded.
+	 */
+	private boolean isLoaded(String name) {
+		if (loaded.containsKey(name))
+			return true;
+		for (String list : getParentLists(name)) {
+			if (loaded.containsKey(list))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes variables from memory that haven't been accessed for too long,
+	 * or that were accessed least recently if too many variables are loaded.
+	 * Variables with changes that have not been saved yet are kept.
+	 *
+	 * @param now the current time in milliseconds.
+	 */
+	synchronized void evict(long now) {
+		List<String> evicted = new ArrayList<>();
+		Iterator<Entry<String, Long>> iterator = loaded.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<String, Long> entry = iterator.next();
+			long age = now - entry.getValue();
+			// All following entries were accessed more recently
+			if (age < MIN_RESIDENCY || (age < expiry && loaded.size() <= maxSize))
+				break;
+			if (hasUnsavedChanges(entry.getKey()))
+				continue;
+			evicted.add(entry.getKey());
+			iterator.remove();
+		}
+
+		for (String name : evicted)
+			unload(name);
+	}
+
+	/**
+	 * Checks whether {@link #unload(String) unloading} the given variable or list variable
+	 * would remove a change from memory that has not been saved yet.
+	 */
+	private boolean hasUnsavedChanges(String name) {
+		if (unsaved.isEmpty())
+			return false;
+		if (name.endsWith(LIST_SUFFIX) ? hasUnsavedChangesInList(name) : unsaved.containsKey(name))
+			return true;
+		for (String list : getParentLists(name)) {
+			if (loaded.containsKey(list) && hasUnsavedChangesInList(list))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean hasUnsavedChangesInList(String list) {
+		String prefix = list.substring(0, list.length() - 1);
+		return !unsaved.subMap(prefix, true, prefix + Character.MAX_VALUE, true).isEmpty();
+	}
+
+	/**
+	 * Removes the given variable or list variable from memory,
+	 * together with every loaded list that contains it, or variable that it contains.
+	 */
+	private void unload(String name) {
+		memory.accept(name, null);
+
+		if (name.endsWith(LIST_SUFFIX)) {
+			// Variables in this list that were loaded separately
+			String prefix = name.substring(0, name.length() - 1);
+			List<String> contained = new ArrayList<>();
+			for (String loadedName : loaded.keySet()) {
+				if (loadedName.startsWith(prefix))
+					contained.add(loadedName);
+			}
+			for (String loadedName : contained) {
+				loaded.remove(loadedName);
+				memory.accept(loadedName, null);
+			}
+		}
+
+		// Lists containing this variable are no longer complete
+		for (String list : getParentLists(name)) {
+			if (loaded.remove(list) != null)
+				unload(list);
+		}
+	}
+
+	/**
+	 * Gets the names of the list variables that contain the given variable,
+	 * e.g. {@code a::*} and {@code a::b::*} for {@code a::b::c} or {@code a::b::c::*}.
+	 *
+	 * @param name the variable name, possibly a list variable.
+	 * @return the names of the list variables containing it, outermost first.
+	 */
+	static List<String> getParentLists(String name) {
+		List<String> lists = new ArrayList<>();
+		int end = name.endsWith(LIST_SUFFIX) ? name.length() - LIST_SUFFIX.length() : name.length();
+		int separator = name.indexOf(Variable.SEPARATOR);
+		while (separator != -1 && separator < end) {
+			lists.add(name.substring(0, separator) + LIST_SUFFIX);
+			separator = name.indexOf(Variable.SEPARATOR, separator + Variable.SEPARATOR.length());
+		}
+		return lists;
+	}
+
+}
@@ -0,0 +1,307 @@
+package ch.njol.skript.variables;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * An append-only table of the changes made to the variables table of an {@link SQLStorage},
+ * which other servers sharing the database poll to replicate the changes.
+ * <p>
+ * Every change gets a sequence number. Each server remembers the last sequence number it has seen,
+ * so polling only reads new changes and the variables table can be updated in place.
+ * Changes that are committed out of order (leaving a temporary gap in the sequence numbers)
+ * are waited for up to {@link #GAP_TIMEOUT}, and never applied over a newer change of the same variable.
+ * <p>
+ * Not thread-safe, access must be synchronised.
+ */
+final class SQLChangeJournal {
+
+	/**
+	 * The amount of rows read by a single query of {@link #poll(long)},
+	 * which keeps querying until it has read all rows or returns this many new changes.
+	 */
+	static final int PAGE_SIZE = 1000;
+
+	/**
+	 * How long a gap in the sequence numbers is waited for in milliseconds,
+	 * before the missing changes are assumed to have been rolled back.
+	 */
+	static final long GAP_TIMEOUT = 10_000;
+
+	private final String tableName;
+	private final String guid;
+
+	@Nullable
+	private PreparedStatement appendQuery, pollQuery, maxSequenceQuery, truncateQuery;
+
+	/**
+	 * All changes up to and including this sequence number have been seen.
+	 */
+	private long lastSequence = -1;
+
+	/**
+	 * The names of the changes seen after a gap in the sequence numbers, by sequence number.
+	 */
+	private final NavigableMap<Long, String> seenAhead = new TreeMap<>();
+
+	/**
+	 * The newest sequence number in {@link #seenAhead} of each variable name.
+	 */
+	private final Map<String, Long> newestAhead = new HashMap<>();
+
+	/**
+	 * When the current gap in the sequence numbers was first seen, or -1 if there is no gap.
+	 */
+	private long gapSince = -1;
+
+	/**
+	 * Changes before this sequence number are removed by the next {@link #truncate()}.
+	 */
+	private long truncationMark = -1;
+
+	private long replicatedChanges;
+	private long lastLag = -1;
+	private long maxLag = -1;
+
+	/**
+	 * @param tableName the name of the journal table.
+	 * @param guid the GUID of this server, changes written with it are not returned by {@link #poll(long)}.
+	 */
+	SQLChangeJournal(String tableName, String guid) {
+		this.tableName = tableName;
+		this.guid = guid;
+	}
+
+	/**
+	 * @return the name of the journal table.
+	 */
+	String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * (Re)creates the prepared statements, as they are closed when the connection is closed.
+	 *
+	 * @param connection the connection to the database.
+	 * @throws SQLException if preparing a statement failed.
+	 */
+	void prepare(Connection connection) throws SQLException {
+		close();
+		appendQuery = connection.prepareStatement("INSERT INTO " + tableName + " (name, type, value, update_guid, changed_at) VALUES (?, ?, ?, ?, ?)");
+		pollQuery = connection.prepareStatement("SELECT seq, name, type, value, update_guid, changed_at FROM " + tableName + " WHERE seq > ? ORDER BY seq LIMIT " + PAGE_SIZE);
+		maxSequenceQuery = connection.prepareStatement("SELECT MAX(seq) FROM " + tableName);
+		truncateQuery = connection.prepareStatement("DELETE FROM " + tableName + " WHERE seq < ?");
+	}
+
+	/**
+	 * Closes the prepared statements.
+	 */
+	void close() {
+		for (PreparedStatement statement : new PreparedStatement[] {appendQuery, pollQuery, maxSequenceQuery, truncateQuery}) {
+			try {
+				if (statement != null)
+					statement.close();
+			} catch (SQLException ignored) {}
+		}
+	}
+
+	/**
+	 * Skips all changes currently in the journal, as they are included in the variables table.
+	 * Should be called right before the variables table is loaded.
+	 *
+	 * @throws SQLException if querying the journal failed.
+	 */
+	void start() throws SQLException {
+		lastSequence = getMaxSequence();
+		truncationMark = lastSequence;
+	}
+
+	/**
+	 * Appends the given changes to the journal, in a single batch.
+	 *
+	 * @param changes the changes, see {@link SQLWriteBatch#drain()}.
+	 * @throws SQLException if appending failed.
+	 */
+	void append(Map<String, SerializedVariable.@Nullable Value> changes) throws SQLException {
+		PreparedStatement appendQuery = this.appendQuery;
+		assert appendQuery != null;
+		long now = System.currentTimeMillis();
+		for (Entry<String, SerializedVariable.@Nullable Value> change : changes.entrySet()) {
+			SerializedVariable.Value value = change.getValue();
+			int i = 1;
+			appendQuery.setString(i++, change.getKey());
+			appendQuery.setString(i++, value == null ? null : value.type);
+			appendQuery.setBytes(i++, value == null ? null : value.data);
+			appendQuery.setString(i++, guid);
+			appendQuery.setLong(i++, now);
+			appendQuery.addBatch();
+		}
+		if (!changes.isEmpty())
+			appendQuery.executeBatch();
+	}
+
+	/**
+	 * Reads the changes other servers made since the last poll.
+	 *
+	 * @param now the current time in milliseconds.
+	 * @return the new changes in the order they were made.
+	 * @throws SQLException if querying the journal failed.
+	 */
+	List<Change> poll(long now) throws SQLException {
+		PreparedStatement pollQuery = this.pollQuery;
+		assert pollQuery != null;
+
+		List<Change> changes = new ArrayList<>();
+		// Changes seen after a gap are read again, so page past them until all rows are read
+		long from = lastSequence;
+		int rows;
+		do {
+			pollQuery.setLong(1, from);
+			rows = 0;
+			try (ResultSet result = pollQuery.executeQuery()) {
+				while (result.next()) {
+					rows++;
+					int i = 1;
+					long sequence = result.getLong(i++);
+					String name = result.getString(i++);
+					String type = result.getString(i++);
+					byte[] value = result.getBytes(i++);
+					String updateGuid = result.getString(i++);
+					long changedAt = result.getLong(i++);
+					from = sequence;
+
+					if (!seen(sequence, name) || guid.equals(updateGuid))
+						continue;
+
+					changes.add(new Change(name, type == null || value == null ? null : new SerializedVariable.Value(type, value)));
+					replicatedChanges++;
+					lastLag = Math.max(0, now - changedAt);
+					maxLag = Math.max(maxLag, lastLag);
+				}
+			}
+		} while (rows == PAGE_SIZE && changes.size() < PAGE_SIZE);
+
+		advance(now);
+		return changes;
+	}
+
+	/**
+	 * Marks the given change as seen.
+	 *
+	 * @return whether the change should be applied,
+	 * i.e. it wasn't seen before and no newer change of the same variable was seen.
+	 */
+	private boolean seen(long sequence, String name) {
+		if (sequence <= lastSequence || seenAhead.putIfAbsent(sequence, name) != null)
+			return false;
+		Long newest = newestAhead.get(name);
+		if (newest != null && newest > sequence)
+			return false;
+		newestAhead.put(name, sequence);
+		return true;
+	}
+
+	/**
+	 * Advances {@link #lastSequence} past all consecutive seen changes,
+	 * and past gaps that have been waited for long enough.
+	 */
+	private void advance(long now) {
+		while (!seenAhead.isEmpty()) {
+			long first = seenAhead.firstKey();
+			if (first != lastSequence + 1) {
+				// A change before this one was not committed (yet)
+				if (gapSince == -1)
+					gapSince = now;
+				if (now - gapSince < GAP_TIMEOUT)
+					return;
+				// Waited long enough, the missing changes were rolled back
+			}
+			String name = seenAhead.pollFirstEntry().getValue();
+			newestAhead.remove(name, first);
+			lastSequence = first;
+			gapSince = -1;
+		}
+	}
+
+	/**
+	 * Removes the changes that were already in the journal at the previous truncation,
+	 * so every change stays in the journal for at least the time between two truncations.
+	 * The newest change is always kept, so sequence numbers are never reused.
+	 *
+	 * @return the amount of removed changes.
+	 * @throws SQLException if the changes couldn't be removed.
+	 */
+	int truncate() throws SQLException {
+		PreparedStatement truncateQuery = this.truncateQuery;
+		assert truncateQuery != null;
+		int removed = 0;
+		if (truncationMark >= 0) {
+			truncateQuery.setLong(1, truncationMark);
+			removed = truncateQuery.executeUpdate();
+		}
+		truncationMark = getMaxSequence();
+		return removed;
+	}
+
+	private long getMaxSequence() throws SQLException {
+		PreparedStatement maxSequenceQuery = this.maxSequenceQuery;
+		assert maxSequenceQuery != null;
+		try (ResultSet result = maxSequenceQuery.executeQuery()) {
+			// MAX is NULL for an empty table, which getLong returns as 0
+			return result.next() ? result.getLong(1) : 0;
+		}
+	}
+
+	/**
+	 * @return the amount of changes of other servers that were read from the journal.
+	 */
+	long getReplicatedChanges() {
+		return replicatedChanges;
+	}
+
+	/**
+	 * @return the time in milliseconds between the most recently replicated change being written
+	 * and being read, or -1 if nothing was replicated yet.
+	 */
+	long getLastLag() {
+		return lastLag;
+	}
+
+	/**
+	 * @return the maximum of {@link #getLastLag()} since the server started, or -1 if nothing was replicated yet.
+	 */
+	long getMaxLag() {
+		return maxLag;
+	}
+
+	/**
+	 * A change of a variable read from the journal.
+	 */
+	static final class Change {
+
+		final String name;
+
+		/**
+		 * The serialized value, or {@code null} if the variable was deleted.
+		 */
+		final SerializedVariable.@Nullable Value value;
+
+		Change(String name, SerializedVariable.@Nullable Value value) {
+			this.name = name;
+			this.value = value;
+		}
+
+	}
+
+}
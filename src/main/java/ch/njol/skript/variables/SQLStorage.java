@@ -4,6 +4,12 @@ import java.io.File;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 
@@ -13,10 +19,9 @@ import org.jetbrains.annotations.Nullable;
 
 import ch.njol.skript.Skript;
 import ch.njol.skript.classes.ClassInfo;
-import ch.njol.skript.classes.Serializer;
 import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.Variable;
 import ch.njol.skript.log.SkriptLogger;
-import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.util.Task;
 import ch.njol.skript.util.Timespan;
 import ch.njol.util.SynchronizedReference;
@@ -30,13 +35,13 @@ import lib.PatPeter.SQLibrary.SQLibrary;
  *
  * @author Peter Güttinger
  */
-public abstract class SQLStorage extends VariablesStorage {
+public abstract class SQLStorage extends VariablesStorage implements PageableStorage {
 
 	public final static int MAX_VARIABLE_NAME_LENGTH = 380, // MySQL: 767 bytes max; cannot set max bytes, only max characters
 			MAX_CLASS_CODENAME_LENGTH = 50, // checked when registering a class
 			MAX_VALUE_SIZE = 10000;
 
-	private final static String SELECT_ORDER = "name, type, value, rowid";
+	private final static String SELECT_ORDER = "name, type, value";
 
 	private final static String OLD_TABLE_NAME = "variables";
 
@@ -50,12 +55,51 @@ public abstract class SQLStorage extends VariablesStorage {
 	private boolean monitor = false;
 	long monitor_interval;
 
+	/**
+	 * The shortest delay between two checks for changes in milliseconds, used while other servers are making changes.
+	 * Without changes, the delay is doubled after every check up to {@link #monitor_interval}.
+	 */
+	long monitorMinimumInterval;
+
+	/**
+	 * The journal other servers' changes are read from, or {@code null} if changes are not monitored.
+	 * Must be locked with {@link #db}.
+	 */
+	@Nullable
+	private SQLChangeJournal journal;
+
+	/**
+	 * The task periodically removing old changes from the {@link #journal}.
+	 */
+	@Nullable
+	private Task journalTruncationTask;
+
 	private final static String guid = UUID.randomUUID().toString();
 
 	/**
-	 * The delay between transactions in milliseconds.
+	 * The default amount of changed variables that are written to the database at once.
+	 */
+	private final static int DEFAULT_BATCH_SIZE = 500;
+
+	/**
+	 * The default delay between transactions in milliseconds.
+	 */
+	private final static long DEFAULT_FLUSH_INTERVAL = 500;
+
+	/**
+	 * The maximum amount of changed variables that are written to the database at once.
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * The delay between writing changes and committing the transaction in milliseconds.
+	 */
+	private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+	/**
+	 * Changes that have not been written to the database yet, must be locked with {@link #db}.
 	 */
-	private final static long TRANSACTION_DELAY = 500;
+	private final SQLWriteBatch pendingWrites = new SQLWriteBatch();
 
 	/**
 	 * Creates a SQLStorage with a create table query.
@@ -86,6 +130,49 @@ public abstract class SQLStorage extends VariablesStorage {
 	@Nullable
 	public abstract Database initialize(SectionNode config);
 
+	/**
+	 * The query that writes a variable, updating its row in place if it already exists.
+	 * Params: name, type, value, GUID.
+	 *
+	 * @return the write query with %s in place of the table name.
+	 */
+	protected String getWriteQuery() {
+		return "REPLACE INTO %s (name, type, value, update_guid) VALUES (?, ?, ?, ?)";
+	}
+
+	/**
+	 * The condition that matches all variables of a list variable, which must be able to use the index of the name column.
+	 * Params: the pattern of the list, see {@link #getListPattern(String)}.
+	 *
+	 * @return the condition.
+	 */
+	protected String getListCondition() {
+		return "name LIKE ? ESCAPE '!'";
+	}
+
+	/**
+	 * Creates the parameter of the {@link #getListCondition() list condition}.
+	 *
+	 * @param prefix the prefix of the names of the variables in the list, e.g. {@code a::} for {@code a::*}.
+	 * @return the pattern matching all names starting with the prefix.
+	 */
+	protected String getListPattern(String prefix) {
+		return SQLWriteBatch.likePattern(prefix);
+	}
+
+	/**
+	 * The query that creates the change journal table, which is required to monitor changes.
+	 * The table must have the columns {@code seq} (an auto-incremented primary key),
+	 * {@code name}, {@code type}, {@code value}, {@code update_guid} and {@code changed_at} (a BIGINT).
+	 *
+	 * @return the create query with %s in place of the journal table name,
+	 * or {@code null} if this database type can't monitor changes.
+	 */
+	@Nullable
+	protected String getJournalCreateQuery() {
+		return null;
+	}
+
 	/**
 	 * Retrieve the create query with the tableName in it
 	 * @return the create query with the tableName in it (%s -> tableName)
@@ -115,7 +202,27 @@ public abstract class SQLStorage extends VariablesStorage {
 			if (monitor_changes == null || monitor_interval == null)
 				return false;
 			monitor = monitor_changes;
+			if (monitor && isPaged()) {
+				Skript.error("The database '" + getUserConfigurationName() + "' cannot be paged while monitoring changes, please set either 'paging' or 'monitor changes' to false");
+				return false;
+			}
 			this.monitor_interval = monitor_interval.getAs(Timespan.TimePeriod.MILLISECOND);
+			final Timespan monitor_minimum_interval = getOptionalValue(n, "monitor minimum interval", Timespan.class,
+					new Timespan(Timespan.TimePeriod.MILLISECOND, Math.min(1000, this.monitor_interval)));
+			if (monitor_minimum_interval == null)
+				return false;
+			monitorMinimumInterval = Math.min(monitor_minimum_interval.getAs(Timespan.TimePeriod.MILLISECOND), this.monitor_interval);
+
+			final Integer batch_size = getOptionalValue(n, "batch size", Integer.class, DEFAULT_BATCH_SIZE);
+			final Timespan flush_interval = getOptionalValue(n, "flush interval", Timespan.class, new Timespan(Timespan.TimePeriod.MILLISECOND, DEFAULT_FLUSH_INTERVAL));
+			if (batch_size == null || flush_interval == null)
+				return false;
+			if (batch_size < 1) {
+				Skript.error("The batch size of the database '" + getUserConfigurationName() + "' must be at least 1");
+				return false;
+			}
+			batchSize = batch_size;
+			flushInterval = flush_interval.getAs(Timespan.TimePeriod.MILLISECOND);
 
 			final Database db;
 			try {
@@ -153,20 +260,44 @@ public abstract class SQLStorage extends VariablesStorage {
 					return false;
 				}
 
+				if (monitor) {
+					final String journalCreateQuery = getJournalCreateQuery();
+					if (journalCreateQuery == null) {
+						Skript.error("The database '" + getUserConfigurationName() + "' cannot monitor changes, please set 'monitor changes' to false");
+						return false;
+					}
+					final SQLChangeJournal journal = new SQLChangeJournal(getTableName() + "_changes", guid);
+					try {
+						db.query(String.format(journalCreateQuery, journal.getTableName()));
+					} catch (final SQLException e) {
+						Skript.error("Could not create the change journal table '" + journal.getTableName() + "' in the database '" + getUserConfigurationName() + "': " + e.getLocalizedMessage() + ". "
+								+ "Please create the table yourself using the following query: " + String.format(journalCreateQuery, journal.getTableName()).replace(",", ", ").replaceAll("\\s+", " "));
+						return false;
+					}
+					this.journal = journal;
+				}
+
 				if (!prepareQueries()) {
 					return false;
 				}
-				
+
+				// changes made from now on are replicated through the journal
+				if (journal != null)
+					journal.start();
+
 				// old
 				// Table name support was added after the verison that used the legacy database format
 
 				// new
-				final ResultSet r2 = db.query("SELECT " + SELECT_ORDER + " FROM " + getTableName());
-				assert r2 != null;
-				try {
-					loadVariables(r2);
-				} finally {
-					r2.close();
+				// variables of a paged database are loaded when they are first used, see loadPage
+				if (!isPaged()) {
+					final ResultSet r2 = db.query("SELECT " + SELECT_ORDER + " FROM " + getTableName());
+					assert r2 != null;
+					try {
+						loadVariables(r2);
+					} finally {
+						r2.close();
+					}
 				}
 
 				// store old variables in new table and delete the old table
@@ -211,15 +342,17 @@ public abstract class SQLStorage extends VariablesStorage {
 					synchronized (db) {
 						final Database db = SQLStorage.this.db.get();
 						try {
-							if (db != null)
+							if (db != null) {
+								flushWrites();
 								db.getConnection().commit();
+							}
 						} catch (final SQLException e) {
 							sqlException(e);
 						}
 						lastCommit = System.currentTimeMillis();
 					}
 					try {
-						Thread.sleep(Math.max(0, lastCommit + TRANSACTION_DELAY - System.currentTimeMillis()));
+						Thread.sleep(Math.max(0, lastCommit + flushInterval - System.currentTimeMillis()));
 					} catch (final InterruptedException e) {}
 				}
 			}
@@ -229,24 +362,28 @@ public abstract class SQLStorage extends VariablesStorage {
 			Skript.newThread(new Runnable() {
 				@Override
 				public void run() {
-					try { // variables were just downloaded, not need to check for modifications straight away
-						Thread.sleep(monitor_interval);
+					long interval = monitorMinimumInterval;
+					try { // variables were just downloaded, only changes made since then need to be checked
+						Thread.sleep(interval);
 					} catch (final InterruptedException e1) {}
 
 					long lastWarning = Long.MIN_VALUE;
 					final int WARING_INTERVAL = 10;
 
 					while (!closed) {
-						final long next = System.currentTimeMillis() + monitor_interval;
-						checkDatabase();
+						final long start = System.currentTimeMillis();
+						final int changes = checkDatabase();
 						final long now = System.currentTimeMillis();
-						if (next < now && lastWarning + WARING_INTERVAL * 1000 < now) {
+						if (start + monitor_interval < now && lastWarning + WARING_INTERVAL * 1000 < now) {
 							// TODO don't print this message when Skript loads (because scripts are loaded after variables and take some time)
-							Skript.warning("Cannot load variables from the database fast enough (loading took " + ((now - next + monitor_interval) / 1000.) + "s, monitor interval = " + (monitor_interval / 1000.) + "s). " +
+							Skript.warning("Cannot load variables from the database fast enough (loading took " + ((now - start) / 1000.) + "s, monitor interval = " + (monitor_interval / 1000.) + "s). " +
 									"Please increase your monitor interval or reduce usage of variables. " +
 									"(this warning will be repeated at most once every " + WARING_INTERVAL + " seconds)");
 							lastWarning = now;
 						}
+						// check again soon while other servers are changing variables, and back off while they aren't
+						interval = changes > 0 ? monitorMinimumInterval : Math.min(interval * 2, monitor_interval);
+						final long next = start + interval;
 						while (System.currentTimeMillis() < next) {
 							try {
 								Thread.sleep(next - System.currentTimeMillis());
@@ -255,6 +392,24 @@ public abstract class SQLStorage extends VariablesStorage {
 					}
 				}
 			}, "Skript database '" + getUserConfigurationName() + "' monitor thread").start();
+
+			// changes stay in the journal for at least 2 times the monitor interval + 5 seconds
+			final long truncationPeriod = (long) Math.ceil(2. * monitor_interval / 50) + 100;
+			journalTruncationTask = new Task(Skript.getInstance(), truncationPeriod, truncationPeriod, true) {
+				@Override
+				public void run() {
+					synchronized (db) {
+						final SQLChangeJournal journal = SQLStorage.this.journal;
+						if (closed || db.get() == null || journal == null)
+							return;
+						try {
+							journal.truncate();
+						} catch (final SQLException e) {
+							sqlException(e);
+						}
+					}
+				}
+			};
 		}
 
 	}
@@ -308,7 +463,7 @@ public abstract class SQLStorage extends VariablesStorage {
 					if (writeQuery != null)
 						writeQuery.close();
 				} catch (final SQLException e) {}
-				writeQuery = db.prepare("REPLACE INTO " + getTableName() + " (name, type, value, update_guid) VALUES (?, ?, ?, ?)");
+				writeQuery = db.prepare(String.format(getWriteQuery(), getTableName()));
 
 				try {
 					if (deleteQuery != null)
@@ -317,15 +472,24 @@ public abstract class SQLStorage extends VariablesStorage {
 				deleteQuery = db.prepare("DELETE FROM " + getTableName() + " WHERE name = ?");
 
 				try {
-					if (monitorQuery != null)
-						monitorQuery.close();
-				} catch (final SQLException e) {}
-				monitorQuery = db.prepare("SELECT " + SELECT_ORDER + " FROM " + getTableName() + " WHERE rowid > ? AND update_guid != ?");
-				try {
-					if (monitorCleanUpQuery != null)
-						monitorCleanUpQuery.close();
+					if (deleteListQuery != null)
+						deleteListQuery.close();
 				} catch (final SQLException e) {}
-				monitorCleanUpQuery = db.prepare("DELETE FROM " + getTableName() + " WHERE value IS NULL AND rowid < ?");
+				deleteListQuery = db.prepare("DELETE FROM " + getTableName() + " WHERE " + getListCondition());
+
+				if (isPaged()) {
+					try {
+						if (pageQuery != null)
+							pageQuery.close();
+						if (pageListQuery != null)
+							pageListQuery.close();
+					} catch (final SQLException e) {}
+					pageQuery = db.prepare("SELECT " + SELECT_ORDER + " FROM " + getTableName() + " WHERE name = ?");
+					pageListQuery = db.prepare("SELECT " + SELECT_ORDER + " FROM " + getTableName() + " WHERE " + getListCondition());
+				}
+
+				if (journal != null)
+					journal.prepare(db.getConnection());
 			} catch (final SQLException e) {
 				Skript.exception(e, "Could not prepare queries for the database '" + getUserConfigurationName() + "': " + e.getLocalizedMessage());
 				return false;
@@ -360,19 +524,26 @@ public abstract class SQLStorage extends VariablesStorage {
 	@Nullable
 	private PreparedStatement deleteQuery;
 	/**
-	 * Params: rowID, GUID
+	 * Params: pattern of the list, see {@link #getListPattern(String)}
+	 * <p>
+	 * Deletes all variables of a list variable from the database
+	 */
+	@Nullable
+	private PreparedStatement deleteListQuery;
+	/**
+	 * Params: name
 	 * <p>
-	 * Selects changed rows. values in order: {@value #SELECT_ORDER}
+	 * Reads a variable from the database, only prepared if the database is paged
 	 */
 	@Nullable
-	private PreparedStatement monitorQuery;
+	private PreparedStatement pageQuery;
 	/**
-	 * Params: rowID
+	 * Params: pattern of the list, see {@link #getListPattern(String)}
 	 * <p>
-	 * Deletes null variables from the database older than the given value
+	 * Reads all variables of a list variable from the database, only prepared if the database is paged
 	 */
 	@Nullable
-	PreparedStatement monitorCleanUpQuery;
+	private PreparedStatement pageListQuery;
 
 	@Override
 	protected boolean save(final String name, final @Nullable String type, final @Nullable byte[] value) {
@@ -382,38 +553,103 @@ public abstract class SQLStorage extends VariablesStorage {
 				Skript.error("The name of the variable {" + name + "} is too long to be saved in a database (length: " + name.length() + ", maximum allowed: " + MAX_VARIABLE_NAME_LENGTH + ")! It will be truncated and won't bet available under the same name again when loaded.");
 			if (value != null && value.length > MAX_VALUE_SIZE)
 				Skript.error("The variable {" + name + "} cannot be saved in the database as its value's size (" + value.length + ") exceeds the maximum allowed size of " + MAX_VALUE_SIZE + "! An attempt to save the variable will be made nonetheless.");
+			pendingWrites.add(name, type, value);
+			if (pendingWrites.size() >= batchSize)
+				flushWrites();
+		}
+		return true;
+	}
+
+	/**
+	 * Writes all {@link #pendingWrites pending changes} to the database, without committing them.
+	 * Must be called while holding the lock of {@link #db}.
+	 */
+	private void flushWrites() {
+		assert Thread.holdsLock(db);
+		if (pendingWrites.size() == 0 || db.get() == null)
+			return;
+
+		final Map<String, SerializedVariable.@Nullable Value> changes = pendingWrites.drain();
+		try {
+			writeChanges(changes);
+		} catch (final SQLException e) {
+			sqlException(e);
+			// retry the changes one at a time, so a single invalid variable doesn't prevent the others from being saved,
+			// and only recreate the queries once afterwards instead of after every failed change
+			boolean failed = false;
+			for (final Entry<String, SerializedVariable.@Nullable Value> change : changes.entrySet()) {
+				try {
+					writeChanges(Collections.singletonMap(change.getKey(), change.getValue()));
+				} catch (final SQLException ex) {
+					logSqlException(ex);
+					failed = true;
+				}
+			}
+			if (failed)
+				prepareQueries();
+		}
+	}
+
+	/**
+	 * Writes the given changes to the variables table and the {@link #journal}.
+	 * Must be called while holding the lock of {@link #db}.
+	 */
+	private void writeChanges(final Map<String, SerializedVariable.@Nullable Value> changes) throws SQLException {
+		final PreparedStatement writeQuery = this.writeQuery, deleteQuery = this.deleteQuery, deleteListQuery = this.deleteListQuery;
+		assert writeQuery != null && deleteQuery != null && deleteListQuery != null;
+		SQLWriteBatch.execute(changes, writeQuery, deleteQuery, deleteListQuery, this::getListPattern, guid);
+		final SQLChangeJournal journal = this.journal;
+		if (journal != null)
+			journal.append(changes);
+	}
+
+	@Override
+	public Map<String, SerializedVariable.Value> loadPage(final String name) {
+		final Map<String, SerializedVariable.Value> page = new HashMap<>();
+		synchronized (db) {
+			if (db.get() == null)
+				return page;
 			try {
-				if (type == null) {
-					assert value == null;
-					final PreparedStatement deleteQuery = this.deleteQuery;
-					assert deleteQuery != null;
-					deleteQuery.setString(1, name);
-					deleteQuery.executeUpdate();
+				final PreparedStatement query;
+				if (name.endsWith(Variable.SEPARATOR + "*")) {
+					query = pageListQuery;
+					assert query != null;
+					query.setString(1, getListPattern(SQLWriteBatch.getListPrefix(name)));
 				} else {
-					int i = 1;
-					final PreparedStatement writeQuery = this.writeQuery;
-					assert writeQuery != null;
-					writeQuery.setString(i++, name);
-					writeQuery.setString(i++, type);
-					writeQuery.setBytes(i++, value); // SQLite desn't support setBlob
-					writeQuery.setString(i++, guid);
-					writeQuery.executeUpdate();
+					query = pageQuery;
+					assert query != null;
+					query.setString(1, name);
+				}
+				try (final ResultSet r = query.executeQuery()) {
+					while (r.next()) {
+						int i = 1;
+						final String variableName = r.getString(i++);
+						final String type = r.getString(i++);
+						final byte[] value = r.getBytes(i++);
+						if (variableName == null || type == null || value == null)
+							continue;
+						page.put(variableName, new SerializedVariable.Value(type, value));
+					}
 				}
 			} catch (final SQLException e) {
 				sqlException(e);
-				return false;
 			}
+			// the changes that haven't been written yet are newer, but writing them would delay the caller
+			pendingWrites.applyTo(name, page);
 		}
-		return true;
+		return page;
 	}
 
 	@Override
 	public void close() {
+		if (journalTruncationTask != null)
+			journalTruncationTask.cancel();
 		synchronized (db) {
 			super.close();
 			final Database db = this.db.get();
 			if (db != null) {
 				try {
+					flushWrites();
 					db.getConnection().commit();
 				} catch (final SQLException e) {
 					sqlException(e);
@@ -424,53 +660,55 @@ public abstract class SQLStorage extends VariablesStorage {
 		}
 	}
 
-	long lastRowID = -1;
-
-	protected void checkDatabase() {
-		try {
-			final long lastRowID; // local variable as this is used to clean the database below
-			ResultSet r = null;
+	/**
+	 * Reads and applies the changes other servers made since the last check.
+	 *
+	 * @return the amount of changes that were applied.
+	 */
+	protected int checkDatabase() {
+		final List<SQLChangeJournal.Change> changes;
+		synchronized (db) {
+			final SQLChangeJournal journal = this.journal;
+			if (closed || db.get() == null || journal == null)
+				return 0;
 			try {
-				synchronized (db) {
-					if (closed || db.get() == null)
-						return;
-					lastRowID = this.lastRowID;
-					final PreparedStatement monitorQuery = this.monitorQuery;
-					assert monitorQuery != null;
-					monitorQuery.setLong(1, lastRowID);
-					monitorQuery.setString(2, guid);
-					monitorQuery.execute();
-					r = monitorQuery.getResultSet();
-					assert r != null;
-				}
-				if (!closed)
-					loadVariables(r);
-			} finally {
-				if (r != null)
-					r.close();
+				changes = journal.poll(System.currentTimeMillis());
+			} catch (final SQLException e) {
+				sqlException(e);
+				return 0;
 			}
+		}
+		if (!changes.isEmpty() && !closed) // Skript may have been disabled in the meantime
+			loadChanges(changes);
+		return changes.size();
+	}
 
-			if (!closed) { // Skript may have been disabled in the meantime // TODO not fixed
-				new Task(Skript.getInstance(), (long) Math.ceil(2. * monitor_interval / 50) + 100, true) { // 2 times the interval + 5 seconds
-					@Override
-					public void run() {
-						try {
-							synchronized (db) {
-								if (closed || db.get() == null)
-									return;
-								final PreparedStatement monitorCleanUpQuery = SQLStorage.this.monitorCleanUpQuery;
-								assert monitorCleanUpQuery != null;
-								monitorCleanUpQuery.setLong(1, lastRowID);
-								monitorCleanUpQuery.executeUpdate();
-							}
-						} catch (final SQLException e) {
-							sqlException(e);
-						}
-					}
-				};
-			}
-		} catch (final SQLException e) {
-			sqlException(e);
+	/**
+	 * @return the time in milliseconds between another server writing the most recently replicated change
+	 * and this server reading it, or -1 if no changes have been replicated yet or changes aren't monitored.
+	 * This relies on the clocks of the servers being in sync.
+	 */
+	public long getReplicationLag() {
+		synchronized (db) {
+			return journal == null ? -1 : journal.getLastLag();
+		}
+	}
+
+	/**
+	 * @return the maximum {@link #getReplicationLag() replication lag} since the server started.
+	 */
+	public long getMaxReplicationLag() {
+		synchronized (db) {
+			return journal == null ? -1 : journal.getMaxLag();
+		}
+	}
+
+	/**
+	 * @return the amount of changes made by other servers that were replicated to this server.
+	 */
+	public long getReplicatedChanges() {
+		synchronized (db) {
+			return journal == null ? 0 : journal.getReplicatedChanges();
 		}
 	}
 
@@ -492,76 +730,90 @@ public abstract class SQLStorage extends VariablesStorage {
 	 * Doesn't lock the database - {@link #save(String, String, byte[])} does that // what?
 	 */
 	private void loadVariables(final ResultSet r) throws SQLException {
-//		assert !Thread.holdsLock(db);
-//		synchronized (syncDeserializing) {
+		final List<String> names = new ArrayList<>();
+		final List<SerializedVariable.Value> values = new ArrayList<>();
+		while (r.next()) {
+			int i = 1;
+			final String name = r.getString(i++);
+			if (name == null) {
+				Skript.error("Variable with NULL name found in the database '" + getUserConfigurationName() + "', ignoring it");
+				continue;
+			}
+			final String type = r.getString(i++);
+			final byte[] value = r.getBytes(i++); // Blob not supported by SQLite
+			if (type == null || value == null)
+				continue; // deleted
+			names.add(name);
+			values.add(new SerializedVariable.Value(type, value));
+		}
 
-		final SQLException e = Task.callSync(new Callable<SQLException>() {
+		// values whose type allows it are deserialized in parallel, the others on the main thread
+		Task.callSync(new Callable<Void>() {
 			@Override
 			@Nullable
-			public SQLException call() throws Exception {
-				try {
-					while (r.next()) {
-						int i = 1;
-						final String name = r.getString(i++);
-						if (name == null) {
-							Skript.error("Variable with NULL name found in the database '" + getUserConfigurationName() + "', ignoring it");
-							continue;
-						}
-						final String type = r.getString(i++);
-						final byte[] value = r.getBytes(i++); // Blob not supported by SQLite
-						lastRowID = r.getLong(i++);
-						if (value == null) {
-							Variables.variableLoaded(name, null, SQLStorage.this);
-						} else {
-							final ClassInfo<?> c = Classes.getClassInfoNoError(type);
-							@SuppressWarnings("unused")
-							Serializer<?> s;
-							if (c == null || (s = c.getSerializer()) == null) {
-								Skript.error("Cannot load the variable {" + name + "} from the database '" + getUserConfigurationName() + "', because the type '" + type + "' cannot be recognised or cannot be stored in variables");
-								continue;
-							}
-//					if (s.mustSyncDeserialization()) {
-//						syncDeserializing.add(new VariableInfo(name, value, c));
-//					} else {
-							final Object d = Classes.deserialize(c, value);
-							if (d == null) {
-								Skript.error("Cannot load the variable {" + name + "} from the database '" + getUserConfigurationName() + "', because it cannot be loaded as " + c.getName().withIndefiniteArticle());
-								continue;
-							}
-							Variables.variableLoaded(name, d, SQLStorage.this);
-//					}
-						}
+			public Void call() {
+				final Object[] deserialized = Variables.deserialize(values);
+				for (int i = 0; i < deserialized.length; i++) {
+					if (deserialized[i] == null) {
+						deserializationFailed(names.get(i), values.get(i).type);
+						continue;
+					}
+					Variables.variableLoaded(names.get(i), deserialized[i], SQLStorage.this);
+				}
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Applies changes read from the {@link #journal} on the main thread.
+	 */
+	private void loadChanges(final List<SQLChangeJournal.Change> changes) {
+		Task.callSync(new Callable<Void>() {
+			@Override
+			@Nullable
+			public Void call() {
+				for (final SQLChangeJournal.Change change : changes) {
+					final SerializedVariable.Value value = change.value;
+					if (value == null) {
+						Variables.variableLoaded(change.name, null, SQLStorage.this);
+					} else {
+						loadVariable(change.name, value.type, value.data);
 					}
-				} catch (final SQLException e) {
-					return e;
 				}
 				return null;
 			}
 		});
-		if (e != null)
-			throw e;
-
-//			if (!syncDeserializing.isEmpty()) {
-//				Task.callSync(new Callable<Void>() {
-//					@Override
-//					@Nullable
-//					public Void call() throws Exception {
-//						synchronized (syncDeserializing) {
-//							for (final VariableInfo o : syncDeserializing) {
-//								final Object d = Classes.deserialize(o.ci, o.value);
-//								if (d == null) {
-//									Skript.error("Cannot load the variable {" + o.name + "} from the database " + getUserConfigurationName() + ", because it cannot be loaded as a " + o.ci.getName());
-//									continue;
-//								}
-//								Variables.variableLoaded(o.name, d, DatabaseStorage.this);
-//							}
-//							syncDeserializing.clear();
-//							return null;
-//						}
-//					}
-//				});
-//			}
-//		}
+	}
+
+	/**
+	 * Deserializes a variable read from the database and passes it to {@link Variables#variableLoaded(String, Object, VariablesStorage)}.
+	 * Must be called on the main thread.
+	 */
+	private void loadVariable(final String name, final @Nullable String type, final @Nullable byte[] value) {
+		if (value == null) {
+			Variables.variableLoaded(name, null, SQLStorage.this);
+			return;
+		}
+		final ClassInfo<?> c = Variables.getClassInfo(type);
+		final Object d = c == null || c.getSerializer() == null ? null : Variables.deserialize(type, value);
+		if (d == null) {
+			deserializationFailed(name, type);
+			return;
+		}
+		Variables.variableLoaded(name, d, SQLStorage.this);
+	}
+
+	/**
+	 * Reports that the given variable could not be loaded, because its value couldn't be deserialized.
+	 */
+	private void deserializationFailed(final String name, final @Nullable String type) {
+		final ClassInfo<?> c = Variables.getClassInfo(type);
+		if (c == null || c.getSerializer() == null) {
+			Skript.error("Cannot load the variable {" + name + "} from the database '" + getUserConfigurationName() + "', because the type '" + type + "' cannot be recognised or cannot be stored in variables");
+		} else {
+			Skript.error("Cannot load the variable {" + name + "} from the database '" + getUserConfigurationName() + "', because it cannot be loaded as " + c.getName().withIndefiniteArticle());
+		}
 	}
 
 //	private final static class OldVariableInfo {
@@ -579,10 +831,14 @@ public abstract class SQLStorage extends VariablesStorage {
 //	final static LinkedList<OldVariableInfo> oldSyncDeserializing = new LinkedList<OldVariableInfo>();
 
 	void sqlException(final SQLException e) {
+		logSqlException(e);
+		prepareQueries(); // a query has to be recreated after an error
+	}
+
+	private void logSqlException(final SQLException e) {
 		Skript.error("database error: " + e.getLocalizedMessage());
 		if (Skript.testing())
 			e.printStackTrace();
-		prepareQueries(); // a query has to be recreated after an error
 	}
 
 }
@@ -0,0 +1,197 @@
+package ch.njol.skript.variables;
+
+import ch.njol.skript.lang.Variable;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.UnaryOperator;
+
+/**
+ * Collects the changes an {@link SQLStorage} makes to its table, so they can be written in JDBC batches.
+ * If a variable is changed multiple times before the batch is written, only its last change is written.
+ * Deleting a list variable deletes all variables in it, including pending changes.
+ * <p>
+ * Not thread-safe, access must be synchronised.
+ */
+final class SQLWriteBatch {
+
+	/**
+	 * The pending changes in the order they were made, mapped to {@code null} if the variable was deleted.
+	 */
+	private Map<String, SerializedVariable.@Nullable Value> changes = new LinkedHashMap<>();
+
+	/**
+	 * Adds a change, replacing any pending change of the same variable.
+	 *
+	 * @param name the name of the variable.
+	 * @param type the type of the serialized value, or {@code null} if the variable is deleted.
+	 * @param value the serialized value, or {@code null} if the variable is deleted.
+	 */
+	void add(String name, @Nullable String type, byte @Nullable [] value) {
+		assert (type == null) == (value == null);
+		if (type == null && isList(name)) {
+			// Changes of variables in the list are overridden by its deletion
+			String prefix = getListPrefix(name);
+			Iterator<String> names = changes.keySet().iterator();
+			while (names.hasNext()) {
+				if (names.next().startsWith(prefix))
+					names.remove();
+			}
+		}
+		changes.put(name, type == null ? null : new SerializedVariable.Value(type, value));
+	}
+
+	private static boolean isList(String name) {
+		return name.endsWith(Variable.SEPARATOR + "*");
+	}
+
+	/**
+	 * @return the prefix of the names of all variables in the given list variable, e.g. {@code a::} for {@code a::*}.
+	 */
+	static String getListPrefix(String list) {
+		return list.substring(0, list.length() - 1);
+	}
+
+	/**
+	 * Creates a pattern for {@code LIKE ? ESCAPE '!'} that matches all names starting with the given prefix.
+	 * Unlike comparing a substring of the name, such a condition can use the index of the name column.
+	 *
+	 * @param prefix the prefix, see {@link #getListPrefix(String)}.
+	 * @return the pattern, with the wildcards and the escape character in the prefix escaped.
+	 */
+	static String likePattern(String prefix) {
+		StringBuilder pattern = new StringBuilder(prefix.length() + 2);
+		for (int i = 0; i < prefix.length(); i++) {
+			char c = prefix.charAt(i);
+			if (c == '!' || c == '%' || c == '_')
+				pattern.append('!');
+			pattern.append(c);
+		}
+		return pattern.append('%').toString();
+	}
+
+	/**
+	 * Creates a pattern for {@code GLOB ?} that matches all names starting with the given prefix.
+	 * Unlike {@code LIKE} in SQLite, {@code GLOB} is case-sensitive and can thus use the index of the name column.
+	 *
+	 * @param prefix the prefix, see {@link #getListPrefix(String)}.
+	 * @return the pattern, with the wildcards in the prefix escaped.
+	 */
+	static String globPattern(String prefix) {
+		StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+		for (int i = 0; i < prefix.length(); i++) {
+			char c = prefix.charAt(i);
+			if (c == '*' || c == '?' || c == '[') {
+				pattern.append('[').append(c).append(']');
+			} else {
+				pattern.append(c);
+			}
+		}
+		return pattern.append('*').toString();
+	}
+
+	/**
+	 * @return the amount of variables with pending changes.
+	 */
+	int size() {
+		return changes.size();
+	}
+
+	/**
+	 * Applies the pending changes of the given variable or list variable to its values read from the table,
+	 * including the deletions of lists containing it.
+	 *
+	 * @param name the name of the variable, or of the list variable ending in {@code ::*}.
+	 * @param values the values read from the table by name, which are changed in place.
+	 */
+	void applyTo(String name, Map<String, SerializedVariable.Value> values) {
+		String prefix = isList(name) ? getListPrefix(name) : null;
+		for (Entry<String, SerializedVariable.@Nullable Value> change : changes.entrySet()) {
+			String changed = change.getKey();
+			SerializedVariable.Value value = change.getValue();
+			if (value == null && isList(changed)) {
+				String deleted = getListPrefix(changed);
+				if (prefix != null ? prefix.startsWith(deleted) : name.startsWith(deleted)) {
+					values.clear();
+				} else if (prefix != null && deleted.startsWith(prefix)) {
+					values.keySet().removeIf(variable -> variable.startsWith(deleted));
+				}
+			} else if (prefix != null ? changed.startsWith(prefix) : changed.equals(name)) {
+				if (value == null) {
+					values.remove(changed);
+				} else {
+					values.put(changed, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all pending changes.
+	 *
+	 * @return the removed changes, mapped to {@code null} if the variable was deleted.
+	 */
+	Map<String, SerializedVariable.@Nullable Value> drain() {
+		if (changes.isEmpty())
+			return Collections.emptyMap();
+		Map<String, SerializedVariable.@Nullable Value> drained = changes;
+		changes = new LinkedHashMap<>();
+		return drained;
+	}
+
+	/**
+	 * Executes the given changes as one batch per statement.
+	 *
+	 * @param changes the changes, see {@link #drain()}.
+	 * @param writeQuery the statement writing a variable, params: name, type, value, GUID.
+	 * @param deleteQuery the statement deleting a variable, params: name.
+	 * @param deleteListQuery the statement deleting all variables whose name starts with a prefix,
+	 *                        params: the pattern of the prefix.
+	 * @param listPattern creates the pattern of a prefix, e.g. {@link #likePattern(String)}.
+	 * @param guid the GUID of this server.
+	 * @throws SQLException if executing any batch failed.
+	 */
+	static void execute(Map<String, SerializedVariable.@Nullable Value> changes, PreparedStatement writeQuery,
+						PreparedStatement deleteQuery, PreparedStatement deleteListQuery,
+						UnaryOperator<String> listPattern, String guid) throws SQLException {
+		boolean writes = false;
+		boolean deletes = false;
+		boolean listDeletes = false;
+		for (Entry<String, SerializedVariable.@Nullable Value> change : changes.entrySet()) {
+			SerializedVariable.Value value = change.getValue();
+			if (value == null && isList(change.getKey())) {
+				deleteListQuery.setString(1, listPattern.apply(getListPrefix(change.getKey())));
+				deleteListQuery.addBatch();
+				listDeletes = true;
+			} else if (value == null) {
+				deleteQuery.setString(1, change.getKey());
+				deleteQuery.addBatch();
+				deletes = true;
+			} else {
+				int i = 1;
+				writeQuery.setString(i++, change.getKey());
+				writeQuery.setString(i++, value.type);
+				writeQuery.setBytes(i++, value.data); // SQLite doesn't support setBlob
+				writeQuery.setString(i++, guid);
+				writeQuery.addBatch();
+				writes = true;
+			}
+		}
+
+		// Every variable has at most one change, and changes made before a list was deleted were removed,
+		// so only the changes made after a list was deleted have to be executed after it
+		if (listDeletes)
+			deleteListQuery.executeBatch();
+		if (deletes)
+			deleteQuery.executeBatch();
+		if (writes)
+			writeQuery.executeBatch();
+	}
+
+}
@@ -18,6 +18,35 @@ public class SQLiteStorage extends SQLStorage {
 				")");
 	}
 
+	@Override
+	protected String getWriteQuery() {
+		return "INSERT INTO %s (name, type, value, update_guid) VALUES (?, ?, ?, ?) " +
+				"ON CONFLICT(name) DO UPDATE SET type = excluded.type, value = excluded.value, update_guid = excluded.update_guid";
+	}
+
+	@Override
+	protected String getListCondition() {
+		// LIKE is case-insensitive in SQLite, so it can't use the index of the name column
+		return "name GLOB ?";
+	}
+
+	@Override
+	protected String getListPattern(String prefix) {
+		return SQLWriteBatch.globPattern(prefix);
+	}
+
+	@Override
+	protected String getJournalCreateQuery() {
+		return "CREATE TABLE IF NOT EXISTS %s (" +
+				"seq          INTEGER  PRIMARY KEY  AUTOINCREMENT," +
+				"name         VARCHAR(" + MAX_VARIABLE_NAME_LENGTH + ")  NOT NULL," +
+				"type         VARCHAR(" + MAX_CLASS_CODENAME_LENGTH + ")," +
+				"value        BLOB(" + MAX_VALUE_SIZE + ")," +
+				"update_guid  CHAR(36)  NOT NULL," +
+				"changed_at   BIGINT  NOT NULL" +
+				")";
+	}
+
 	@Override
 	public Database initialize(SectionNode config) {
 		File f = file;
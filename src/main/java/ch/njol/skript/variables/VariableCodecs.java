@@ -0,0 +1,354 @@
+package ch.njol.skript.variables;
+
+import ch.njol.skript.util.Date;
+import ch.njol.skript.util.Timespan;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encodings of the most commonly stored types of variables.
+ * <p>
+ * {@link Variables#yggdrasil Yggdrasil} writes the class and field names of every object it serializes,
+ * which makes up most of the size of small values like UUIDs, dates or locations.
+ * A codec writes only the value itself, using variable-length encodings for integers.
+ * <p>
+ * A value encoded by a codec is stored with the type {@code <code name>#<version>}, e.g. {@code long#1},
+ * so it can't be confused with a value serialized by Yggdrasil, which is stored with the plain code name.
+ * The encoding of a version must never change. Instead, a new version of the codec is registered,
+ * and older versions stay registered to load values stored with them.
+ */
+public final class VariableCodecs {
+
+	/**
+	 * Separates the code name from the codec version in the type of an encoded value.
+	 */
+	public static final char VERSION_SEPARATOR = '#';
+
+	/**
+	 * Encodes and decodes values of a single type.
+	 *
+	 * @param <T> the type of the values.
+	 */
+	public interface Codec<T> {
+
+		/**
+		 * Encodes the given value.
+		 *
+		 * @param value the value.
+		 * @param out the stream to write the value to.
+		 * @throws IOException if the value can't be encoded, in which case it is serialized with Yggdrasil instead.
+		 */
+		void encode(T value, DataOutputStream out) throws IOException;
+
+		/**
+		 * Decodes a value encoded by {@link #encode(Object, DataOutputStream)}.
+		 * Will only be called from Bukkit's main thread, unless the type
+		 * {@link ch.njol.skript.classes.ClassInfo#canDeserializeOffThread() can be deserialized on any thread}.
+		 *
+		 * @param in the stream containing exactly the encoded value.
+		 * @return the value.
+		 * @throws IOException if the data is invalid.
+		 */
+		T decode(DataInputStream in) throws IOException;
+
+	}
+
+	private static final class Registration<T> {
+
+		final Class<T> type;
+		final String encodedType;
+		final Codec<T> codec;
+
+		Registration(Class<T> type, String encodedType, Codec<T> codec) {
+			this.type = type;
+			this.encodedType = encodedType;
+			this.codec = codec;
+		}
+
+	}
+
+	/**
+	 * The newest codec of every code name.
+	 */
+	private final Map<String, Registration<?>> encoders = new HashMap<>();
+
+	/**
+	 * All codecs by encoded type, i.e. code name and version.
+	 */
+	private final Map<String, Registration<?>> decoders = new HashMap<>();
+
+	/**
+	 * Registers a codec. Must be called before variables are loaded.
+	 *
+	 * @param codeName the code name of the type's {@link ch.njol.skript.classes.ClassInfo}.
+	 * @param type the class of the values, values of other classes are serialized with Yggdrasil.
+	 * @param version the version of the encoding, at least 1.
+	 *                Values are encoded with the highest version registered for the code name.
+	 * @param codec the codec.
+	 */
+	public <T> void register(String codeName, Class<T> type, int version, Codec<T> codec) {
+		if (version < 1)
+			throw new IllegalArgumentException("Codec versions start at 1");
+		String encodedType = codeName + VERSION_SEPARATOR + version;
+		if (decoders.containsKey(encodedType))
+			throw new IllegalArgumentException("A codec for " + encodedType + " is already registered");
+
+		Registration<T> registration = new Registration<>(type, encodedType, codec);
+		decoders.put(encodedType, registration);
+		Registration<?> newest = encoders.get(codeName);
+		if (newest == null || getVersion(newest.encodedType) < version)
+			encoders.put(codeName, registration);
+	}
+
+	/**
+	 * Encodes the given value with the newest codec of its type.
+	 *
+	 * @param codeName the code name of the value's type.
+	 * @param value the value.
+	 * @return the encoded value, or {@code null} if there is no codec for the value.
+	 */
+	public SerializedVariable.@Nullable Value encode(String codeName, Object value) {
+		Registration<?> registration = encoders.get(codeName);
+		if (registration == null || !registration.type.isInstance(value))
+			return null;
+		return encode(registration, value);
+	}
+
+	private static <T> SerializedVariable.@Nullable Value encode(Registration<T> registration, Object value) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			registration.codec.encode(registration.type.cast(value), out);
+		} catch (IOException | IllegalArgumentException e) {
+			// Fall back to Yggdrasil, e.g. for a location in an unloaded world
+			return null;
+		}
+		return new SerializedVariable.Value(registration.encodedType, bytes.toByteArray());
+	}
+
+	/**
+	 * Decodes the given encoded value.
+	 *
+	 * @param type the {@link #isEncoded(String) encoded} type of the value.
+	 * @param data the encoded value.
+	 * @return the value, or {@code null} if there is no codec for the type or the data is invalid.
+	 */
+	@Nullable
+	public Object decode(String type, byte[] data) {
+		Registration<?> registration = decoders.get(type);
+		if (registration == null)
+			return null;
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			Object value = registration.codec.decode(in);
+			if (in.available() != 0)
+				throw new StreamCorruptedException(in.available() + " bytes left after decoding " + type);
+			return value;
+		} catch (IOException | ArithmeticException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param type the type of a serialized value, see {@link SerializedVariable.Value#type}.
+	 * @return whether the value was encoded by a codec, rather than serialized with Yggdrasil.
+	 */
+	public static boolean isEncoded(String type) {
+		return type.indexOf(VERSION_SEPARATOR) != -1;
+	}
+
+	/**
+	 * @param type the type of a serialized value, see {@link SerializedVariable.Value#type}.
+	 * @return the code name of the value's type.
+	 */
+	public static String getCodeName(String type) {
+		int separator = type.indexOf(VERSION_SEPARATOR);
+		return separator == -1 ? type : type.substring(0, separator);
+	}
+
+	private static int getVersion(String encodedType) {
+		return Integer.parseInt(encodedType.substring(encodedType.indexOf(VERSION_SEPARATOR) + 1));
+	}
+
+	/**
+	 * Writes a signed integer in 1 to 10 bytes, using fewer bytes the closer it is to zero.
+	 */
+	static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		long zigZag = (value << 1) ^ (value >> 63);
+		while ((zigZag & ~0x7FL) != 0) {
+			out.writeByte((int) (zigZag & 0x7F) | 0x80);
+			zigZag >>>= 7;
+		}
+		out.writeByte((int) zigZag);
+	}
+
+	/**
+	 * Reads an integer written by {@link #writeVarLong(DataOutputStream, long)}.
+	 */
+	static long readVarLong(DataInputStream in) throws IOException {
+		long zigZag = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			zigZag |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return (zigZag >>> 1) ^ -(zigZag & 1);
+		}
+		throw new StreamCorruptedException("Variable-length integer is too long");
+	}
+
+	private static void writeUUID(DataOutputStream out, UUID uuid) throws IOException {
+		out.writeLong(uuid.getMostSignificantBits());
+		out.writeLong(uuid.getLeastSignificantBits());
+	}
+
+	private static UUID readUUID(DataInputStream in) throws IOException {
+		return new UUID(in.readLong(), in.readLong());
+	}
+
+	/**
+	 * @return a registry with the codecs of Skript's most commonly stored types.
+	 */
+	static VariableCodecs withDefaultCodecs() {
+		VariableCodecs codecs = new VariableCodecs();
+		codecs.register("long", Long.class, 1, new Codec<>() {
+			@Override
+			public void encode(Long value, DataOutputStream out) throws IOException {
+				writeVarLong(out, value);
+			}
+
+			@Override
+			public Long decode(DataInputStream in) throws IOException {
+				return readVarLong(in);
+			}
+		});
+		codecs.register("integer", Integer.class, 1, new Codec<>() {
+			@Override
+			public void encode(Integer value, DataOutputStream out) throws IOException {
+				writeVarLong(out, value);
+			}
+
+			@Override
+			public Integer decode(DataInputStream in) throws IOException {
+				return Math.toIntExact(readVarLong(in));
+			}
+		});
+		codecs.register("double", Double.class, 1, new Codec<>() {
+			@Override
+			public void encode(Double value, DataOutputStream out) throws IOException {
+				out.writeDouble(value);
+			}
+
+			@Override
+			public Double decode(DataInputStream in) throws IOException {
+				return in.readDouble();
+			}
+		});
+		codecs.register("boolean", Boolean.class, 1, new Codec<>() {
+			@Override
+			public void encode(Boolean value, DataOutputStream out) throws IOException {
+				out.writeBoolean(value);
+			}
+
+			@Override
+			public Boolean decode(DataInputStream in) throws IOException {
+				return in.readBoolean();
+			}
+		});
+		codecs.register("string", String.class, 1, new Codec<>() {
+			@Override
+			public void encode(String value, DataOutputStream out) throws IOException {
+				// The data has a known length, so the string's length doesn't have to be stored
+				out.write(value.getBytes(StandardCharsets.UTF_8));
+			}
+
+			@Override
+			public String decode(DataInputStream in) throws IOException {
+				return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+			}
+		});
+		codecs.register("uuid", UUID.class, 1, new Codec<>() {
+			@Override
+			public void encode(UUID value, DataOutputStream out) throws IOException {
+				writeUUID(out, value);
+			}
+
+			@Override
+			public UUID decode(DataInputStream in) throws IOException {
+				return readUUID(in);
+			}
+		});
+		codecs.register("timespan", Timespan.class, 1, new Codec<>() {
+			@Override
+			public void encode(Timespan value, DataOutputStream out) throws IOException {
+				writeVarLong(out, value.getAs(Timespan.TimePeriod.MILLISECOND));
+			}
+
+			@Override
+			public Timespan decode(DataInputStream in) throws IOException {
+				return new Timespan(readVarLong(in));
+			}
+		});
+		codecs.register("date", Date.class, 1, new Codec<>() {
+			@Override
+			public void encode(Date value, DataOutputStream out) throws IOException {
+				writeVarLong(out, value.getTime());
+			}
+
+			@Override
+			public Date decode(DataInputStream in) throws IOException {
+				return new Date(readVarLong(in));
+			}
+		});
+		codecs.register("location", Location.class, 1, new Codec<>() {
+			@Override
+			public void encode(Location value, DataOutputStream out) throws IOException {
+				World world = value.getWorld(); // throws an IllegalArgumentException if the world was unloaded
+				out.writeBoolean(world != null);
+				if (world != null)
+					out.writeUTF(world.getName());
+				out.writeDouble(value.getX());
+				out.writeDouble(value.getY());
+				out.writeDouble(value.getZ());
+				out.writeFloat(value.getYaw());
+				out.writeFloat(value.getPitch());
+			}
+
+			@Override
+			public Location decode(DataInputStream in) throws IOException {
+				World world = null;
+				if (in.readBoolean()) {
+					String name = in.readUTF();
+					world = Bukkit.getWorld(name);
+					if (world == null)
+						throw new StreamCorruptedException("Missing world " + name);
+				}
+				return new Location(world, in.readDouble(), in.readDouble(), in.readDouble(), in.readFloat(), in.readFloat());
+			}
+		});
+		codecs.register("offlineplayer", OfflinePlayer.class, 1, new Codec<>() {
+			@Override
+			public void encode(OfflinePlayer value, DataOutputStream out) throws IOException {
+				writeUUID(out, value.getUniqueId());
+			}
+
+			@Override
+			public OfflinePlayer decode(DataInputStream in) throws IOException {
+				return Bukkit.getOfflinePlayer(readUUID(in));
+			}
+		});
+		return codecs;
+	}
+
+}
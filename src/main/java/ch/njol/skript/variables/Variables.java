@@ -29,10 +29,12 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.UnmodifiableView;
 import org.skriptlang.skript.lang.converter.Converters;
+import org.skriptlang.skript.util.IndexTrackingTreeMap;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -42,15 +44,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
 
 /**
  * Handles all things related to variables.
@@ -70,6 +68,17 @@ public class Variables {
 	 */
 	public static final Yggdrasil yggdrasil = new Yggdrasil(YGGDRASIL_VERSION);
 
+	/**
+	 * The compact encodings of common types, which are used instead of {@link #yggdrasil}
+	 * if {@link #setCompactEncoding(boolean) enabled}. Values encoded by them are always loaded.
+	 */
+	public static final VariableCodecs codecs = VariableCodecs.withDefaultCodecs();
+
+	/**
+	 * Whether values are saved with {@link #codecs} if possible.
+	 */
+	private static volatile boolean compactEncoding = false;
+
 	/**
 	 * Whether variable names are case-sensitive.
 	 */
@@ -86,6 +95,7 @@ public class Variables {
 	// Register some things with Yggdrasil
 	static {
 		registerStorage(FlatFileStorage.class, "csv", "file", "flatfile");
+		registerStorage(JournalStorage.class, "journal");
 		registerStorage(SQLiteStorage.class, "sqlite");
 		registerStorage(MySQLStorage.class, "mysql");
 		yggdrasil.registerSingleClass(Kleenean.class, "Kleenean");
@@ -161,8 +171,7 @@ public class Variables {
 	 * @return whether the loading was successful.
 	 */
 	public static boolean load() {
-		assert variables.treeMap.isEmpty();
-		assert variables.hashMap.isEmpty();
+		assert numVariables() == 0;
 		assert STORAGES.isEmpty();
 
 		Config config = SkriptConfig.getConfig();
@@ -179,6 +188,8 @@ public class Variables {
 
 		// reports once per second how many variables were loaded. Useful to make clear that Skript is still doing something if it's loading many variables
 		Thread loadingLoggerThread = new Thread(() -> {
+			int lastLoaded = 0;
+			long lastReport = System.nanoTime();
 			while (true) {
 				try {
 					Thread.sleep(Skript.logNormal() ? 1000 : 5000); // low verbosity won't disable these messages, but makes them more rare
@@ -186,10 +197,15 @@ public class Variables {
 
 				synchronized (TEMP_VARIABLES) {
 					Map<String, NonNullPair<Object, VariablesStorage>> tvs = TEMP_VARIABLES.get();
-					if (tvs != null)
-						Skript.info("Loaded " + tvs.size() + " variables so far...");
-					else
+					if (tvs == null)
 						break; // variables loaded, exit thread
+
+					int loaded = tvs.size();
+					long now = System.nanoTime();
+					long rate = Math.round((loaded - lastLoaded) / ((now - lastReport) / 1_000_000_000.0));
+					Skript.info("Loaded " + loaded + " variables so far (" + rate + " per second)...");
+					lastLoaded = loaded;
+					lastReport = now;
 				}
 			}
 		});
@@ -286,6 +302,7 @@ public class Variables {
 
 			// make sure to put the loaded variables into the variables map
 			int notStoredVariablesCount = onStoragesLoaded();
+			pagedStorages = STORAGES.stream().anyMatch(VariablesStorage::isPaged);
 			if (notStoredVariablesCount != 0) {
 				Skript.warning(notStoredVariablesCount + " variables were possibly discarded due to not belonging to any database " +
 						"(SQL databases keep such variables and will continue to generate this warning, " +
@@ -333,15 +350,22 @@ public class Variables {
 	}
 
 	/**
-	 * A lock for reading and writing variables.
+	 * The amount of {@link VariablesShard}s global variables are partitioned into,
+	 * must be a power of two.
 	 */
-	static final ReadWriteLock variablesLock = new ReentrantReadWriteLock(true);
+	static final int SHARD_COUNT = 16;
 
 	/**
-	 * The {@link VariablesMap} storing global variables,
-	 * must be locked with {@link #variablesLock}.
+	 * The shards storing global variables, partitioned by the first segment of the variable name.
+	 *
+	 * @see #getShard(String)
 	 */
-	static final VariablesMap variables = new VariablesMap();
+	private static final VariablesShard[] SHARDS = new VariablesShard[SHARD_COUNT];
+
+	static {
+		for (int i = 0; i < SHARD_COUNT; i++)
+			SHARDS[i] = new VariablesShard(Variables::saveVariableChange);
+	}
 
 	/**
 	 * A map storing all local variables,
@@ -350,33 +374,52 @@ public class Variables {
 	private static final Map<Event, VariablesMap> localVariables = new ConcurrentHashMap<>();
 
 	/**
-	 * Gets the {@link TreeMap} of all global variables.
-	 * <p>
-	 * Remember to lock with {@link #getReadLock()} and to not make any changes!
+	 * Gets the shard the given global variable belongs to.
+	 *
+	 * @param name the variable name, possibly a list variable.
+	 * @return the shard.
 	 */
-	static TreeMap<String, Object> getVariables() {
-		return variables.treeMap;
+	static VariablesShard getShard(String name) {
+		return SHARDS[VariablesShard.indexOf(name, SHARD_COUNT)];
 	}
 
 	/**
-	 * Gets the {@link Map} of all global variables.
+	 * Sets whether global variables are stored in memory-compact maps,
+	 * which store each value only once and intern the segments of variable names,
+	 * at the cost of slightly slower lookups of non-list variables.
 	 * <p>
-	 * This map cannot be modified.
-	 * Remember to lock with {@link #getReadLock()}!
+	 * This can only be changed before any global variables are loaded.
+	 *
+	 * @param compact whether to use compact maps.
+	 * @return whether the storage mode could be changed.
 	 */
-	static Map<String, Object> getVariablesHashMap() {
-		return Collections.unmodifiableMap(variables.hashMap);
+	public static boolean setCompactVariables(boolean compact) {
+		boolean changed = true;
+		for (VariablesShard shard : SHARDS)
+			changed &= shard.setCompact(compact);
+		return changed;
 	}
 
 	/**
-	 * Gets the lock for reading variables.
+	 * Sets whether values of common types are saved with the compact encodings of {@link #codecs},
+	 * instead of with {@link #yggdrasil}. Values saved either way can always be loaded,
+	 * but older versions of Skript can't load compactly encoded values.
 	 *
-	 * @return the lock.
+	 * @param compact whether to use compact encodings.
+	 */
+	public static void setCompactEncoding(boolean compact) {
+		compactEncoding = compact;
+	}
+
+	/**
+	 * Gets all shards of global variables.
+	 * <p>
+	 * Remember to lock a shard's {@link VariablesShard#lock} before reading it, and to not make any changes!
 	 *
-	 * @see #variablesLock
+	 * @return the shards.
 	 */
-	static Lock getReadLock() {
-		return variablesLock.readLock();
+	static @UnmodifiableView List<VariablesShard> getShards() {
+		return Collections.unmodifiableList(Arrays.asList(SHARDS));
 	}
 
 	/**
@@ -440,6 +483,58 @@ public class Variables {
 		Variables.removeLocals(user);
 	}
 
+	/**
+	 * Gets the slot of a local variable with a constant name in the trigger or function that is being parsed,
+	 * which can be used to access the variable with {@link #getLocalVariable(LocalVariableSlot, Event)}
+	 * and {@link #setLocalVariable(LocalVariableSlot, Object, Event)} without building and looking up its name each time.
+	 * Accessing the variable by its name still works as well.
+	 *
+	 * @param name the name of the local variable, without the local variable token.
+	 * @return the slot of the variable, or {@code null} if it is a list variable or an index of one,
+	 * which can only be accessed by their names, or if no trigger or function is being parsed.
+	 */
+	public static @Nullable LocalVariableSlot getLocalSlot(String name) {
+		if (name.contains(Variable.SEPARATOR))
+			return null;
+		LocalVariableSlots slots = LocalVariableSlots.current();
+		if (slots == null)
+			return null;
+		if (caseInsensitiveVariables)
+			name = name.toLowerCase(Locale.ENGLISH);
+		return slots.register(name);
+	}
+
+	/**
+	 * Returns the value of a local variable by its slot.
+	 * <p>
+	 * <b>Do not modify the returned value!</b>
+	 *
+	 * @param slot the slot of the variable, see {@link #getLocalSlot(String)}.
+	 * @param event the event the local variable resides in.
+	 * @return the value of the variable, or {@code null} if the variable is not set.
+	 * @see #getVariable(String, Event, boolean)
+	 */
+	public static @Nullable Object getLocalVariable(LocalVariableSlot slot, Event event) {
+		VariablesMap map = localVariables.get(event);
+		if (map == null)
+			return null;
+		return map.getSlot(slot);
+	}
+
+	/**
+	 * Sets a local variable by its slot.
+	 *
+	 * @param slot the slot of the variable, see {@link #getLocalSlot(String)}.
+	 * @param value the variable's value, {@code null} to delete the variable.
+	 * @param event the event the local variable resides in.
+	 * @see #setVariable(String, Object, Event, boolean)
+	 */
+	public static void setLocalVariable(LocalVariableSlot slot, @Nullable Object value, Event event) {
+		if (value != null)
+			value = convertSerializeAs(value);
+		localVariables.computeIfAbsent(event, e -> VariablesMap.forLocals(slot.slots)).setSlot(slot, value);
+	}
+
 	/**
 	 * Returns the internal value of the requested variable.
 	 * <p>
@@ -472,27 +567,10 @@ public class Variables {
 
 			return map.getVariable(n);
 		} else {
-			try {
-				variablesLock.readLock().lock();
-				// Prevent race conditions from returning variables with incorrect values
-				if (!changeQueue.isEmpty()) {
-					// Gets the last VariableChange made
-					VariableChange variableChange = changeQueue.stream()
-							.filter(change -> change.name.equals(n))
-							.reduce((first, second) -> second)
-									// Gets last value, as iteration is from head to tail,
-									//  and adding occurs at the tail (and we want the most recently added)
-							.orElse(null);
-
-					if (variableChange != null) {
-						return variableChange.value;
-					}
-				}
-
-				return variables.getVariable(n);
-			} finally {
-				variablesLock.readLock().unlock();
-			}
+			PagedVariables pagedVariables = getPagedVariables(n);
+			if (pagedVariables != null)
+				pagedVariables.pageIn(n);
+			return getShard(n).getVariable(n);
 		}
 	}
 
@@ -514,24 +592,30 @@ public class Variables {
 		if (val == null)
 			return new EmptyIterator<>();
 		assert val instanceof TreeMap;
-		// temporary list to prevent CMEs
-		@SuppressWarnings("unchecked")
-		Iterator<String> keys = new ArrayList<>(((Map<String, Object>) val).keySet()).iterator();
+		//noinspection unchecked
+		Iterator<Entry<String, Object>> entries = listIterator(name, (Map<String, Object>) val, local);
 		return new Iterator<>() {
 			@Nullable
 			private String key;
 			@Nullable
 			private Object next = null;
+			@Nullable
+			private String lastKey;
 
 			@Override
 			public boolean hasNext() {
 				if (next != null)
 					return true;
-				while (keys.hasNext()) {
-					key = keys.next();
+				while (entries.hasNext()) {
+					Entry<String, Object> entry = entries.next();
+					key = entry.getKey();
 					if (key != null) {
-						next = Variable.convertIfOldPlayer(subName + key, local, event, Variables.getVariable(subName + key, event, local));
-						if (next != null && !(next instanceof TreeMap))
+						Object value = entry.getValue();
+						// The value of a sublist is stored at its null index
+						if (value instanceof Map<?, ?> sublist)
+							value = sublist.get(null);
+						next = Variable.convertIfOldPlayer(subName, key, local, event, value);
+						if (next != null)
 							return true;
 					}
 				}
@@ -544,19 +628,48 @@ public class Variables {
 				if (!hasNext())
 					throw new NoSuchElementException();
 				Pair<String, Object> n = new Pair<>(key, next);
+				lastKey = key;
 				next = null;
 				return n;
 			}
 
 			@Override
 			public void remove() {
-				if (key == null)
+				if (lastKey == null)
 					throw new IllegalStateException();
-				Variables.deleteVariable(key, event, local);
+				Variables.deleteVariable(subName + lastKey, event, local);
+				lastKey = null;
 			}
 		};
 	}
 
+	/**
+	 * Returns an iterator over the entries of a list variable,
+	 * as returned by {@link #getVariable(String, Event, boolean)} for a list variable.
+	 * <p>
+	 * The list can safely be modified while iterating.
+	 * Lists are walked directly, and the remaining entries are only copied if the list is changed while iterating,
+	 * so the returned entries must not be kept after the next call to {@link Iterator#next()}.
+	 * Global lists can be changed by other threads, so they are walked in batches while the list's shard is locked.
+	 * Values of entries may be sublists, whose own value is stored at the {@code null} index.
+	 *
+	 * @param name the name of the list variable, ending in {@code ::*}.
+	 * @param list the list variable.
+	 * @param local whether the list is a local variable.
+	 * @return an iterator over the entries of the list variable.
+	 */
+	public static Iterator<Entry<String, Object>> listIterator(String name, Map<String, Object> list, boolean local) {
+		if (!(list instanceof IndexTrackingTreeMap<?>)) {
+			// temporary list to prevent CMEs
+			return new ArrayList<>(list.entrySet()).iterator();
+		}
+		//noinspection unchecked
+		IndexTrackingTreeMap<Object> trackingMap = (IndexTrackingTreeMap<Object>) list;
+		if (local)
+			return trackingMap.snapshotIterator();
+		return getShard(caseInsensitiveVariables ? name.toLowerCase(Locale.ENGLISH) : name).listIterator(trackingMap);
+	}
+
 	/**
 	 * Deletes a variable.
 	 *
@@ -586,17 +699,9 @@ public class Variables {
 			name = name.toLowerCase(Locale.ENGLISH);
 		}
 
-		// Check if conversion is needed due to ClassInfo#getSerializeAs
 		if (value != null) {
 			assert !name.endsWith("::*");
-
-			ClassInfo<?> ci = Classes.getSuperClassInfo(value.getClass());
-			Class<?> sas = ci.getSerializeAs();
-
-			if (sas != null) {
-				value = Converters.convert(value, sas);
-				assert value != null : ci + ", " + sas;
-			}
+			value = convertSerializeAs(value);
 		}
 
 		if (local) {
@@ -610,6 +715,20 @@ public class Variables {
 		}
 	}
 
+	/**
+	 * Converts a value if needed due to {@link ClassInfo#getSerializeAs()}.
+	 */
+	private static Object convertSerializeAs(Object value) {
+		ClassInfo<?> ci = Classes.getSuperClassInfo(value.getClass());
+		Class<?> sas = ci.getSerializeAs();
+
+		if (sas != null) {
+			value = Converters.convert(value, sas);
+			assert value != null : ci + ", " + sas;
+		}
+		return value;
+	}
+
 	/**
 	 * Sets the given global variable name to the given value.
 	 *
@@ -617,84 +736,59 @@ public class Variables {
 	 * @param value the value, or {@code null} to delete the variable.
 	 */
 	static void setVariable(String name, @Nullable Object value) {
-		if (variablesLock.writeLock().tryLock()) {
-			try {
-				if (!changeQueue.isEmpty()) { // Process older, queued changes if available
-					processChangeQueue();
-				}
-				// Process and save requested change
-				variables.setVariable(name, value);
-				saveVariableChange(name, value);
-			} finally {
-				variablesLock.writeLock().unlock();
-			}
-		} else {
-			// Couldn't acquire variable write lock, queue the change (blocking here is a bad idea)
-			queueVariableChange(name, value);
-		}
+		PagedVariables pagedVariables = getPagedVariables(name);
+		if (pagedVariables != null)
+			pagedVariables.changing(name);
+		getShard(name).setVariable(name, value);
 	}
 
 	/**
-	 * Changes to variables that have not yet been performed.
+	 * Sets the given global variable in memory only, without saving the change,
+	 * e.g. because it was loaded from or is still stored in a storage.
+	 *
+	 * @param name the variable name.
+	 * @param value the value, or {@code null} to delete the variable.
 	 */
-	static final Queue<VariableChange> changeQueue = new ConcurrentLinkedQueue<>();
+	static void setVariableInMemory(String name, @Nullable Object value) {
+		VariablesShard shard = getShard(name);
+		shard.lock.writeLock().lock();
+		try {
+			shard.map.setVariable(name, value);
+		} finally {
+			shard.lock.writeLock().unlock();
+		}
+	}
 
 	/**
-	 * A variable change name-value pair.
+	 * Whether any storage is {@link VariablesStorage#isPaged() paged}.
 	 */
-	private static class VariableChange {
-
-		/**
-		 * The name of the changed variable.
-		 */
-		public final String name;
-
-		/**
-		 * The (possibly {@code null}) value of the variable change.
-		 */
-		@Nullable
-		public final Object value;
-
-		/**
-		 * Creates a new {@link VariableChange} with the given name and value.
-		 *
-		 * @param name the variable name.
-		 * @param value the new variable value.
-		 */
-		public VariableChange(String name, @Nullable Object value) {
-			this.name = name;
-			this.value = value;
-		}
-
-	}
+	private static volatile boolean pagedStorages = false;
 
 	/**
-	 * Queues a variable change. Only to be called when direct write is not
-	 * possible, but thread cannot be allowed to block.
+	 * Gets the loaded variables of the paged storage the given global variable is stored in.
 	 *
-	 * @param name the variable name.
-	 * @param value the new value.
+	 * @param name the variable name, possibly a list variable.
+	 * @return the loaded variables of the storage,
+	 * or {@code null} if the variable isn't stored in a paged storage.
 	 */
-	private static void queueVariableChange(String name, @Nullable Object value) {
-		changeQueue.add(new VariableChange(name, value));
+	@Nullable
+	private static PagedVariables getPagedVariables(String name) {
+		if (!pagedStorages || name.startsWith(Variable.EPHEMERAL_VARIABLE_TOKEN))
+			return null;
+		for (VariablesStorage variablesStorage : STORAGES) {
+			if (variablesStorage.accept(name))
+				return variablesStorage.getPagedVariables();
+		}
+		return null;
 	}
 
 	/**
-	 * Processes all entries in variable change queue.
-	 * <p>
-	 * Note that caller must acquire write lock before calling this,
-	 * then release it.
-	 */
-	static void processChangeQueue() {
-		while (true) { // Run as long as we still have changes
-			VariableChange change = changeQueue.poll();
-			if (change == null)
-				break;
-
-			// Set and save variable
-			variables.setVariable(change.name, change.value);
-			saveVariableChange(change.name, change.value);
-		}
+	 * Processes all changes to global variables that have not yet been performed,
+	 * for every shard whose write lock is available without waiting.
+	 */
+	static void processChangeQueues() {
+		for (VariablesShard shard : SHARDS)
+			shard.tryProcessChangeQueue();
 	}
 
 	/**
@@ -732,61 +826,34 @@ public class Variables {
 	 * when calling this!
 	 *
 	 * @param name the variable name.
-	 * @param value the variable value.
+	 * @param value the variable value, or {@code null} if it was deleted from the storage.
+	 *              While storages are loading, a deletion only removes a value that was loaded from the same storage,
+	 *              e.g. an earlier record of a journal.
 	 * @param source the storage the variable came from.
 	 * @return Whether the variable was stored somewhere. Not valid while storages are loading.
 	 */
 	static boolean variableLoaded(String name, @Nullable Object value, VariablesStorage source) {
 		assert Bukkit.isPrimaryThread(); // required by serialisation
 
-		if (value == null)
-			return false;
-
 		synchronized (TEMP_VARIABLES) {
 			Map<String, NonNullPair<Object, VariablesStorage>> tvs = TEMP_VARIABLES.get();
 			if (tvs != null) {
-				NonNullPair<Object, VariablesStorage> existingVariable = tvs.get(name);
-
-				// Check for conflicts with other storages
-				conflict: if (existingVariable != null) {
-					VariablesStorage existingVariableStorage = existingVariable.getSecond();
-
-					if (existingVariableStorage == source) {
-						// No conflict if from the same storage
-						break conflict;
-					}
-
-					// Variable already loaded from another database, conflict
-					loadConflicts++;
-
-					// Warn if needed
-					if (loadConflicts <= MAX_CONFLICT_WARNINGS) {
-						Skript.warning("The variable {" + name + "} was loaded twice from different databases (" +
-							existingVariableStorage.getUserConfigurationName() + " and " + source.getUserConfigurationName() +
-							"), only the one from " + source.getUserConfigurationName() + " will be kept.");
-					} else if (loadConflicts == MAX_CONFLICT_WARNINGS + 1) {
-						Skript.warning("[!] More than " + MAX_CONFLICT_WARNINGS +
-							" variables were loaded more than once from different databases, " +
-							"no more warnings will be printed.");
-					}
-
-					// Remove the value from the existing variable's storage
-					existingVariableStorage.save(name, null, null);
+				if (value != null) {
+					temporaryVariableLoaded(tvs, name, value, source);
+				} else {
+					NonNullPair<Object, VariablesStorage> existingVariable = tvs.get(name);
+					if (existingVariable != null && existingVariable.getSecond() == source)
+						tvs.remove(name);
 				}
-
-				// Add to the loaded variables
-				tvs.put(name, new NonNullPair<>(value, source));
-
 				return false;
 			}
 		}
 
-		variablesLock.writeLock().lock();
-		try {
-			variables.setVariable(name, value);
-		} finally {
-			variablesLock.writeLock().unlock();
-		}
+		setVariableInMemory(name, value);
+
+		// Deleted in the source, e.g. by another server sharing the database
+		if (value == null)
+			return false;
 
 		// Move the variable to the right storage
 		try {
@@ -816,6 +883,71 @@ public class Variables {
 		return false;
 	}
 
+	/**
+	 * Sets multiple variables loaded by the same storage at once,
+	 * see {@link #variableLoaded(String, Object, VariablesStorage)}.
+	 * <p>
+	 * While storages are being loaded, all variables are added under a single lock,
+	 * which is a lot faster than loading them one at a time.
+	 *
+	 * @param variables the names and values of the variables, in the order they were loaded.
+	 * @param source the storage the variables came from.
+	 */
+	static void variablesLoaded(Map<String, Object> variables, VariablesStorage source) {
+		assert Bukkit.isPrimaryThread(); // required by serialisation
+
+		synchronized (TEMP_VARIABLES) {
+			Map<String, NonNullPair<Object, VariablesStorage>> tvs = TEMP_VARIABLES.get();
+			if (tvs != null) {
+				for (Entry<String, Object> variable : variables.entrySet())
+					temporaryVariableLoaded(tvs, variable.getKey(), variable.getValue(), source);
+				return;
+			}
+		}
+
+		for (Entry<String, Object> variable : variables.entrySet())
+			variableLoaded(variable.getKey(), variable.getValue(), source);
+	}
+
+	/**
+	 * Adds a loaded variable to the {@link #TEMP_VARIABLES}, resolving conflicts between storages.
+	 * Must be called while synchronized on {@link #TEMP_VARIABLES}.
+	 */
+	private static void temporaryVariableLoaded(Map<String, NonNullPair<Object, VariablesStorage>> tvs,
+												String name, Object value, VariablesStorage source) {
+		NonNullPair<Object, VariablesStorage> existingVariable = tvs.get(name);
+
+		// Check for conflicts with other storages
+		conflict: if (existingVariable != null) {
+			VariablesStorage existingVariableStorage = existingVariable.getSecond();
+
+			if (existingVariableStorage == source) {
+				// No conflict if from the same storage
+				break conflict;
+			}
+
+			// Variable already loaded from another database, conflict
+			loadConflicts++;
+
+			// Warn if needed
+			if (loadConflicts <= MAX_CONFLICT_WARNINGS) {
+				Skript.warning("The variable {" + name + "} was loaded twice from different databases (" +
+					existingVariableStorage.getUserConfigurationName() + " and " + source.getUserConfigurationName() +
+					"), only the one from " + source.getUserConfigurationName() + " will be kept.");
+			} else if (loadConflicts == MAX_CONFLICT_WARNINGS + 1) {
+				Skript.warning("[!] More than " + MAX_CONFLICT_WARNINGS +
+					" variables were loaded more than once from different databases, " +
+					"no more warnings will be printed.");
+			}
+
+			// Remove the value from the existing variable's storage
+			existingVariableStorage.save(name, null, null);
+		}
+
+		// Add to the loaded variables
+		tvs.put(name, new NonNullPair<>(value, source));
+	}
+
 	/**
 	 * Stores loaded variables into the variables map
 	 * and the appropriate databases.
@@ -835,24 +967,19 @@ public class Variables {
 			TEMP_VARIABLES.set(null);
 			assert tvs != null;
 
-			variablesLock.writeLock().lock();
-			try {
-				// Calculate the amount of variables that don't have a storage
-				int unstoredVariables = 0;
-				for (Entry<String, NonNullPair<Object, VariablesStorage>> tv : tvs.entrySet()) {
-					if (!variableLoaded(tv.getKey(), tv.getValue().getFirst(), tv.getValue().getSecond()))
-						unstoredVariables++;
-				}
+			// Calculate the amount of variables that don't have a storage
+			int unstoredVariables = 0;
+			for (Entry<String, NonNullPair<Object, VariablesStorage>> tv : tvs.entrySet()) {
+				if (!variableLoaded(tv.getKey(), tv.getValue().getFirst(), tv.getValue().getSecond()))
+					unstoredVariables++;
+			}
 
-				for (VariablesStorage variablesStorage : STORAGES)
-					variablesStorage.allLoaded();
+			for (VariablesStorage variablesStorage : STORAGES)
+				variablesStorage.allLoaded();
 
-				Skript.debug("Variables set. Queue size = " + saveQueue.size());
+			Skript.debug("Variables set. Queue size = " + saveQueue.size());
 
-				return unstoredVariables;
-			} finally {
-				variablesLock.writeLock().unlock();
-			}
+			return unstoredVariables;
 		}
 	}
 
@@ -891,16 +1018,96 @@ public class Variables {
 	public static SerializedVariable.@Nullable Value serialize(@Nullable Object value) {
 		assert Bukkit.isPrimaryThread();
 
+		if (compactEncoding && value != null) {
+			SerializedVariable.Value encoded = codecs.encode(Classes.getSuperClassInfo(value.getClass()).getCodeName(), value);
+			if (encoded != null)
+				return encoded;
+		}
 		return Classes.serialize(value);
 	}
 
+	/**
+	 * Deserializes the given value.
+	 * <p>
+	 * Must be called from Bukkit's main thread,
+	 * unless the value's type {@link ClassInfo#canDeserializeOffThread() can be deserialized on any thread}.
+	 *
+	 * @param type the type of the serialized value, see {@link SerializedVariable.Value#type}.
+	 * @param data the serialized value.
+	 * @return the deserialized value, or {@code null} if it could not be deserialized.
+	 */
+	@Nullable
+	public static Object deserialize(String type, byte[] data) {
+		if (VariableCodecs.isEncoded(type))
+			return codecs.decode(type, data);
+		return Classes.deserialize(type, data);
+	}
+
+	/**
+	 * Gets the class info of a serialized value's type.
+	 *
+	 * @param type the type of the serialized value, see {@link SerializedVariable.Value#type}.
+	 * @return the class info, or {@code null} if the type is unknown.
+	 */
+	@Nullable
+	static ClassInfo<?> getClassInfo(@Nullable String type) {
+		return type == null ? null : Classes.getClassInfoNoError(VariableCodecs.getCodeName(type));
+	}
+
+	/**
+	 * Deserializes the given value, if its type {@link ClassInfo#canDeserializeOffThread() can be deserialized on any thread}.
+	 * <p>
+	 * May be called from any thread.
+	 *
+	 * @param type the type of the serialized value, see {@link SerializedVariable.Value#type}.
+	 * @param data the serialized value.
+	 * @return the deserialized value, or {@code null} if it has to be deserialized on Bukkit's main thread,
+	 * or could not be deserialized.
+	 */
+	@Nullable
+	static Object deserializeOffThread(String type, byte[] data) {
+		ClassInfo<?> classInfo = getClassInfo(type);
+		if (classInfo == null || !classInfo.canDeserializeOffThread())
+			return null;
+		return deserialize(type, data);
+	}
+
+	/**
+	 * Deserializes the given values. Values that {@link ClassInfo#canDeserializeOffThread() can be deserialized on any thread}
+	 * are deserialized in parallel, the others on the calling thread.
+	 * <p>
+	 * Must be called from Bukkit's main thread.
+	 *
+	 * @param values the serialized values.
+	 * @return the deserialized values in the same order,
+	 * containing {@code null} where a value could not be deserialized.
+	 */
+	static @Nullable Object[] deserialize(List<SerializedVariable.Value> values) {
+		assert Bukkit.isPrimaryThread();
+
+		Object[] deserialized = new Object[values.size()];
+		IntStream.range(0, values.size()).parallel().forEach(i -> {
+			SerializedVariable.Value value = values.get(i);
+			deserialized[i] = deserializeOffThread(value.type, value.data);
+		});
+
+		for (int i = 0; i < deserialized.length; i++) {
+			if (deserialized[i] != null)
+				continue;
+			ClassInfo<?> classInfo = getClassInfo(values.get(i).type);
+			if (classInfo != null && classInfo.getSerializer() != null && !classInfo.canDeserializeOffThread())
+				deserialized[i] = deserialize(values.get(i).type, values.get(i).data);
+		}
+		return deserialized;
+	}
+
 	/**
 	 * Serializes and adds the variable change to the {@link #saveQueue}.
 	 *
 	 * @param name the variable name.
 	 * @param value the value of the variable.
 	 */
-	private static void saveVariableChange(String name, @Nullable Object value) {
+	static void saveVariableChange(String name, @Nullable Object value) {
 		if (name.startsWith(Variable.EPHEMERAL_VARIABLE_TOKEN))
 			return;
 		saveQueue.add(serialize(name, value));
@@ -940,16 +1147,19 @@ public class Variables {
 	/**
 	 * Closes the variable systems:
 	 * <ul>
-	 *     <li>Process all changes left in the {@link #changeQueue}.</li>
+	 *     <li>Process all changes left in the change queue of every shard.</li>
 	 *     <li>Stops the {@link #saveThread}.</li>
 	 * </ul>
 	 */
 	public static void close() {
-		try { // Ensure that all changes are to save soon
-			variablesLock.writeLock().lock();
-			processChangeQueue();
-		} finally {
-			variablesLock.writeLock().unlock();
+		// Ensure that all changes are to save soon
+		for (VariablesShard shard : SHARDS) {
+			shard.lock.writeLock().lock();
+			try {
+				shard.processChangeQueue();
+			} finally {
+				shard.lock.writeLock().unlock();
+			}
 		}
 
 		// First, make sure all variables are saved
@@ -970,12 +1180,10 @@ public class Variables {
 	 * @return the amount of variables.
 	 */
 	public static int numVariables() {
-		try {
-			variablesLock.readLock().lock();
-			return variables.hashMap.size();
-		} finally {
-			variablesLock.readLock().unlock();
-		}
+		int size = 0;
+		for (VariablesShard shard : SHARDS)
+			size += shard.size();
+		return size;
 	}
 
 }
@@ -2,9 +2,12 @@ package ch.njol.skript.variables;
 
 import ch.njol.skript.lang.Variable;
 import ch.njol.util.StringUtils;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.jetbrains.annotations.Nullable;
 import org.skriptlang.skript.util.IndexTrackingTreeMap;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
@@ -156,8 +159,15 @@ final class VariablesMap {
 		return '0' <= c && c <= '9';
 	}
 
+	/**
+	 * Interns the name segments used as keys in compact maps,
+	 * so common list indices like {@code 1} or player UUIDs are only kept in memory once.
+	 */
+	private static final Interner<String> SEGMENT_INTERNER = Interners.newWeakInterner();
+
 	/**
 	 * The map that stores all non-list variables.
+	 * Always empty if this map is {@link #compact}.
 	 */
 	final HashMap<String, Object> hashMap = new HashMap<>();
 	/**
@@ -165,6 +175,81 @@ final class VariablesMap {
 	 */
 	final TreeMap<String, Object> treeMap = new TreeMap<>();
 
+	/**
+	 * Whether this map only stores variables in the {@link #treeMap}.
+	 * <p>
+	 * Compact maps store each value once and intern the segments of variable names,
+	 * at the cost of walking the tree to look up non-list variables.
+	 */
+	private final boolean compact;
+
+	/**
+	 * The amount of non-list variables in this map,
+	 * only used if this map is {@link #compact}.
+	 */
+	private int size;
+
+	/**
+	 * The values of the variables that have a slot of {@link #slotTable} below {@link #slotLimit}, by their slot.
+	 * These variables are stored neither in the {@link #hashMap} nor in the {@link #treeMap}.
+	 * Created when the first of them is set, and grown as needed.
+	 */
+	private Object @Nullable [] slots;
+
+	/**
+	 * The slots of the trigger or function this map stores variables in slots for, or null if it doesn't store variables in slots.
+	 */
+	private @Nullable LocalVariableSlots slotTable;
+
+	/**
+	 * The amount of slots of the {@link #slotTable} when this map started using it, or 0 if this map doesn't store variables in slots.
+	 * Variables that got a slot later are stored by their name, as they may have been set by their name before.
+	 */
+	private int slotLimit;
+
+	/**
+	 * Creates a new, non-compact map.
+	 */
+	VariablesMap() {
+		this(false);
+	}
+
+	/**
+	 * Creates a new map.
+	 *
+	 * @param compact whether to only store variables in the {@link #treeMap}.
+	 * @see #compact
+	 */
+	VariablesMap(boolean compact) {
+		this.compact = compact;
+	}
+
+	/**
+	 * Creates a new map for local variables, which stores the variables that have one of the given slots in an array.
+	 *
+	 * @param slotTable the slots of the trigger or function the map is created for.
+	 */
+	static VariablesMap forLocals(LocalVariableSlots slotTable) {
+		VariablesMap map = new VariablesMap();
+		map.slotTable = slotTable;
+		map.slotLimit = slotTable.count();
+		return map;
+	}
+
+	/**
+	 * @return whether this map only stores variables in the {@link #treeMap}.
+	 */
+	boolean isCompact() {
+		return compact;
+	}
+
+	/**
+	 * @return the amount of non-list variables in this map.
+	 */
+	int size() {
+		return compact ? size : hashMap.size();
+	}
+
 	/**
 	 * Returns the internal value of the requested variable.
 	 * <p>
@@ -178,9 +263,14 @@ final class VariablesMap {
 	@SuppressWarnings("unchecked")
 	@Nullable
 	Object getVariable(String name) {
+		int slot = slotOf(name);
+		if (slot != -1)
+			return getSlotValue(slot);
 		if (!name.endsWith("*")) {
 			// Not a list variable, quick access from the hash map
-			return hashMap.get(name);
+			if (!compact)
+				return hashMap.get(name);
+			return getFromTree(name);
 		} else {
 			// List variable, search the tree branches
 			String[] split = Variables.splitVariableName(name);
@@ -214,6 +304,31 @@ final class VariablesMap {
 		}
 	}
 
+	/**
+	 * Looks up a non-list variable by going down the branches of the {@link #treeMap}.
+	 *
+	 * @param name the name of the variable, not a list variable.
+	 * @return the value of the variable, or {@code null} if the variable is not set.
+	 */
+	@SuppressWarnings("unchecked")
+	private @Nullable Object getFromTree(String name) {
+		String[] split = Variables.splitVariableName(name);
+		Map<String, Object> parent = treeMap;
+
+		for (int i = 0; i < split.length - 1; i++) {
+			Object childNode = parent.get(split[i]);
+			if (!(childNode instanceof Map))
+				return null;
+			parent = (Map<String, Object>) childNode;
+		}
+
+		Object value = parent.get(split[split.length - 1]);
+		// The variable also has indices, its own value is stored in the list at the null key
+		if (value instanceof Map)
+			return ((Map<String, Object>) value).get(null);
+		return value;
+	}
+
 	/**
 	 * Sets the given variable to the given value.
 	 * <p>
@@ -225,8 +340,14 @@ final class VariablesMap {
 	 */
 	@SuppressWarnings("unchecked")
 	void setVariable(String name, @Nullable Object value) {
+		int slot = slotOf(name);
+		if (slot != -1) {
+			setSlotValue(slot, value);
+			return;
+		}
+
 		// First update the hash map easily
-		if (!name.endsWith("*")) {
+		if (!compact && !name.endsWith("*")) {
 			if (value == null)
 				hashMap.remove(name);
 			else
@@ -242,12 +363,17 @@ final class VariablesMap {
 			String childNodeName = split[i];
 			Object childNode = parent.get(childNodeName);
 
+			if (compact && childNode == null && value != null)
+				childNodeName = SEGMENT_INTERNER.intern(childNodeName);
+
 			if (childNode == null) {
 				// Expected child node not found
 				if (i == split.length - 1) {
 					// End of the variable name reached, set variable if needed
-					if (value != null)
+					if (value != null) {
 						parent.put(childNodeName, value);
+						size++;
+					}
 
 					break;
 				} else if (value != null) {
@@ -266,10 +392,17 @@ final class VariablesMap {
 
 				if (i == split.length - 1) {
 					// End of variable name reached, adjust child node accordingly
+					Object previous;
 					if (value == null)
-						childNodeMap.remove(null);
+						previous = childNodeMap.remove(null);
 					else
-						childNodeMap.put(null, value);
+						previous = childNodeMap.put(null, value);
+
+					if (previous == null && value != null) {
+						size++;
+					} else if (previous != null && value == null) {
+						size--;
+					}
 
 					break;
 				} else if (i == split.length - 2 && split[i + 1].equals("*")) {
@@ -277,7 +410,11 @@ final class VariablesMap {
 					assert value == null;
 
 					// Delete all indices of the list variable from hashMap
-					deleteFromHashMap(StringUtils.join(split, Variable.SEPARATOR, 0, i + 1), childNodeMap);
+					if (compact) {
+						size -= countIndices(childNodeMap);
+					} else {
+						deleteFromHashMap(StringUtils.join(split, Variable.SEPARATOR, 0, i + 1), childNodeMap);
+					}
 
 					// If the list variable itself has a value ,
 					//  e.g. list `{mylist::3}` while variable `{mylist}` also has a value,
@@ -297,10 +434,12 @@ final class VariablesMap {
 				// Ran into leaf node
 				if (i == split.length - 1) {
 					// If we arrived at the end of the variable name, update parent
-					if (value == null)
+					if (value == null) {
 						parent.remove(childNodeName);
-					else
+						size--;
+					} else {
 						parent.put(childNodeName, value);
+					}
 
 					break;
 				} else if (value != null) {
@@ -318,6 +457,90 @@ final class VariablesMap {
 		}
 	}
 
+	/**
+	 * @param name the name of a variable.
+	 * @return the slot the variable is stored in, or -1 if it is stored by its name.
+	 */
+	private int slotOf(String name) {
+		if (slotLimit == 0)
+			return -1;
+		assert slotTable != null;
+		int slot = slotTable.find(name);
+		return slot < slotLimit ? slot : -1;
+	}
+
+	/**
+	 * Makes this map store the variables of the given slots in slots, if it doesn't store variables in slots yet,
+	 * e.g. because it was created when a command argument was set by its name.
+	 * The variables of the slots that are already set are moved to their slots.
+	 *
+	 * @return whether the variables of the given slots are stored in slots.
+	 */
+	private boolean useSlots(LocalVariableSlots slotTable) {
+		if (this.slotTable == slotTable)
+			return true;
+		if (this.slotTable != null || compact)
+			return false;
+
+		int limit = slotTable.count();
+		Object[] values = null;
+		for (int slot = 0; slot < limit; slot++) {
+			String name = slotTable.getName(slot);
+			Object value = getVariable(name);
+			if (value == null)
+				continue;
+			setVariable(name, null);
+			if (values == null)
+				values = new Object[limit];
+			values[slot] = value;
+		}
+		this.slotTable = slotTable;
+		this.slotLimit = limit;
+		this.slots = values;
+		return true;
+	}
+
+	/**
+	 * Returns the value of the variable with the given slot.
+	 *
+	 * @param slot the slot of the variable, see {@link LocalVariableSlots#register(String)}.
+	 * @return the value of the variable, or {@code null} if the variable is not set.
+	 */
+	@Nullable Object getSlot(LocalVariableSlot slot) {
+		if (!useSlots(slot.slots) || slot.index >= slotLimit)
+			return getVariable(slot.name);
+		return getSlotValue(slot.index);
+	}
+
+	/**
+	 * Sets the variable with the given slot to the given value.
+	 *
+	 * @param slot the slot of the variable, see {@link LocalVariableSlots#register(String)}.
+	 * @param value the variable value, {@code null} to delete the variable.
+	 */
+	void setSlot(LocalVariableSlot slot, @Nullable Object value) {
+		if (!useSlots(slot.slots) || slot.index >= slotLimit) {
+			setVariable(slot.name, value);
+			return;
+		}
+		setSlotValue(slot.index, value);
+	}
+
+	private @Nullable Object getSlotValue(int slot) {
+		Object[] slots = this.slots;
+		return slots != null && slot < slots.length ? slots[slot] : null;
+	}
+
+	private void setSlotValue(int slot, @Nullable Object value) {
+		if (slots == null || slot >= slots.length) {
+			if (value == null)
+				return;
+			int length = Math.min(slotLimit, Math.max(slot + 1, slots == null ? 8 : slots.length * 2));
+			slots = slots == null ? new Object[length] : Arrays.copyOf(slots, length);
+		}
+		slots[slot] = value;
+	}
+
 	/**
 	 * Deletes all indices of a list variable from the {@link #hashMap}.
 	 *
@@ -343,15 +566,46 @@ final class VariablesMap {
 		}
 	}
 
+	/**
+	 * Counts all indices of a list variable, including those of nested lists.
+	 *
+	 * @param current the map of the list variable.
+	 * @return the amount of indices that have a value.
+	 */
+	@SuppressWarnings("unchecked")
+	private static int countIndices(TreeMap<String, Object> current) {
+		int count = 0;
+		for (Entry<String, Object> e : current.entrySet()) {
+			if (e.getKey() == null)
+				continue;
+
+			Object val = e.getValue();
+			if (val instanceof TreeMap) {
+				TreeMap<String, Object> child = (TreeMap<String, Object>) val;
+				if (child.containsKey(null))
+					count++;
+				count += countIndices(child);
+			} else {
+				count++;
+			}
+		}
+		return count;
+	}
+
 	/**
 	 * Creates a copy of this map.
 	 *
 	 * @return the copy.
 	 */
 	public VariablesMap copy() {
-		VariablesMap copy = new VariablesMap();
+		VariablesMap copy = new VariablesMap(compact);
+		copy.slotTable = slotTable;
+		copy.slotLimit = slotLimit;
 
 		copy.hashMap.putAll(hashMap);
+		copy.size = size;
+		if (slots != null)
+			copy.slots = slots.clone();
 
 		TreeMap<String, Object> treeMapCopy = copyTreeMap(treeMap);
 		copy.treeMap.putAll(treeMapCopy);
@@ -0,0 +1,316 @@
+package ch.njol.skript.variables;
+
+import ch.njol.skript.lang.Variable;
+import org.jetbrains.annotations.Nullable;
+import org.skriptlang.skript.util.IndexTrackingTreeMap;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * A partition of the global variables.
+ * <p>
+ * Global variables are partitioned by the first segment of their name
+ * (the part before the first {@link Variable#SEPARATOR}),
+ * so a list variable and all of its indices always live in the same shard.
+ * Each shard has its own lock, which means that reading {@code {a::*}}
+ * never has to wait for a write to {@code {b::*}}.
+ */
+final class VariablesShard {
+
+	/**
+	 * The amount of entries of a list variable that a {@link BatchedListIterator} reads at once while holding the read lock.
+	 */
+	private static final int LIST_BATCH_SIZE = 64;
+
+	/**
+	 * Gets the index of the shard the given variable name belongs to.
+	 *
+	 * @param name the variable name, possibly a list variable.
+	 * @param shardCount the amount of shards, must be a power of two.
+	 * @return the index of the shard.
+	 */
+	static int indexOf(String name, int shardCount) {
+		assert Integer.bitCount(shardCount) == 1 : shardCount;
+
+		int separator = name.indexOf(Variable.SEPARATOR);
+		int hash = 0;
+		int end = separator == -1 ? name.length() : separator;
+		// Same as String#hashCode of the first segment, without the substring
+		for (int i = 0; i < end; i++)
+			hash = 31 * hash + name.charAt(i);
+
+		return (hash ^ (hash >>> 16)) & (shardCount - 1);
+	}
+
+	/**
+	 * A lock for reading and writing the variables of this shard.
+	 */
+	final ReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+	/**
+	 * The {@link VariablesMap} storing the variables of this shard,
+	 * must be locked with {@link #lock}.
+	 */
+	VariablesMap map = new VariablesMap();
+
+	/**
+	 * Changes to variables that have not yet been performed,
+	 * because the write lock could not be acquired.
+	 */
+	private final Queue<VariableChange> changeQueue = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * The most recent change in the {@link #changeQueue} for each variable name,
+	 * so readers don't have to scan the queue.
+	 */
+	private final Map<String, VariableChange> pendingChanges = new ConcurrentHashMap<>();
+
+	/**
+	 * Called for every change that is applied to the {@link #map},
+	 * while the write lock is held.
+	 */
+	private final BiConsumer<String, @Nullable Object> changeListener;
+
+	/**
+	 * Creates a new shard.
+	 *
+	 * @param changeListener called for every change applied to this shard,
+	 *                       e.g. to queue it for saving.
+	 */
+	VariablesShard(BiConsumer<String, @Nullable Object> changeListener) {
+		this.changeListener = changeListener;
+	}
+
+	/**
+	 * Returns the internal value of the requested variable,
+	 * taking changes that have not yet been performed into account.
+	 *
+	 * @param name the variable name, possibly a list variable.
+	 * @return the value, see {@link VariablesMap#getVariable(String)}.
+	 */
+	@Nullable
+	Object getVariable(String name) {
+		lock.readLock().lock();
+		try {
+			// Prevent race conditions from returning variables with incorrect values
+			VariableChange change = pendingChanges.get(name);
+			if (change != null)
+				return change.value;
+
+			return map.getVariable(name);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Sets the given variable to the given value.
+	 * <p>
+	 * If the write lock cannot be acquired immediately, the change is queued
+	 * and performed by the next thread that holds the write lock.
+	 *
+	 * @param name the variable name.
+	 * @param value the value, or {@code null} to delete the variable.
+	 */
+	void setVariable(String name, @Nullable Object value) {
+		if (lock.writeLock().tryLock()) {
+			try {
+				// Process older, queued changes if available
+				processChangeQueue();
+				// Process and save requested change
+				map.setVariable(name, value);
+				changeListener.accept(name, value);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		} else {
+			// Couldn't acquire write lock, queue the change (blocking here is a bad idea)
+			VariableChange change = new VariableChange(name, value);
+			// Must be visible to readers before it can be polled from the queue
+			pendingChanges.put(name, change);
+			changeQueue.add(change);
+		}
+	}
+
+	/**
+	 * Processes all entries in the change queue.
+	 * <p>
+	 * Note that the caller must acquire the write lock before calling this,
+	 * then release it.
+	 */
+	void processChangeQueue() {
+		VariableChange change;
+		while ((change = changeQueue.poll()) != null) {
+			map.setVariable(change.name, change.value);
+			changeListener.accept(change.name, change.value);
+			pendingChanges.remove(change.name, change);
+		}
+	}
+
+	/**
+	 * Processes the change queue if the write lock can be acquired
+	 * without waiting.
+	 */
+	void tryProcessChangeQueue() {
+		if (changeQueue.isEmpty() || !lock.writeLock().tryLock())
+			return;
+		try {
+			processChangeQueue();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the amount of non-list variables in this shard.
+	 */
+	int size() {
+		lock.readLock().lock();
+		try {
+			return map.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns an iterator over the entries of a list variable of this shard as they were when this method was called,
+	 * see {@link IndexTrackingTreeMap#snapshotIterator()}.
+	 * <p>
+	 * The list is walked in small batches while holding the read lock,
+	 * so the list is only copied if it is changed while iterating, and only its entries that have not been read yet.
+	 * Like the entries of a local list, the returned entries must not be kept after the next call to {@link Iterator#next()}.
+	 *
+	 * @param list the list variable, as returned by {@link #getVariable(String)}.
+	 * @return an iterator over a snapshot of the entries of the list.
+	 */
+	Iterator<Entry<String, Object>> listIterator(IndexTrackingTreeMap<Object> list) {
+		lock.readLock().lock();
+		try {
+			return new BatchedListIterator(list.snapshotIterator());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Changes whether this shard uses a {@link VariablesMap#isCompact() compact} map.
+	 * This is only possible while the shard is empty.
+	 *
+	 * @param compact whether the map should be compact.
+	 * @return whether the map now has the requested mode.
+	 */
+	boolean setCompact(boolean compact) {
+		lock.writeLock().lock();
+		try {
+			if (map.isCompact() == compact)
+				return true;
+			if (map.size() != 0 || !map.treeMap.isEmpty())
+				return false;
+			map = new VariablesMap(compact);
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * A variable change name-value pair.
+	 */
+	private static final class VariableChange {
+
+		/**
+		 * The name of the changed variable.
+		 */
+		final String name;
+
+		/**
+		 * The (possibly {@code null}) value of the variable change.
+		 */
+		@Nullable
+		final Object value;
+
+		VariableChange(String name, @Nullable Object value) {
+			this.name = name;
+			this.value = value;
+		}
+
+	}
+
+	/**
+	 * An iterator over a snapshot of a list variable, which reads the snapshot in batches while holding the read lock.
+	 */
+	private final class BatchedListIterator implements Iterator<Entry<String, Object>>, Entry<String, Object> {
+
+		private final Iterator<Entry<String, Object>> snapshot;
+		private final String[] keys = new String[LIST_BATCH_SIZE];
+		private final Object[] values = new Object[LIST_BATCH_SIZE];
+		private int size;
+		private int position;
+
+		private @Nullable String key;
+		private @Nullable Object value;
+
+		BatchedListIterator(Iterator<Entry<String, Object>> snapshot) {
+			this.snapshot = snapshot;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (position < size)
+				return true;
+			position = 0;
+			size = 0;
+			lock.readLock().lock();
+			try {
+				while (size < LIST_BATCH_SIZE && snapshot.hasNext()) {
+					Entry<String, Object> entry = snapshot.next();
+					keys[size] = entry.getKey();
+					values[size] = entry.getValue();
+					size++;
+				}
+			} finally {
+				lock.readLock().unlock();
+			}
+			return size > 0;
+		}
+
+		@Override
+		public Entry<String, Object> next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			key = keys[position];
+			value = values[position];
+			keys[position] = null;
+			values[position] = null;
+			position++;
+			return this;
+		}
+
+		@Override
+		public @Nullable String getKey() {
+			return key;
+		}
+
+		@Override
+		public @Nullable Object getValue() {
+			return value;
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
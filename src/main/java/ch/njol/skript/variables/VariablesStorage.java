@@ -3,17 +3,26 @@ package ch.njol.skript.variables;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import org.bukkit.Bukkit;
 import org.jetbrains.annotations.Nullable;
 
 import ch.njol.skript.Skript;
+import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.lang.ParseContext;
+import ch.njol.skript.lang.Variable;
 import ch.njol.skript.log.ParseLogHandler;
 import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.registrations.Classes;
@@ -44,6 +53,10 @@ public abstract class VariablesStorage implements Closeable {
 	 * after which a warning will be sent.
 	 */
 	private static final int FIRST_WARNING = 300;
+	/**
+	 * The period in ticks in which variables of paged storages that haven't been used for a while are removed from memory.
+	 */
+	private static final long EVICTION_PERIOD = 20 * 60;
 
 	final LinkedBlockingQueue<SerializedVariable> changesQueue = new LinkedBlockingQueue<>(QUEUE_SIZE);
 
@@ -76,6 +89,19 @@ public abstract class VariablesStorage implements Closeable {
 	@Nullable
 	private Pattern variableNamePattern;
 
+	/**
+	 * The variables of this storage that are loaded into memory,
+	 * or {@code null} if this storage is not paged, i.e. all of its variables are loaded when the server starts.
+	 */
+	@Nullable
+	private PagedVariables pagedVariables;
+
+	/**
+	 * The task removing variables from memory that haven't been used for a while, if this storage is paged.
+	 */
+	@Nullable
+	private Task evictionTask;
+
 	/**
 	 * The thread used for writing variables to the storage.
 	 */
@@ -106,6 +132,11 @@ public abstract class VariablesStorage implements Closeable {
 						save(variable.name, value.type, value.data);
 					else
 						save(variable.name, null, null);
+
+					// The variable can now be loaded from this storage again
+					PagedVariables pagedVariables = this.pagedVariables;
+					if (pagedVariables != null)
+						pagedVariables.saved(variable.name);
 				} catch (InterruptedException ignored) {
 					// Ignored as the `closed` field will indicate whether the thread actually needs to stop
 				}
@@ -182,6 +213,24 @@ public abstract class VariablesStorage implements Closeable {
 		}
 	}
 
+	/**
+	 * Gets the value at the given key of the given section node,
+	 * parsed with the given type, or the given default value if the key is missing.
+	 *
+	 * @param sectionNode the section node.
+	 * @param key the key.
+	 * @param type the type.
+	 * @param defaultValue the value to use if the section node doesn't have this key.
+	 * @return the parsed value, or {@code null} if the value was invalid.
+	 * @param <T> the type.
+	 */
+	@Nullable
+	protected <T> T getOptionalValue(SectionNode sectionNode, String key, Class<T> type, T defaultValue) {
+		if (sectionNode.getValue(key) == null)
+			return defaultValue;
+		return getValue(sectionNode, key, type);
+	}
+
 	private static final Set<File> registeredFiles = new HashSet<>();
 
 	/**
@@ -268,10 +317,43 @@ public abstract class VariablesStorage implements Closeable {
 			}
 		}
 
+		Boolean paging = getOptionalValue(sectionNode, "paging", Boolean.class, false);
+		if (paging == null)
+			return false;
+		if (paging) {
+			if (!(this instanceof PageableStorage pageableStorage)) {
+				Skript.error("The database '" + databaseName + "' of type " + databaseType + " cannot be paged, please set 'paging' to false");
+				return false;
+			}
+
+			Integer cacheSize = getOptionalValue(sectionNode, "cache size", Integer.class, PagedVariables.DEFAULT_MAX_SIZE);
+			Timespan cacheExpiry = getOptionalValue(sectionNode, "cache expiry", Timespan.class,
+				new Timespan(Timespan.TimePeriod.MILLISECOND, PagedVariables.DEFAULT_EXPIRY));
+			if (cacheSize == null || cacheExpiry == null)
+				return false;
+			if (cacheSize < 1) {
+				Skript.error("The cache size of the database '" + databaseName + "' must be at least 1");
+				return false;
+			}
+
+			pagedVariables = new PagedVariables(name -> loadPageValues(pageableStorage, name), Variables::setVariableInMemory,
+				cacheSize, cacheExpiry.getAs(Timespan.TimePeriod.MILLISECOND));
+		}
+
 		// Load the entries custom to the variable storage
 		if (!load_i(sectionNode))
 			return false;
 
+		PagedVariables pagedVariables = this.pagedVariables;
+		if (pagedVariables != null) {
+			evictionTask = new Task(Skript.getInstance(), EVICTION_PERIOD, EVICTION_PERIOD, true) {
+				@Override
+				public void run() {
+					pagedVariables.evict(System.currentTimeMillis());
+				}
+			};
+		}
+
 		writeThread.start();
 		Skript.closeOnDisable(this);
 
@@ -286,6 +368,63 @@ public abstract class VariablesStorage implements Closeable {
 	 */
 	protected abstract boolean load_i(SectionNode n);
 
+	/**
+	 * Checks if this storage is paged, i.e. only keeps its variables in memory while they are used.
+	 * Only valid once the storage has been {@link #load(SectionNode) loaded}.
+	 *
+	 * @return if this storage is paged.
+	 */
+	public final boolean isPaged() {
+		return pagedVariables != null;
+	}
+
+	/**
+	 * @return the variables of this storage that are loaded into memory, or {@code null} if this storage isn't paged.
+	 */
+	@Nullable
+	PagedVariables getPagedVariables() {
+		return pagedVariables;
+	}
+
+	/**
+	 * Loads and deserializes a variable or list variable, see {@link PageableStorage#loadPage(String)}.
+	 * Values that must be deserialized on Bukkit's main thread are deserialized there.
+	 */
+	private Map<String, Object> loadPageValues(PageableStorage storage, String name) {
+		Map<String, Object> values = new HashMap<>();
+		List<Entry<String, Value>> sync = new ArrayList<>();
+		for (Entry<String, Value> entry : storage.loadPage(name).entrySet()) {
+			ClassInfo<?> classInfo = Variables.getClassInfo(entry.getValue().type);
+			if (classInfo == null || classInfo.getSerializer() == null) {
+				Skript.error("Cannot load the variable {" + entry.getKey() + "} from the database '" + databaseName + "', " +
+					"because the type '" + entry.getValue().type + "' cannot be recognised or cannot be stored in variables");
+			} else if (!classInfo.canDeserializeOffThread() && !Bukkit.isPrimaryThread()) {
+				sync.add(entry);
+			} else {
+				deserializePageValue(entry.getKey(), classInfo, entry.getValue(), values);
+			}
+		}
+
+		if (!sync.isEmpty()) {
+			Task.callSync(() -> {
+				for (Entry<String, Value> entry : sync)
+					deserializePageValue(entry.getKey(), Variables.getClassInfo(entry.getValue().type), entry.getValue(), values);
+				return null;
+			});
+		}
+		return values;
+	}
+
+	private void deserializePageValue(String name, @Nullable ClassInfo<?> classInfo, Value serialized, Map<String, Object> values) {
+		Object value = classInfo == null ? null : Variables.deserialize(serialized.type, serialized.data);
+		if (value == null) {
+			Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', " +
+				"because it cannot be loaded as " + (classInfo == null ? "its type" : classInfo.getName().withIndefiniteArticle()));
+			return;
+		}
+		values.put(name, value);
+	}
+
 	/**
 	 * Called after all storages have been loaded, and variables
 	 * have been redistributed if settings have changed.
@@ -313,8 +452,8 @@ public abstract class VariablesStorage implements Closeable {
 	protected abstract File getFile(String fileName);
 
 	/**
-	 * Must be locked after {@link Variables#getReadLock()}
-	 * (if that lock is used at all).
+	 * Must be locked before the lock of any {@link VariablesShard}
+	 * (if those locks are used at all).
 	 */
 	protected final Object connectionLock = new Object();
 
@@ -399,6 +538,76 @@ public abstract class VariablesStorage implements Closeable {
 		return variableNamePattern;
 	}
 
+	/**
+	 * Calls the given action for every global variable stored in this storage,
+	 * i.e. every variable for which this is the first storage that {@link #accept(String) accepts} it,
+	 * in the order of the variables map. Ephemeral variables are skipped.
+	 * <p>
+	 * Only one {@link VariablesShard} is locked at a time,
+	 * so other variables can still be changed meanwhile.
+	 *
+	 * @param action the action, receiving the name and the value of the variable.
+	 */
+	protected final void forEachVariable(BiConsumer<String, Object> action) {
+		for (VariablesShard shard : Variables.getShards()) {
+			shard.lock.readLock().lock();
+			try {
+				forEachVariable("", shard.map.treeMap, action);
+			} finally {
+				shard.lock.readLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Calls the given action for every variable stored in this storage.
+	 *
+	 * @param parent The parent's name with {@link Variable#SEPARATOR} at the end.
+	 * @param map the variables map.
+	 * @param action the action.
+	 */
+	@SuppressWarnings("unchecked")
+	private void forEachVariable(String parent, TreeMap<String, Object> map, BiConsumer<String, Object> action) {
+		if (parent.startsWith(Variable.EPHEMERAL_VARIABLE_TOKEN))
+			// Skip ephemeral variables
+			return;
+
+		// Iterate over all children
+		for (Entry<String, Object> childEntry : map.entrySet()) {
+			Object childNode = childEntry.getValue();
+			String childKey = childEntry.getKey();
+
+			if (childNode == null)
+				continue; // Leaf node
+
+			if (childNode instanceof TreeMap) {
+				// TreeMap found, recurse
+				forEachVariable(parent + childKey + Variable.SEPARATOR, (TreeMap<String, Object>) childNode, action);
+			} else {
+				// Remove variable separator if needed
+				String name = childKey == null ? parent.substring(0, parent.length() - Variable.SEPARATOR.length()) : parent + childKey;
+
+				if (name.startsWith(Variable.EPHEMERAL_VARIABLE_TOKEN))
+					// Skip ephemeral variables
+					continue;
+
+				try {
+					// Loop over storages to make sure this variable is ours to store
+					for (VariablesStorage storage : Variables.STORAGES) {
+						if (storage.accept(name)) {
+							if (storage == this)
+								action.accept(name, childNode);
+							break;
+						}
+					}
+				} catch (Exception ex) {
+					//noinspection ThrowableNotThrown
+					Skript.exception(ex, "Error saving variable named " + name);
+				}
+			}
+		}
+	}
+
 	/**
 	 * The interval between warnings that many variables are being written
 	 * at once, in seconds.
@@ -470,6 +679,9 @@ public abstract class VariablesStorage implements Closeable {
 	 */
 	@Override
 	public void close() {
+		if (evictionTask != null)
+			evictionTask.cancel();
+
 		// Wait for all variable changes to be processed
 		while (changesQueue.size() > 0) {
 			try {
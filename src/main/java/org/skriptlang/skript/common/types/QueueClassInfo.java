@@ -119,7 +119,7 @@ public class QueueClassInfo extends ClassInfo<SkriptQueue> {
 
 		@Override
 		public boolean mustSyncDeserialization() {
-			return false;
+			return true; // the contents can be of any type
 		}
 
 		@Override
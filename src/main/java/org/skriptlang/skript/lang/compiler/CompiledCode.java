@@ -0,0 +1,18 @@
+package org.skriptlang.skript.lang.compiler;
+
+import org.bukkit.event.Event;
+
+/**
+ * The code generated for a list of statements by {@link StatementsClassWriter}.
+ */
+interface CompiledCode {
+
+	/**
+	 * Runs the statements in order, until a condition fails.
+	 *
+	 * @param event the event to run the statements with.
+	 * @return whether all statements ran, false if a condition failed.
+	 */
+	boolean run(Event event);
+
+}
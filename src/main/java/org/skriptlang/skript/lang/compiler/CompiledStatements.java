@@ -0,0 +1,88 @@
+package org.skriptlang.skript.lang.compiler;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.lang.Statement;
+import ch.njol.skript.lang.TriggerItem;
+import ch.njol.skript.lang.TriggerSection;
+import org.bukkit.event.Event;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Consecutive statements of a trigger that run as a single generated method, see {@link TriggerCompiler}.
+ * <p>
+ * The statements remain linked to each other and to the items around them,
+ * so they are interpreted one by one instead when debugging.
+ */
+public final class CompiledStatements extends TriggerItem {
+
+	private final List<Statement> statements;
+	private final CompiledCode code;
+
+	CompiledStatements(List<Statement> statements, CompiledCode code) {
+		this.statements = List.copyOf(statements);
+		this.code = code;
+		for (int i = 0; i < this.statements.size() - 1; i++)
+			this.statements.get(i).setNext(this.statements.get(i + 1));
+	}
+
+	@Override
+	protected @Nullable TriggerItem walk(Event event) {
+		if (Skript.debug()) // the statements print themselves when they are interpreted
+			return statements.get(0);
+		if (code.run(event))
+			return getNext();
+		TriggerSection parent = this.parent;
+		return parent == null ? null : parent.getNext();
+	}
+
+	@Override
+	protected boolean run(Event event) {
+		return code.run(event);
+	}
+
+	/**
+	 * Called by the generated code when one of the statements throws an exception,
+	 * so the exception is reported with the statement instead of the generated class.
+	 *
+	 * @param exception the exception the statement threw.
+	 * @param statement the statement that threw the exception.
+	 * @return the exception to throw instead, which has already been reported.
+	 */
+	static Exception failure(Exception exception, Statement statement) {
+		if (exception.getStackTrace().length == 0) // empty exceptions have already been reported
+			return exception;
+		return Skript.exception(exception, statement);
+	}
+
+	@Override
+	public TriggerItem setNext(@Nullable TriggerItem next) {
+		statements.get(statements.size() - 1).setNext(next);
+		return super.setNext(next);
+	}
+
+	@Override
+	public TriggerItem setParent(@Nullable TriggerSection parent) {
+		for (Statement statement : statements)
+			statement.setParent(parent);
+		return super.setParent(parent);
+	}
+
+	/**
+	 * @return The statements that are compiled, in the order they run in.
+	 */
+	public @Unmodifiable List<Statement> getStatements() {
+		return statements;
+	}
+
+	@Override
+	public String toString(@Nullable Event event, boolean debug) {
+		return statements.stream()
+			.map(statement -> statement.toString(event, debug))
+			.collect(Collectors.joining(", then ", "compiled: ", ""));
+	}
+
+}
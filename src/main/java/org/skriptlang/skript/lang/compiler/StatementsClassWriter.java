@@ -0,0 +1,351 @@
+package org.skriptlang.skript.lang.compiler;
+
+import ch.njol.skript.lang.Condition;
+import ch.njol.skript.lang.Effect;
+import ch.njol.skript.lang.Statement;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the class file of a {@link CompiledCode} that runs a fixed list of statements.
+ * <p>
+ * The statements are read from the class data of the hidden class into static final fields when the class is initialised,
+ * so the JIT compiler sees them as constants and can inline their code into {@link CompiledCode#run(org.bukkit.event.Event)}.
+ * The generated class looks like this:
+ * <pre>
+ * final class GeneratedStatements implements CompiledCode {
+ *     private static final Effect s0;
+ *     private static final Condition s1;
+ *
+ *     static {
+ *         Object[] statements = MethodHandles.classData(MethodHandles.lookup(), "_", Object[].class);
+ *         s0 = (Effect) statements[0];
+ *         s1 = (Condition) statements[1];
+ *     }
+ *
+ *     public boolean run(Event event) {
+ *         try {
+ *             s0.run(event);
+ *         } catch (Exception e) {
+ *             throw CompiledStatements.failure(e, s0);
+ *         }
+ *         try {
+ *             if (!s1.run(event))
+ *                 return false;
+ *         } catch (Exception e) {
+ *             throw CompiledStatements.failure(e, s1);
+ *         }
+ *         return true;
+ *     }
+ * }
+ * </pre>
+ * Exceptions are reported with the statement that threw them, so they point at its line of the script
+ * instead of at the generated class.
+ */
+final class StatementsClassWriter {
+
+	private static final int ACC_PUBLIC = 0x0001, ACC_PRIVATE = 0x0002, ACC_STATIC = 0x0008, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+
+	private static final int CONSTANT_UTF8 = 1, CONSTANT_CLASS = 7, CONSTANT_STRING = 8,
+		CONSTANT_FIELDREF = 9, CONSTANT_METHODREF = 10, CONSTANT_NAME_AND_TYPE = 12;
+
+	private static final int ALOAD_0 = 0x2a, ALOAD_1 = 0x2b, ASTORE_0 = 0x4b, ICONST_0 = 0x03, ICONST_1 = 0x04,
+		SIPUSH = 0x11, LDC_W = 0x13, AALOAD = 0x32, POP = 0x57, IFEQ = 0x99, IRETURN = 0xac, RETURN = 0xb1,
+		GETSTATIC = 0xb2, PUTSTATIC = 0xb3, INVOKEVIRTUAL = 0xb6, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8, ATHROW = 0xbf,
+		CHECKCAST = 0xc0;
+
+	private static final int SAME_LOCALS_1_STACK_ITEM = 64, SAME_LOCALS_1_STACK_ITEM_EXTENDED = 247, SAME_FRAME_EXTENDED = 251;
+	private static final int ITEM_OBJECT = 7;
+
+	private static final String EXCEPTION = "java/lang/Exception";
+	private static final String FAILURE_DESCRIPTOR = "(L" + EXCEPTION + ";L" + internalName(Statement.class) + ";)L" + EXCEPTION + ";";
+
+	private static final String EVENT = "org/bukkit/event/Event";
+	private static final String RUN_DESCRIPTOR = "(L" + EVENT + ";)Z";
+
+	/**
+	 * The internal name of the generated class, which must be in the package of the {@link java.lang.invoke.MethodHandles.Lookup}
+	 * that defines it.
+	 */
+	static final String CLASS_NAME = StatementsClassWriter.class.getPackageName().replace('.', '/') + "/GeneratedStatements";
+
+	private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+	private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+	private final Map<String, Integer> constants = new HashMap<>();
+	private int constantCount = 1;
+
+	private StatementsClassWriter() { }
+
+	/**
+	 * @param statements the statements to run, each either an {@link Effect} or a {@link Condition}.
+	 * @return the class file.
+	 */
+	static byte[] write(List<? extends Statement> statements) {
+		try {
+			return new StatementsClassWriter().writeClass(statements);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private byte[] writeClass(List<? extends Statement> statements) throws IOException {
+		String[] types = new String[statements.size()];
+		for (int i = 0; i < types.length; i++)
+			types[i] = internalName(statements.get(i) instanceof Condition ? Condition.class : Effect.class);
+
+		ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+		DataOutputStream body = new DataOutputStream(bodyBytes);
+
+		body.writeShort(ACC_FINAL | ACC_SUPER);
+		body.writeShort(classConstant(CLASS_NAME));
+		body.writeShort(classConstant("java/lang/Object"));
+		body.writeShort(1);
+		body.writeShort(classConstant(internalName(CompiledCode.class)));
+
+		body.writeShort(types.length);
+		for (int i = 0; i < types.length; i++) {
+			body.writeShort(ACC_PRIVATE | ACC_STATIC | ACC_FINAL);
+			body.writeShort(utf8Constant("s" + i));
+			body.writeShort(utf8Constant("L" + types[i] + ";"));
+			body.writeShort(0);
+		}
+
+		body.writeShort(3);
+		writeConstructor(body);
+		writeStaticInitializer(body, types);
+		writeRun(body, types);
+
+		body.writeShort(0);
+
+		ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+		DataOutputStream classFile = new DataOutputStream(classBytes);
+		classFile.writeInt(0xCAFEBABE);
+		classFile.writeShort(0);
+		classFile.writeShort(52);
+		classFile.writeShort(constantCount);
+		constantPoolBytes.writeTo(classFile);
+		bodyBytes.writeTo(classFile);
+		return classBytes.toByteArray();
+	}
+
+	private void writeConstructor(DataOutputStream out) throws IOException {
+		ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+		DataOutputStream code = new DataOutputStream(codeBytes);
+		code.writeByte(ALOAD_0);
+		code.writeByte(INVOKESPECIAL);
+		code.writeShort(methodConstant("java/lang/Object", "<init>", "()V"));
+		code.writeByte(RETURN);
+		writeMethod(out, ACC_PUBLIC, "<init>", "()V", 1, 1, codeBytes.toByteArray(), new byte[0], new byte[0], 0);
+	}
+
+	private void writeStaticInitializer(DataOutputStream out, String[] types) throws IOException {
+		ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+		DataOutputStream code = new DataOutputStream(codeBytes);
+		code.writeByte(INVOKESTATIC);
+		code.writeShort(methodConstant("java/lang/invoke/MethodHandles", "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;"));
+		code.writeByte(LDC_W);
+		code.writeShort(stringConstant("_"));
+		code.writeByte(LDC_W);
+		code.writeShort(classConstant("[Ljava/lang/Object;"));
+		code.writeByte(INVOKESTATIC);
+		code.writeShort(methodConstant("java/lang/invoke/MethodHandles", "classData",
+			"(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;"));
+		code.writeByte(CHECKCAST);
+		code.writeShort(classConstant("[Ljava/lang/Object;"));
+		code.writeByte(ASTORE_0);
+		for (int i = 0; i < types.length; i++) {
+			code.writeByte(ALOAD_0);
+			code.writeByte(SIPUSH);
+			code.writeShort(i);
+			code.writeByte(AALOAD);
+			code.writeByte(CHECKCAST);
+			code.writeShort(classConstant(types[i]));
+			code.writeByte(PUTSTATIC);
+			code.writeShort(fieldConstant(CLASS_NAME, "s" + i, "L" + types[i] + ";"));
+		}
+		code.writeByte(RETURN);
+		writeMethod(out, ACC_STATIC, "<clinit>", "()V", 3, 1, codeBytes.toByteArray(), new byte[0], new byte[0], 0);
+	}
+
+	private void writeRun(DataOutputStream out, String[] types) throws IOException {
+		ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+		DataOutputStream code = new DataOutputStream(codeBytes);
+		// the offsets of the branches of conditions, which jump to the 'return false' at the end
+		int[] branches = new int[types.length];
+		int branchCount = 0;
+		// the code of each statement, which is covered by its exception handler
+		int[] starts = new int[types.length];
+		int[] ends = new int[types.length];
+		for (int i = 0; i < types.length; i++) {
+			starts[i] = code.size();
+			code.writeByte(GETSTATIC);
+			code.writeShort(fieldConstant(CLASS_NAME, "s" + i, "L" + types[i] + ";"));
+			code.writeByte(ALOAD_1);
+			code.writeByte(INVOKEVIRTUAL);
+			code.writeShort(methodConstant(types[i], "run", RUN_DESCRIPTOR));
+			ends[i] = code.size();
+			if (types[i].equals(internalName(Condition.class))) {
+				branches[branchCount++] = code.size();
+				code.writeByte(IFEQ);
+				code.writeShort(0); // the offset is filled in below
+			} else {
+				code.writeByte(POP);
+			}
+		}
+		code.writeByte(ICONST_1);
+		code.writeByte(IRETURN);
+
+		ByteArrayOutputStream stackMapBytes = new ByteArrayOutputStream();
+		DataOutputStream stackMap = new DataOutputStream(stackMapBytes);
+		int frameCount = 0;
+		int lastFrame = -1;
+
+		int returnFalse = code.size();
+		if (branchCount > 0) { // code that can't be reached would need a stack map frame
+			code.writeByte(ICONST_0);
+			code.writeByte(IRETURN);
+			int delta = returnFalse - lastFrame - 1;
+			if (delta < 64) { // same_frame
+				stackMap.writeByte(delta);
+			} else {
+				stackMap.writeByte(SAME_FRAME_EXTENDED);
+				stackMap.writeShort(delta);
+			}
+			frameCount++;
+			lastFrame = returnFalse;
+		}
+
+		// the exception handlers, which report the exception with the statement that threw it
+		ByteArrayOutputStream exceptionTableBytes = new ByteArrayOutputStream();
+		DataOutputStream exceptionTable = new DataOutputStream(exceptionTableBytes);
+		for (int i = 0; i < types.length; i++) {
+			int handler = code.size();
+			code.writeByte(GETSTATIC);
+			code.writeShort(fieldConstant(CLASS_NAME, "s" + i, "L" + types[i] + ";"));
+			code.writeByte(INVOKESTATIC);
+			code.writeShort(methodConstant(internalName(CompiledStatements.class), "failure", FAILURE_DESCRIPTOR));
+			code.writeByte(ATHROW);
+
+			exceptionTable.writeShort(starts[i]);
+			exceptionTable.writeShort(ends[i]);
+			exceptionTable.writeShort(handler);
+			exceptionTable.writeShort(classConstant(EXCEPTION));
+
+			// the locals are the same as at the start of the method, with the exception on the stack
+			int delta = handler - lastFrame - 1;
+			if (delta < 64) { // same_locals_1_stack_item_frame
+				stackMap.writeByte(SAME_LOCALS_1_STACK_ITEM + delta);
+			} else {
+				stackMap.writeByte(SAME_LOCALS_1_STACK_ITEM_EXTENDED);
+				stackMap.writeShort(delta);
+			}
+			stackMap.writeByte(ITEM_OBJECT);
+			stackMap.writeShort(classConstant(EXCEPTION));
+			frameCount++;
+			lastFrame = handler;
+		}
+
+		byte[] bytes = codeBytes.toByteArray();
+		for (int i = 0; i < branchCount; i++) {
+			int offset = returnFalse - branches[i];
+			bytes[branches[i] + 1] = (byte) (offset >> 8);
+			bytes[branches[i] + 2] = (byte) offset;
+		}
+		writeMethod(out, ACC_PUBLIC, "run", RUN_DESCRIPTOR, 2, 2, bytes,
+			exceptionTableBytes.toByteArray(), stackMapBytes.toByteArray(), frameCount);
+	}
+
+	/**
+	 * @param exceptionTable the entries of the exception table of the code.
+	 * @param stackMap the frames of the stack map of the code.
+	 * @param frameCount the amount of frames in the stack map, 0 if the code doesn't branch or handle exceptions.
+	 */
+	private void writeMethod(DataOutputStream out, int access, String name, String descriptor,
+							 int maxStack, int maxLocals, byte[] code, byte[] exceptionTable,
+							 byte[] stackMap, int frameCount) throws IOException {
+		out.writeShort(access);
+		out.writeShort(utf8Constant(name));
+		out.writeShort(utf8Constant(descriptor));
+		out.writeShort(1);
+
+		int attributesLength = frameCount > 0 ? 6 + 2 + stackMap.length : 0;
+		out.writeShort(utf8Constant("Code"));
+		out.writeInt(12 + code.length + exceptionTable.length + attributesLength);
+		out.writeShort(maxStack);
+		out.writeShort(maxLocals);
+		out.writeInt(code.length);
+		out.write(code);
+		out.writeShort(exceptionTable.length / 8);
+		out.write(exceptionTable);
+		if (frameCount > 0) {
+			out.writeShort(1);
+			out.writeShort(utf8Constant("StackMapTable"));
+			out.writeInt(2 + stackMap.length);
+			out.writeShort(frameCount);
+			out.write(stackMap);
+		} else {
+			out.writeShort(0);
+		}
+	}
+
+	private static String internalName(Class<?> type) {
+		return type.getName().replace('.', '/');
+	}
+
+	private int utf8Constant(String value) throws IOException {
+		Integer index = constants.get("utf8 " + value);
+		if (index != null)
+			return index;
+		constantPool.writeByte(CONSTANT_UTF8);
+		constantPool.writeUTF(value);
+		return add("utf8 " + value);
+	}
+
+	private int classConstant(String name) throws IOException {
+		return reference(CONSTANT_CLASS, "class " + name, utf8Constant(name), -1);
+	}
+
+	private int stringConstant(String value) throws IOException {
+		return reference(CONSTANT_STRING, "string " + value, utf8Constant(value), -1);
+	}
+
+	private int nameAndTypeConstant(String name, String descriptor) throws IOException {
+		return reference(CONSTANT_NAME_AND_TYPE, "name and type " + name + " " + descriptor, utf8Constant(name), utf8Constant(descriptor));
+	}
+
+	private int fieldConstant(String owner, String name, String descriptor) throws IOException {
+		return reference(CONSTANT_FIELDREF, "field " + owner + "." + name, classConstant(owner), nameAndTypeConstant(name, descriptor));
+	}
+
+	private int methodConstant(String owner, String name, String descriptor) throws IOException {
+		return reference(CONSTANT_METHODREF, "method " + owner + "." + name + descriptor, classConstant(owner), nameAndTypeConstant(name, descriptor));
+	}
+
+	/**
+	 * Adds a constant that refers to one or two other constants, if it doesn't exist yet.
+	 *
+	 * @param second the index of the second constant, or -1 if the constant only refers to one other constant.
+	 */
+	private int reference(int tag, String key, int first, int second) throws IOException {
+		Integer index = constants.get(key);
+		if (index != null)
+			return index;
+		constantPool.writeByte(tag);
+		constantPool.writeShort(first);
+		if (second != -1)
+			constantPool.writeShort(second);
+		return add(key);
+	}
+
+	private int add(String key) {
+		constants.put(key, constantCount);
+		return constantCount++;
+	}
+
+}
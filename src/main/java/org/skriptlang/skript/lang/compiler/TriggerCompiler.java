@@ -0,0 +1,110 @@
+package org.skriptlang.skript.lang.compiler;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.lang.Condition;
+import ch.njol.skript.lang.Effect;
+import ch.njol.skript.lang.Statement;
+import ch.njol.skript.lang.TriggerItem;
+import org.bukkit.event.Event;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles consecutive statements of triggers into hidden classes,
+ * so the JIT compiler can optimise them together instead of through the virtual calls of {@link TriggerItem#walk(TriggerItem, Event)}.
+ * <p>
+ * A statement opts in by being an {@link Effect} or a {@link Condition} that doesn't override {@link TriggerItem}'s {@code walk},
+ * i.e. whose only effect on the control flow is that a condition that fails skips the rest of its section.
+ * Other items, like sections, delays and returns, are still interpreted, but the statements in their sections are compiled as well.
+ * <p>
+ * This is used for scripts that use the {@link ch.njol.skript.registrations.Feature#COMPILED_TRIGGERS compiled triggers} experiment.
+ */
+public final class TriggerCompiler {
+
+	/**
+	 * The minimum amount of consecutive statements to compile, as a single statement gains nothing from being compiled.
+	 */
+	private static final int MIN_STATEMENTS = 2;
+
+	/**
+	 * The maximum amount of statements in a single class, which keeps the generated method small enough to be compiled by the JIT.
+	 */
+	private static final int MAX_STATEMENTS = 64;
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private static final ClassValue<Boolean> COMPILABLE = new ClassValue<>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			if (!Effect.class.isAssignableFrom(type) && !Condition.class.isAssignableFrom(type))
+				return false;
+			for (Class<?> superType = type; superType != TriggerItem.class; superType = superType.getSuperclass()) {
+				try {
+					superType.getDeclaredMethod("walk", Event.class);
+					return false;
+				} catch (NoSuchMethodException ignored) { }
+			}
+			return true;
+		}
+	};
+
+	private TriggerCompiler() { }
+
+	/**
+	 * @param item The item to check.
+	 * @return Whether the given item can be compiled.
+	 */
+	public static boolean isCompilable(TriggerItem item) {
+		return COMPILABLE.get(item.getClass());
+	}
+
+	/**
+	 * Replaces each run of consecutive {@link #isCompilable(TriggerItem) compilable} statements in the given items
+	 * with {@link CompiledStatements}.
+	 *
+	 * @param items The items of a section, which must not be linked to each other yet.
+	 * @return The items of the section with the compiled statements.
+	 */
+	public static ArrayList<TriggerItem> compile(List<TriggerItem> items) {
+		ArrayList<TriggerItem> compiled = new ArrayList<>(items.size());
+		List<Statement> statements = new ArrayList<>();
+		for (TriggerItem item : items) {
+			if (isCompilable(item)) {
+				statements.add((Statement) item);
+				if (statements.size() == MAX_STATEMENTS)
+					addStatements(statements, compiled);
+				continue;
+			}
+			addStatements(statements, compiled);
+			compiled.add(item);
+		}
+		addStatements(statements, compiled);
+		return compiled;
+	}
+
+	/**
+	 * Adds the given statements to the given items, compiled if there are enough of them, and clears the statements.
+	 */
+	private static void addStatements(List<Statement> statements, List<TriggerItem> items) {
+		if (statements.size() < MIN_STATEMENTS) {
+			items.addAll(statements);
+			statements.clear();
+			return;
+		}
+		try {
+			byte[] bytes = StatementsClassWriter.write(statements);
+			MethodHandles.Lookup lookup = LOOKUP.defineHiddenClassWithClassData(bytes, statements.toArray(), true);
+			CompiledCode code = (CompiledCode) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+			items.add(new CompiledStatements(statements, code));
+		} catch (Throwable throwable) {
+			//noinspection ThrowableNotThrown
+			Skript.exception(throwable, "Could not compile the statements " + statements + ", they will be interpreted instead");
+			items.addAll(statements);
+		}
+		statements.clear();
+	}
+
+}
@@ -145,6 +145,30 @@ public abstract class Structure implements SyntaxElement, Debuggable {
 	 */
 	public abstract boolean load();
 
+	/**
+	 * Whether {@link #load()} may be called while Structures of other scripts with the same priority are loading on other threads,
+	 *  which happens if parallel loading is enabled.
+	 * The Structures of a script are never loaded at the same time.
+	 * This should only return true if loading does not modify state shared with other scripts,
+	 *  other than through thread-safe means (e.g. parsing a trigger).
+	 * @return Whether this Structure may be loaded in parallel with Structures of other scripts.
+	 */
+	public boolean canLoadInParallel() {
+		return false;
+	}
+
+	/**
+	 * Whether this Structure may be unloaded or loaded on its own when its script is reloaded incrementally,
+	 *  while the other Structures of the script stay loaded,
+	 *  see {@link ch.njol.skript.ScriptLoader#reloadScriptIncrementally(org.skriptlang.skript.lang.script.Script, ch.njol.util.OpenCloseable)}.
+	 * This should only return true if no other Structure of the script depends on this Structure,
+	 *  or if they are updated by its loading stages, like the callers of a function.
+	 * @return Whether this Structure may be reloaded individually.
+	 */
+	public boolean canReloadIndividually() {
+		return false;
+	}
+
 	/**
 	 * The third and final phase of Structure loading.
 	 * During this phase, all Structures across all loading scripts are loaded with respect to their priorities.
@@ -1,12 +1,23 @@
 package org.skriptlang.skript.registration;
 
+import ch.njol.skript.patterns.MalformedPatternException;
+import ch.njol.skript.patterns.PatternCompiler;
+import ch.njol.skript.patterns.SkriptPattern;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
 
 /**
  * A syntax register is a collection of registered {@link SyntaxInfo}s of a common type.
@@ -68,8 +79,31 @@ final class SyntaxRegister<I extends SyntaxInfo<?>> {
 		return Integer.compare(a.hashCode(), b.hashCode());
 	};
 
+	/**
+	 * Computes the words that an input must start with to possibly match a syntax.
+	 * @return The possible first words, or an empty set if an input starting with any word could match.
+	 * @see SkriptPattern#getFirstWords()
+	 */
+	private static Set<String> computeFirstWords(SyntaxInfo<?> info) {
+		Set<String> words = new HashSet<>();
+		for (String pattern : info.patterns()) {
+			Set<String> patternWords;
+			try {
+				patternWords = PatternCompiler.compile(pattern).getFirstWords();
+			} catch (MalformedPatternException e) {
+				patternWords = null; // reported when the pattern is used for parsing
+			}
+			if (patternWords == null)
+				return Set.of();
+			words.addAll(patternWords);
+		}
+		return words;
+	}
+
 	final Set<I> syntaxes = new ConcurrentSkipListSet<>(SET_COMPARATOR);
 	private volatile @Nullable Set<I> cache = null;
+	private volatile @Nullable FirstWordIndex<I> index = null;
+	private final Map<I, Set<String>> firstWords = new ConcurrentHashMap<>();
 
 	public Collection<I> syntaxes() {
 		if (cache == null) {
@@ -78,14 +112,67 @@ final class SyntaxRegister<I extends SyntaxInfo<?>> {
 		return cache;
 	}
 
+	/**
+	 * @param input The input to parse.
+	 * @return The syntaxes that could match the input, in the same order as {@link #syntaxes()}.
+	 */
+	public Collection<I> syntaxes(String input) {
+		FirstWordIndex<I> index = this.index;
+		if (index == null) {
+			index = new FirstWordIndex<>(syntaxes(), info -> firstWords.computeIfAbsent(info, SyntaxRegister::computeFirstWords));
+			this.index = index;
+		}
+		return index.get(input);
+	}
+
 	public void add(I info) {
 		syntaxes.add(info);
 		cache = null;
+		index = null;
 	}
 
 	public void remove(I info) {
 		syntaxes.remove(info);
+		firstWords.remove(info);
 		cache = null;
+		index = null;
+	}
+
+	/**
+	 * Groups syntaxes by the first words of the inputs they can match,
+	 * so an input only has to be tried against the syntaxes that could match its first word.
+	 */
+	private static final class FirstWordIndex<I extends SyntaxInfo<?>> {
+
+		private final Map<String, List<I>> candidates = new HashMap<>();
+
+		/**
+		 * The syntaxes that can match an input starting with any word.
+		 */
+		private final List<I> fallback;
+
+		FirstWordIndex(Collection<I> syntaxes, Function<I, Set<String>> firstWords) {
+			Map<String, List<I>> candidates = new HashMap<>();
+			List<I> fallback = new ArrayList<>();
+			for (I info : syntaxes) {
+				Set<String> words = firstWords.apply(info);
+				if (words.isEmpty()) {
+					fallback.add(info);
+					candidates.values().forEach(list -> list.add(info));
+				} else {
+					// keep the order of the fallback syntaxes ordered before this one
+					for (String word : words)
+						candidates.computeIfAbsent(word, key -> new ArrayList<>(fallback)).add(info);
+				}
+			}
+			candidates.forEach((word, list) -> this.candidates.put(word, ImmutableList.copyOf(list)));
+			this.fallback = ImmutableList.copyOf(fallback);
+		}
+
+		public List<I> get(String input) {
+			return candidates.getOrDefault(SkriptPattern.getFirstWord(input), fallback);
+		}
+
 	}
 
 }
@@ -79,6 +79,19 @@ public interface SyntaxRegistry extends ViewProvider<SyntaxRegistry>, Registry<S
 	 */
 	<I extends SyntaxInfo<?>> @Unmodifiable Collection<I> syntaxes(Key<I> key);
 
+	/**
+	 * A method to obtain the syntaxes registered under a certain key that could match an input.
+	 * Syntaxes that can't match the input, e.g. because their patterns start with different words, may be omitted.
+	 * @param key The key to obtain syntaxes from.
+	 * @param input The input that will be parsed.
+	 * @return An unmodifiable snapshot of the syntaxes registered under <code>key</code> that could match <code>input</code>,
+	 *  in the same order as {@link #syntaxes(Key)}.
+	 * @param <I> The syntax type.
+	 */
+	default <I extends SyntaxInfo<?>> @Unmodifiable Collection<I> syntaxes(Key<I> key, String input) {
+		return syntaxes(key);
+	}
+
 	/**
 	 * Registers a new syntax under a provided key.
 	 * @param key The key to register <code>info</code> under.
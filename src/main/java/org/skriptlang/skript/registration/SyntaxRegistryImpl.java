@@ -21,6 +21,12 @@ final class SyntaxRegistryImpl implements SyntaxRegistry {
 		return register(key).syntaxes();
 	}
 
+	@Override
+	@Unmodifiable
+	public <I extends SyntaxInfo<?>> Collection<I> syntaxes(Key<I> key, String input) {
+		return register(key).syntaxes(input);
+	}
+
 	@Override
 	public <I extends SyntaxInfo<?>> void register(Key<I> key, I info) {
 		register(key).add(info);
@@ -76,6 +82,11 @@ final class SyntaxRegistryImpl implements SyntaxRegistry {
 			return syntaxRegistry.syntaxes(key);
 		}
 
+		@Override
+		public @Unmodifiable <I extends SyntaxInfo<?>> Collection<I> syntaxes(Key<I> key, String input) {
+			return syntaxRegistry.syntaxes(key, input);
+		}
+
 		@Override
 		public <I extends SyntaxInfo<?>> void register(Key<I> key, I info) {
 			if (info.origin() == Origin.UNKNOWN) { // when origin is unspecified, add one
@@ -120,6 +131,11 @@ final class SyntaxRegistryImpl implements SyntaxRegistry {
 			return registry.syntaxes(key);
 		}
 
+		@Override
+		public @Unmodifiable <I extends SyntaxInfo<?>> Collection<I> syntaxes(Key<I> key, String input) {
+			return registry.syntaxes(key, input);
+		}
+
 		@Override
 		public <I extends SyntaxInfo<?>> void register(Key<I> key, I info) {
 			throw new UnsupportedOperationException("Cannot register syntax infos with an unmodifiable syntax registry.");
@@ -1,8 +1,10 @@
 package org.skriptlang.skript.util;
 
 import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.UnmodifiableView;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 
 /**
@@ -32,8 +34,15 @@ public class IndexTrackingTreeMap<V> extends TreeMap<String, V> {
 		super(comparator);
 	}
 
+	/**
+	 * The {@link #snapshotIterator() snapshot iterators} that still iterate this map directly,
+	 * and thus have to be detached before this map is modified.
+	 */
+	private @Nullable List<WeakReference<SnapshotIterator>> snapshotIterators;
+
 	@Override
 	public V put(String key, V value) {
+		detachSnapshotIterators();
 		V previous = super.put(key, value);
 
 		if (previous == null && value != null) {
@@ -56,12 +65,14 @@ public class IndexTrackingTreeMap<V> extends TreeMap<String, V> {
 		Preconditions.checkNotNull(value, "value");
 		String key = String.valueOf(nextIndex);
 
+		detachSnapshotIterators();
 		super.put(key, value);
 		handleInsert(key, nextIndex, value);
 	}
 
 	@Override
 	public V remove(Object key) {
+		detachSnapshotIterators();
 		V value = super.remove(key);
 		if (value != null && key instanceof String index)
 			handleRemove(index, value);
@@ -70,6 +81,7 @@ public class IndexTrackingTreeMap<V> extends TreeMap<String, V> {
 
 	@Override
 	public void clear() {
+		detachSnapshotIterators();
 		super.clear();
 		numericalIndices.clear();
 		mapIndices.clear();
@@ -77,6 +89,54 @@ public class IndexTrackingTreeMap<V> extends TreeMap<String, V> {
 		maxIndex = -1;
 	}
 
+	/**
+	 * Returns an iterator over the entries of this map as they were when this method was called.
+	 *
+	 * <p>Unlike iterating a copy of this map, the entries are only copied if this map is modified
+	 * through {@link #put(String, Object)}, {@link #add(Object)}, {@link #remove(Object)} or {@link #clear()}
+	 * before the iterator is exhausted. Until then, the iterator walks this map directly,
+	 * and the returned entries must not be kept after the next call to {@link Iterator#next()}.</p>
+	 *
+	 * <p>Like the map itself, the returned iterator is not thread-safe.
+	 * Several threads may create and use snapshot iterators of this map at the same time
+	 * as long as the map isn't modified meanwhile, e.g. while they hold the read lock of a read-write lock.</p>
+	 *
+	 * @return an iterator over a snapshot of the entries of this map
+	 */
+	public Iterator<Map.Entry<String, V>> snapshotIterator() {
+		SnapshotIterator iterator = new SnapshotIterator();
+		registerSnapshotIterator(iterator);
+		return iterator;
+	}
+
+	private synchronized void registerSnapshotIterator(SnapshotIterator iterator) {
+		if (snapshotIterators == null) {
+			snapshotIterators = new ArrayList<>(1);
+		} else {
+			snapshotIterators.removeIf(reference -> reference.get() == null);
+		}
+		snapshotIterators.add(new WeakReference<>(iterator));
+	}
+
+	private synchronized void unregisterSnapshotIterator(SnapshotIterator iterator) {
+		if (snapshotIterators != null)
+			snapshotIterators.removeIf(reference -> reference.get() == iterator);
+	}
+
+	private void detachSnapshotIterators() {
+		// iterators aren't registered while the map is modified, so there is no need to synchronize for this check
+		if (snapshotIterators == null || snapshotIterators.isEmpty())
+			return;
+		synchronized (this) {
+			for (WeakReference<SnapshotIterator> reference : snapshotIterators) {
+				SnapshotIterator iterator = reference.get();
+				if (iterator != null)
+					iterator.detach();
+			}
+			snapshotIterators.clear();
+		}
+	}
+
 	/**
 	 * Finds the first available positive integer index that is not currently
 	 * used as a key in this map.
@@ -176,4 +236,40 @@ public class IndexTrackingTreeMap<V> extends TreeMap<String, V> {
 		return codepoint >= '0' && codepoint <= '9';
 	}
 
+	/**
+	 * An iterator that walks the map directly until the map is about to be modified,
+	 * at which point it copies the entries it has not returned yet.
+	 */
+	private final class SnapshotIterator implements Iterator<Map.Entry<String, V>> {
+
+		private Iterator<Map.Entry<String, V>> iterator = entrySet().iterator();
+		private boolean detached;
+
+		@Override
+		public boolean hasNext() {
+			boolean hasNext = iterator.hasNext();
+			if (!hasNext && !detached) {
+				// No need to be copied anymore
+				detached = true;
+				unregisterSnapshotIterator(this);
+			}
+			return hasNext;
+		}
+
+		@Override
+		public Map.Entry<String, V> next() {
+			return iterator.next();
+		}
+
+		private void detach() {
+			if (detached)
+				return;
+			List<Map.Entry<String, V>> remaining = new ArrayList<>();
+			iterator.forEachRemaining(entry -> remaining.add(new SimpleImmutableEntry<>(entry)));
+			iterator = remaining.iterator();
+			detached = true;
+		}
+
+	}
+
 }
@@ -0,0 +1,78 @@
+package ch.njol.skript;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ScriptWatcherTest {
+
+	private static final long DEBOUNCE_MILLIS = 200;
+
+	private Path root;
+	private ScriptWatcher watcher;
+
+	@Before
+	public void setUp() throws IOException {
+		root = Files.createTempDirectory("scripts");
+		Files.createDirectory(root.resolve("folder"));
+		watcher = new ScriptWatcher(root, DEBOUNCE_MILLIS);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		watcher.close();
+		try (Stream<Path> paths = Files.walk(root)) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	@Test
+	public void testBurstIsCoalesced() throws Exception {
+		Path script = Files.writeString(root.resolve("folder").resolve("test.sk"), "on load:\n");
+		AtomicInteger changes = new AtomicInteger();
+		BlockingQueue<Boolean> notified = new LinkedBlockingQueue<>();
+		watcher.watch(script.toFile(), () -> {
+			changes.incrementAndGet();
+			notified.add(true);
+		});
+
+		// an editor saving a file in a few steps
+		for (int i = 0; i < 5; i++) {
+			Files.writeString(script, "on load:\n\tbroadcast \"" + i + "\"\n");
+			Thread.sleep(DEBOUNCE_MILLIS / 10);
+		}
+		assertNotNull("the change was not noticed", notified.poll(10, TimeUnit.SECONDS));
+		Thread.sleep(DEBOUNCE_MILLIS * 3);
+		assertEquals(1, changes.get());
+	}
+
+	@Test
+	public void testFallback() throws Exception {
+		BlockingQueue<File> changed = new LinkedBlockingQueue<>();
+		watcher.setFallback(changed::add);
+
+		// new folders are watched as well
+		Path folder = Files.createDirectory(root.resolve("new folder"));
+		Thread.sleep(DEBOUNCE_MILLIS);
+		Files.writeString(folder.resolve("notes.txt"), "not a script");
+		Path script = Files.writeString(folder.resolve("new.sk"), "on load:\n");
+
+		File file = changed.poll(10, TimeUnit.SECONDS);
+		assertNotNull("the new script was not noticed", file);
+		assertEquals(script.toAbsolutePath().normalize().toFile(), file);
+	}
+
+}
@@ -0,0 +1,189 @@
+package ch.njol.skript;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compares how long {@link SkriptEventHandler} takes to find the triggers of a called event,
+ * by streaming all registered triggers for every call as it used to, or by looking them up in a dispatch table.
+ * <p>
+ * Both lookups are copied from {@link SkriptEventHandler}, as it can only register triggers on a running server.
+ * Triggers are reduced to their priority, and their execution is left out, so only the lookup is measured.
+ * This is not a test, run it with its main method:
+ * 500 triggers are spread over 5 event classes and 3 priorities, and 3 of the classes are called at
+ * {@link EventPriority#NORMAL} priority, 1M times per round after two warm-up rounds.
+ */
+public final class SkriptEventHandlerBenchmark {
+
+	private static final int TRIGGERS = 500;
+	private static final int WARMUP_ROUNDS = 2, WARMUP_CALLS = 200_000;
+	private static final int ROUNDS = 3, CALLS = 1_000_000;
+
+	private record Trigger(EventPriority priority) { }
+
+	private final Multimap<Class<? extends Event>, Trigger> triggers = ArrayListMultimap.create();
+	private final Map<Class<? extends Event>, Trigger[][]> dispatchTables = new ConcurrentHashMap<>();
+	private final Map<Class<? extends Event>, HandlerList> handlerLists = new HashMap<>();
+
+	private HandlerList getHandlerList(Class<? extends Event> event) {
+		return handlerLists.computeIfAbsent(event, key -> {
+			try {
+				Method method = key.getMethod("getHandlerList");
+				return (HandlerList) method.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	private List<Trigger> getAllTriggers(Class<? extends Event> event) {
+		HandlerList eventHandlerList = getHandlerList(event);
+		return triggers.asMap().entrySet().stream()
+				.filter(entry -> entry.getKey().isAssignableFrom(event) && getHandlerList(entry.getKey()) == eventHandlerList)
+				.flatMap(entry -> entry.getValue().stream())
+				.distinct()
+				.toList();
+	}
+
+	/**
+	 * The lookup before dispatch tables.
+	 */
+	private int streamTriggers(Class<? extends Event> event, EventPriority priority) {
+		List<Trigger> eventTriggers = getAllTriggers(event).stream()
+				.filter(trigger -> trigger.priority() == priority)
+				.toList();
+		return eventTriggers.size();
+	}
+
+	/**
+	 * The lookup of {@link SkriptEventHandler}.
+	 */
+	private int tableTriggers(Class<? extends Event> event, EventPriority priority) {
+		return dispatchTables.computeIfAbsent(event, this::createDispatchTable)[priority.ordinal()].length;
+	}
+
+	private Trigger[][] createDispatchTable(Class<? extends Event> event) {
+		List<Trigger> eventTriggers = getAllTriggers(event);
+		EventPriority[] priorities = EventPriority.values();
+		Trigger[][] table = new Trigger[priorities.length][];
+		for (EventPriority priority : priorities) {
+			table[priority.ordinal()] = eventTriggers.stream()
+					.filter(trigger -> trigger.priority() == priority)
+					.toArray(Trigger[]::new);
+		}
+		return table;
+	}
+
+	public static void main(String[] args) {
+		SkriptEventHandlerBenchmark benchmark = new SkriptEventHandlerBenchmark();
+		List<Class<? extends Event>> events = List.of(
+			MoveEvent.class, TeleportEvent.class, DamageEvent.class, DamageByEntityEvent.class, ChatEvent.class);
+		Random random = new Random(1);
+		for (int i = 0; i < TRIGGERS; i++) {
+			Class<? extends Event> event = events.get(random.nextInt(events.size()));
+			benchmark.triggers.put(event, new Trigger(EventPriority.values()[random.nextInt(3)]));
+		}
+
+		List<Class<? extends Event>> called = List.of(MoveEvent.class, TeleportEvent.class, DamageByEntityEvent.class);
+		long found = 0;
+		for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+			int calls = round < WARMUP_ROUNDS ? WARMUP_CALLS : CALLS;
+
+			long start = System.nanoTime();
+			for (int i = 0; i < calls; i++)
+				found += benchmark.streamTriggers(called.get(i % called.size()), EventPriority.NORMAL);
+			long streamed = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < calls; i++)
+				found += benchmark.tableTriggers(called.get(i % called.size()), EventPriority.NORMAL);
+			long tabled = System.nanoTime() - start;
+
+			if (round >= WARMUP_ROUNDS) {
+				System.out.printf("round %d: streamed %.1f ns per event, dispatch table %.1f ns per event%n",
+					round - WARMUP_ROUNDS + 1, streamed / (double) calls, tabled / (double) calls);
+			}
+		}
+		// keeps the lookups from being optimized away
+		System.out.println("found " + found + " triggers");
+	}
+
+	public static class MoveEvent extends Event {
+
+		private static final HandlerList handlers = new HandlerList();
+
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+
+	}
+
+	/**
+	 * Has its own handler list, so triggers of {@link MoveEvent} don't run for it.
+	 */
+	public static class TeleportEvent extends MoveEvent {
+
+		private static final HandlerList handlers = new HandlerList();
+
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+
+	}
+
+	public static class DamageEvent extends Event {
+
+		private static final HandlerList handlers = new HandlerList();
+
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+
+	}
+
+	/**
+	 * Shares the handler list of {@link DamageEvent}, so triggers of both run for it.
+	 */
+	public static class DamageByEntityEvent extends DamageEvent { }
+
+	public static class ChatEvent extends Event {
+
+		private static final HandlerList handlers = new HandlerList();
+
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+
+	}
+
+}
@@ -0,0 +1,97 @@
+package ch.njol.skript;
+
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.Node;
+import ch.njol.skript.config.SectionNode;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StructureDiffTest {
+
+	private static final String SCRIPT = """
+		options:
+			greeting: hi
+
+		on join:
+			send "{@greeting}"
+
+		on quit:
+			send "bye"
+
+		on quit:
+			send "bye"
+		""";
+
+	private static List<Node> nodes(String script) {
+		try {
+			Config config = new Config(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)), "test.sk", true, false, ":");
+			List<Node> nodes = new ArrayList<>();
+			config.getMainNode().forEach(nodes::add);
+			return nodes;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Diffs the nodes of the loaded script, standing in for its structures, against the nodes of the changed script.
+	 */
+	private static StructureDiff<Node> diff(List<Node> loaded, List<Node> changed) {
+		return StructureDiff.diff(loaded, StructureDiff::hash, changed);
+	}
+
+	@Test
+	public void testMovedStructuresAreKept() {
+		List<Node> loaded = nodes(SCRIPT);
+		List<Node> changed = nodes("# a new comment\n\n" + SCRIPT);
+		StructureDiff<Node> diff = diff(loaded, changed);
+		assertTrue(diff.removed.isEmpty());
+		assertTrue(diff.added.isEmpty());
+		for (int i = 0; i < loaded.size(); i++)
+			assertSame(changed.get(i), diff.kept.get(loaded.get(i)));
+
+		// kept structures are moved to their new lines, including the lines in their sections
+		Node event = loaded.get(1);
+		Node line = event instanceof SectionNode section ? section.iterator().next() : null;
+		assertNotNull(line);
+		int oldLine = line.getLine();
+		event.renumber(changed.get(1));
+		assertEquals(changed.get(1).getLine(), event.getLine());
+		assertEquals(oldLine + 2, line.getLine());
+	}
+
+	@Test
+	public void testChangedStructures() {
+		List<Node> loaded = nodes(SCRIPT);
+		List<Node> changed = nodes(SCRIPT.replace("send \"{@greeting}\"", "send \"welcome\"") + """
+
+			command /test:
+				trigger:
+					send "test"
+			""");
+		StructureDiff<Node> diff = diff(loaded, changed);
+		assertEquals(List.of(loaded.get(1)), diff.removed);
+		assertEquals(List.of(changed.get(1), changed.get(4)), diff.added);
+		assertEquals(3, diff.kept.size());
+		assertSame(changed.get(0), diff.kept.get(loaded.get(0)));
+	}
+
+	@Test
+	public void testRemovedDuplicate() {
+		List<Node> loaded = nodes(SCRIPT);
+		// one of the two equal events is removed, the first one is kept
+		List<Node> changed = nodes(SCRIPT.substring(0, SCRIPT.lastIndexOf("on quit:")));
+		StructureDiff<Node> diff = diff(loaded, changed);
+		assertEquals(List.of(loaded.get(3)), diff.removed);
+		assertTrue(diff.added.isEmpty());
+		assertSame(changed.get(2), diff.kept.get(loaded.get(2)));
+	}
+
+}
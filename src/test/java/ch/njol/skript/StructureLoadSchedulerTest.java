@@ -0,0 +1,151 @@
+package ch.njol.skript;
+
+import ch.njol.util.OpenCloseable;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StructureLoadSchedulerTest {
+
+	private static final int SCRIPTS = 500;
+
+	/**
+	 * A structure of a generated script, like options, functions, commands or events.
+	 */
+	private record TestStructure(int script, int index, int priority, boolean parallel, boolean fails) { }
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	/**
+	 * The threads that loaded structures.
+	 */
+	private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * @return The structures of all scripts, sorted by priority like the script loader does.
+	 */
+	private static List<TestStructure> generate() {
+		List<TestStructure> structures = new ArrayList<>();
+		for (int script = 0; script < SCRIPTS; script++) {
+			int index = 0;
+			structures.add(new TestStructure(script, index++, 100, false, false)); // options
+			for (int i = 0; i < 3; i++)
+				structures.add(new TestStructure(script, index++, 400, true, (script + i) % 97 == 0)); // functions
+			if (script % 10 == 0)
+				structures.add(new TestStructure(script, index++, 500, false, false)); // commands
+			for (int i = 0; i < 5; i++)
+				structures.add(new TestStructure(script, index++, 600, true, (script * i) % 89 == 1)); // events
+		}
+		structures.sort(Comparator.comparingInt(TestStructure::priority));
+		return structures;
+	}
+
+	/**
+	 * Loads the structures, checking that no structure is loaded before all structures of a lower priority are loaded,
+	 * and that the structures of a script are loaded in order on a single thread at a time.
+	 */
+	private Set<TestStructure> load(List<TestStructure> structures, boolean parallel) {
+		Map<Integer, AtomicInteger> remaining = new ConcurrentHashMap<>();
+		for (TestStructure structure : structures)
+			remaining.computeIfAbsent(structure.priority(), priority -> new AtomicInteger()).incrementAndGet();
+		Map<Integer, Integer> lastIndex = new ConcurrentHashMap<>();
+		Set<Integer> loading = ConcurrentHashMap.newKeySet();
+		Thread caller = Thread.currentThread();
+		AtomicInteger opened = new AtomicInteger();
+
+		Set<TestStructure> failed = StructureLoadScheduler.load(structures,
+			Comparator.comparingInt(TestStructure::priority),
+			TestStructure::script,
+			TestStructure::parallel,
+			structure -> {
+				remaining.forEach((priority, count) -> {
+					if (priority < structure.priority())
+						assertEquals("Loaded " + structure + " before all structures of priority " + priority, 0, count.get());
+				});
+				assertTrue("Loaded two structures of script " + structure.script() + " at once", loading.add(structure.script()));
+				threads.add(Thread.currentThread());
+				try {
+					if (!structure.parallel())
+						assertSame(caller, Thread.currentThread());
+					assertTrue(lastIndex.getOrDefault(structure.script(), -1) < structure.index());
+					lastIndex.put(structure.script(), structure.index());
+
+					// simulate parsing a trigger
+					long hash = structure.hashCode();
+					for (int i = 0; i < 20_000; i++)
+						hash = hash * 31 + i;
+					return !structure.fails() && hash != 0;
+				} finally {
+					loading.remove(structure.script());
+					remaining.get(structure.priority()).decrementAndGet();
+				}
+			},
+			parallel ? executor : null,
+			new OpenCloseable() {
+				@Override
+				public void open() {
+					opened.incrementAndGet();
+				}
+
+				@Override
+				public void close() {
+					opened.decrementAndGet();
+				}
+			});
+
+		assertEquals(0, opened.get());
+		remaining.values().forEach(count -> assertEquals(0, count.get()));
+		return failed;
+	}
+
+	@Test
+	public void testParallelLoading() {
+		List<TestStructure> structures = generate();
+
+		Set<TestStructure> serialFailed = load(structures, false);
+		assertEquals(Set.of(Thread.currentThread()), threads);
+
+		Set<TestStructure> parallelFailed = load(structures, true);
+		assertTrue("No structures were loaded by the executor", threads.size() > 1);
+
+		assertFalse(serialFailed.isEmpty());
+		assertEquals(Set.copyOf(serialFailed), Set.copyOf(parallelFailed));
+	}
+
+	@Test
+	public void testMixedGroupIsSerial() {
+		// A structure that can't be loaded in parallel keeps its whole priority group on the calling thread
+		List<TestStructure> structures = List.of(
+			new TestStructure(0, 0, 600, true, false),
+			new TestStructure(1, 0, 600, false, false),
+			new TestStructure(2, 0, 600, true, false)
+		);
+		Thread caller = Thread.currentThread();
+		List<Integer> order = new ArrayList<>();
+		Set<TestStructure> failed = StructureLoadScheduler.load(structures, Comparator.comparingInt(TestStructure::priority),
+			TestStructure::script, TestStructure::parallel, structure -> {
+				assertSame(caller, Thread.currentThread());
+				order.add(structure.script());
+				return true;
+			}, executor, OpenCloseable.EMPTY);
+		assertTrue(failed.isEmpty());
+		assertEquals(List.of(0, 1, 2), order);
+	}
+
+}
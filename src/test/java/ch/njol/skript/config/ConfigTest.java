@@ -2,8 +2,12 @@ package ch.njol.skript.config;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -50,6 +54,45 @@ public class ConfigTest {
 		assertEquals(2, size);
 	}
 
+	@Test
+	public void testIndentation() throws IOException {
+		String source = """
+			on load:
+			    if true is true: # a comment
+			        broadcast "##1"
+			      broadcast "misaligned"
+			    broadcast "done"
+			command /test:
+			    trigger:
+			        stop
+			""";
+		Config config = new Config(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)), "test.sk", true, false, ":");
+		assertEquals("    ", config.getIndentation());
+
+		SectionNode load = (SectionNode) config.getMainNode().get("on load");
+		assertNotNull(load);
+		List<Node> nodes = nodes(load);
+		assertEquals(2, nodes.size());
+		assertEquals("broadcast \"done\"", nodes.get(1).getKey());
+		assertEquals(5, nodes.get(1).getLine());
+
+		// the misaligned line is invalid in the innermost section
+		List<Node> condition = nodes((SectionNode) nodes.get(0));
+		assertEquals(2, condition.size());
+		assertEquals("broadcast \"##1\"", condition.get(0).getKey());
+		assertTrue(condition.get(1) instanceof InvalidNode);
+
+		Node trigger = config.getNodeAt("command /test", "trigger");
+		assertTrue(trigger instanceof SectionNode);
+		assertEquals("stop", ((SectionNode) trigger).iterator().next().getKey());
+	}
+
+	private static List<Node> nodes(SectionNode section) {
+		List<Node> nodes = new ArrayList<>();
+		section.fullIterator().forEachRemaining(nodes::add);
+		return nodes;
+	}
+
 	private Config getConfig(String name) {
 		try (InputStream resource = getClass().getResourceAsStream("/" + name + ".sk")) {
 			return new Config(resource, name + ".sk", false, false, ":");
@@ -4,8 +4,15 @@ import org.junit.Test;
 
 import ch.njol.util.NonNullPair;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertFalse;
@@ -60,6 +67,45 @@ public class NodeTest {
 
 	}
 
+	@Test
+	public void testDigest() {
+		String script = "on join:\n\tsend \"hi\"\n\non quit:\n\tsend \"bye\"\n";
+		List<String> original = digests(script);
+		assertEquals(2, original.size());
+		assertNotEquals(original.get(0), original.get(1));
+
+		// comments are ignored
+		assertEquals(original, digests(script.replace("\"hi\"", "\"hi\" # greeting")));
+
+		// only the changed section differs
+		List<String> changed = digests(script.replace("bye", "goodbye"));
+		assertEquals(original.get(0), changed.get(0));
+		assertNotEquals(original.get(1), changed.get(1));
+
+		// a section that moved to another line doesn't differ
+		assertEquals(original, digests("\n\n" + script));
+	}
+
+	private static List<String> digests(String script) {
+		Config config;
+		try {
+			config = new Config(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)), "test.sk", true, false, ":");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		List<String> digests = new ArrayList<>();
+		for (Node node : config.getMainNode()) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				node.digest(digest);
+				digests.add(HexFormat.of().formatHex(digest.digest()));
+			} catch (NoSuchAlgorithmException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return digests;
+	}
+
 	private Config getConfig(String name) {
 		try (InputStream resource = getClass().getResourceAsStream("/" + name + ".sk")) {
 			return new Config(resource, name + ".sk", false, false, ":");
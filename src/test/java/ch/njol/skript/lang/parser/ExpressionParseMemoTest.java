@@ -0,0 +1,66 @@
+package ch.njol.skript.lang.parser;
+
+import ch.njol.skript.lang.TriggerItem;
+import ch.njol.skript.lang.TriggerSection;
+import ch.njol.util.Kleenean;
+import org.bukkit.event.Event;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+import org.skriptlang.skript.lang.structure.Structure;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ExpressionParseMemoTest {
+
+	private static final class TestSection extends TriggerSection {
+
+		@Override
+		protected @Nullable TriggerItem walk(Event event) {
+			return null;
+		}
+
+		@Override
+		public String toString(@Nullable Event event, boolean debug) {
+			return "test section";
+		}
+
+	}
+
+	@SafeVarargs
+	private static ExpressionParseMemo.Key key(String input, Kleenean delay, Class<? extends Event>... events) {
+		return new ExpressionParseMemo.Key(input, new Class[] {String.class, null}, Structure.class, events, List.of(), delay);
+	}
+
+	@Test
+	public void testKey() {
+		ExpressionParseMemo.Key key = key("player's uuid", Kleenean.FALSE, PlayerJoinEvent.class);
+		assertEquals(key, key("player's uuid", Kleenean.FALSE, PlayerJoinEvent.class));
+		assertEquals(key.hashCode(), key("player's uuid", Kleenean.FALSE, PlayerJoinEvent.class).hashCode());
+
+		// anything that can change how the input is parsed must be part of the key
+		assertNotEquals(key, key("player's name", Kleenean.FALSE, PlayerJoinEvent.class));
+		assertNotEquals(key, key("player's uuid", Kleenean.TRUE, PlayerJoinEvent.class));
+		assertNotEquals(key, key("player's uuid", Kleenean.FALSE, PlayerQuitEvent.class));
+		assertNotEquals(key, new ExpressionParseMemo.Key("player's uuid", new Class[] {Object.class}, Structure.class,
+			new Class[] {PlayerJoinEvent.class}, List.of(), Kleenean.FALSE));
+	}
+
+	@Test
+	public void testSectionsByIdentity() {
+		TriggerSection loop = new TestSection();
+		ExpressionParseMemo.Key key = new ExpressionParseMemo.Key("loop-value", new Class[] {Object.class}, null,
+			null, List.of(loop), Kleenean.FALSE);
+		assertEquals(key, new ExpressionParseMemo.Key("loop-value", new Class[] {Object.class}, null,
+			null, List.of(loop), Kleenean.FALSE));
+		assertNotEquals(key, new ExpressionParseMemo.Key("loop-value", new Class[] {Object.class}, null,
+			null, List.of(), Kleenean.FALSE));
+		// a loop elsewhere may loop over something else
+		assertNotEquals(key, new ExpressionParseMemo.Key("loop-value", new Class[] {Object.class}, null,
+			null, List.of(new TestSection()), Kleenean.FALSE));
+	}
+
+}
@@ -0,0 +1,63 @@
+package ch.njol.skript.lang.parser;
+
+import ch.njol.skript.config.Config;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ParseHintCacheTest {
+
+	private static Config config(String script) {
+		try {
+			return new Config(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)), "test.sk", true, false, ":");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static ParseHintCache copy(ParseHintCache cache, String fingerprint) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		cache.write(out);
+		ParseHintCache copy = new ParseHintCache(fingerprint);
+		copy.read(new ByteArrayInputStream(out.toByteArray()));
+		return copy;
+	}
+
+	@Test
+	public void testHash() {
+		String script = "on load:\n\tbroadcast \"hi\"\n\tset {x} to 1\n";
+		assertEquals(ParseHintCache.hash(config(script)), ParseHintCache.hash(config(script)));
+		// Comments don't change how a script is parsed
+		assertEquals(ParseHintCache.hash(config(script)), ParseHintCache.hash(config(script.replace("1\n", "1 # one\n"))));
+		assertNotEquals(ParseHintCache.hash(config(script)), ParseHintCache.hash(config(script.replace("1", "2"))));
+		assertNotEquals(ParseHintCache.hash(config(script)), ParseHintCache.hash(config(script.replace("\tset", "set"))));
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Config config = config("on load:\n\tbroadcast \"hi\"\n");
+		ParseHintCache cache = new ParseHintCache("fingerprint");
+		ParseHints hints = cache.hints(config);
+		assertNull(hints.getHint("2:effect:broadcast \"hi\""));
+		hints.parsed.put("2:effect:broadcast \"hi\"", "ch.njol.skript.effects.EffBroadcast");
+		hints.parsed.put("2:" + "x".repeat(100_000), "ch.njol.skript.effects.EffBroadcast");
+		cache.update("test.sk", hints);
+
+		ParseHintCache copy = copy(cache, "fingerprint");
+		hints = copy.hints(config);
+		assertEquals("ch.njol.skript.effects.EffBroadcast", hints.getHint("2:effect:broadcast \"hi\""));
+		// Keys that are too long to be written are skipped
+		assertNull(hints.getHint("2:" + "x".repeat(100_000)));
+
+		// Hints of changed scripts are not used
+		assertNull(copy.hints(config("on load:\n\tbroadcast \"hey\"\n")).getHint("2:effect:broadcast \"hi\""));
+		// Hints recorded with other syntaxes are not used
+		assertNull(copy(cache, "other").hints(config).getHint("2:effect:broadcast \"hi\""));
+	}
+
+}
@@ -0,0 +1,127 @@
+package ch.njol.skript.lang.parser;
+
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.SyntaxElement;
+import ch.njol.skript.lang.parser.ParsingStack.Element;
+import ch.njol.util.Kleenean;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Test;
+import org.skriptlang.skript.registration.SyntaxInfo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParseProfilerTest {
+
+	public static final class MockSyntaxElement implements SyntaxElement {
+
+		@Override
+		public boolean init(Expression<?>[] expressions, int matchedPattern, Kleenean isDelayed, ParseResult parseResult) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public @NotNull String getSyntaxTypeName() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+	private static final SyntaxInfo<MockSyntaxElement> INFO = SyntaxInfo.builder(MockSyntaxElement.class)
+		.addPatterns("give %objects%", "%object% named %string%")
+		.build();
+
+	private ParseProfiler profiler;
+
+	@After
+	public void tearDown() {
+		if (profiler != null)
+			profiler.stop();
+	}
+
+	@Test
+	public void testSingleProfiler() {
+		profiler = ParseProfiler.start();
+		assertNotNull(profiler);
+		assertSame(profiler, ParseProfiler.getActive());
+		assertNull(ParseProfiler.start());
+
+		profiler.stop();
+		assertNull(ParseProfiler.getActive());
+		profiler = ParseProfiler.start();
+		assertNotNull(profiler);
+	}
+
+	@Test
+	public void testNestedAttempts() throws Exception {
+		profiler = ParseProfiler.start();
+		assertNotNull(profiler);
+
+		ParseProfiler.Frame outer = profiler.enter(new Element(INFO, 0));
+		ParseProfiler.Frame inner = profiler.enter(new Element(INFO, 1));
+		Thread.sleep(5);
+		profiler.exit(inner, true);
+		profiler.exit(outer, false);
+		profiler.stop();
+
+		JsonObject json = profiler.toJson();
+		JsonArray syntaxes = json.getAsJsonArray("syntaxes");
+		assertEquals(2, syntaxes.size());
+		JsonObject outerSyntax = null, innerSyntax = null;
+		for (int i = 0; i < syntaxes.size(); i++) {
+			JsonObject syntax = syntaxes.get(i).getAsJsonObject();
+			assertEquals(1, syntax.get("attempts").getAsLong());
+			if (syntax.get("pattern index").getAsInt() == 0) {
+				outerSyntax = syntax;
+			} else {
+				innerSyntax = syntax;
+			}
+		}
+		assertNotNull(outerSyntax);
+		assertNotNull(innerSyntax);
+		assertEquals(0, outerSyntax.get("matches").getAsLong());
+		assertEquals(1, innerSyntax.get("matches").getAsLong());
+		assertTrue(innerSyntax.get("time").getAsLong() >= 5_000_000);
+
+		// only the outermost attempt counts for the line, and the nested attempt is not counted twice
+		JsonArray lines = json.getAsJsonArray("lines");
+		assertEquals(1, lines.size());
+		JsonObject line = lines.get(0).getAsJsonObject();
+		assertEquals(1, line.get("attempts").getAsLong());
+		assertEquals(0, line.get("matches").getAsLong());
+		assertTrue(line.get("time").getAsLong() >= outerSyntax.get("time").getAsLong() + innerSyntax.get("time").getAsLong());
+	}
+
+	@Test
+	public void testFoldedStacks() throws IOException {
+		profiler = ParseProfiler.start();
+		assertNotNull(profiler);
+		ParseProfiler.Frame outer = profiler.enter(new Element(INFO, 0));
+		ParseProfiler.Frame inner = profiler.enter(new Element(INFO, 1));
+		// an exception while parsing the nested pattern skips its exit
+		profiler.exit(outer, false);
+		assertNotNull(inner);
+		profiler.stop();
+
+		Path directory = Files.createTempDirectory("profiles");
+		try {
+			Path json = profiler.write(directory, "profile");
+			assertTrue(Files.isRegularFile(json));
+			for (String stack : Files.readAllLines(directory.resolve("profile.folded"))) {
+				assertTrue(stack, stack.matches("[^;]+;line -?\\d+;MockSyntaxElement#0 \\d+"));
+			}
+		} finally {
+			for (Path file : List.of(directory.resolve("profile.json"), directory.resolve("profile.folded"), directory))
+				Files.deleteIfExists(file);
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package ch.njol.skript.lang.util;
+
+import ch.njol.skript.SkriptAPIException;
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.util.Kleenean;
+import org.bukkit.event.Event;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SimpleExpressionTest {
+
+	private static class Values extends SimpleExpression<String> {
+
+		private final String @Nullable [] values;
+		private final boolean and;
+
+		Values(boolean and, String @Nullable ... values) {
+			this.values = values;
+			this.and = and;
+		}
+
+		@Override
+		protected String @Nullable [] get(Event event) {
+			return values;
+		}
+
+		@Override
+		public boolean getAnd() {
+			return and;
+		}
+
+		@Override
+		public boolean isSingle() {
+			return values == null || values.length <= 1;
+		}
+
+		@Override
+		public Class<? extends String> getReturnType() {
+			return String.class;
+		}
+
+		@Override
+		public boolean init(Expression<?>[] expressions, int matchedPattern, Kleenean isDelayed, ParseResult parseResult) {
+			return true;
+		}
+
+		@Override
+		public String toString(@Nullable Event event, boolean debug) {
+			return "values";
+		}
+
+	}
+
+	@Test
+	public void testGetSingle() {
+		assertNull(new Values(true, (String[]) null).getSingle(null));
+		assertNull(new Values(true).getSingle(null));
+		assertNull(new Values(true, null, null).getSingle(null));
+		assertEquals("a", new Values(true, "a").getSingle(null));
+		assertEquals("b", new Values(true, null, "b", null).getSingle(null));
+		assertTrue(List.of("a", "b").contains(new Values(false, "a", null, "b").getSingle(null)));
+	}
+
+	@Test(expected = SkriptAPIException.class)
+	public void testGetSingleOfMultipleValues() {
+		new Values(true, "a", "b").getSingle(null);
+	}
+
+}
@@ -0,0 +1,111 @@
+package ch.njol.skript.patterns;
+
+import ch.njol.skript.lang.Expression;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PatternAutomatonTest {
+
+	private static PatternAutomaton build(String pattern) {
+		PatternAutomaton automaton = PatternAutomaton.build(PatternCompiler.compile(pattern, new AtomicInteger()));
+		assertNotNull(automaton);
+		return automaton;
+	}
+
+	@Test
+	public void testLiterals() {
+		PatternAutomaton automaton = build("hello world");
+		assertTrue(automaton.accepts("hello world"));
+		assertTrue(automaton.accepts("HELLO World"));
+		assertFalse(automaton.accepts("hello"));
+		assertFalse(automaton.accepts("helloworld"));
+		assertFalse(automaton.accepts("hello  world"));
+		assertFalse(automaton.accepts("hello world!"));
+	}
+
+	@Test
+	public void testOptionalsAndChoices() {
+		PatternAutomaton automaton = build("[the] (first|last:last) [one]");
+		assertTrue(automaton.accepts("the first one"));
+		assertTrue(automaton.accepts("last"));
+		assertTrue(automaton.accepts("the last"));
+		assertFalse(automaton.accepts("the one"));
+		assertFalse(automaton.accepts("first last"));
+		assertFalse(automaton.accepts("thefirst"));
+	}
+
+	@Test
+	public void testExpressions() {
+		PatternAutomaton automaton = build("give %itemtypes% to %players%");
+		assertTrue(automaton.accepts("give 5 stone to all players"));
+		assertTrue(automaton.accepts("give {_items::*} to the player"));
+		assertFalse(automaton.accepts("give 5 stone"));
+		assertFalse(automaton.accepts("take 5 stone to all players"));
+
+		automaton = build("%numbers% [in] rad[ian][s]");
+		assertTrue(automaton.accepts("5 rad"));
+		assertTrue(automaton.accepts("{_x} in radians"));
+		assertFalse(automaton.accepts("5 in degrees"));
+
+		assertNull(PatternAutomaton.build(PatternCompiler.compile("%number%", new AtomicInteger())));
+	}
+
+	/**
+	 * Checks that the automaton accepts every input that a random pattern matches.
+	 */
+	@Test
+	public void testMatchesAreAccepted() {
+		Random random = new Random(0);
+		String[] words = {"a", "b", "ab", "set", " ", "é"};
+		int matched = 0;
+		for (int i = 0; i < 2000; i++) {
+			String pattern = randomPattern(random, words, 0);
+			PatternElement first = PatternCompiler.compile(pattern, new AtomicInteger());
+			PatternAutomaton automaton = PatternAutomaton.build(first);
+			if (automaton == null)
+				continue;
+			for (int j = 0; j < 50; j++) {
+				StringBuilder input = new StringBuilder();
+				int length = 1 + random.nextInt(4);
+				for (int k = 0; k < length; k++) {
+					String word = words[random.nextInt(words.length)];
+					input.append(random.nextBoolean() ? word : word.toUpperCase());
+					if (random.nextBoolean())
+						input.append(' ');
+				}
+				String expr = input.toString().trim();
+
+				MatchResult matchResult = new MatchResult();
+				matchResult.expr = expr;
+				matchResult.expressions = new Expression[0];
+				if (first.match(expr, matchResult) != null) {
+					matched++;
+					assertTrue("'" + pattern + "' matches '" + expr + "'", automaton.accepts(expr));
+				}
+			}
+		}
+		assertTrue(matched > 0);
+	}
+
+	private static String randomPattern(Random random, String[] words, int depth) {
+		StringBuilder pattern = new StringBuilder();
+		int length = 1 + random.nextInt(3);
+		for (int i = 0; i < length; i++) {
+			switch (depth > 2 ? 0 : random.nextInt(4)) {
+				case 0 -> pattern.append(words[random.nextInt(words.length)]);
+				case 1 -> pattern.append('[').append(randomPattern(random, words, depth + 1)).append(']');
+				case 2 -> pattern.append('(').append(randomPattern(random, words, depth + 1))
+					.append('|').append(randomPattern(random, words, depth + 1)).append(')');
+				case 3 -> pattern.append("(").append(randomPattern(random, words, depth + 1)).append("|)");
+			}
+			if (random.nextBoolean())
+				pattern.append(' ');
+		}
+		return pattern.toString();
+	}
+
+}
@@ -6,6 +6,7 @@ import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import org.junit.Test;
 
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
@@ -346,4 +347,59 @@ public class PatternMatchingTest {
 		assertNotNull("Should parse 'in strict proper case'", result);
 	}
 
+	// ---- computeFirstWords tests ----
+
+	@Test
+	public void testFirstWordsLiteral() {
+		assertEquals(Set.of("teleport"), compilePattern("teleport").getFirstWords());
+		assertEquals(Set.of("send"), compilePattern("send [the] message %string%").getFirstWords());
+		assertEquals(Set.of("send"), compilePattern("SEND %string%").getFirstWords());
+	}
+
+	@Test
+	public void testFirstWordsOptionalAndChoice() {
+		assertEquals(Set.of("the", "name"), compilePattern("[the] name of %object%").getFirstWords());
+		assertEquals(Set.of("add", "give"), compilePattern("(add|give) %objects% to %objects%").getFirstWords());
+		assertEquals(Set.of("add", "remove"), compilePattern("(1:add|2:remove) %objects%").getFirstWords());
+		assertEquals(Set.of("all", "players"), compilePattern("[all [the]] players").getFirstWords());
+		assertEquals(Set.of("a", "b", "c"), compilePattern("[(a|b)] c").getFirstWords());
+	}
+
+	@Test
+	public void testFirstWordsUnknown() {
+		// starts with an expression, possibly after optional words
+		assertNull(compilePattern("%objects% (is|are) set").getFirstWords());
+		assertNull(compilePattern("[the] %object%").getFirstWords());
+		assertNull(compilePattern("<.+> test").getFirstWords());
+		// the first word is split across elements
+		assertNull(compilePattern("hel(lo|p)").getFirstWords());
+		assertNull(compilePattern("[un]load").getFirstWords());
+		// can match an empty input
+		assertNull(compilePattern("[test]").getFirstWords());
+	}
+
+	@Test
+	public void testFirstWordsMatchInput() {
+		String[] patterns = {"[the] name", "(add|give) it", "[un]load", "[all [the]] players", "(a|b)[ ]c"};
+		String[] inputs = {"the name", "name", "add it", "give it", "unload", "load", "all the players", "players",
+			"all players", "a c", "ac", "b c", "bc"};
+		for (String pattern : patterns) {
+			SkriptPattern skriptPattern = compilePattern(pattern);
+			Set<String> firstWords = skriptPattern.getFirstWords();
+			if (firstWords == null)
+				continue;
+			for (String input : inputs) {
+				if (skriptPattern.match(input) != null)
+					assertTrue(pattern + " matches " + input, firstWords.contains(SkriptPattern.getFirstWord(input)));
+			}
+		}
+	}
+
+	@Test
+	public void testGetFirstWord() {
+		assertEquals("send", SkriptPattern.getFirstWord("  Send \"hi\" to player"));
+		assertEquals("stop", SkriptPattern.getFirstWord("STOP"));
+		assertEquals("", SkriptPattern.getFirstWord(""));
+	}
+
 }
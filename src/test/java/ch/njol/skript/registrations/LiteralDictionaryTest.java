@@ -0,0 +1,66 @@
+package ch.njol.skript.registrations;
+
+import ch.njol.skript.classes.Parser;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class LiteralDictionaryTest {
+
+	private static Parser<String> parser(@Nullable Set<String> names) {
+		return new Parser<>() {
+			@Override
+			public @Nullable Set<String> getLiteralNames() {
+				return names;
+			}
+
+			@Override
+			public String toString(String o, int flags) {
+				return o;
+			}
+
+			@Override
+			public String toVariableNameString(String o) {
+				return o;
+			}
+		};
+	}
+
+	@Test
+	public void testLookup() {
+		Parser<String> colours = parser(Set.of("red", "blue", "orange"));
+		Parser<String> fruits = parser(Set.of("apple", "orange"));
+		Parser<String> numbers = parser(null);
+		LiteralDictionary dictionary = new LiteralDictionary(List.of(colours, numbers, fruits));
+
+		assertArrayEquals(new Parser[] {colours}, dictionary.lookup("Red"));
+		assertArrayEquals(new Parser[] {fruits}, dictionary.lookup("APPLE"));
+		// parsers sharing a name keep their parsing order
+		assertArrayEquals(new Parser[] {colours, fruits}, dictionary.lookup("orange"));
+		assertEquals(0, dictionary.lookup("5").length);
+		assertEquals(0, LiteralDictionary.EMPTY.lookup("red").length);
+	}
+
+	@Test
+	public void testShouldParse() {
+		Parser<String> colours = parser(Set.of("red"));
+		Parser<String> numbers = parser(null);
+		Parser<String> unknown = parser(Set.of("green"));
+		LiteralDictionary dictionary = new LiteralDictionary(List.of(colours, numbers));
+
+		Parser<?>[] red = dictionary.lookup("red");
+		assertTrue(dictionary.shouldParse(red, colours));
+		assertTrue(dictionary.shouldParse(red, numbers));
+
+		Parser<?>[] five = dictionary.lookup("5");
+		assertFalse(dictionary.shouldParse(five, colours));
+		assertTrue(dictionary.shouldParse(five, numbers));
+		// parsers that weren't in the dictionary when it was built are always called
+		assertTrue(dictionary.shouldParse(five, unknown));
+	}
+
+}
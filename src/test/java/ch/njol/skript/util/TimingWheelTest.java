@@ -0,0 +1,65 @@
+package ch.njol.skript.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+	@Test
+	public void testOrder() {
+		TimingWheel<String> wheel = new TimingWheel<>(4);
+		// "a" waits for more than a full turn of the wheel, so it shares its bucket with items that are due earlier
+		wheel.schedule("a", 6);
+		wheel.schedule("b", 2);
+		wheel.schedule("c", 1);
+		wheel.schedule("d", 6);
+		assertEquals(4, wheel.size());
+
+		List<List<String>> released = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			List<String> tick = new ArrayList<>();
+			wheel.tick(tick::add);
+			released.add(tick);
+			if (i == 1) // scheduled after "a" and "d", for the same tick
+				wheel.schedule("e", 4);
+		}
+
+		assertEquals(List.of(
+			List.of("c"),
+			List.of("b"),
+			List.of(),
+			List.of(),
+			List.of(),
+			List.of("a", "d", "e"),
+			List.of()
+		), released);
+		assertEquals(0, wheel.size());
+		assertEquals(7, wheel.getTick());
+	}
+
+	@Test
+	public void testScheduleWhileTicking() {
+		TimingWheel<Integer> wheel = new TimingWheel<>(8);
+		List<Long> ticks = new ArrayList<>();
+		wheel.schedule(3, 1);
+		for (int i = 0; i < 10; i++) {
+			wheel.tick(remaining -> {
+				ticks.add(wheel.getTick());
+				// like a loop with a 'wait 1 tick' in it
+				if (remaining > 0)
+					wheel.schedule(remaining - 1, 1);
+			});
+		}
+		assertEquals(List.of(1L, 2L, 3L, 4L), ticks);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoDelay() {
+		new TimingWheel<>(8).schedule("now", 0);
+	}
+
+}
@@ -0,0 +1,117 @@
+package ch.njol.skript.variables;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FlatFileLoaderTest {
+
+	private static List<FlatFileLoader.DecodedLine> loadAll(File file, int workers) throws IOException {
+		List<FlatFileLoader.DecodedLine> lines = new ArrayList<>();
+		try (FlatFileLoader loader = new FlatFileLoader(file.toPath(), workers, (type, data) -> null)) {
+			List<FlatFileLoader.DecodedLine> batch;
+			while ((batch = loader.nextBatch()) != null)
+				lines.addAll(batch);
+			assertNull(loader.nextBatch());
+		}
+		return lines;
+	}
+
+	@Test
+	public void testOrderAndDecoding() throws IOException {
+		File file = File.createTempFile("variables", ".csv");
+		file.deleteOnExit();
+
+		int variables = FlatFileLoader.BATCH_SIZE * 5 + 7;
+		List<String> content = new ArrayList<>();
+		content.add("# version: 2.10.0");
+		content.add("");
+		for (int i = 0; i < variables; i++)
+			content.add("var::" + i + ", long, " + FlatFileStorage.encode(new byte[] {(byte) i, (byte) (i >> 8)}));
+		content.add("invalid, line");
+		Files.write(file.toPath(), content, FlatFileStorage.FILE_CHARSET);
+
+		List<FlatFileLoader.DecodedLine> lines = loadAll(file, 4);
+		assertEquals(variables + 1, lines.size());
+		for (int i = 0; i < variables; i++) {
+			FlatFileLoader.DecodedLine line = lines.get(i);
+			assertTrue(line.isValid());
+			assertEquals(i + 3, line.lineNumber);
+			assertNotNull(line.columns);
+			assertEquals("var::" + i, line.columns[0]);
+			assertEquals("long", line.columns[1]);
+			assertArrayEquals(new byte[] {(byte) i, (byte) (i >> 8)}, line.data);
+		}
+
+		FlatFileLoader.DecodedLine invalid = lines.get(variables);
+		assertFalse(invalid.isValid());
+		assertEquals(variables + 3, invalid.lineNumber);
+		assertEquals("invalid, line", invalid.line);
+	}
+
+	@Test
+	public void testLegacy() throws IOException {
+		File file = File.createTempFile("variables", ".csv");
+		file.deleteOnExit();
+
+		List<String> content = new ArrayList<>();
+		content.add("# version: 2.0");
+		content.add("old, string, value");
+		Files.write(file.toPath(), content, FlatFileStorage.FILE_CHARSET);
+
+		try (FlatFileLoader loader = new FlatFileLoader(file.toPath(), 1, (type, data) -> "deserialized")) {
+			List<FlatFileLoader.DecodedLine> batch = loader.nextBatch();
+			assertNotNull(batch);
+			assertEquals(1, batch.size());
+			assertNull(batch.get(0).data);
+			assertNull(batch.get(0).value);
+			assertNull(loader.nextBatch());
+			assertTrue(loader.isLegacy());
+		}
+	}
+
+	@Test
+	public void testDeserializationOnWorkers() throws IOException {
+		File file = File.createTempFile("variables", ".csv");
+		file.deleteOnExit();
+
+		List<String> content = new ArrayList<>();
+		content.add("# version: 2.10.0");
+		content.add("async, long, " + FlatFileStorage.encode(new byte[] {1}));
+		content.add("sync, location, " + FlatFileStorage.encode(new byte[] {2}));
+		content.add("deleted, null, ");
+		Files.write(file.toPath(), content, FlatFileStorage.FILE_CHARSET);
+
+		List<Thread> threads = new ArrayList<>();
+		try (FlatFileLoader loader = new FlatFileLoader(file.toPath(), 2, (type, data) -> {
+			synchronized (threads) {
+				threads.add(Thread.currentThread());
+			}
+			// Locations have to be deserialized on the loading thread
+			return type.equals("long") ? (long) data[0] : null;
+		})) {
+			List<FlatFileLoader.DecodedLine> batch = loader.nextBatch();
+			assertNotNull(batch);
+			assertEquals(3, batch.size());
+			assertEquals(1L, batch.get(0).value);
+			assertNull(batch.get(1).value);
+			assertArrayEquals(new byte[] {2}, batch.get(1).data);
+			assertNull(batch.get(2).value);
+		}
+		assertEquals(2, threads.size());
+		assertFalse(threads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	public void testMissingFile() {
+		File file = new File("does-not-exist-" + System.nanoTime() + ".csv");
+		assertThrows(IOException.class, () -> loadAll(file, 2));
+	}
+
+}
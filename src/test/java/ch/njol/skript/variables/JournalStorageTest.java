@@ -0,0 +1,95 @@
+package ch.njol.skript.variables;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JournalStorageTest {
+
+	private static ByteBuffer records(byte[]... records) {
+		int length = 0;
+		for (byte[] record : records)
+			length += record.length;
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		for (byte[] record : records)
+			buffer.put(record);
+		buffer.flip();
+		return buffer;
+	}
+
+	@Test
+	public void testRoundTrip() {
+		byte[] data = {0x01, 0x7F, -0x80};
+		ByteBuffer buffer = records(
+			JournalStorage.encodeRecord("a::1", "string", data),
+			JournalStorage.encodeRecord("ünïcode", "long", new byte[0]),
+			JournalStorage.encodeRecord("a::1", null, null)
+		);
+
+		List<String> names = new ArrayList<>();
+		List<SerializedVariable.Value> values = new ArrayList<>();
+		int decoded = JournalStorage.decodeRecords(buffer, (name, value) -> {
+			names.add(name);
+			values.add(value);
+		});
+
+		assertEquals(buffer.limit(), decoded);
+		assertEquals(Arrays.asList("a::1", "ünïcode", "a::1"), names);
+		assertEquals("string", values.get(0).type);
+		assertArrayEquals(data, values.get(0).data);
+		assertEquals("long", values.get(1).type);
+		assertEquals(0, values.get(1).data.length);
+		assertNull(values.get(2));
+	}
+
+	@Test
+	public void testDamagedTail() {
+		byte[] first = JournalStorage.encodeRecord("a", "string", new byte[] {1, 2, 3});
+		byte[] second = JournalStorage.encodeRecord("b", "string", new byte[] {4, 5, 6});
+
+		// Truncated while writing the second record
+		List<String> names = new ArrayList<>();
+		ByteBuffer truncated = records(first, Arrays.copyOf(second, second.length - 2));
+		assertEquals(first.length, JournalStorage.decodeRecords(truncated, (name, value) -> names.add(name)));
+		assertEquals(Arrays.asList("a"), names);
+
+		// Corrupted data in the second record
+		names.clear();
+		second[second.length - 1] ^= 0x10;
+		ByteBuffer corrupted = records(first, second);
+		assertEquals(first.length, JournalStorage.decodeRecords(corrupted, (name, value) -> names.add(name)));
+		assertEquals(Arrays.asList("a"), names);
+	}
+
+	@Test
+	public void testReadJournal() throws IOException {
+		byte[] first = JournalStorage.encodeRecord("a", "string", new byte[] {1, 2, 3});
+		byte[] second = JournalStorage.encodeRecord("b", null, null);
+		byte[] third = JournalStorage.encodeRecord("c", "string", new byte[] {4, 5, 6});
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		JournalStorage.writeHeader(output);
+		output.write(first);
+		output.write(second);
+		output.write(third, 0, third.length - 2); // truncated while writing the third record
+		byte[] journal = bytes.toByteArray();
+
+		List<String> names = new ArrayList<>();
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(journal));
+		long validLength = JournalStorage.readJournal(input, journal.length, (name, value) -> names.add(name));
+		assertEquals(JournalStorage.HEADER_SIZE + first.length + second.length, validLength);
+		assertEquals(Arrays.asList("a", "b"), names);
+	}
+
+}
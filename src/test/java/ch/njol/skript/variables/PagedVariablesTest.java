@@ -0,0 +1,192 @@
+package ch.njol.skript.variables;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class PagedVariablesTest {
+
+	/**
+	 * The variables in the storage, and the variables in memory.
+	 */
+	private final Map<String, Object> storage = new TreeMap<>();
+	private final Map<String, Object> memory = new HashMap<>();
+	private final List<String> loads = new ArrayList<>();
+
+	private PagedVariables paged(int maxSize, long expiry) {
+		return new PagedVariables(name -> {
+			loads.add(name);
+			Map<String, Object> page = new HashMap<>();
+			String prefix = name.endsWith("::*") ? name.substring(0, name.length() - 1) : null;
+			storage.forEach((variable, value) -> {
+				if (prefix != null ? variable.startsWith(prefix) : variable.equals(name))
+					page.put(variable, value);
+			});
+			return page;
+		}, (name, value) -> {
+			if (name.endsWith("::*")) {
+				// Deleting a list deletes all of its variables
+				String prefix = name.substring(0, name.length() - 1);
+				memory.keySet().removeIf(variable -> variable.startsWith(prefix));
+			} else if (value == null) {
+				memory.remove(name);
+			} else {
+				memory.put(name, value);
+			}
+		}, maxSize, expiry);
+	}
+
+	@Test
+	public void testGetParentLists() {
+		assertEquals(Collections.emptyList(), PagedVariables.getParentLists("a"));
+		assertEquals(Collections.emptyList(), PagedVariables.getParentLists("a::*"));
+		assertEquals(Arrays.asList("a::*", "a::b::*"), PagedVariables.getParentLists("a::b::c"));
+		assertEquals(Arrays.asList("a::*", "a::b::*"), PagedVariables.getParentLists("a::b::c::*"));
+	}
+
+	@Test
+	public void testPageIn() {
+		storage.put("a::1", 1);
+		storage.put("a::2", 2);
+		storage.put("b", 3);
+		PagedVariables paged = paged(100, PagedVariables.DEFAULT_EXPIRY);
+
+		paged.pageIn("a::*");
+		assertEquals(2, memory.size());
+		// Variables in a loaded list are not loaded again
+		paged.pageIn("a::1");
+		paged.pageIn("a::*");
+		assertEquals(Collections.singletonList("a::*"), loads);
+
+		paged.pageIn("b");
+		assertEquals(3, memory.get("b"));
+		assertEquals(2, paged.size());
+	}
+
+	@Test
+	public void testChangesAreNotOverwritten() {
+		storage.put("a::1", 1);
+		storage.put("a::2", 2);
+		PagedVariables paged = paged(100, PagedVariables.DEFAULT_EXPIRY);
+
+		// Changed, but not saved yet
+		paged.changing("a::1");
+		memory.put("a::1", 10);
+		paged.pageIn("a::*");
+		assertEquals(10, memory.get("a::1"));
+		assertEquals(2, memory.get("a::2"));
+
+		paged.pageIn("a::1");
+		assertEquals(Collections.singletonList("a::*"), loads);
+	}
+
+	@Test(timeout = 10_000)
+	public void testLoadingWaitsForOtherThread() throws InterruptedException {
+		storage.put("a", 1);
+		storage.put("b", 2);
+		PagedVariables[] paged = new PagedVariables[1];
+		Map<String, Object> memory = new ConcurrentHashMap<>();
+		paged[0] = new PagedVariables(name -> {
+			if (name.equals("a")) {
+				// Like deserializing on the main thread while it accesses another variable
+				Thread thread = new Thread(() -> {
+					paged[0].pageIn("b");
+					paged[0].changing("a");
+					memory.put("a", 10);
+				});
+				thread.start();
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			return Map.of(name, storage.get(name));
+		}, memory::put, 100, PagedVariables.DEFAULT_EXPIRY);
+
+		paged[0].pageIn("a");
+		assertEquals(2, memory.get("b"));
+		// The change made while loading is newer than the loaded value
+		assertEquals(10, memory.get("a"));
+		assertEquals(2, paged[0].size());
+	}
+
+	@Test
+	public void testEviction() {
+		for (int i = 0; i < 10; i++)
+			storage.put("v" + i, i);
+		storage.put("list::1", 1);
+		PagedVariables paged = paged(5, 60_000);
+
+		for (int i = 0; i < 10; i++)
+			paged.pageIn("v" + i);
+		paged.pageIn("list::*");
+		// Recently used variables are never evicted
+		assertEquals(11, paged.size());
+
+		long later = System.currentTimeMillis() + PagedVariables.MIN_RESIDENCY;
+		paged.evict(later);
+		assertEquals(5, paged.size());
+		assertFalse(memory.containsKey("v0"));
+		assertTrue(memory.containsKey("v9"));
+		assertTrue(memory.containsKey("list::1"));
+
+		// Expired variables are evicted even if there are only a few of them
+		paged.evict(later + 60_000);
+		assertEquals(0, paged.size());
+		assertTrue(memory.isEmpty());
+
+		paged.pageIn("v0");
+		assertEquals(0, memory.get("v0"));
+	}
+
+	@Test
+	public void testEvictingVariableUnloadsLists() {
+		storage.put("a::1", 1);
+		storage.put("a::2", 2);
+		PagedVariables paged = paged(1, 60_000);
+
+		// a::1 is loaded before the list, which is only complete while a::1 is loaded
+		paged.changing("a::1");
+		memory.put("a::1", 10);
+		paged.saved("a::1");
+		paged.pageIn("a::*");
+		assertEquals(2, paged.size());
+
+		paged.evict(System.currentTimeMillis() + PagedVariables.MIN_RESIDENCY);
+		assertEquals(0, paged.size());
+		assertTrue(memory.isEmpty());
+	}
+
+	@Test
+	public void testUnsavedChangesAreNotEvicted() {
+		storage.put("a::1", 1);
+		storage.put("b", 2);
+		PagedVariables paged = paged(1, 60_000);
+
+		paged.changing("a::1");
+		memory.put("a::1", 10);
+		paged.pageIn("a::*");
+		paged.pageIn("b");
+		paged.evict(System.currentTimeMillis() + 60_000);
+		// The storage would still load the old value of a::1, and the list containing it
+		assertEquals(2, paged.size());
+		assertEquals(10, memory.get("a::1"));
+		assertFalse(memory.containsKey("b"));
+
+		paged.saved("a::1");
+		paged.evict(System.currentTimeMillis() + 60_000);
+		assertEquals(0, paged.size());
+		assertTrue(memory.isEmpty());
+	}
+
+}
@@ -0,0 +1,191 @@
+package ch.njol.skript.variables;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SQLChangeJournalTest {
+
+	private static final String CREATE_QUERY = "CREATE TABLE IF NOT EXISTS variables21_changes (" +
+			"seq INTEGER PRIMARY KEY AUTOINCREMENT, name VARCHAR(380) NOT NULL, type VARCHAR(50), " +
+			"value BLOB(10000), update_guid CHAR(36) NOT NULL, changed_at BIGINT NOT NULL)";
+
+	private static Connection connect(File file) throws SQLException {
+		Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(CREATE_QUERY);
+		}
+		connection.setAutoCommit(false);
+		return connection;
+	}
+
+	private static Map<String, SerializedVariable.Value> changes(Object... namesAndValues) {
+		Map<String, SerializedVariable.Value> changes = new LinkedHashMap<>();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			Byte value = (Byte) namesAndValues[i + 1];
+			changes.put((String) namesAndValues[i], value == null ? null : new SerializedVariable.Value("byte", new byte[] {value}));
+		}
+		return changes;
+	}
+
+	@Test
+	public void testReplicationBetweenServers() throws IOException, SQLException {
+		File file = File.createTempFile("variables", ".db");
+		file.deleteOnExit();
+
+		Connection first, second;
+		try {
+			first = connect(file);
+		} catch (SQLException e) {
+			Assume.assumeNoException("The SQLite driver is not available", e);
+			return;
+		}
+		second = connect(file);
+
+		try (Connection ignored = first; Connection ignored2 = second) {
+			SQLChangeJournal firstJournal = new SQLChangeJournal("variables21_changes", "first");
+			SQLChangeJournal secondJournal = new SQLChangeJournal("variables21_changes", "second");
+			firstJournal.prepare(first);
+			secondJournal.prepare(second);
+
+			// Changes made before starting are part of the loaded variables
+			firstJournal.append(changes("old", (byte) 0));
+			first.commit();
+			firstJournal.start();
+			secondJournal.start();
+			second.commit();
+
+			firstJournal.append(changes("a", (byte) 1, "b", (byte) 2));
+			first.commit();
+			secondJournal.append(changes("c", (byte) 3));
+			second.commit();
+
+			long now = System.currentTimeMillis();
+			List<SQLChangeJournal.Change> received = secondJournal.poll(now);
+			second.commit();
+			assertEquals(2, received.size());
+			assertEquals("a", received.get(0).name);
+			assertArrayEquals(new byte[] {1}, received.get(0).value.data);
+			assertEquals("b", received.get(1).name);
+			assertEquals(2, secondJournal.getReplicatedChanges());
+			assertTrue(secondJournal.getLastLag() >= 0);
+
+			received = firstJournal.poll(now);
+			first.commit();
+			assertEquals(1, received.size());
+			assertEquals("c", received.get(0).name);
+
+			// Nothing new
+			assertTrue(secondJournal.poll(now).isEmpty());
+			second.commit();
+
+			// Deletions are replicated
+			firstJournal.append(changes("a", null));
+			first.commit();
+			received = secondJournal.poll(now);
+			second.commit();
+			assertEquals(1, received.size());
+			assertNull(received.get(0).value);
+
+			// Changes are kept until the second truncation, and the newest change is always kept
+			assertEquals(0, firstJournal.truncate());
+			first.commit();
+			assertEquals(4, firstJournal.truncate());
+			first.commit();
+			try (Statement statement = first.createStatement();
+				 ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM variables21_changes")) {
+				assertTrue(result.next());
+				assertEquals(1, result.getInt(1));
+			}
+		}
+	}
+
+	@Test
+	public void testOutOfOrderCommits() throws IOException, SQLException {
+		File file = File.createTempFile("variables", ".db");
+		file.deleteOnExit();
+
+		Connection connection;
+		try {
+			connection = connect(file);
+		} catch (SQLException e) {
+			Assume.assumeNoException("The SQLite driver is not available", e);
+			return;
+		}
+
+		try (Connection ignored = connection; Statement statement = connection.createStatement()) {
+			SQLChangeJournal journal = new SQLChangeJournal("variables21_changes", "reader");
+			journal.prepare(connection);
+			journal.start();
+
+			// Change 1 is committed after change 2
+			statement.execute("INSERT INTO variables21_changes VALUES (2, 'x', 'byte', X'02', 'writer', 0)");
+			long now = System.currentTimeMillis();
+			List<SQLChangeJournal.Change> received = journal.poll(now);
+			assertEquals(1, received.size());
+			assertArrayEquals(new byte[] {2}, received.get(0).value.data);
+
+			// The older change of the same variable must not overwrite the newer one
+			statement.execute("INSERT INTO variables21_changes VALUES (1, 'x', 'byte', X'01', 'writer', 0)");
+			statement.execute("INSERT INTO variables21_changes VALUES (3, 'y', 'byte', X'03', 'writer', 0)");
+			received = journal.poll(now);
+			assertEquals(1, received.size());
+			assertEquals("y", received.get(0).name);
+
+			// A gap that is never filled is skipped after the timeout
+			statement.execute("INSERT INTO variables21_changes VALUES (5, 'z', 'byte', X'05', 'writer', 0)");
+			assertEquals(1, journal.poll(now).size());
+			assertTrue(journal.poll(now + SQLChangeJournal.GAP_TIMEOUT).isEmpty());
+			statement.execute("INSERT INTO variables21_changes VALUES (4, 'z', 'byte', X'04', 'writer', 0)");
+			assertEquals(Collections.emptyList(), journal.poll(now + SQLChangeJournal.GAP_TIMEOUT));
+		}
+	}
+
+	@Test
+	public void testPagingPastGap() throws IOException, SQLException {
+		File file = File.createTempFile("variables", ".db");
+		file.deleteOnExit();
+
+		Connection connection;
+		try {
+			connection = connect(file);
+		} catch (SQLException e) {
+			Assume.assumeNoException("The SQLite driver is not available", e);
+			return;
+		}
+
+		try (Connection ignored = connection; Statement statement = connection.createStatement()) {
+			SQLChangeJournal journal = new SQLChangeJournal("variables21_changes", "reader");
+			journal.prepare(connection);
+			journal.start();
+
+			// More seen changes than fit in one page sit behind the uncommitted change 1
+			int count = SQLChangeJournal.PAGE_SIZE + 1;
+			for (int i = 2; i < count + 2; i++)
+				statement.execute("INSERT INTO variables21_changes VALUES (" + i + ", 'x" + i + "', 'byte', X'01', 'writer', 0)");
+			long now = System.currentTimeMillis();
+			assertEquals(SQLChangeJournal.PAGE_SIZE, journal.poll(now).size());
+			assertEquals(1, journal.poll(now).size());
+
+			// New changes are still read before the gap times out
+			statement.execute("INSERT INTO variables21_changes VALUES (" + (count + 2) + ", 'y', 'byte', X'02', 'writer', 0)");
+			List<SQLChangeJournal.Change> received = journal.poll(now);
+			assertEquals(1, received.size());
+			assertEquals("y", received.get(0).name);
+		}
+	}
+
+}
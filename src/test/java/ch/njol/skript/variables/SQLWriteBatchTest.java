@@ -0,0 +1,141 @@
+package ch.njol.skript.variables;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SQLWriteBatchTest {
+
+	@Test
+	public void testCoalescing() {
+		SQLWriteBatch batch = new SQLWriteBatch();
+		batch.add("a", "long", new byte[] {1});
+		batch.add("b", "long", new byte[] {2});
+		batch.add("a", "long", new byte[] {3});
+		batch.add("b", null, null);
+		assertEquals(2, batch.size());
+
+		Map<String, SerializedVariable.Value> changes = batch.drain();
+		assertEquals(0, batch.size());
+		assertEquals(Arrays.asList("a", "b"), Arrays.asList(changes.keySet().toArray()));
+		assertArrayEquals(new byte[] {3}, changes.get("a").data);
+		assertTrue(changes.containsKey("b"));
+		assertNull(changes.get("b"));
+	}
+
+	@Test
+	public void testListDeletion() {
+		SQLWriteBatch batch = new SQLWriteBatch();
+		batch.add("list::1", "long", new byte[] {1});
+		batch.add("list::sub::1", "long", new byte[] {2});
+		batch.add("other", "long", new byte[] {3});
+		batch.add("list::*", null, null);
+		batch.add("list::2", "long", new byte[] {4});
+
+		Map<String, SerializedVariable.Value> changes = batch.drain();
+		assertEquals(Arrays.asList("other", "list::*", "list::2"), Arrays.asList(changes.keySet().toArray()));
+	}
+
+	@Test
+	public void testApplyTo() {
+		SQLWriteBatch batch = new SQLWriteBatch();
+		batch.add("list::1", null, null);
+		batch.add("list::2", "long", new byte[] {2});
+		batch.add("list::sub::*", null, null);
+		batch.add("other", "long", new byte[] {3});
+
+		Map<String, SerializedVariable.Value> page = new HashMap<>();
+		page.put("list::1", new SerializedVariable.Value("long", new byte[] {1}));
+		page.put("list::sub::1", new SerializedVariable.Value("long", new byte[] {1}));
+		page.put("list::3", new SerializedVariable.Value("long", new byte[] {3}));
+		batch.applyTo("list::*", page);
+		assertEquals(Set.of("list::2", "list::3"), page.keySet());
+		assertArrayEquals(new byte[] {2}, page.get("list::2").data);
+
+		page = new HashMap<>();
+		page.put("list::sub::2", new SerializedVariable.Value("long", new byte[] {1}));
+		batch.applyTo("list::sub::2", page);
+		assertTrue(page.isEmpty());
+
+		// Changes of other variables are not included
+		batch.applyTo("list::4", page);
+		assertTrue(page.isEmpty());
+		batch.applyTo("other", page);
+		assertEquals(Set.of("other"), page.keySet());
+	}
+
+	@Test
+	public void testExecuteWithSQLite() throws SQLException {
+		Connection connection;
+		try {
+			connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+		} catch (SQLException e) {
+			Assume.assumeNoException("The SQLite driver is not available", e);
+			return;
+		}
+
+		try (Connection ignored = connection; Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE variables21 (name VARCHAR(380) NOT NULL PRIMARY KEY, type VARCHAR(50), " +
+					"value BLOB(10000), update_guid CHAR(36) NOT NULL)");
+			connection.setAutoCommit(false);
+
+			PreparedStatement writeQuery = connection.prepareStatement(
+					"REPLACE INTO variables21 (name, type, value, update_guid) VALUES (?, ?, ?, ?)");
+			PreparedStatement deleteQuery = connection.prepareStatement("DELETE FROM variables21 WHERE name = ?");
+			PreparedStatement deleteListQuery = connection.prepareStatement("DELETE FROM variables21 WHERE name GLOB ?");
+
+			SQLWriteBatch batch = new SQLWriteBatch();
+			for (int i = 0; i < 1000; i++)
+				batch.add("var::" + (i % 100), "long", new byte[] {(byte) i});
+			batch.add("var::0", null, null);
+			batch.add("other::1", "long", new byte[] {1});
+			batch.add("Other::1", "long", new byte[] {1});
+			batch.add("o?her::1", "long", new byte[] {1});
+			SQLWriteBatch.execute(batch.drain(), writeQuery, deleteQuery, deleteListQuery, SQLWriteBatch::globPattern, "guid");
+			connection.commit();
+
+			// Only the variables of the deleted list are deleted, wildcards in its name are matched literally
+			batch.add("o?her::*", null, null);
+			SQLWriteBatch.execute(batch.drain(), writeQuery, deleteQuery, deleteListQuery, SQLWriteBatch::globPattern, "guid");
+			connection.commit();
+			try (ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM variables21")) {
+				assertTrue(result.next());
+				assertEquals(101, result.getInt(1));
+			}
+
+			// Names are matched case-sensitively
+			batch.add("other::*", null, null);
+			SQLWriteBatch.execute(batch.drain(), writeQuery, deleteQuery, deleteListQuery, SQLWriteBatch::globPattern, "guid");
+			connection.commit();
+			try (ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM variables21")) {
+				assertTrue(result.next());
+				assertEquals(100, result.getInt(1));
+			}
+			try (ResultSet result = statement.executeQuery("SELECT value FROM variables21 WHERE name = 'var::42'")) {
+				assertTrue(result.next());
+				assertArrayEquals(new byte[] {(byte) 942}, result.getBytes(1));
+			}
+		}
+	}
+
+	@Test
+	public void testListPatterns() {
+		assertEquals("a::%", SQLWriteBatch.likePattern("a::"));
+		assertEquals("a!%b!_c!!::%", SQLWriteBatch.likePattern("a%b_c!::"));
+		assertEquals("a::*", SQLWriteBatch.globPattern("a::"));
+		assertEquals("a[*]b[?]c[[]]::*", SQLWriteBatch.globPattern("a*b?c[]::"));
+	}
+
+}
@@ -0,0 +1,175 @@
+package ch.njol.skript.variables;
+
+import ch.njol.skript.util.Date;
+import ch.njol.skript.util.Timespan;
+import ch.njol.yggdrasil.Tag;
+import ch.njol.yggdrasil.Yggdrasil;
+import ch.njol.yggdrasil.YggdrasilOutputStream;
+import org.bukkit.Location;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class VariableCodecsTest {
+
+	/**
+	 * The length of the header that Yggdrasil writes before every value, see {@link ch.njol.skript.registrations.Classes#serialize(Object)}.
+	 */
+	private static final int YGGDRASIL_HEADER = 6;
+
+	/**
+	 * Values like the ones a typical server stores in its variables,
+	 * e.g. balances, kill counts, flags, names and last seen dates of players.
+	 */
+	private static List<Object> dump(int size) {
+		Random random = new Random(42);
+		List<Object> values = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			switch (i % 10) {
+				case 0 -> values.add(Math.round(random.nextDouble() * 100_000) / 100.0);
+				case 1 -> values.add((long) random.nextInt(1000));
+				case 2 -> values.add(random.nextBoolean());
+				case 3 -> values.add("Player" + random.nextInt(100_000));
+				case 4 -> values.add(new UUID(random.nextLong(), random.nextLong()));
+				case 5 -> values.add(new Timespan(random.nextInt(24 * 60 * 60) * 1000L));
+				case 6 -> values.add(new Date(1_700_000_000_000L + random.nextInt(Integer.MAX_VALUE)));
+				case 7 -> values.add(new Location(null, random.nextInt(2000) - 1000.5, random.nextInt(256), random.nextInt(2000) + 0.5,
+					random.nextFloat() * 360, random.nextFloat() * 180 - 90));
+				case 8 -> values.add(random.nextLong());
+				case 9 -> values.add(random.nextInt());
+			}
+		}
+		return values;
+	}
+
+	private static String getCodeName(Object value) {
+		if (value instanceof Double)
+			return "double";
+		if (value instanceof Long)
+			return "long";
+		if (value instanceof Integer)
+			return "integer";
+		if (value instanceof Boolean)
+			return "boolean";
+		if (value instanceof String)
+			return "string";
+		if (value instanceof UUID)
+			return "uuid";
+		if (value instanceof Timespan)
+			return "timespan";
+		if (value instanceof Date)
+			return "date";
+		if (value instanceof Location)
+			return "location";
+		throw new AssertionError(value.getClass());
+	}
+
+	/**
+	 * @return the size of the value as it would be stored with Yggdrasil,
+	 * i.e. without the header, type tag and class id.
+	 */
+	private static int getYggdrasilSize(Yggdrasil yggdrasil, Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (YggdrasilOutputStream out = yggdrasil.newOutputStream(bytes)) {
+			out.writeObject(value);
+		}
+		int start = YGGDRASIL_HEADER + 1;
+		if (Tag.getType(value.getClass()) == Tag.T_OBJECT)
+			start += 1 + yggdrasil.getID(value.getClass()).getBytes(StandardCharsets.UTF_8).length;
+		return bytes.size() - start;
+	}
+
+	@Test
+	public void testVarLong() throws IOException {
+		long[] values = {0, 1, -1, 63, -64, 64, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+		for (long value : values) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			VariableCodecs.writeVarLong(out, value);
+			assertEquals(value, VariableCodecs.readVarLong(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+			if (value >= -64 && value <= 63)
+				assertEquals(1, bytes.size());
+		}
+	}
+
+	@Test
+	public void testRoundTrip() {
+		VariableCodecs codecs = VariableCodecs.withDefaultCodecs();
+		for (Object value : dump(10_000)) {
+			SerializedVariable.Value encoded = codecs.encode(getCodeName(value), value);
+			assertNotNull(value.toString(), encoded);
+			assertTrue(VariableCodecs.isEncoded(encoded.type));
+			assertEquals(getCodeName(value), VariableCodecs.getCodeName(encoded.type));
+			assertEquals(value, codecs.decode(encoded.type, encoded.data));
+		}
+	}
+
+	@Test
+	public void testInvalidData() {
+		VariableCodecs codecs = VariableCodecs.withDefaultCodecs();
+		// Values of other classes are left to Yggdrasil
+		assertNull(codecs.encode("long", 1));
+		assertNull(codecs.encode("object", 1L));
+
+		assertNull(codecs.decode("long#1", new byte[0]));
+		assertNull(codecs.decode("boolean#1", new byte[] {1, 0}));
+		assertNull(codecs.decode("integer#1", codecs.encode("long", Long.MAX_VALUE).data));
+		assertNull(codecs.decode("long#99", new byte[] {0}));
+	}
+
+	@Test
+	public void testVersions() {
+		VariableCodecs codecs = VariableCodecs.withDefaultCodecs();
+		SerializedVariable.Value old = codecs.encode("string", "text");
+		assertEquals("string#1", old.type);
+
+		codecs.register("string", String.class, 2, new VariableCodecs.Codec<>() {
+			@Override
+			public void encode(String value, DataOutputStream out) throws IOException {
+				out.writeUTF(value);
+			}
+
+			@Override
+			public String decode(DataInputStream in) throws IOException {
+				return in.readUTF();
+			}
+		});
+		SerializedVariable.Value current = codecs.encode("string", "text");
+		assertEquals("string#2", current.type);
+		assertEquals("text", codecs.decode(current.type, current.data));
+		// Values encoded with older versions can still be loaded
+		assertEquals("text", codecs.decode(old.type, old.data));
+
+		assertThrows(IllegalArgumentException.class, () -> codecs.register("string", String.class, 2, null));
+		assertThrows(IllegalArgumentException.class, () -> codecs.register("string", String.class, 0, null));
+	}
+
+	@Test
+	public void testSize() throws IOException {
+		VariableCodecs codecs = VariableCodecs.withDefaultCodecs();
+		Yggdrasil yggdrasil = new Yggdrasil();
+		yggdrasil.registerSingleClass(Timespan.class, "Timespan");
+
+		List<Object> dump = dump(100_000);
+		dump.removeIf(value -> value instanceof Date || value instanceof Location); // need Skript's class resolvers
+
+		long encodedSize = 0, yggdrasilSize = 0;
+		for (Object value : dump)
+			encodedSize += codecs.encode(getCodeName(value), value).data.length;
+		for (Object value : dump)
+			yggdrasilSize += getYggdrasilSize(yggdrasil, value);
+		assertTrue(encodedSize < yggdrasilSize);
+	}
+
+}
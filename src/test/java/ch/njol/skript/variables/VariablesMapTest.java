@@ -0,0 +1,132 @@
+package ch.njol.skript.variables;
+
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VariablesMapTest {
+
+	private static final String[] NAMES = {
+		"a", "a::1", "a::2", "a::10", "a::b", "a::b::1", "a::b::c", "b", "b::x", "c::1::2::3"
+	};
+
+	@Test
+	public void testCompactMatchesDefault() {
+		VariablesMap regular = new VariablesMap();
+		VariablesMap compact = new VariablesMap(true);
+		Random random = new Random(42);
+
+		for (int i = 0; i < 5000; i++) {
+			String name = NAMES[random.nextInt(NAMES.length)];
+			int action = random.nextInt(4);
+			if (action == 0) {
+				// Delete a whole list
+				int separator = name.lastIndexOf("::");
+				String list = (separator == -1 ? name : name.substring(0, separator)) + "::*";
+				regular.setVariable(list, null);
+				compact.setVariable(list, null);
+			} else {
+				Object value = action == 1 ? null : i;
+				regular.setVariable(name, value);
+				compact.setVariable(name, value);
+			}
+
+			for (String check : NAMES)
+				assertEquals(check, regular.getVariable(check), compact.getVariable(check));
+			assertEquals(regular.treeMap, compact.treeMap);
+			assertEquals(regular.hashMap.size(), compact.size());
+			assertEquals(regular.size(), compact.size());
+		}
+
+		assertTrue(compact.hashMap.isEmpty());
+		assertEquals(regular.treeMap, compact.copy().treeMap);
+		assertEquals(regular.size(), compact.copy().size());
+	}
+
+	@Test
+	public void testSlotsMatchNames() {
+		// "a" has a slot before the map is created, "b" only afterwards, so the map stores "b" by its name
+		LocalVariableSlots slots = new LocalVariableSlots();
+		LocalVariableSlot slotA = slots.register("a");
+		VariablesMap regular = new VariablesMap();
+		VariablesMap slotted = VariablesMap.forLocals(slots);
+		LocalVariableSlot slotB = slots.register("b");
+		Random random = new Random(42);
+
+		for (int i = 0; i < 5000; i++) {
+			String name = NAMES[random.nextInt(NAMES.length)];
+			int action = random.nextInt(5);
+			if (action == 0) {
+				int separator = name.lastIndexOf("::");
+				String list = (separator == -1 ? name : name.substring(0, separator)) + "::*";
+				regular.setVariable(list, null);
+				slotted.setVariable(list, null);
+			} else if (action == 1 && name.equals("a")) {
+				regular.setVariable(name, i);
+				slotted.setSlot(slotA, i);
+			} else {
+				Object value = action == 2 ? null : i;
+				regular.setVariable(name, value);
+				slotted.setVariable(name, value);
+			}
+
+			for (String check : NAMES) {
+				assertEquals(check, regular.getVariable(check), slotted.getVariable(check));
+				String list = check + "::*";
+				assertEquals(list, withoutOwnValue(regular.getVariable(list)), withoutOwnValue(slotted.getVariable(list)));
+			}
+			assertEquals(regular.getVariable("a"), slotted.getSlot(slotA));
+			assertEquals(regular.getVariable("b"), slotted.getSlot(slotB));
+		}
+
+		VariablesMap copy = slotted.copy();
+		for (String check : NAMES)
+			assertEquals(check, slotted.getVariable(check), copy.getVariable(check));
+		copy.setSlot(slotA, "copy");
+		assertNotEquals("copy", slotted.getSlot(slotA));
+	}
+
+	@Test
+	public void testSlotsOfOtherTriggers() {
+		LocalVariableSlots slots = new LocalVariableSlots();
+		LocalVariableSlots otherSlots = new LocalVariableSlots();
+		LocalVariableSlot a = slots.register("a");
+		LocalVariableSlot otherA = otherSlots.register("a");
+		LocalVariableSlot otherB = otherSlots.register("b");
+
+		// like a command argument, which is set by its name before the trigger runs
+		VariablesMap map = new VariablesMap();
+		map.setVariable("a", 1);
+		map.setVariable("a::1", 2);
+		assertEquals(1, map.getSlot(a));
+		assertEquals(Map.of("1", 2), map.getVariable("a::*"));
+		map.setSlot(a, 3);
+		assertEquals(3, map.getVariable("a"));
+
+		// the variables are still found by name with the slots of another trigger
+		assertEquals(3, map.getSlot(otherA));
+		map.setSlot(otherB, 4);
+		assertEquals(4, map.getVariable("b"));
+		map.setSlot(otherA, 5);
+		assertEquals(5, map.getSlot(a));
+		assertEquals(5, map.copy().getSlot(otherA));
+	}
+
+	/**
+	 * A list variable without the value of the variable with the name of the list,
+	 * which lists don't contain if that variable is stored in a slot.
+	 */
+	private static @Nullable Map<?, ?> withoutOwnValue(@Nullable Object list) {
+		if (list == null)
+			return null;
+		Map<?, ?> copy = new HashMap<>((Map<?, ?>) list);
+		copy.remove(null);
+		return copy;
+	}
+
+}
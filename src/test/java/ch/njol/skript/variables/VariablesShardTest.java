@@ -0,0 +1,132 @@
+package ch.njol.skript.variables;
+
+import org.junit.Test;
+import org.skriptlang.skript.util.IndexTrackingTreeMap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class VariablesShardTest {
+
+	@Test
+	public void testIndexOf() {
+		int list = VariablesShard.indexOf("list::*", 16);
+		assertEquals(list, VariablesShard.indexOf("list", 16));
+		assertEquals(list, VariablesShard.indexOf("list::1", 16));
+		assertEquals(list, VariablesShard.indexOf("list::a::b", 16));
+		for (int i = 0; i < 1000; i++) {
+			int index = VariablesShard.indexOf("var" + i + "::x", 16);
+			assertTrue(index >= 0 && index < 16);
+		}
+	}
+
+	@Test
+	public void testPendingChanges() throws InterruptedException {
+		AtomicInteger saved = new AtomicInteger();
+		VariablesShard shard = new VariablesShard((name, value) -> saved.incrementAndGet());
+		shard.setVariable("a::1", 1);
+		assertEquals(1, shard.getVariable("a::1"));
+		assertEquals(1, saved.get());
+
+		// Hold the read lock on another thread so writes have to be queued
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread reader = new Thread(() -> {
+			shard.lock.readLock().lock();
+			try {
+				locked.countDown();
+				release.await();
+			} catch (InterruptedException ignored) {
+			} finally {
+				shard.lock.readLock().unlock();
+			}
+		});
+		reader.start();
+		locked.await();
+
+		shard.setVariable("a::1", 2);
+		shard.setVariable("a::2", 3);
+		shard.setVariable("a::1", null);
+		assertNull(shard.getVariable("a::1"));
+		assertEquals(3, shard.getVariable("a::2"));
+		assertEquals(1, saved.get());
+
+		release.countDown();
+		reader.join();
+
+		shard.tryProcessChangeQueue();
+		assertEquals(4, saved.get());
+		assertNull(shard.getVariable("a::1"));
+		assertEquals(3, shard.getVariable("a::2"));
+		assertEquals(1, shard.size());
+	}
+
+	@Test
+	public void testContention() throws InterruptedException {
+		VariablesShard[] shards = new VariablesShard[16];
+		for (int i = 0; i < shards.length; i++)
+			shards[i] = new VariablesShard((name, value) -> {});
+
+		int threads = 8;
+		int writes = 2000;
+		AtomicInteger mismatches = new AtomicInteger();
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			String prefix = "thread" + t + "::";
+			workers.add(new Thread(() -> {
+				for (int i = 0; i < writes; i++) {
+					String name = prefix + i;
+					VariablesShard shard = shards[VariablesShard.indexOf(name, shards.length)];
+					shard.setVariable(name, i);
+					if (!Integer.valueOf(i).equals(shard.getVariable(name)))
+						mismatches.incrementAndGet();
+				}
+			}));
+		}
+		workers.forEach(Thread::start);
+		for (Thread worker : workers)
+			worker.join();
+
+		assertEquals(0, mismatches.get());
+
+		int size = 0;
+		for (VariablesShard shard : shards) {
+			shard.tryProcessChangeQueue();
+			size += shard.size();
+		}
+		assertEquals(threads * writes, size);
+	}
+
+	@Test
+	public void testListIterator() {
+		VariablesShard shard = new VariablesShard((name, value) -> { });
+		for (int i = 1; i <= 200; i++)
+			shard.setVariable("list::" + i, i);
+
+		//noinspection unchecked
+		Iterator<Entry<String, Object>> iterator = shard.listIterator((IndexTrackingTreeMap<Object>) shard.getVariable("list::*"));
+		List<Object> values = new ArrayList<>();
+		while (iterator.hasNext()) {
+			Entry<String, Object> entry = iterator.next();
+			values.add(entry.getValue());
+			// changes while iterating are not seen, whether their entries have been read already or not
+			if (values.size() == 10) {
+				shard.setVariable("list::5", -5);
+				shard.setVariable("list::150", null);
+				shard.setVariable("list::300", 300);
+			}
+		}
+
+		assertEquals(200, values.size());
+		assertEquals(5, values.get(4));
+		assertEquals(150, values.get(149));
+		assertEquals(200, values.get(199));
+	}
+
+}
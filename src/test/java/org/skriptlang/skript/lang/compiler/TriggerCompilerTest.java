@@ -0,0 +1,137 @@
+package org.skriptlang.skript.lang.compiler;
+
+import ch.njol.skript.lang.Condition;
+import ch.njol.skript.lang.Effect;
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.TriggerItem;
+import ch.njol.util.Kleenean;
+import org.bukkit.event.Event;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TriggerCompilerTest {
+
+	private final List<String> ran = new ArrayList<>();
+
+	private class Add extends Effect {
+
+		private final String name;
+
+		Add(String name) {
+			this.name = name;
+		}
+
+		@Override
+		protected void execute(Event event) {
+			ran.add(name);
+		}
+
+		@Override
+		public boolean init(Expression<?>[] expressions, int matchedPattern, Kleenean isDelayed, ParseResult parseResult) {
+			return true;
+		}
+
+		@Override
+		public String toString(@Nullable Event event, boolean debug) {
+			return "add " + name;
+		}
+
+	}
+
+	private class Check extends Condition {
+
+		private final boolean result;
+
+		Check(boolean result) {
+			this.result = result;
+		}
+
+		@Override
+		public boolean check(Event event) {
+			ran.add("check " + result);
+			return result;
+		}
+
+		@Override
+		public boolean init(Expression<?>[] expressions, int matchedPattern, Kleenean isDelayed, ParseResult parseResult) {
+			return true;
+		}
+
+		@Override
+		public String toString(@Nullable Event event, boolean debug) {
+			return "check " + result;
+		}
+
+	}
+
+	private class Jump extends Add {
+
+		Jump() {
+			super("jump");
+		}
+
+		@Override
+		protected @Nullable TriggerItem walk(Event event) {
+			execute(event);
+			return null;
+		}
+
+	}
+
+	private static TriggerItem link(List<TriggerItem> items) {
+		for (int i = 0; i < items.size() - 1; i++)
+			items.get(i).setNext(items.get(i + 1));
+		return items.get(0);
+	}
+
+	@Test
+	public void testCompilable() {
+		assertTrue(TriggerCompiler.isCompilable(new Add("a")));
+		assertTrue(TriggerCompiler.isCompilable(new Check(true)));
+		assertFalse(TriggerCompiler.isCompilable(new Jump()));
+	}
+
+	@Test
+	public void testRuns() {
+		List<TriggerItem> items = TriggerCompiler.compile(List.of(
+			new Add("a"), new Add("b"), new Check(true), new Add("c"),
+			new Jump(),
+			new Add("d")
+		));
+
+		assertEquals(3, items.size());
+		assertEquals(4, ((CompiledStatements) items.get(0)).getStatements().size());
+		assertTrue(items.get(1) instanceof Jump);
+		assertTrue(items.get(2) instanceof Add);
+
+		TriggerItem.walk(link(items), null);
+		assertEquals(List.of("a", "b", "check true", "c", "jump"), ran);
+	}
+
+	@Test
+	public void testFailingCondition() {
+		List<TriggerItem> items = TriggerCompiler.compile(List.of(new Add("a"), new Check(false), new Add("b")));
+		assertEquals(1, items.size());
+		assertTrue(items.get(0) instanceof CompiledStatements);
+
+		TriggerItem.walk(link(items), null);
+		assertEquals(List.of("a", "check false"), ran);
+	}
+
+	@Test
+	public void testLinked() {
+		Add last = new Add("b");
+		List<TriggerItem> items = TriggerCompiler.compile(List.of(new Add("a"), last));
+		Add next = new Add("c");
+		link(items).setNext(next);
+		// the statements can still be walked one by one, like while debugging
+		assertSame(next, last.getNext());
+	}
+
+}
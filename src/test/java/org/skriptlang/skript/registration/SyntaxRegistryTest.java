@@ -24,6 +24,16 @@ public class SyntaxRegistryTest {
 			.build();
 	}
 
+	private static SyntaxInfo<?> info(Priority priority, String... patterns) {
+		return SyntaxInfo.builder(SyntaxElement.class)
+			.supplier(() -> {
+				throw new UnsupportedOperationException();
+			})
+			.addPatterns(patterns)
+			.priority(priority)
+			.build();
+	}
+
 	private static Key<SyntaxInfo<?>> key() {
 		return key("TestKey");
 	}
@@ -127,4 +137,32 @@ public class SyntaxRegistryTest {
 		assertTrue(registry.elements().isEmpty());
 	}
 
+	@Test
+	public void testFirstWordIndex() {
+		final SyntaxRegistry registry = syntaxRegistry();
+		final SyntaxRegistry unmodifiable = registry.unmodifiableView();
+		final Priority priority = Priority.base();
+
+		final var set = info(Priority.before(priority), "set %objects% to %objects%");
+		final var isSet = info(priority, "%objects% (is|are) set");
+		final var delete = info(Priority.after(priority), "(delete|clear) %objects%", "reset %objects%");
+		registry.register(key(), delete);
+		registry.register(key(), isSet);
+		registry.register(key(), set);
+
+		// syntaxes starting with an expression are candidates for any input
+		assertArrayEquals(new SyntaxInfo[]{set, isSet}, registry.syntaxes(key(), "set {_x} to 1").toArray());
+		assertArrayEquals(new SyntaxInfo[]{isSet, delete}, registry.syntaxes(key(), "Clear {_x}").toArray());
+		assertArrayEquals(new SyntaxInfo[]{isSet, delete}, unmodifiable.syntaxes(key(), "reset {_x}").toArray());
+		assertArrayEquals(new SyntaxInfo[]{isSet}, registry.syntaxes(key(), "{_x} is set").toArray());
+
+		// the index is updated with the registrations
+		registry.unregister(key(), isSet);
+		assertArrayEquals(new SyntaxInfo[]{set}, registry.syntaxes(key(), "set {_x} to 1").toArray());
+		assertTrue(registry.syntaxes(key(), "{_x} is set").isEmpty());
+		final var setting = info(Priority.after(priority), "set[ting] %objects%");
+		registry.register(key(), setting);
+		assertArrayEquals(new SyntaxInfo[]{set, setting}, registry.syntaxes(key(), "set {_x} to 1").toArray());
+	}
+
 }
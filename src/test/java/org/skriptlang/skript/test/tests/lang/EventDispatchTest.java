@@ -0,0 +1,120 @@
+package org.skriptlang.skript.test.tests.lang;
+
+import ch.njol.skript.SkriptEventHandler;
+import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.SkriptEvent;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.test.runner.SkriptJUnitTest;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the triggers {@link SkriptEventHandler} dispatches events to are updated
+ * when triggers are registered or unregistered after the event was called.
+ */
+public class EventDispatchTest extends SkriptJUnitTest {
+
+	static {
+		setShutdownDelay(1);
+	}
+
+	@Test
+	public void testDispatchTablesAreInvalidated() {
+		CountingEvent high = new CountingEvent(EventPriority.HIGH);
+		CountingEvent normal = new CountingEvent(EventPriority.NORMAL);
+		Trigger highTrigger = new Trigger(null, "dispatch test", high, List.of());
+		Trigger normalTrigger = new Trigger(null, "dispatch test", normal, List.of());
+		try {
+			// registers a new listener for the event, after startup
+			SkriptEventHandler.registerBukkitEvent(highTrigger, DispatchEvent.class);
+			Bukkit.getPluginManager().callEvent(new DispatchEvent());
+			Bukkit.getPluginManager().callEvent(new SubDispatchEvent());
+			assertEquals(2, high.checks);
+			assertEquals(0, normal.checks);
+
+			// the subclass shares the handler list, so its trigger also runs for the superclass' listener
+			SkriptEventHandler.registerBukkitEvent(normalTrigger, SubDispatchEvent.class);
+			Bukkit.getPluginManager().callEvent(new SubDispatchEvent());
+			assertEquals(3, high.checks);
+			assertEquals(1, normal.checks);
+			Bukkit.getPluginManager().callEvent(new DispatchEvent());
+			assertEquals(4, high.checks);
+			assertEquals(1, normal.checks);
+
+			SkriptEventHandler.unregisterBukkitEvents(highTrigger);
+			Bukkit.getPluginManager().callEvent(new SubDispatchEvent());
+			assertEquals(4, high.checks);
+			assertEquals(2, normal.checks);
+
+			SkriptEventHandler.unregisterBukkitEvents(normalTrigger);
+			Bukkit.getPluginManager().callEvent(new SubDispatchEvent());
+			assertEquals(4, high.checks);
+			assertEquals(2, normal.checks);
+		} finally {
+			SkriptEventHandler.unregisterBukkitEvents(highTrigger);
+			SkriptEventHandler.unregisterBukkitEvents(normalTrigger);
+		}
+	}
+
+	public static class DispatchEvent extends Event {
+
+		private static final HandlerList handlers = new HandlerList();
+
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+
+	}
+
+	public static class SubDispatchEvent extends DispatchEvent { }
+
+	/**
+	 * Counts how often it is checked, and never lets its trigger run.
+	 */
+	private static class CountingEvent extends SkriptEvent {
+
+		private int checks;
+
+		CountingEvent(EventPriority priority) {
+			eventPriority = priority;
+			listeningBehavior = ListeningBehavior.ANY;
+		}
+
+		@Override
+		public boolean init(Literal<?>[] args, int matchedPattern, ParseResult parseResult) {
+			return true;
+		}
+
+		@Override
+		public boolean check(Event event) {
+			checks++;
+			return false;
+		}
+
+		@Override
+		public boolean canExecuteAsynchronously() {
+			return true;
+		}
+
+		@Override
+		public String toString(@Nullable Event event, boolean debug) {
+			return "counting event";
+		}
+
+	}
+
+}
@@ -2,7 +2,10 @@ package org.skriptlang.skript.util;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -300,4 +303,42 @@ public class IndexTrackingTreeMapTest {
 		assertEquals("huge", map.get("999999999999999999999999"));
 	}
 
+	@Test
+	public void snapshotIteratorIgnoresModifications() {
+		IndexTrackingTreeMap<String> map = newMap();
+		map.add("one");
+		map.add("two");
+		map.add("three");
+
+		Iterator<Map.Entry<String, String>> iterator = map.snapshotIterator();
+		assertEquals("one", iterator.next().getValue());
+
+		map.remove("2");
+		map.add("four");
+		map.add("five");
+		map.put("3", "THREE");
+
+		List<String> remaining = new ArrayList<>();
+		iterator.forEachRemaining(entry -> remaining.add(entry.getKey() + "=" + entry.getValue()));
+		assertEquals(List.of("2=two", "3=three"), remaining);
+		assertEquals("four", map.get("2"));
+		assertEquals("five", map.get("4"));
+	}
+
+	@Test
+	public void snapshotIteratorWithoutModifications() {
+		IndexTrackingTreeMap<String> map = newMap();
+		map.add("one");
+		map.add("two");
+
+		Iterator<Map.Entry<String, String>> iterator = map.snapshotIterator();
+		List<String> values = new ArrayList<>();
+		iterator.forEachRemaining(entry -> values.add(entry.getValue()));
+		assertEquals(List.of("one", "two"), values);
+
+		// Exhausted iterators are not affected by later changes
+		map.clear();
+		assertFalse(iterator.hasNext());
+	}
+
 }